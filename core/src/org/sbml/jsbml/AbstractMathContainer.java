@@ -53,6 +53,12 @@ MathContainer {
    */
   private ASTNode math;
 
+  /**
+   * The MathML of this element as it was read, kept until the {@link ASTNode}
+   * is needed, {@code null} if the math is parsed or not set.
+   */
+  private String unparsedMath;
+
   /**
    * Creates a MathContainer instance. By default, the math object is {@code null}.
    */
@@ -126,7 +132,7 @@ MathContainer {
    */
   @Override
   public boolean containsUndeclaredUnits() {
-    return isSetMath() ? math.containsUndeclaredUnits() : false;
+    return isSetMath() ? getMath().containsUndeclaredUnits() : false;
   }
 
   /* (non-Javadoc)
@@ -152,9 +158,10 @@ MathContainer {
     } else {
       index -= count;
     }
-    if (isSetMath()) {
+    // the unparsed math is not a child until it is parsed
+    if (math != null) {
       if (index == pos) {
-        return getMath();
+        return math;
       }
       pos++;
     }
@@ -168,7 +175,20 @@ MathContainer {
    */
   @Override
   public int getChildCount() {
-    return super.getChildCount() + (isSetMath() ? 1 : 0);
+    return super.getChildCount() + ((math != null) ? 1 : 0);
+  }
+
+  /* (non-Javadoc)
+   * @see org.sbml.jsbml.AbstractSBase#equals(java.lang.Object)
+   */
+  @Override
+  public boolean equals(Object object) {
+    if (object instanceof AbstractMathContainer) {
+      // the math is compared as a child of the tree
+      parseUnparsedMath();
+      ((AbstractMathContainer) object).parseUnparsedMath();
+    }
+    return super.equals(object);
   }
 
   /* (non-Javadoc)
@@ -179,10 +199,10 @@ MathContainer {
     UnitDefinition ud = null;
     if (isSetMath()) {
       Model m = getModel();
-      ASTNode expandedMath = math;
+      ASTNode expandedMath = getMath();
       
       if (m != null && m.getFunctionDefinitionCount() > 0) {
-        expandedMath = ExpandFunctionDefinitionConverter.expandFunctionDefinition(m, math);
+        expandedMath = ExpandFunctionDefinitionConverter.expandFunctionDefinition(m, expandedMath);
       }
       
       try {
@@ -262,6 +282,7 @@ MathContainer {
    */
   @Override
   public ASTNode getMath() {
+    parseUnparsedMath();
     return math;
   }
 
@@ -271,7 +292,7 @@ MathContainer {
   @Override
   public String getMathMLString() {
     if (isSetMath()) {
-      return math.toMathML();
+      return getMath().toMathML();
     }
     return "";
   }
@@ -281,7 +302,41 @@ MathContainer {
    */
   @Override
   public boolean isSetMath() {
-    return math != null;
+    return (math != null) || (unparsedMath != null);
+  }
+
+  /**
+   * Returns the MathML of this element as it was read from an SBML file, if
+   * it was not parsed yet.
+   * 
+   * @return the unparsed MathML of this element, or {@code null} if the math
+   *         is parsed or not set.
+   * @see #setUnparsedMath(String)
+   * @since 1.6
+   */
+  public String getUnparsedMath() {
+    return unparsedMath;
+  }
+
+  /* (non-Javadoc)
+   * @see org.sbml.jsbml.AbstractSBase#hashCode()
+   */
+  @Override
+  public int hashCode() {
+    parseUnparsedMath();
+    return super.hashCode();
+  }
+
+  /**
+   * Parses the unparsed MathML of this element, if any, into an
+   * {@link ASTNode}.
+   */
+  private void parseUnparsedMath() {
+    if (unparsedMath != null) {
+      String mathML = unparsedMath;
+      unparsedMath = null;
+      readUnparsedXML(mathML, "math");
+    }
   }
 
   /* (non-Javadoc)
@@ -320,6 +375,7 @@ MathContainer {
    */
   @Override
   public void setMath(ASTNode math) {
+    unparsedMath = null;
     ASTNode oldMath = this.math;
     this.math = math;
     if (oldMath != null) {
@@ -348,6 +404,26 @@ MathContainer {
     setMath(null);
   }
 
+  /**
+   * Sets the MathML of this element, as read from an SBML file, without
+   * parsing it. The MathML is parsed into an {@link ASTNode} the first time
+   * the math is needed, and is written back as it is if that never happens.
+   * <p>
+   * This is an internal method of JSBML, used by the SBML reader when lazy
+   * math parsing is enabled. The XML must be a complete {@code math} element,
+   * valid in the context of the namespaces declared on this element and its
+   * ancestors.
+   * 
+   * @param mathML the XML of the {@code math} element.
+   * @see org.sbml.jsbml.xml.stax.SBMLReader#setLazyMath(boolean)
+   * @since 1.6
+   */
+  public void setUnparsedMath(String mathML) {
+    math = null;
+    unparsedMath = mathML;
+    resetHashCode();
+  }
+
   /* (non-Javadoc)
    * @see org.sbml.jsbml.element.SBase#writeXMLAttributes()
    */
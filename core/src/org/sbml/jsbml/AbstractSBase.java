@@ -22,6 +22,7 @@ package org.sbml.jsbml;
 import static java.text.MessageFormat.format;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.List;
@@ -107,6 +108,34 @@ public abstract class AbstractSBase extends AbstractTreeNode implements SBase {
   private static ValidationContext      attributeValidator =
       new ValidationContext(1, 1);
 
+  /**
+   * Returned by {@link #getDeclaredNamespaces()} as long as no namespace is
+   * declared, so that elements without declared namespaces do not each hold
+   * an empty map.
+   */
+  private static final Map<String, String> NO_DECLARED_NAMESPACES =
+      Collections.unmodifiableMap(new TreeMap<String, String>());
+
+  /**
+   * Returned by {@link #getExtensionPackages()} as long as no extension is
+   * added.
+   */
+  private static final Map<String, SBasePlugin> NO_EXTENSIONS =
+      Collections.unmodifiableMap(new TreeMap<String, SBasePlugin>());
+
+  /**
+   * Reads the notes, annotations and math kept as unparsed XML, one reader
+   * per thread so that its parsers are only created once.
+   */
+  private static final ThreadLocal<org.sbml.jsbml.xml.stax.SBMLReader> unparsedXMLReader =
+      new ThreadLocal<org.sbml.jsbml.xml.stax.SBMLReader>() {
+
+    @Override
+    protected org.sbml.jsbml.xml.stax.SBMLReader initialValue() {
+      return new org.sbml.jsbml.xml.stax.SBMLReader();
+    }
+  };
+
 
   /**
    * Returns {@code true} if the level and version combination is a valid one,
@@ -157,9 +186,10 @@ public abstract class AbstractSBase extends AbstractTreeNode implements SBase {
   private Annotation                           annotation;
 
   /**
-   * Contains all the namespaces declared on the XML node with their prefixes.
+   * Contains all the namespaces declared on the XML node with their prefixes,
+   * {@code null} until a namespace is declared.
    */
-  private final Map<String, String>            declaredNamespaces;
+  private Map<String, String>                  declaredNamespaces;
 
   /**
    * the namespace which this SBase element belong to.
@@ -168,9 +198,10 @@ public abstract class AbstractSBase extends AbstractTreeNode implements SBase {
 
   /**
    * {@link Map} containing the SBML extension object of additional packages
-   * with the appropriate name space of the package.
+   * with the appropriate name space of the package, {@code null} until an
+   * extension is added.
    */
-  private final SortedMap<String, SBasePlugin> extensions;
+  private SortedMap<String, SBasePlugin>       extensions;
 
   /**
    * {@link Map} containing the ignored package objects.
@@ -220,6 +251,22 @@ public abstract class AbstractSBase extends AbstractTreeNode implements SBase {
    */
   private int                                  sboTerm;
 
+  /**
+   * The XML of the annotation of this element, as read from an SBML file,
+   * kept until the {@link Annotation} is needed for the first time.
+   * 
+   * @see #setUnparsedAnnotation(String)
+   */
+  private String                               unparsedAnnotation;
+
+  /**
+   * The XML of the notes of this element, as read from an SBML file, kept
+   * until the notes are needed for the first time.
+   * 
+   * @see #setUnparsedNotes(String)
+   */
+  private String                               unparsedNotes;
+
   /**
    * id of the SBML component (can be optional depending on the level and
    * version). Matches the id attribute of an element in a SBML file.
@@ -250,9 +297,9 @@ public abstract class AbstractSBase extends AbstractTreeNode implements SBase {
     notesXMLNode = null;
     lv = getLevelAndVersion();
     annotation = null;
-    extensions = new TreeMap<String, SBasePlugin>();
+    extensions = null;
     elementNamespace = null;
-    declaredNamespaces = new TreeMap<String, String>();
+    declaredNamespaces = null;
   }
 
 
@@ -298,12 +345,9 @@ public abstract class AbstractSBase extends AbstractTreeNode implements SBase {
   public AbstractSBase(SBase sb) {
     super(sb);
 
-    // extensions is needed when doing getChildCount()
-    extensions = new TreeMap<String, SBasePlugin>();
     elementNamespace = null;
     packageName = sb.getPackageName();
     packageVersion = sb.getPackageVersion();
-    declaredNamespaces = new TreeMap<String, String>();
 
     if (sb.isSetLevel()) {
       setLevel(sb.getLevel());
@@ -343,6 +387,7 @@ public abstract class AbstractSBase extends AbstractTreeNode implements SBase {
       elementNamespace = sb.getNamespace();
     }
     if (sb.getDeclaredNamespaces().size() > 0) {
+      declaredNamespaces = new TreeMap<String, String>();
       for (String namespacePrefix : sb.getDeclaredNamespaces().keySet()) {
         declaredNamespaces.put(new String(namespacePrefix),
           new String(sb.getDeclaredNamespaces().get(namespacePrefix)));
@@ -420,6 +465,9 @@ public abstract class AbstractSBase extends AbstractTreeNode implements SBase {
       }
       prefix = "xmlns:" + prefix;
     }
+    if (declaredNamespaces == null) {
+      declaredNamespaces = new TreeMap<String, String>();
+    }
     declaredNamespaces.put(prefix, namespace);
     firePropertyChange(TreeNodeChangeEvent.addDeclaredNamespace, null,
       namespace);
@@ -445,9 +493,12 @@ public abstract class AbstractSBase extends AbstractTreeNode implements SBase {
     if (packageParser != null) {
 
       // unset the previous plugin if needed
-      if (extensions.get(packageParser.getPackageName()) != null) {
+      if ((extensions != null) && (extensions.get(packageParser.getPackageName()) != null)) {
         unsetPlugin(packageParser.getPackageName());
       }
+      if (extensions == null) {
+        extensions = new TreeMap<String, SBasePlugin>();
+      }
 
       extensions.put(packageParser.getPackageName(), sbasePlugin);
 
@@ -521,6 +572,7 @@ public abstract class AbstractSBase extends AbstractTreeNode implements SBase {
   public void appendNotes(String notes) throws XMLStreamException {
     XMLNode addedNotes =
         XMLNode.convertStringToXMLNode(StringTools.toXMLNotesString(notes));
+    parseUnparsedNotes();
     if (isSetNotes()) {
       XMLNode oldNotes = notesXMLNode.clone();
       appendNotes(addedNotes);
@@ -545,6 +597,7 @@ public abstract class AbstractSBase extends AbstractTreeNode implements SBase {
     if (notes == null) {
       return;
     }
+    parseUnparsedNotes();
 
     String name = notes.getName();
 
@@ -1092,6 +1145,11 @@ public abstract class AbstractSBase extends AbstractTreeNode implements SBase {
    */
   @Override
   public boolean equals(Object object) {
+    if (object instanceof AbstractSBase) {
+      // the notes and annotation are compared as children of the tree
+      parseUnparsedNotesAndAnnotation();
+      ((AbstractSBase) object).parseUnparsedNotesAndAnnotation();
+    }
     boolean equals = super.equals(object);
 
     if (equals) {
@@ -1134,11 +1192,7 @@ public abstract class AbstractSBase extends AbstractTreeNode implements SBase {
           getNamespace() != null ? getNamespace().equals(sbase.getNamespace())
             : sbase.getNamespace() == null;
 
-      if (declaredNamespaces == null) {
-        if (sbase.getDeclaredNamespaces() != null) {
-          return false;
-        }
-      } else if (!declaredNamespaces.equals(sbase.getDeclaredNamespaces())) {
+      if (!getDeclaredNamespaces().equals(sbase.getDeclaredNamespaces())) {
         return false;
       }
 
@@ -1162,7 +1216,12 @@ public abstract class AbstractSBase extends AbstractTreeNode implements SBase {
    */
   @Override
   public List<CVTerm> filterCVTerms(CVTerm.Qualifier qualifier) {
-    return getAnnotation().filterCVTerms(qualifier);
+    parseUnparsedAnnotation();
+    if (!isSetAnnotation()) {
+      // no need to create an annotation to find nothing in it
+      return new ArrayList<CVTerm>();
+    }
+    return annotation.filterCVTerms(qualifier);
   }
 
 
@@ -1285,6 +1344,13 @@ public abstract class AbstractSBase extends AbstractTreeNode implements SBase {
     // registerChild((SBase) newValue);
     // }
 
+    // the list holding this element indexes it by id, see ListOf#get(String)
+    if ((parent instanceof ListOf<?>) && (propertyName.equals(TreeNodeChangeEvent.id)
+        || propertyName.equals(TreeNodeChangeEvent.name)
+        || propertyName.equals(TreeNodeChangeEvent.variable))) {
+      ((ListOf<?>) parent).keyChanged(this, oldValue);
+    }
+
     super.firePropertyChange(propertyName, oldValue, newValue);
   }
 
@@ -1304,6 +1370,7 @@ public abstract class AbstractSBase extends AbstractTreeNode implements SBase {
    */
   @Override
   public Annotation getAnnotation() {
+    parseUnparsedAnnotation();
     if (!isSetAnnotation()) {
       setAnnotation(new Annotation());
     }
@@ -1321,6 +1388,7 @@ public abstract class AbstractSBase extends AbstractTreeNode implements SBase {
   @Override
   public String getAnnotationString() throws XMLStreamException {
     // return isSetAnnotation() ? (new SBMLWriter()).writeAnnotation(this) : "";
+    parseUnparsedAnnotation();
     return isSetAnnotation() ? annotation.getFullAnnotationString() : "";
   }
 
@@ -1337,20 +1405,20 @@ public abstract class AbstractSBase extends AbstractTreeNode implements SBase {
         0));
     }
     int pos = 0;
-    if (isSetNotes()) {
+    if (notesXMLNode != null) {
       if (childIndex == pos) {
-        return getNotes();
+        return notesXMLNode;
       }
       pos++;
     }
-    if (isSetAnnotation()) {
+    if ((annotation != null) && annotation.isSetAnnotation()) {
       if (childIndex == pos) {
-        return getAnnotation();
+        return annotation;
       }
       pos++;
     }
 
-    if (extensions.size() > 0) {
+    if (extensions != null) {
       for (SBasePlugin sbasePlugin : extensions.values()) {
         int sbasePluginNbChildren = sbasePlugin.getChildCount();
 
@@ -1378,16 +1446,19 @@ public abstract class AbstractSBase extends AbstractTreeNode implements SBase {
    */
   @Override
   public int getChildCount() {
+    // unparsed notes and annotation are not part of the tree until they are needed
     int count = 0;
-    if (isSetNotes()) {
+    if (notesXMLNode != null) {
       count++;
     }
-    if (isSetAnnotation()) {
+    if ((annotation != null) && annotation.isSetAnnotation()) {
       count++;
     }
 
-    for (SBasePlugin sbasePlugin : extensions.values()) {
-      count += sbasePlugin.getChildCount();
+    if (extensions != null) {
+      for (SBasePlugin sbasePlugin : extensions.values()) {
+        count += sbasePlugin.getChildCount();
+      }
     }
 
     return count;
@@ -1400,6 +1471,7 @@ public abstract class AbstractSBase extends AbstractTreeNode implements SBase {
    */
   @Override
   public CVTerm getCVTerm(int index) {
+    parseUnparsedAnnotation();
     if (isSetAnnotation()) {
       return annotation.getCVTerm(index);
     }
@@ -1414,6 +1486,7 @@ public abstract class AbstractSBase extends AbstractTreeNode implements SBase {
    */
   @Override
   public int getCVTermCount() {
+    parseUnparsedAnnotation();
     return isSetAnnotation() ? annotation.getListOfCVTerms().size() : 0;
   }
 
@@ -1437,7 +1510,7 @@ public abstract class AbstractSBase extends AbstractTreeNode implements SBase {
     // Need to separate the list of name spaces from the extensions.
     // SBase object directly from the extension need to set their name space.
 
-    return declaredNamespaces;
+    return (declaredNamespaces != null) ? declaredNamespaces : NO_DECLARED_NAMESPACES;
   }
 
 
@@ -1494,7 +1567,7 @@ public abstract class AbstractSBase extends AbstractTreeNode implements SBase {
         ParserManager.getManager().getPackageParser(nameOrUri);
 
     if (packageParser != null) {
-      return extensions.get(packageParser.getPackageName());
+      return (extensions != null) ? extensions.get(packageParser.getPackageName()) : null;
     }
 
     throw new IllegalArgumentException(format(
@@ -1523,7 +1596,7 @@ public abstract class AbstractSBase extends AbstractTreeNode implements SBase {
    */
   @Override
   public Map<String, SBasePlugin> getExtensionPackages() {
-    return extensions;
+    return (extensions != null) ? extensions : NO_EXTENSIONS;
   }
 
 
@@ -1663,6 +1736,7 @@ public abstract class AbstractSBase extends AbstractTreeNode implements SBase {
    */
   @Override
   public XMLNode getNotes() {
+    parseUnparsedNotes();
     return notesXMLNode;
   }
 
@@ -1673,6 +1747,7 @@ public abstract class AbstractSBase extends AbstractTreeNode implements SBase {
    */
   @Override
   public String getNotesString() throws XMLStreamException {
+    parseUnparsedNotes();
     return notesXMLNode != null ? notesXMLNode.toXMLString() : "";
   }
 
@@ -1752,7 +1827,7 @@ public abstract class AbstractSBase extends AbstractTreeNode implements SBase {
         ParserManager.getManager().getPackageParser(nameOrUri);
 
     if (packageParser != null) {
-      SBasePlugin plugin = extensions.get(packageParser.getPackageName());
+      SBasePlugin plugin = (extensions != null) ? extensions.get(packageParser.getPackageName()) : null;
       if (plugin != null) {
         return plugin;
       } else {
@@ -1809,6 +1884,36 @@ public abstract class AbstractSBase extends AbstractTreeNode implements SBase {
   }
 
 
+  /**
+   * Returns the XML of the annotation of this element, if it was read by an
+   * SBML reader using lazy notes and annotation parsing and has not been
+   * parsed into an {@link Annotation} yet.
+   * 
+   * @return the unparsed annotation XML or {@code null} if the annotation is
+   *         not set or was already parsed.
+   * @see #setUnparsedAnnotation(String)
+   * @since 1.6
+   */
+  public String getUnparsedAnnotation() {
+    return unparsedAnnotation;
+  }
+
+
+  /**
+   * Returns the XML of the notes of this element, if they were read by an
+   * SBML reader using lazy notes and annotation parsing and have not been
+   * parsed into an {@link XMLNode} yet.
+   * 
+   * @return the unparsed notes XML or {@code null} if the notes are not set or
+   *         were already parsed.
+   * @see #setUnparsedNotes(String)
+   * @since 1.6
+   */
+  public String getUnparsedNotes() {
+    return unparsedNotes;
+  }
+
+
   /*
    * (non-Javadoc)
    * @see org.sbml.jsbml.SBase#getVersion()
@@ -1825,6 +1930,7 @@ public abstract class AbstractSBase extends AbstractTreeNode implements SBase {
   @Override
   public int hashCode() {
     final int prime = 773;
+    parseUnparsedNotesAndAnnotation();
     int hashCode = super.hashCode();
     if (isSetMetaId()) {
       hashCode += prime * getMetaId().hashCode();
@@ -1838,12 +1944,11 @@ public abstract class AbstractSBase extends AbstractTreeNode implements SBase {
     if (isSetSBOTerm()) {
       hashCode += prime * getSBOTerm();
     }
-    if (elementNamespace != null) {
-      hashCode = (prime * hashCode) + elementNamespace.hashCode();
-    }
-    if (declaredNamespaces != null) {
-      hashCode = (prime * hashCode) + declaredNamespaces.hashCode();
+    // the namespace is compared with getNamespace() by equals
+    if (getNamespace() != null) {
+      hashCode = (prime * hashCode) + getNamespace().hashCode();
     }
+    hashCode = (prime * hashCode) + getDeclaredNamespaces().hashCode();
 
     // Notes, Annotation and extension SBasePlugins are taken into account in
     // AbstractTreeNode.hashCode()
@@ -1910,7 +2015,7 @@ public abstract class AbstractSBase extends AbstractTreeNode implements SBase {
    */
   @Override
   public boolean isExtendedByOtherPackages() {
-    return !extensions.isEmpty();
+    return (extensions != null) && !extensions.isEmpty();
   }
 
 
@@ -1979,7 +2084,7 @@ public abstract class AbstractSBase extends AbstractTreeNode implements SBase {
    */
   @Override
   public boolean isSetAnnotation() {
-    return (annotation != null) && annotation.isSetAnnotation();
+    return (unparsedAnnotation != null) || ((annotation != null) && annotation.isSetAnnotation());
   }
 
 
@@ -1989,6 +2094,7 @@ public abstract class AbstractSBase extends AbstractTreeNode implements SBase {
    */
   @Override
   public boolean isSetHistory() {
+    parseUnparsedAnnotation();
     if (isSetAnnotation()) {
       return annotation.isSetHistory();
     }
@@ -2032,7 +2138,7 @@ public abstract class AbstractSBase extends AbstractTreeNode implements SBase {
    */
   @Override
   public boolean isSetNotes() {
-    return notesXMLNode != null;
+    return (notesXMLNode != null) || (unparsedNotes != null);
   }
 
 
@@ -2068,7 +2174,7 @@ public abstract class AbstractSBase extends AbstractTreeNode implements SBase {
         ParserManager.getManager().getPackageParser(nameOrUri);
 
     if (packageParser != null) {
-      return extensions.get(packageParser.getPackageName()) != null;
+      return (extensions != null) && (extensions.get(packageParser.getPackageName()) != null);
     }
 
     throw new IllegalArgumentException(format(
@@ -2129,6 +2235,93 @@ public abstract class AbstractSBase extends AbstractTreeNode implements SBase {
     }
   }
 
+
+  /**
+   * Parses the unparsed annotation of this element, if any, into an
+   * {@link Annotation}.
+   */
+  private void parseUnparsedAnnotation() {
+    if (unparsedAnnotation != null) {
+      String annotationXML = unparsedAnnotation;
+      unparsedAnnotation = null;
+      readUnparsedXML(annotationXML, "annotation");
+    }
+  }
+
+
+  /**
+   * Parses the unparsed notes of this element, if any, into an
+   * {@link XMLNode}.
+   */
+  private void parseUnparsedNotes() {
+    if (unparsedNotes != null) {
+      String notesXML = unparsedNotes;
+      unparsedNotes = null;
+      readUnparsedXML(notesXML, "notes");
+    }
+  }
+
+
+  /**
+   * Parses the unparsed notes and annotation of this element, if any.
+   */
+  private void parseUnparsedNotesAndAnnotation() {
+    parseUnparsedNotes();
+    parseUnparsedAnnotation();
+  }
+
+  /**
+   * Reads the notes, annotation or math of this element kept as unparsed
+   * XML. They were already part of the document when it was read, so they
+   * are attached without notifying the listeners of this element or of its
+   * {@link SBMLDocument}, the new nodes only get the listeners of this
+   * element afterwards.
+   * 
+   * @param xml
+   *        the unparsed XML.
+   * @param elementName
+   *        {@code notes}, {@code annotation} or {@code math}.
+   */
+  void readUnparsedXML(String xml, String elementName) {
+    org.sbml.jsbml.xml.stax.SBMLReader reader = unparsedXMLReader.get();
+    List<TreeNodeChangeListener> listeners = listOfListeners;
+    SBMLDocument doc = getSBMLDocument();
+
+    // a reader already reading the XML of another element is not shared
+    unparsedXMLReader.remove();
+    listOfListeners = null;
+    if (doc != null) {
+      doc.suspendChangeDispatcher();
+    }
+    try {
+      if (elementName.equals("math")) {
+        reader.readUnparsedMath(xml, (MathContainer) this);
+      } else {
+        reader.readNotesOrAnnotation(xml, this);
+      }
+    } catch (XMLStreamException exc) {
+      logger.error(format(resourceBundle.getString("AbstractSBase.parseUnparsedXML"),
+        elementName, getElementName(), exc.getLocalizedMessage()));
+    } finally {
+      if (doc != null) {
+        doc.resumeChangeDispatcher();
+      }
+      listOfListeners = listeners;
+      unparsedXMLReader.set(reader);
+    }
+
+    if ((listeners != null) && !listeners.isEmpty()) {
+      for (int i = 0; i < getChildCount(); i++) {
+        TreeNode child = getChildAt(i);
+
+        // the children read from the XML are the only ones without listeners
+        if ((child instanceof AbstractTreeNode) && (((AbstractTreeNode) child).getTreeNodeChangeListenerCount() == 0)) {
+          ((AbstractTreeNode) child).addAllChangeListeners(listeners, true);
+        }
+      }
+    }
+  }
+
   /*
    * (non-Javadoc)
    * @see org.sbml.jsbml.SBase#readAttribute(java.lang.String, java.lang.String,
@@ -2345,7 +2538,7 @@ public abstract class AbstractSBase extends AbstractTreeNode implements SBase {
       prefix = "xmlns:" + prefix;
     }
 
-    String removedNamespace = declaredNamespaces.remove(prefix);
+    String removedNamespace = (declaredNamespaces != null) ? declaredNamespaces.remove(prefix) : null;
 
     if (removedNamespace != null) {
       firePropertyChange(TreeNodeChangeEvent.addDeclaredNamespace, removedNamespace, null);
@@ -2360,7 +2553,7 @@ public abstract class AbstractSBase extends AbstractTreeNode implements SBase {
    */
   @Override
   public void removeDeclaredNamespaceByNamespace(String namespace) {
-    if (namespace == null) {
+    if ((namespace == null) || (declaredNamespaces == null)) {
       return;
     }
 
@@ -2472,6 +2665,7 @@ public abstract class AbstractSBase extends AbstractTreeNode implements SBase {
    */
   @Override
   public void setAnnotation(Annotation annotation) {
+    unparsedAnnotation = null;
     Annotation oldAnnotation = this.annotation;
     this.annotation = annotation;
     this.annotation.parent = this;
@@ -2733,6 +2927,7 @@ public abstract class AbstractSBase extends AbstractTreeNode implements SBase {
    */
   @Override
   public void setNotes(XMLNode notes) {
+    unparsedNotes = null;
     XMLNode oldNotes = notesXMLNode;
     notesXMLNode = notes;
     if (notesXMLNode != null) {
@@ -2864,6 +3059,50 @@ public abstract class AbstractSBase extends AbstractTreeNode implements SBase {
   }
 
 
+  /**
+   * Sets the XML of the annotation of this element, as read from an SBML
+   * file, without parsing it. The XML is parsed into an {@link Annotation}
+   * the first time the annotation or its {@link CVTerm}s are needed, and is
+   * written back as it is if that never happens.
+   * <p>
+   * This is an internal method of JSBML, used by the SBML reader when lazy
+   * notes and annotation parsing is enabled. The XML must be a complete
+   * {@code annotation} element, valid in the context of the namespaces
+   * declared on this element and its ancestors.
+   * 
+   * @param annotationXML the XML of the {@code annotation} element.
+   * @see org.sbml.jsbml.xml.stax.SBMLReader#setLazyNotesAndAnnotation(boolean)
+   * @since 1.6
+   */
+  public void setUnparsedAnnotation(String annotationXML) {
+    annotation = null;
+    unparsedAnnotation = annotationXML;
+    resetHashCode();
+  }
+
+
+  /**
+   * Sets the XML of the notes of this element, as read from an SBML file,
+   * without parsing it. The XML is parsed into an {@link XMLNode} the first
+   * time the notes are needed, and is written back as it is if that never
+   * happens.
+   * <p>
+   * This is an internal method of JSBML, used by the SBML reader when lazy
+   * notes and annotation parsing is enabled. The XML must be a complete
+   * {@code notes} element, valid in the context of the namespaces declared
+   * on this element and its ancestors.
+   * 
+   * @param notesXML the XML of the {@code notes} element.
+   * @see org.sbml.jsbml.xml.stax.SBMLReader#setLazyNotesAndAnnotation(boolean)
+   * @since 1.6
+   */
+  public void setUnparsedNotes(String notesXML) {
+    notesXMLNode = null;
+    unparsedNotes = notesXML;
+    resetHashCode();
+  }
+
+
   /*
    * (non-Javadoc)
    * @see org.sbml.jsbml.SBase#setThisAsParentSBMLObject(org.sbml.jsbml.SBase)
@@ -3027,6 +3266,7 @@ public abstract class AbstractSBase extends AbstractTreeNode implements SBase {
    */
   @Override
   public void unsetAnnotation() {
+    parseUnparsedAnnotation();
     if (isSetAnnotation()) {
       Annotation oldAnnotation = annotation;
       annotation = null;
@@ -3057,8 +3297,8 @@ public abstract class AbstractSBase extends AbstractTreeNode implements SBase {
 
     if (packageParser != null) {
 
-      SBasePlugin sbasePlugin =
-          extensions.remove(packageParser.getPackageName());
+      SBasePlugin sbasePlugin = (extensions != null)
+          ? extensions.remove(packageParser.getPackageName()) : null;
       firePropertyChange(TreeNodeChangeEvent.extension, sbasePlugin, null);
       return;
     }
@@ -3111,6 +3351,7 @@ public abstract class AbstractSBase extends AbstractTreeNode implements SBase {
    */
   @Override
   public void unsetNotes() {
+    parseUnparsedNotes();
     if (isSetNotes()) {
       XMLNode oldNotes = notesXMLNode;
       notesXMLNode = null;
@@ -3150,8 +3391,8 @@ public abstract class AbstractSBase extends AbstractTreeNode implements SBase {
        * This ensures that the metaid of this element is always defined if
        * there is an annotation present.
        */
-      if (isSetAnnotation() && getAnnotation().isSetRDFannotation()
-          && !isSetMetaId()) {
+      if (!isSetMetaId() && isSetAnnotation()
+          && getAnnotation().isSetRDFannotation()) {
         SBMLDocument doc = getSBMLDocument();
         if (doc != null) {
           setMetaId(doc.nextMetaId());
@@ -27,6 +27,7 @@ import java.lang.reflect.Method;
 import java.util.AbstractMap;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.List;
@@ -40,7 +41,9 @@ import java.util.TreeMap;
 import javax.swing.tree.TreeNode;
 
 import org.apache.log4j.Logger;
+import org.sbml.jsbml.math.ASTNode2;
 import org.sbml.jsbml.util.ResourceManager;
+import org.sbml.jsbml.util.TreeNodeChangeDispatcher;
 import org.sbml.jsbml.util.TreeNodeChangeEvent;
 import org.sbml.jsbml.util.TreeNodeChangeListener;
 import org.sbml.jsbml.util.TreeNodeRemovedEvent;
@@ -73,31 +76,80 @@ public abstract class AbstractTreeNode implements TreeNodeWithChangeSupport {
 
   /**
    * Searches the given child in the list of sub-nodes of the parent element.
+   * The child is compared by reference with the sub-nodes, see
+   * {@link #indexOf(TreeNode, TreeNode, boolean)}.
    * 
    * @param parent the parent
    * @param child the child to search for
    * @return the index of the child in the parent's list of children or -1 if no
    *         such child can be found.
    */
-  @SuppressWarnings("unchecked")
   public static int indexOf(TreeNode parent, TreeNode child) {
+    return indexOf(parent, child, false);
+  }
+
+  /**
+   * Searches the given child in the list of sub-nodes of the parent element.
+   * 
+   * <p>The child is first compared by reference with the sub-nodes. An
+   * {@link AbstractTreeNode} remembers the position at which it was last found,
+   * and it is searched from there: it is usually still at that position, or a
+   * few positions away from it when nodes were inserted or removed before it.
+   * A {@link ListOf} also records the position of the elements inserted in it,
+   * see {@link ListOf#getIndex(TreeNode)}.</p>
+   * 
+   * @param parent the parent
+   * @param child the child to search for
+   * @param orEqual whether to search for a sub-node equal to the child if the
+   *        child itself is not one. As {@link #equals(Object)} compares whole
+   *        subtrees, this search is much slower.
+   * @return the index of the child in the parent's list of children or -1 if no
+   *         such child can be found.
+   */
+  public static int indexOf(TreeNode parent, TreeNode child, boolean orEqual) {
     if (child == null) {
       throw new IllegalArgumentException(resourceBundle.getString("NullArgument"));
     }
-    // linear search
-    Enumeration<? extends TreeNode> e = parent.children();
-    for (int i = 0; e.hasMoreElements(); i++) {
-      TreeNode elem = e.nextElement();
-      if ((child == elem) || child.equals(elem)) {
-        return i;
+    int index = -1;
+
+    if (parent instanceof AbstractTreeNode) {
+      // the children are enumerated through getChildAt
+      int count = parent.getChildCount();
+      int hint = (child instanceof AbstractTreeNode) ? ((AbstractTreeNode) child).indexInParent : 0;
+      hint = Math.max(0, Math.min(hint, count - 1));
+
+      for (int d = 0; (index < 0) && ((hint - d >= 0) || (hint + d < count)); d++) {
+        if ((hint - d >= 0) && (parent.getChildAt(hint - d) == child)) {
+          index = hint - d;
+        } else if ((d > 0) && (hint + d < count) && (parent.getChildAt(hint + d) == child)) {
+          index = hint + d;
+        }
+      }
+    } else {
+      Enumeration<? extends TreeNode> e = parent.children();
+      for (int i = 0; (index < 0) && e.hasMoreElements(); i++) {
+        if (e.nextElement() == child) {
+          index = i;
+        }
       }
     }
-    // not found => node is not a child.
-    return -1;
+    if ((index < 0) && orEqual) {
+      Enumeration<? extends TreeNode> e = parent.children();
+      for (int i = 0; (index < 0) && e.hasMoreElements(); i++) {
+        if (child.equals(e.nextElement())) {
+          index = i;
+        }
+      }
+    }
+    if ((index >= 0) && (child instanceof AbstractTreeNode)) {
+      ((AbstractTreeNode) child).indexInParent = index;
+    }
+    return index;
   }
 
   /**
-   * {@link List} of listeners for this component
+   * {@link List} of listeners for this component, {@code null} as long as
+   * no listener was added.
    */
   protected transient List<TreeNodeChangeListener> listOfListeners;
 
@@ -116,13 +168,28 @@ public abstract class AbstractTreeNode implements TreeNodeWithChangeSupport {
   private Map<Object, Object> userObjects;
 
   /**
-   * Creates an empty {@link AbstractTreeNode} without child nodes and an
-   * empty list of {@link TreeNodeChangeListener}s. The pointer to the parent
-   * of this node is set to {@code null}.
+   * The hash code of the class and the children of this node, computed by
+   * {@link #hashCode()}, or {@code 0} if it is not known or out of date.
+   * Any change of this node or of one of its descendants resets it, see
+   * {@link #resetHashCode()}.
+   */
+  private transient int treeHashCode;
+
+  /**
+   * The position of this node among the children of its parent when it was
+   * last found there or inserted in a {@link ListOf}, from which
+   * {@link #indexOf(TreeNode, TreeNode, boolean)} starts its search. It is only
+   * a hint, which is not updated when the children of the parent change.
+   */
+  transient int indexInParent;
+
+  /**
+   * Creates an empty {@link AbstractTreeNode} without child nodes and
+   * without {@link TreeNodeChangeListener}s. The pointer to the parent of
+   * this node is set to {@code null}.
    */
   public AbstractTreeNode() {
     super();
-    listOfListeners = new ArrayList<TreeNodeChangeListener>();
     parent = null;
   }
 
@@ -196,6 +263,13 @@ public abstract class AbstractTreeNode implements TreeNodeWithChangeSupport {
   @Override
   public boolean addAllChangeListeners(
     Collection<TreeNodeChangeListener> listeners, boolean recursive) {
+    if ((listeners == null) || listeners.isEmpty()) {
+      // nothing to add to this node nor to its children
+      return false;
+    }
+    if (listOfListeners == null) {
+      listOfListeners = new ArrayList<TreeNodeChangeListener>(listeners.size());
+    }
     boolean success = listOfListeners.addAll(listeners);
     if (recursive) {
       Enumeration<TreeNode> children = children();
@@ -223,6 +297,9 @@ public abstract class AbstractTreeNode implements TreeNodeWithChangeSupport {
    */
   @Override
   public void addTreeNodeChangeListener(TreeNodeChangeListener listener, boolean recursive) {
+    if (listOfListeners == null) {
+      listOfListeners = new ArrayList<TreeNodeChangeListener>(1);
+    }
     if (!listOfListeners.contains(listener)) {
       listOfListeners.add(listener);
     }
@@ -280,9 +357,7 @@ public abstract class AbstractTreeNode implements TreeNodeWithChangeSupport {
    */
   @Override
   public void clearUserObjects() {
-    if (isSetUserObjects()) {
-      userObjects.clear();
-    }
+    userObjects = null;
   }
 
   /* (non-Javadoc)
@@ -312,6 +387,14 @@ public abstract class AbstractTreeNode implements TreeNodeWithChangeSupport {
     if ((object == null) || (!getClass().equals(object.getClass()))) {
       return false;
     }
+    // Trees with different hash codes cannot be equal, if both are cached:
+    if (object instanceof AbstractTreeNode) {
+      int otherHashCode = ((AbstractTreeNode) object).treeHashCode;
+
+      if ((treeHashCode != 0) && (otherHashCode != 0) && (treeHashCode != otherHashCode)) {
+        return false;
+      }
+    }
     // Check all child nodes recursively:
     if (object instanceof TreeNode) {
       TreeNode stn = (TreeNode) object;
@@ -396,9 +479,14 @@ public abstract class AbstractTreeNode implements TreeNodeWithChangeSupport {
    */
   @Override
   public void fireNodeAddedEvent() {
-    for (int i = listOfListeners.size() - 1; i >= 0; i--) {
+    resetHashCode(this);
+    for (int i = getTreeNodeChangeListenerCount() - 1; i >= 0; i--) {
       listOfListeners.get(i).nodeAdded(this);
     }
+    TreeNodeChangeDispatcher dispatcher = getChangeDispatcher(this);
+    if (dispatcher != null) {
+      dispatcher.nodeAdded(this);
+    }
   }
 
   /* (non-Javadoc)
@@ -407,6 +495,9 @@ public abstract class AbstractTreeNode implements TreeNodeWithChangeSupport {
   @Override
   public void fireNodeRemovedEvent() {
     TreeNode previousParent = getParent();
+    resetHashCode(getParentOrContainer(this));
+    // the root of a formula is only linked to its container
+    TreeNodeChangeDispatcher dispatcher = getChangeDispatcher((previousParent != null) ? previousParent : this);
     parent = null;
 
     if (getTreeNodeChangeListenerCount() > 0) {
@@ -419,6 +510,9 @@ public abstract class AbstractTreeNode implements TreeNodeWithChangeSupport {
         listener.nodeRemoved(new TreeNodeRemovedEvent(this, previousParent));
       }
     }
+    if (dispatcher != null) {
+      dispatcher.nodeRemoved(new TreeNodeRemovedEvent(this, previousParent));
+    }
   }
 
   /* (non-Javadoc)
@@ -431,7 +525,13 @@ public abstract class AbstractTreeNode implements TreeNodeWithChangeSupport {
     // TODO - if the property is of type TreeNode, we should set the parent of the new value
     // and unset the parent of the oldValue ??
 
-    if (listOfListeners.size() > 0) {
+    // the user objects are not part of the hash code
+    if (!TreeNodeChangeEvent.userObject.equals(propertyName)) {
+      resetHashCode(this);
+    }
+    TreeNodeChangeDispatcher dispatcher = getChangeDispatcher(this);
+
+    if ((getTreeNodeChangeListenerCount() > 0) || (dispatcher != null)) {
       short changeType = -1; // no property change at all
       if ((oldValue == null) && (newValue != null)) {
         changeType = 0; // element added
@@ -470,8 +570,11 @@ public abstract class AbstractTreeNode implements TreeNodeWithChangeSupport {
           // Now we can notify all listeners about the change:
           TreeNodeChangeEvent changeEvent = new TreeNodeChangeEvent(this,
             propertyName, oldValue, newValue);
-          for (TreeNodeChangeListener listener : listOfListeners) {
-            listener.propertyChange(changeEvent);
+          for (int i = 0; i < getTreeNodeChangeListenerCount(); i++) {
+            listOfListeners.get(i).propertyChange(changeEvent);
+          }
+          if (dispatcher != null) {
+            dispatcher.propertyChange(changeEvent);
           }
         }
       }
@@ -491,9 +594,37 @@ public abstract class AbstractTreeNode implements TreeNodeWithChangeSupport {
    */
   @Override
   public List<TreeNodeChangeListener> getListOfTreeNodeChangeListeners() {
+    if (listOfListeners == null) {
+      return Collections.emptyList();
+    }
     return listOfListeners;
   }
 
+  /**
+   * Returns the {@link TreeNodeChangeDispatcher} of the document the given
+   * node belongs to, if any listener subscribed to it.
+   * 
+   * @param node
+   * @return the dispatcher the changes of the node are fired to, or
+   *         {@code null}.
+   */
+  private static TreeNodeChangeDispatcher getChangeDispatcher(TreeNode node) {
+    if (!TreeNodeChangeDispatcher.hasSubscriptions()) {
+      return null;
+    }
+    TreeNode root = node;
+
+    for (TreeNode parent = getParentOrContainer(node); parent != null; parent = getParentOrContainer(parent)) {
+      root = parent;
+    }
+    if ((root instanceof SBMLDocument) && ((SBMLDocument) root).isChangeDispatcherActive()) {
+      TreeNodeChangeDispatcher dispatcher = ((SBMLDocument) root).getChangeDispatcher();
+
+      return (dispatcher.getSubscriptionCount() > 0) ? dispatcher : null;
+    }
+    return null;
+  }
+
   /**
    * Returns the number of child elements of this {@link TreeNode}.
    * 
@@ -543,10 +674,7 @@ public abstract class AbstractTreeNode implements TreeNodeWithChangeSupport {
    */
   @Override
   public Object getUserObject(Object key) {
-    if (userObjects == null) {
-      userObjects = new HashMap<Object, Object>();
-    }
-    return userObjects.get(key);
+    return (userObjects != null) ? userObjects.get(key) : null;
   }
 
   /* (non-Javadoc)
@@ -554,6 +682,24 @@ public abstract class AbstractTreeNode implements TreeNodeWithChangeSupport {
    */
   @Override
   public int hashCode() {
+    return getTreeHashCode();
+  }
+
+  /**
+   * Returns the hash code of the class and the children of this node, which
+   * is cached until this node or one of its descendants changes.
+   * <p>
+   * The cache is reset by the change events these nodes fire, see
+   * {@link #resetHashCode()}. A change that does not fire any event is not
+   * seen, and the hash code of the nodes that are not
+   * {@link AbstractTreeNode}s, as well as of their ancestors, is not cached.
+   * 
+   * @return the hash code computed by {@link AbstractTreeNode#hashCode()}.
+   */
+  private int getTreeHashCode() {
+    if (treeHashCode != 0) {
+      return treeHashCode;
+    }
     // A constant and arbitrary, sufficiently large prime number:
     final int prime = 769;
     /*
@@ -571,14 +717,64 @@ public abstract class AbstractTreeNode implements TreeNodeWithChangeSupport {
 
     // Recursively compute the hashCode for each child node:
     TreeNode child;
+    boolean cached = true;
     for (int i = 0; i < getChildCount(); i++) {
       child = getChildAt(i);
       hashCode = prime * hashCode + (child == null ? 0 : child.hashCode());
+      // the hash code of the children is cached after computing it
+      cached &= (child == null) || ((child instanceof AbstractTreeNode) && (((AbstractTreeNode) child).treeHashCode != 0));
+    }
+    if (cached) {
+      treeHashCode = hashCode;
     }
 
     return hashCode;
   }
 
+  /**
+   * Forgets the hash code cached for this node and its ancestors, that
+   * {@link #hashCode()} computes again the next time it is called. This is
+   * done when this node fires a change event, and must be done by a change
+   * of the hash code that does not fire any event.
+   */
+  protected void resetHashCode() {
+    resetHashCode(this);
+  }
+
+  /**
+   * Forgets the hash code cached for the given node and its ancestors.
+   * 
+   * @param node
+   */
+  private static void resetHashCode(TreeNode node) {
+    for (; node != null; node = getParentOrContainer(node)) {
+      if (node instanceof AbstractTreeNode) {
+        ((AbstractTreeNode) node).treeHashCode = 0;
+      }
+    }
+  }
+
+  /**
+   * The {@link #parent} field is read rather than {@link #getParent()}, which
+   * some nodes override with methods that fail while they are being built.
+   * 
+   * @param node
+   * @return the parent of the given node, or the container of its math for
+   *         the root of a math formula.
+   */
+  private static TreeNode getParentOrContainer(TreeNode node) {
+    TreeNode parent = (node instanceof AbstractTreeNode) ? ((AbstractTreeNode) node).parent : node.getParent();
+
+    if (parent == null) {
+      if (node instanceof ASTNode) {
+        parent = ((ASTNode) node).getParentSBMLObject();
+      } else if (node instanceof ASTNode2) {
+        parent = ((ASTNode2) node).getParentSBMLObject();
+      }
+    }
+    return parent;
+  }
+
   /* (non-Javadoc)
    * @see javax.swing.tree.TreeNode#isLeaf()
    */
@@ -690,7 +886,9 @@ public abstract class AbstractTreeNode implements TreeNodeWithChangeSupport {
    */
   @Override
   public void removeAllTreeNodeChangeListeners() {
-    listOfListeners.clear();
+    if (listOfListeners != null) {
+      listOfListeners.clear();
+    }
   }
 
   /**
@@ -788,7 +986,9 @@ public abstract class AbstractTreeNode implements TreeNodeWithChangeSupport {
    */
   @Override
   public void removeTreeNodeChangeListener(TreeNodeChangeListener listener, boolean recursive) {
-    listOfListeners.remove(listener);
+    if (listOfListeners != null) {
+      listOfListeners.remove(listener);
+    }
     if (recursive) {
       Enumeration<TreeNode> children = children();
       while (children.hasMoreElements()) {
@@ -806,7 +1006,12 @@ public abstract class AbstractTreeNode implements TreeNodeWithChangeSupport {
   @Override
   public Object removeUserObject(Object key) {
     if (userObjects != null) {
-      return userObjects.remove(key);
+      Object userObject = userObjects.remove(key);
+      if (userObjects.isEmpty()) {
+        // most nodes only hold user objects while they are read
+        userObjects = null;
+      }
+      return userObject;
     }
     return null;
   }
@@ -936,6 +1141,9 @@ public abstract class AbstractTreeNode implements TreeNodeWithChangeSupport {
    */
   @Override
   public Set<Object> userObjectKeySet() {
+    if (userObjects == null) {
+      return Collections.emptySet();
+    }
     return userObjects.keySet();
   }
 
@@ -950,7 +1158,6 @@ public abstract class AbstractTreeNode implements TreeNodeWithChangeSupport {
   private void readObject(java.io.ObjectInputStream in)
       throws IOException, ClassNotFoundException {
     in.defaultReadObject();
-    listOfListeners = new ArrayList<TreeNodeChangeListener>();
   }
 
 }
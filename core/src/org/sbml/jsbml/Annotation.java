@@ -511,6 +511,8 @@ public class Annotation extends AnnotationElement {
 
     if (isSetNonRDFannotation()) {
       nonRdfAnnotationClone = nonRDFannotation.clone();
+      // the copy is not part of the document, its changes must not be seen as changes of the document
+      nonRdfAnnotationClone.parent = null;
     }
 
     // TODO - get the list of AnnotationWriter from the manager
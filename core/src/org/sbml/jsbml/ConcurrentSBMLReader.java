@@ -0,0 +1,225 @@
+/*
+ * ----------------------------------------------------------------------------
+ * This file is part of JSBML. Please visit <http://sbml.org/Software/JSBML>
+ * for the latest version of JSBML and more information about SBML.
+ * 
+ * Copyright (C) 2009-2018 jointly by the following organizations:
+ * 1. The University of Tuebingen, Germany
+ * 2. EMBL European Bioinformatics Institute (EBML-EBI), Hinxton, UK
+ * 3. The California Institute of Technology, Pasadena, CA, USA
+ * 4. The University of California, San Diego, La Jolla, CA, USA
+ * 5. The Babraham Institute, Cambridge, UK
+ * 
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation. A copy of the license agreement is provided
+ * in the file named "LICENSE.txt" included with this software distribution
+ * and also available online as <http://sbml.org/Software/JSBML/License>.
+ * ----------------------------------------------------------------------------
+ */
+package org.sbml.jsbml;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+
+import org.sbml.jsbml.util.SimpleTreeNodeChangeListener;
+import org.sbml.jsbml.util.StringPool;
+import org.sbml.jsbml.util.TreeNodeChangeListener;
+
+/**
+ * A thread safe reader for SBML documents, meant to be shared by many threads
+ * reading documents in parallel in the same JVM.
+ * 
+ * <p>All the reads share one configured {@link XMLInputFactory}, and each
+ * thread gets its own {@link org.sbml.jsbml.xml.stax.SBMLReader}, created on
+ * the first read done by that thread and reused for the following reads. The
+ * {@link org.sbml.jsbml.xml.parsers.ReadingParser} and
+ * {@link org.sbml.jsbml.xml.parsers.AnnotationReader} instances are therefore
+ * initialized once per thread instead of once per document.</p>
+ * 
+ * <p>Concurrent reads never share any parser instance or parsing state, so
+ * they cannot corrupt each other. If a read fails, the reader of the current
+ * thread is dropped and a new one is created for the next read, so that the
+ * state left by a partially read document is never reused.</p>
+ * 
+ * <p>A {@link StringPool} can be given to share the identifiers, unit
+ * references and namespace URIs between all the documents read by all the
+ * threads.</p>
+ * 
+ * @since 1.6
+ */
+public class ConcurrentSBMLReader {
+
+  /**
+   * The factory shared by all the threads, a configured
+   * {@link XMLInputFactory} being thread safe.
+   */
+  private final XMLInputFactory inputFactory;
+
+  /**
+   * The pool shared by all the reads, {@code null} if the strings read are
+   * not pooled.
+   */
+  private final StringPool stringPool;
+
+  /**
+   * The reader of each thread.
+   */
+  private final ThreadLocal<org.sbml.jsbml.xml.stax.SBMLReader> readers = new ThreadLocal<org.sbml.jsbml.xml.stax.SBMLReader>() {
+
+    /* (non-Javadoc)
+     * @see java.lang.ThreadLocal#initialValue()
+     */
+    @Override
+    protected org.sbml.jsbml.xml.stax.SBMLReader initialValue() {
+      org.sbml.jsbml.xml.stax.SBMLReader reader = new org.sbml.jsbml.xml.stax.SBMLReader(inputFactory);
+
+      if (stringPool != null) {
+        reader.setStringPooling(true);
+        reader.setSharedStringPool(stringPool);
+      }
+
+      return reader;
+    }
+  };
+
+  /**
+   * Creates a new {@link ConcurrentSBMLReader} with a default
+   * {@link XMLInputFactory}.
+   */
+  public ConcurrentSBMLReader() {
+    this(org.sbml.jsbml.xml.stax.SBMLReader.createInputFactory());
+  }
+
+  /**
+   * Creates a new {@link ConcurrentSBMLReader} sharing the given
+   * {@link XMLInputFactory} between all the threads.
+   * 
+   * @param inputFactory a configured factory, that must not be modified any
+   * more once given to this reader.
+   */
+  public ConcurrentSBMLReader(XMLInputFactory inputFactory) {
+    this(inputFactory, null);
+  }
+
+  /**
+   * Creates a new {@link ConcurrentSBMLReader} sharing the given
+   * {@link XMLInputFactory} and {@link StringPool} between all the threads.
+   * 
+   * @param inputFactory a configured factory, that must not be modified any
+   * more once given to this reader.
+   * @param stringPool the pool used to share the strings of all the documents
+   * read, or {@code null} to not pool them.
+   * @see org.sbml.jsbml.xml.stax.SBMLReader#setStringPooling(boolean)
+   */
+  public ConcurrentSBMLReader(XMLInputFactory inputFactory, StringPool stringPool) {
+    super();
+    if (inputFactory == null) {
+      throw new IllegalArgumentException("The XMLInputFactory cannot be null.");
+    }
+    this.inputFactory = inputFactory;
+    this.stringPool = stringPool;
+  }
+
+  /**
+   * Returns the {@link StringPool} shared by all the reads.
+   * 
+   * @return the {@link StringPool} shared by all the reads, or {@code null}
+   * if the strings are not pooled.
+   */
+  public StringPool getStringPool() {
+    return stringPool;
+  }
+
+  /**
+   * Reads an SBML document from a {@link File}.
+   * 
+   * @param file the file to be read.
+   * @return an {@link SBMLDocument} created from the SBML content.
+   * @throws XMLStreamException if any other problems prevent to create a {@link SBMLDocument}
+   * @throws IOException if the file does not exist or cannot be read.
+   */
+  public SBMLDocument readSBML(File file) throws XMLStreamException, IOException {
+    return readSBML(file, new SimpleTreeNodeChangeListener());
+  }
+
+  /**
+   * Reads an SBML document from a {@link File}.
+   * 
+   * @param file the file to be read.
+   * @param listener the listener to add to the read {@link SBMLDocument}.
+   * @return an {@link SBMLDocument} created from the SBML content.
+   * @throws XMLStreamException if any other problems prevent to create a {@link SBMLDocument}
+   * @throws IOException if the file does not exist or cannot be read.
+   */
+  public SBMLDocument readSBML(File file, TreeNodeChangeListener listener) throws XMLStreamException, IOException {
+    boolean success = false;
+    try {
+      SBMLDocument doc = readers.get().readSBML(file, listener);
+      success = true;
+      return doc;
+    } finally {
+      if (!success) {
+        readers.remove();
+      }
+    }
+  }
+
+  /**
+   * Reads an SBML document from a data stream.
+   * 
+   * @param stream the stream of data to be read.
+   * @return an {@link SBMLDocument} created from the SBML content.
+   * @throws XMLStreamException if any problems prevent to create a {@link SBMLDocument}
+   */
+  public SBMLDocument readSBMLFromStream(InputStream stream) throws XMLStreamException {
+    return readSBMLFromStream(stream, new SimpleTreeNodeChangeListener());
+  }
+
+  /**
+   * Reads an SBML document from a data stream.
+   * 
+   * @param stream the stream of data to be read.
+   * @param listener the listener to add to the read {@link SBMLDocument}.
+   * @return an {@link SBMLDocument} created from the SBML content.
+   * @throws XMLStreamException if any problems prevent to create a {@link SBMLDocument}
+   */
+  public SBMLDocument readSBMLFromStream(InputStream stream, TreeNodeChangeListener listener) throws XMLStreamException {
+    boolean success = false;
+    try {
+      SBMLDocument doc = readers.get().readSBMLFromStream(stream, listener);
+      success = true;
+      return doc;
+    } finally {
+      if (!success) {
+        readers.remove();
+      }
+    }
+  }
+
+  /**
+   * Reads an SBML document from the given XML string.
+   * 
+   * @param xml a string containing a full SBML model
+   * @return an {@link SBMLDocument} created from the SBML content.
+   * @throws XMLStreamException if any problems prevent to create a {@link SBMLDocument}
+   */
+  public SBMLDocument readSBMLFromString(String xml) throws XMLStreamException {
+    return readSBMLFromStream(new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)));
+  }
+
+  /* (non-Javadoc)
+   * @see java.lang.Object#toString()
+   */
+  @Override
+  public String toString() {
+    return String.format("%s[]", getClass().getSimpleName());
+  }
+
+}
@@ -179,6 +179,14 @@ public class JSBML {
    */
   public static final transient String CHILD_ELEMENT_NAMES = "jsbml.child.elements.names";
 
+  /**
+   * Key used to store the XML elements skipped while reading an SBML file, as
+   * children of an {@link org.sbml.jsbml.xml.XMLNode}, so that they can be written back.
+   * 
+   * @see org.sbml.jsbml.xml.stax.SBMLReader#setKeepSkippedElements(boolean)
+   */
+  public static final transient String SKIPPED_XML = "jsbml.skipped.xml";
+
 
   /**
    * Adds the given {@link UnitDefinition} to the given model or returns the
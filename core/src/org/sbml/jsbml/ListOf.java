@@ -20,11 +20,14 @@
 package org.sbml.jsbml;
 
 import java.text.MessageFormat;
+import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.ListIterator;
+import java.util.Map;
 
 import javax.swing.tree.TreeNode;
 
@@ -261,6 +264,12 @@ public class ListOf<T extends SBase> extends AbstractSBase implements List<T>, U
    */
   private static final transient Logger logger = Logger.getLogger(ListOf.class);
 
+  /**
+   * The number of elements from which a lookup by id builds the
+   * {@link #idIndex}. Smaller lists are searched element by element.
+   */
+  private static final int ID_INDEX_THRESHOLD = 16;
+
   /**
    * Initializes newly created lists.
    * 
@@ -350,7 +359,22 @@ public class ListOf<T extends SBase> extends AbstractSBase implements List<T>, U
    */
   protected String otherListName = null;
 
-    
+  /**
+   * The elements of this list by id, and the {@link ExplicitRule}s also by
+   * variable, the first element of the list winning if several have the same
+   * key. It is built by the first lookup by id once the list holds
+   * {@link #ID_INDEX_THRESHOLD} elements and kept up to date by the methods of
+   * this list and by the id changes of its elements. {@code null} while it is
+   * not built or after a change it could not follow.
+   */
+  private transient Map<String, T> idIndex;
+
+  /**
+   * Whether several elements had the same key when the {@link #idIndex} was
+   * built, in which case removing one of them drops the index.
+   */
+  private transient boolean idIndexAmbiguous;
+
   /**
    * Creates a ListOf instance. By default, the list containing the SBase
    * elements is empty.
@@ -428,6 +452,12 @@ public class ListOf<T extends SBase> extends AbstractSBase implements List<T>, U
   public void add(int index, T element) {
     registerChild(element);
     listOf.add(index, element);
+    setPosition(index, element);
+
+    // the new element could come before another one with the same key
+    if ((idIndex != null) && !index(element)) {
+      idIndex = null;
+    }
   }
 
   /* (non-Javadoc) @see java.util.List#add(java.lang.Object)
@@ -442,6 +472,8 @@ public class ListOf<T extends SBase> extends AbstractSBase implements List<T>, U
     try {
       if (listOf.add(element)) {
         if (registerChild(element)) {
+          setPosition(listOf.size() - 1, element);
+          appended(element);
           return true;
         }
         listOf.remove(listOf.size() - 1);
@@ -467,11 +499,13 @@ public class ListOf<T extends SBase> extends AbstractSBase implements List<T>, U
       for (T element : c) {
         try {
           registerChild(element);
+          appended(element);
         } catch (RuntimeException exc) {
           logger.debug(MessageFormat.format(
             "Reverting change: removing all elements from collection {0} from internal list",
             c));
           listOf.removeAll(c);
+          idIndex = null;
           throw exc;
         }
       }
@@ -486,6 +520,7 @@ public class ListOf<T extends SBase> extends AbstractSBase implements List<T>, U
   @Override
   public boolean addAll(int index, Collection<? extends T> collection) throws LevelVersionError {
     if (listOf.addAll(index, collection)) {
+      idIndex = null;
       for (T element : collection) {
         try {
           registerChild(element);
@@ -529,6 +564,7 @@ public class ListOf<T extends SBase> extends AbstractSBase implements List<T>, U
       ((TreeNodeWithChangeSupport) element).fireNodeRemovedEvent();
     }
     listOf.clear();
+    idIndex = null;
   }
 
   /* (non-Javadoc)
@@ -639,10 +675,23 @@ public class ListOf<T extends SBase> extends AbstractSBase implements List<T>, U
    * <p>The elements of the list have to implement {@link SBase}, if they are not
    * or if the id is not found, null is returned.
    * 
+   * <p>In a list of more than a few elements, the element is looked up in an
+   * index of the ids of the elements, which is built by the first lookup and
+   * kept up to date as the list and the ids of its elements change.
+   * 
    * @param id the id to search for.
    * @return the list element which has the id 'id'.
    */
   public T get(String id) {
+    if ((id != null) && (id.length() > 0) && (getIdIndex() != null)) {
+      T element = idIndex.get(id);
+
+      if ((element == null) || hasKey(element, id)) {
+        return element;
+      }
+      // the element changed without notifying this list
+      idIndex = null;
+    }
 
     T foundElement = null;
 
@@ -664,6 +713,212 @@ public class ListOf<T extends SBase> extends AbstractSBase implements List<T>, U
     return foundElement;
   }
 
+  /**
+   * Returns the {@link #idIndex}, building it if this list is large enough.
+   * 
+   * @return the index of the elements of this list by id, or {@code null} if
+   *         this list is too small to be indexed.
+   */
+  private Map<String, T> getIdIndex() {
+    if ((idIndex == null) && (listOf.size() >= ID_INDEX_THRESHOLD)) {
+      idIndex = new HashMap<String, T>(2 * listOf.size());
+      idIndexAmbiguous = false;
+
+      for (T element : listOf) {
+        if (!index(element)) {
+          idIndexAmbiguous = true;
+        }
+      }
+    }
+    return idIndex;
+  }
+
+  /**
+   * Adds the keys of the given element to the {@link #idIndex}, keeping the
+   * element already indexed under a key if there is one.
+   * 
+   * @param element
+   * @return {@code false} if a key of the element was already taken by
+   *         another element.
+   */
+  private boolean index(T element) {
+    boolean unique = true;
+
+    if (element != null) {
+      unique = index(element.getId(), element);
+
+      if (element instanceof ExplicitRule) {
+        unique &= index(((ExplicitRule) element).getVariable(), element);
+      }
+    }
+    return unique;
+  }
+
+  /**
+   * @param key
+   * @param element
+   * @return {@code false} if the key was already taken by another element.
+   */
+  private boolean index(String key, T element) {
+    if ((key == null) || (key.length() == 0)) {
+      return true;
+    }
+    T indexed = idIndex.get(key);
+
+    if (indexed == null) {
+      idIndex.put(key, element);
+      return true;
+    }
+    return indexed == element;
+  }
+
+  /**
+   * Removes the keys of the given element, which is not part of this list
+   * anymore, from the {@link #idIndex}.
+   * 
+   * @param element
+   */
+  private void unindex(T element) {
+    if ((idIndex == null) || (element == null)) {
+      return;
+    }
+    boolean removed = unindex(element.getId(), element);
+
+    if (element instanceof ExplicitRule) {
+      removed |= unindex(((ExplicitRule) element).getVariable(), element);
+    }
+    // another element could have the same key
+    if (removed && idIndexAmbiguous) {
+      idIndex = null;
+    }
+  }
+
+  /**
+   * @param key
+   * @param element
+   * @return {@code true} if the key was indexed to the element.
+   */
+  private boolean unindex(Object key, T element) {
+    if ((key != null) && (idIndex.get(key) == element)) {
+      idIndex.remove(key);
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * Adds the keys of an element appended to this list to the
+   * {@link #idIndex}.
+   * 
+   * @param element
+   */
+  private void appended(T element) {
+    // the elements before it keep their keys
+    if ((idIndex != null) && !index(element)) {
+      idIndexAmbiguous = true;
+    }
+  }
+
+  /**
+   * Updates the {@link #idIndex} when the id or the variable of one of the
+   * elements of this list changed.
+   * 
+   * @param element
+   *        an element of this list.
+   * @param oldKey
+   *        the previous id or variable of the element.
+   */
+  @SuppressWarnings("unchecked")
+  void keyChanged(SBase element, Object oldKey) {
+    if (idIndex == null) {
+      return;
+    }
+    boolean removed = unindex(oldKey, (T) element);
+
+    // the element could come before another one with the same key
+    if ((removed && idIndexAmbiguous) || !index((T) element)) {
+      idIndex = null;
+    }
+  }
+
+  /**
+   * @param element
+   * @param id
+   * @return {@code true} if the given element has the given id or, for an
+   *         {@link ExplicitRule}, the given variable.
+   */
+  private static boolean hasKey(SBase element, String id) {
+    return id.equals(element.getId()) || ((element instanceof ExplicitRule)
+        && id.equals(((ExplicitRule) element).getVariable()));
+  }
+
+  /**
+   * Records the position of an element of this list, from which
+   * {@link #getIndex(TreeNode)} starts looking for it the next time.
+   * 
+   * @param index
+   *        the position of the element in this list.
+   * @param element
+   */
+  private void setPosition(int index, T element) {
+    if (element instanceof AbstractTreeNode) {
+      ((AbstractTreeNode) element).indexInParent = super.getChildCount() + index;
+    }
+  }
+
+  /**
+   * Returns the position of the given element in this list, comparing the
+   * elements by reference. The search starts from the position the element
+   * was last found or inserted at and goes towards the start of the list
+   * first, where the element moves when elements before it are removed.
+   * 
+   * @param element
+   * @return the position of the element, or -1 if it is not in this list.
+   */
+  private int identityIndexOf(Object element) {
+    int count = listOf.size();
+    int hint = count - 1;
+
+    if (element instanceof AbstractTreeNode) {
+      hint = Math.max(-1, Math.min(((AbstractTreeNode) element).indexInParent - super.getChildCount(), hint));
+    }
+    for (int i = hint; i >= 0; i--) {
+      if (listOf.get(i) == element) {
+        setPosition(i, listOf.get(i));
+        return i;
+      }
+    }
+    for (int i = hint + 1; i < count; i++) {
+      if (listOf.get(i) == element) {
+        setPosition(i, listOf.get(i));
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /* (non-Javadoc)
+   * @see org.sbml.jsbml.AbstractTreeNode#getIndex(javax.swing.tree.TreeNode)
+   */
+  @Override
+  public int getIndex(TreeNode node) {
+    if (node == null) {
+      throw new IllegalArgumentException(resourceBundle.getString("NullArgument"));
+    }
+    int count = super.getChildCount();
+    int index = identityIndexOf(node);
+
+    if (index >= 0) {
+      return count + index;
+    }
+    for (int i = 0; i < count; i++) {
+      if (super.getChildAt(i) == node) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
   /* (non-Javadoc)
    * @see org.sbml.jsbml.AbstractSBase#getAllowsChildren()
    */
@@ -776,7 +1031,7 @@ public class ListOf<T extends SBase> extends AbstractSBase implements List<T>, U
    */
   @Override
   public Iterator<T> iterator() {
-    return listOf.iterator();
+    return new ElementIterator(listOf.listIterator());
   }
 
   /* (non-Javadoc)
@@ -792,7 +1047,7 @@ public class ListOf<T extends SBase> extends AbstractSBase implements List<T>, U
    */
   @Override
   public ListIterator<T> listIterator() {
-    return listOf.listIterator();
+    return new ElementIterator(listOf.listIterator());
   }
 
   /* (non-Javadoc)
@@ -800,7 +1055,7 @@ public class ListOf<T extends SBase> extends AbstractSBase implements List<T>, U
    */
   @Override
   public ListIterator<T> listIterator(int index) {
-    return listOf.listIterator(index);
+    return new ElementIterator(listOf.listIterator(index));
   }
 
   /* (non-Javadoc)
@@ -809,6 +1064,7 @@ public class ListOf<T extends SBase> extends AbstractSBase implements List<T>, U
   @Override
   public T remove(int index) {
     T t = listOf.remove(index);
+    unindex(t);
     ((TreeNodeWithChangeSupport) t).fireNodeRemovedEvent();
     return t;
   }
@@ -821,29 +1077,46 @@ public class ListOf<T extends SBase> extends AbstractSBase implements List<T>, U
    * @return success or failure.
    */
   public boolean remove(SBase nsb) {
-    if (!listOf.remove(nsb)) {
-      if (nsb.isSetId()) {
-        int pos = -1;
-        for (int i = 0; (i < size()) && (pos < 0); i++) {
-          SBase sb = (SBase) get(i);
-          if (sb.isSetId() && nsb.isSetId()
-              && sb.getId().equals(nsb.getId())) {
-            pos = i;
-          }
+    int pos = indexOfElement(nsb);
+
+    if ((pos < 0) && nsb.isSetId()) {
+      SBase sb = get(nsb.getId());
+
+      if ((sb != null) && sb.isSetId() && sb.getId().equals(nsb.getId())) {
+        pos = identityIndexOf(sb);
+
+        if (pos < 0) {
+          // the list changed without updating its index
+          idIndex = null;
         }
-        if (pos >= 0) {
-          T t = listOf.remove(pos);
-          ((TreeNodeWithChangeSupport) t).fireNodeRemovedEvent();
-          return true;
+      }
+      for (int i = 0; (i < size()) && (pos < 0); i++) {
+        sb = get(i);
+        if (sb.isSetId() && sb.getId().equals(nsb.getId())) {
+          pos = i;
         }
       }
-    } else {
-      ((TreeNodeWithChangeSupport) nsb).fireNodeRemovedEvent();
+    }
+    if (pos >= 0) {
+      remove(pos);
       return true;
     }
     return false;
   }
 
+  /**
+   * Returns the position of the given element in this list, looking for the
+   * element itself before looking for an equal element.
+   * 
+   * @param element
+   * @return the position of the element, or -1 if it is not in this list.
+   */
+  private int indexOfElement(Object element) {
+    int pos = identityIndexOf(element);
+
+    return (pos < 0) ? listOf.indexOf(element) : pos;
+  }
+
   /* (non-Javadoc)
    * @see java.util.List#remove(java.lang.Object)
    */
@@ -852,9 +1125,10 @@ public class ListOf<T extends SBase> extends AbstractSBase implements List<T>, U
     if (!(o instanceof SBase)) {
       return false;
     }
-    SBase sbase = (SBase) o;
-    if (listOf.remove(sbase)) {
-      ((TreeNodeWithChangeSupport) o).fireNodeRemovedEvent();
+    int pos = indexOfElement(o);
+
+    if (pos >= 0) {
+      remove(pos);
       return true;
     }
     return false;
@@ -870,6 +1144,18 @@ public class ListOf<T extends SBase> extends AbstractSBase implements List<T>, U
   @SuppressWarnings("unchecked")
   public T remove(String removeId) {
     if (removeId != null && removeId.trim().length() > 0) {
+      T element = get(removeId);
+
+      if ((element instanceof NamedSBase) && element.isSetId()
+          && element.getId().equals(removeId)) {
+        int pos = identityIndexOf(element);
+
+        if (pos >= 0) {
+          return remove(pos);
+        }
+        // the list changed without updating its index
+        idIndex = null;
+      }
       int pos = -1;
       SBase sbase = null;
       for (int i = 0; i < size() && pos < 0; i++) {
@@ -884,8 +1170,7 @@ public class ListOf<T extends SBase> extends AbstractSBase implements List<T>, U
         }
       }
       if (pos >= 0) {
-        T element = listOf.remove(pos);
-        ((TreeNodeWithChangeSupport) element).fireNodeRemovedEvent();
+        remove(pos);
         return (T) sbase;
       }
     }
@@ -898,7 +1183,8 @@ public class ListOf<T extends SBase> extends AbstractSBase implements List<T>, U
   @Override
   public boolean removeAll(Collection<?> c) {
     boolean success = listOf.removeAll(c);
-    if (success) { // TODO: a success does not mean that all elements from c have been removed from the listOf
+    if (success) {
+      idIndex = null; // TODO: a success does not mean that all elements from c have been removed from the listOf
       for (Iterator<?> i = c.iterator(); i.hasNext();) {
         SBase element = (SBase) i.next();
         element.fireNodeRemovedEvent();
@@ -942,6 +1228,7 @@ public class ListOf<T extends SBase> extends AbstractSBase implements List<T>, U
     for (T element : listOf) {
       if (!c.contains(element)) {
         listOf.remove(element);
+        idIndex = null;
         ((TreeNodeWithChangeSupport) element).fireNodeRemovedEvent();
         modified = true;
       }
@@ -955,12 +1242,18 @@ public class ListOf<T extends SBase> extends AbstractSBase implements List<T>, U
   @Override
   public T set(int index, T element) throws LevelVersionError {
     T prevElem = listOf.set(index, element);
+    unindex(prevElem);
 
     if (prevElem != null) {
       ((TreeNodeWithChangeSupport) prevElem).fireNodeRemovedEvent();
     }
     try {
       registerChild(element);
+      setPosition(index, element);
+
+      if ((idIndex != null) && !index(element)) {
+        idIndex = null;
+      }
     } catch (RuntimeException exc) {
       logger.debug(MessageFormat.format(
         "Reverting change: removing element {0} from internal list",
@@ -1041,7 +1334,7 @@ public class ListOf<T extends SBase> extends AbstractSBase implements List<T>, U
    */
   @Override
   public List<T> subList(int fromIndex, int toIndex) {
-    return listOf.subList(fromIndex, toIndex);
+    return new ElementSubList(fromIndex, toIndex);
   }
 
   /* (non-Javadoc)
@@ -1094,4 +1387,200 @@ public class ListOf<T extends SBase> extends AbstractSBase implements List<T>, U
   public void setOtherListName(String otherListName) {
     this.otherListName = otherListName;
   }
+
+  /**
+   * A {@link ListIterator} over the elements of this list, which changes the
+   * list through {@link ListOf#remove(int)}, {@link ListOf#set(int, SBase)}
+   * and {@link ListOf#add(int, SBase)}, so that the elements are registered
+   * and unregistered and the listeners notified as by these methods.
+   */
+  private class ElementIterator implements ListIterator<T> {
+
+    /**
+     * The iterator over the internal list, created again after each change
+     * made through this iterator.
+     */
+    private ListIterator<T> iterator;
+
+    /**
+     * The index of the element returned by the last call to {@link #next()}
+     * or {@link #previous()}, or -1 if it was removed or an element was added
+     * since.
+     */
+    private int lastIndex = -1;
+
+    /**
+     * @param iterator the iterator over the internal list.
+     */
+    ElementIterator(ListIterator<T> iterator) {
+      this.iterator = iterator;
+    }
+
+    @Override
+    public boolean hasNext() {
+      return iterator.hasNext();
+    }
+
+    @Override
+    public T next() {
+      T element = iterator.next();
+      lastIndex = iterator.previousIndex();
+      return element;
+    }
+
+    @Override
+    public boolean hasPrevious() {
+      return iterator.hasPrevious();
+    }
+
+    @Override
+    public T previous() {
+      T element = iterator.previous();
+      lastIndex = iterator.nextIndex();
+      return element;
+    }
+
+    @Override
+    public int nextIndex() {
+      return iterator.nextIndex();
+    }
+
+    @Override
+    public int previousIndex() {
+      return iterator.previousIndex();
+    }
+
+    @Override
+    public void remove() {
+      if (lastIndex < 0) {
+        throw new IllegalStateException();
+      }
+      ListOf.this.remove(lastIndex);
+      iterator = listOf.listIterator(lastIndex);
+      lastIndex = -1;
+    }
+
+    @Override
+    public void set(T element) {
+      if (lastIndex < 0) {
+        throw new IllegalStateException();
+      }
+      int cursor = iterator.nextIndex();
+      ListOf.this.set(lastIndex, element);
+      iterator = listOf.listIterator(cursor);
+    }
+
+    @Override
+    public void add(T element) {
+      int cursor = iterator.nextIndex();
+      ListOf.this.add(cursor, element);
+      iterator = listOf.listIterator(cursor + 1);
+      lastIndex = -1;
+    }
+  }
+
+  /**
+   * A view of a part of the elements of this list, which changes the list
+   * through {@link ListOf#remove(int)}, {@link ListOf#set(int, SBase)} and
+   * {@link ListOf#add(int, SBase)}, so that the elements are registered and
+   * unregistered and the listeners notified as by these methods.
+   */
+  private class ElementSubList extends AbstractList<T> {
+
+    /**
+     * The index of the first element of this view in this list.
+     */
+    private final int offset;
+
+    /**
+     * The view of the internal list, created again after each change made
+     * through this view.
+     */
+    private List<T> list;
+
+    /**
+     * The number of elements of this view.
+     */
+    private int size;
+
+    /**
+     * @param fromIndex the index of the first element of the view.
+     * @param toIndex the index after the last element of the view.
+     */
+    ElementSubList(int fromIndex, int toIndex) {
+      offset = fromIndex;
+      list = listOf.subList(fromIndex, toIndex);
+      size = toIndex - fromIndex;
+    }
+
+    /**
+     * Creates the view of the internal list again after a change of the
+     * given number of elements made through this view.
+     * 
+     * @param sizeChange
+     */
+    private void changed(int sizeChange) {
+      size += sizeChange;
+      list = listOf.subList(offset, offset + size);
+      if (sizeChange != 0) {
+        modCount++;
+      }
+    }
+
+    @Override
+    public T get(int index) {
+      return list.get(index);
+    }
+
+    @Override
+    public int size() {
+      return list.size();
+    }
+
+    @Override
+    public T set(int index, T element) {
+      rangeCheck(index, list.size() - 1);
+      T previous = ListOf.this.set(offset + index, element);
+      changed(0);
+      return previous;
+    }
+
+    @Override
+    public void add(int index, T element) {
+      rangeCheck(index, list.size());
+      ListOf.this.add(offset + index, element);
+      changed(1);
+    }
+
+    @Override
+    public T remove(int index) {
+      rangeCheck(index, list.size() - 1);
+      T element = ListOf.this.remove(offset + index);
+      changed(-1);
+      return element;
+    }
+
+    @Override
+    protected void removeRange(int fromIndex, int toIndex) {
+      for (int i = toIndex - 1; i >= fromIndex; i--) {
+        ListOf.this.remove(offset + i);
+      }
+      changed(fromIndex - toIndex);
+    }
+
+    /**
+     * @param index
+     * @param maxIndex
+     * @throws IndexOutOfBoundsException if the given index is not between 0
+     *         and the given maximum.
+     */
+    private void rangeCheck(int index, int maxIndex) {
+      // fails if this list was changed without this view
+      list.size();
+      if ((index < 0) || (index > maxIndex)) {
+        throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + list.size());
+      }
+    }
+  }
+
 }
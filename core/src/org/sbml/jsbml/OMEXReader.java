@@ -0,0 +1,272 @@
+/*
+ * ----------------------------------------------------------------------------
+ * This file is part of JSBML. Please visit <http://sbml.org/Software/JSBML>
+ * for the latest version of JSBML and more information about SBML.
+ * 
+ * Copyright (C) 2009-2018 jointly by the following organizations:
+ * 1. The University of Tuebingen, Germany
+ * 2. EMBL European Bioinformatics Institute (EBML-EBI), Hinxton, UK
+ * 3. The California Institute of Technology, Pasadena, CA, USA
+ * 4. The University of California, San Diego, La Jolla, CA, USA
+ * 5. The Babraham Institute, Cambridge, UK
+ * 
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation. A copy of the license agreement is provided
+ * in the file named "LICENSE.txt" included with this software distribution
+ * and also available online as <http://sbml.org/Software/JSBML/License>.
+ * ----------------------------------------------------------------------------
+ */
+package org.sbml.jsbml;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.sbml.jsbml.util.CompressionTools;
+
+/**
+ * Reads all the SBML models of a COMBINE archive (OMEX file).
+ * 
+ * <p>The SBML models are the entries of the archive declared in its
+ * {@code manifest.xml} with an SBML format, i.e., a format starting with
+ * {@code http://identifiers.org/combine.specifications/sbml} or
+ * {@code application/sbml+xml}. They are decompressed while they are read,
+ * without temporary files, and the models of one archive are read in
+ * parallel with a {@link ConcurrentSBMLReader}.</p>
+ * 
+ * @since 1.6
+ */
+public class OMEXReader {
+
+  /**
+   * The namespace of the COMBINE archive manifest.
+   */
+  public static final String URI_OMEX_MANIFEST = "http://identifiers.org/combine.specifications/omex-manifest";
+
+  /**
+   * The reader shared by the threads reading the models.
+   */
+  private final ConcurrentSBMLReader reader;
+
+  /**
+   * The maximal number of models read in parallel.
+   */
+  private final int threadCount;
+
+  /**
+   * Creates a new {@link OMEXReader} reading as many models in parallel as
+   * there are processors available.
+   */
+  public OMEXReader() {
+    this(Runtime.getRuntime().availableProcessors());
+  }
+
+  /**
+   * Creates a new {@link OMEXReader}.
+   * 
+   * @param threadCount the maximal number of models read in parallel.
+   */
+  public OMEXReader(int threadCount) {
+    this(new ConcurrentSBMLReader(), threadCount);
+  }
+
+  /**
+   * Creates a new {@link OMEXReader} using the given reader.
+   * 
+   * @param reader the reader used to read the models.
+   * @param threadCount the maximal number of models read in parallel.
+   */
+  public OMEXReader(ConcurrentSBMLReader reader, int threadCount) {
+    super();
+    if (threadCount < 1) {
+      throw new IllegalArgumentException(MessageFormat.format(
+        "The number of threads must be positive, but was {0,number,integer}.", threadCount));
+    }
+    this.reader = reader;
+    this.threadCount = threadCount;
+  }
+
+  /**
+   * Returns the locations of the SBML models declared in the manifest of the
+   * given archive, in the order of the manifest.
+   * 
+   * @param archive a COMBINE archive.
+   * @return the locations of the SBML models, as written in the manifest.
+   * @throws IOException if the archive cannot be read or has no manifest.
+   * @throws XMLStreamException if the manifest is not valid XML.
+   */
+  public List<String> getSBMLLocations(ZipFile archive) throws IOException, XMLStreamException {
+    ZipEntry manifestEntry = archive.getEntry(CompressionTools.OMEX_MANIFEST);
+
+    if (manifestEntry == null) {
+      throw new IOException(MessageFormat.format(
+        "The file {0} is not a COMBINE archive, it does not contain any {1}.",
+        archive.getName(), CompressionTools.OMEX_MANIFEST));
+    }
+
+    List<String> locations = new ArrayList<String>();
+    InputStream stream = archive.getInputStream(manifestEntry);
+
+    try {
+      XMLStreamReader manifestReader = org.sbml.jsbml.xml.stax.SBMLReader.createInputFactory().createXMLStreamReader(stream);
+
+      while (manifestReader.hasNext()) {
+        if ((manifestReader.next() == XMLStreamConstants.START_ELEMENT)
+            && manifestReader.getLocalName().equals("content")
+            && URI_OMEX_MANIFEST.equals(manifestReader.getNamespaceURI()))
+        {
+          String location = manifestReader.getAttributeValue(null, "location");
+          String format = manifestReader.getAttributeValue(null, "format");
+
+          if ((location != null) && (format != null) && isSBMLFormat(format)) {
+            locations.add(location);
+          }
+        }
+      }
+      manifestReader.close();
+    } finally {
+      stream.close();
+    }
+
+    return locations;
+  }
+
+  /**
+   * Returns {@code true} if the given manifest format denotes SBML.
+   * 
+   * @param format a format from a COMBINE archive manifest.
+   * @return {@code true} if the given manifest format denotes SBML.
+   */
+  private boolean isSBMLFormat(String format) {
+    return format.matches("https?://identifiers\\.org/combine\\.specifications/sbml.*")
+        || format.startsWith("application/sbml+xml");
+  }
+
+  /**
+   * Reads all the SBML models of the given COMBINE archive.
+   * 
+   * @param file a COMBINE archive.
+   * @return the read {@link SBMLDocument}s, mapped to their location in the
+   *         manifest, in the order of the manifest.
+   * @throws IOException if the archive cannot be read, has no manifest or
+   *         does not contain one of the declared models.
+   * @throws XMLStreamException if a model or the manifest cannot be read.
+   */
+  public Map<String, SBMLDocument> read(File file) throws IOException, XMLStreamException {
+    final ZipFile archive = new ZipFile(file);
+
+    try {
+      List<String> locations = getSBMLLocations(archive);
+      Map<String, Future<SBMLDocument>> results = new LinkedHashMap<String, Future<SBMLDocument>>();
+      ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(threadCount, locations.size())));
+
+      try {
+        for (String location : locations) {
+          final ZipEntry entry = archive.getEntry(getEntryName(location));
+
+          if (entry == null) {
+            throw new IOException(MessageFormat.format(
+              "The COMBINE archive {0} does not contain the declared model {1}.", file.getPath(), location));
+          }
+
+          results.put(location, executor.submit(new Callable<SBMLDocument>() {
+
+            @Override
+            public SBMLDocument call() throws Exception {
+              InputStream stream = archive.getInputStream(entry);
+              try {
+                return reader.readSBMLFromStream(stream);
+              } finally {
+                stream.close();
+              }
+            }
+          }));
+        }
+
+        Map<String, SBMLDocument> documents = new LinkedHashMap<String, SBMLDocument>();
+
+        for (Map.Entry<String, Future<SBMLDocument>> result : results.entrySet()) {
+          documents.put(result.getKey(), getResult(result.getValue()));
+        }
+
+        return documents;
+      } finally {
+        executor.shutdownNow();
+      }
+    } finally {
+      archive.close();
+    }
+  }
+
+  /**
+   * Waits for the given reading to finish and returns its result.
+   * 
+   * @param result the reading of one model.
+   * @return the read {@link SBMLDocument}.
+   * @throws IOException if the model could not be read from the archive.
+   * @throws XMLStreamException if the model is not valid.
+   */
+  private SBMLDocument getResult(Future<SBMLDocument> result) throws IOException, XMLStreamException {
+    try {
+      return result.get();
+    } catch (InterruptedException exc) {
+      Thread.currentThread().interrupt();
+      throw new IOException(exc);
+    } catch (ExecutionException exc) {
+      Throwable cause = exc.getCause();
+
+      if (cause instanceof XMLStreamException) {
+        throw (XMLStreamException) cause;
+      } else if (cause instanceof IOException) {
+        throw (IOException) cause;
+      } else if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      } else if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new IOException(cause);
+    }
+  }
+
+  /**
+   * Returns the name of the entry of the archive matching the given location
+   * of the manifest, which may start with {@code ./}.
+   * 
+   * @param location a location from the manifest.
+   * @return the name of the matching entry.
+   */
+  private String getEntryName(String location) {
+    if (location.startsWith("./")) {
+      return location.substring(2);
+    } else if (location.startsWith("/")) {
+      return location.substring(1);
+    }
+    return location;
+  }
+
+  /* (non-Javadoc)
+   * @see java.lang.Object#toString()
+   */
+  @Override
+  public String toString() {
+    return MessageFormat.format("{0}[threadCount={1,number,integer}]", getClass().getSimpleName(), threadCount);
+  }
+
+}
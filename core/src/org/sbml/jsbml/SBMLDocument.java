@@ -41,6 +41,7 @@ import javax.xml.stream.XMLStreamException;
 
 import org.apache.log4j.Logger;
 import org.sbml.jsbml.util.StringTools;
+import org.sbml.jsbml.util.TreeNodeChangeDispatcher;
 import org.sbml.jsbml.util.TreeNodeChangeEvent;
 import org.sbml.jsbml.util.TreeNodeChangeListener;
 import org.sbml.jsbml.util.converters.ExpandFunctionDefinitionConverter;
@@ -161,6 +162,20 @@ public class SBMLDocument extends AbstractSBase {
    */
   private String locationURI;
 
+  /**
+   * Dispatches the changes of the nodes of this document, created when it is
+   * first asked for.
+   */
+  private transient TreeNodeChangeDispatcher changeDispatcher;
+
+  /**
+   * The number of elements of this document reading the XML they kept
+   * unparsed, during which the changes are not dispatched.
+   * 
+   * @see AbstractSBase#readUnparsedXML(String, String)
+   */
+  private transient int changeDispatcherSuspensions;
+
   /**
    * Creates a {@link SBMLDocument} instance. By default, the parent SBML object
    * of
@@ -312,7 +327,7 @@ public class SBMLDocument extends AbstractSBase {
    *        qual, ...
    */
   private void removePackageDeclaration(String packageName) {
-    getDeclaredNamespaces().remove("xmlns:" + packageName);
+    removeDeclaredNamespaceByPrefix(packageName);
     getSBMLDocumentAttributes().remove(packageName + ":required");
   }
 
@@ -854,6 +869,23 @@ public class SBMLDocument extends AbstractSBase {
   }
 
 
+  /**
+   * Returns the {@link TreeNodeChangeDispatcher} of this document, to
+   * subscribe to the changes of its nodes without adding a
+   * {@link TreeNodeChangeListener} to each of them. The dispatcher is
+   * created the first time it is asked for.
+   * 
+   * @return the dispatcher of the changes of this document.
+   * @since 1.6
+   */
+  public TreeNodeChangeDispatcher getChangeDispatcher() {
+    if (changeDispatcher == null) {
+      changeDispatcher = new TreeNodeChangeDispatcher();
+    }
+    return changeDispatcher;
+  }
+
+
   /*
    * (non-Javadoc)
    * @see org.sbml.jsbml.AbstractSBase#getChildAt(int)
@@ -1326,6 +1358,50 @@ public class SBMLDocument extends AbstractSBase {
   }
 
 
+  /**
+   * Returns {@code true} if the {@link TreeNodeChangeDispatcher} of this
+   * {@link SBMLDocument} was created.
+   * 
+   * @return whether the change dispatcher was created.
+   * @see #getChangeDispatcher()
+   * @since 1.6
+   */
+  public boolean isSetChangeDispatcher() {
+    return changeDispatcher != null;
+  }
+
+
+  /**
+   * Returns {@code true} if the {@link TreeNodeChangeDispatcher} of this
+   * {@link SBMLDocument} dispatches the changes of its nodes, i.e., if it was
+   * created and is not suspended.
+   * 
+   * @return whether the changes of the nodes are dispatched.
+   */
+  boolean isChangeDispatcherActive() {
+    return (changeDispatcher != null) && (changeDispatcherSuspensions == 0);
+  }
+
+
+  /**
+   * Stops dispatching the changes of the nodes of this document until
+   * {@link #resumeChangeDispatcher()} is called.
+   */
+  void suspendChangeDispatcher() {
+    changeDispatcherSuspensions++;
+  }
+
+
+  /**
+   * Dispatches again the changes of the nodes of this document, once
+   * {@link #resumeChangeDispatcher()} was called as many times as
+   * {@link #suspendChangeDispatcher()}.
+   */
+  void resumeChangeDispatcher() {
+    changeDispatcherSuspensions--;
+  }
+
+
   /**
    * Returns {@code true} if the {@link Model} of this {@link SBMLDocument} is
    * not {@code null}.
@@ -23,11 +23,13 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.Serializable;
+import java.nio.file.Path;
 
 import javax.xml.stream.XMLStreamException;
 
 import org.sbml.jsbml.util.SimpleTreeNodeChangeListener;
 import org.sbml.jsbml.util.TreeNodeChangeListener;
+import org.sbml.jsbml.xml.stax.SBMLElementVisitor;
 
 /**
  * Provides methods for reading SBML from files, text strings or streams.
@@ -214,6 +216,23 @@ public class SBMLReader implements Cloneable, Serializable {
     return new org.sbml.jsbml.xml.stax.SBMLReader().readSBML(fileName);
   }
 
+  /**
+   * Reads an SBML document from a file mapped in memory, which is faster
+   * than {@link SBMLReader#readSBML(File file)} for large files.
+   * <p>
+   * This methods is not part of the libSBML SBMLReader API.
+   * <p>
+   * @param path the file to be read.
+   * <p>
+   * @return an {@link SBMLDocument} created from the SBML content.
+   * @throws XMLStreamException if any other problems prevent to create a {@link SBMLDocument}
+   * @throws IOException if the file does not exist or cannot be read.
+   * @see org.sbml.jsbml.xml.stax.SBMLReader#readSBML(Path, TreeNodeChangeListener)
+   */
+  public SBMLDocument readSBML(Path path) throws XMLStreamException, IOException {
+    return new org.sbml.jsbml.xml.stax.SBMLReader().readSBML(path, new SimpleTreeNodeChangeListener());
+  }
+
   /**
    * Reads an SBML document from a file.
    * <p>
@@ -251,6 +270,48 @@ public class SBMLReader implements Cloneable, Serializable {
     return new org.sbml.jsbml.xml.stax.SBMLReader().readSBMLFromStream(stream);
   }
 
+  /**
+   * Reads an SBML document from a {@link File} in streaming mode, giving each
+   * top-level element of the model to the {@code visitor} as soon as it has
+   * been read, so that it can be discarded before the rest of the file is
+   * processed.
+   * <p>
+   * This methods is not part of the libSBML SBMLReader API.
+   * <p>
+   * @param file the file to be read.
+   * @param visitor decides which of the top-level elements are kept.
+   * <p>
+   * @return an {@link SBMLDocument} created from the SBML content, without
+   * the elements discarded by the {@code visitor}.
+   * @throws XMLStreamException if any other problems prevent to create a {@link SBMLDocument}
+   * @throws IOException if the file does not exist or cannot be read.
+   * @see SBMLElementVisitor
+   */
+  public SBMLDocument readSBMLStreaming(File file, SBMLElementVisitor visitor) throws XMLStreamException, IOException {
+    return new org.sbml.jsbml.xml.stax.SBMLReader().readSBMLStreaming(file, visitor);
+  }
+
+  /**
+   * Reads an SBML document from a data stream in streaming mode, giving each
+   * top-level element of the model to the {@code visitor} as soon as it has
+   * been read, so that it can be discarded before the rest of the stream is
+   * processed.
+   * <p>
+   * This methods is not part of the libSBML SBMLReader API.
+   * <p>
+   * @param stream the stream of data to be read.
+   * @param visitor decides which of the top-level elements are kept.
+   * <p>
+   * @return an {@link SBMLDocument} created from the SBML content, without
+   * the elements discarded by the {@code visitor}.
+   * @throws XMLStreamException if any problems prevent to create a {@link SBMLDocument}
+   * @see SBMLElementVisitor
+   */
+  public SBMLDocument readSBMLStreaming(InputStream stream, SBMLElementVisitor visitor)
+      throws XMLStreamException {
+    return new org.sbml.jsbml.xml.stax.SBMLReader().readSBMLStreaming(stream, visitor);
+  }
+
   /**
    * Reads an SBML document from the given XML string.
    * 
@@ -419,6 +419,10 @@ public interface SBase extends TreeNodeWithChangeSupport {
    * Returns all the namespaces declared on this object. These will be written
    * on the
    * resulting XML element.
+   * <p>
+   * The map cannot be modified while it is empty, the namespaces are declared
+   * with {@link #addDeclaredNamespace(String, String)} and removed with
+   * {@link #removeDeclaredNamespaceByPrefix(String)}.
    * 
    * @return all the namespaces declared on this object. These will be written
    *         on the
@@ -489,6 +493,9 @@ public interface SBase extends TreeNodeWithChangeSupport {
   /**
    * Returns the map containing all the {@link SBasePlugin} extension objects
    * of this {@link SBase}.
+   * <p>
+   * The map cannot be modified while it is empty, the extensions are added
+   * with {@link #addExtension(String, SBasePlugin)}.
    * 
    * @return the map containing all the {@link SBasePlugin} extension objects
    * of this {@link SBase}.
@@ -20,8 +20,6 @@
  */
 package org.sbml.jsbml.math.compiler;
 
-import java.text.DecimalFormat;
-import java.text.DecimalFormatSymbols;
 import java.util.Arrays;
 import java.util.IllegalFormatException;
 import java.util.List;
@@ -38,6 +36,7 @@ import org.sbml.jsbml.math.ASTCnRealNode;
 import org.sbml.jsbml.math.ASTNode2;
 import org.sbml.jsbml.math.ASTPowerNode;
 import org.sbml.jsbml.math.ASTRelationalOperatorNode;
+import org.sbml.jsbml.util.DoubleFormatter;
 import org.sbml.jsbml.util.StringTools;
 
 /**
@@ -502,10 +501,8 @@ public class FormulaCompiler extends StringTools implements ASTNode2Compiler {
     if (exponent == 0) {
       return new ASTNode2Value<String>(StringTools.toString(Locale.ENGLISH, mantissa), this);
     }
-    return new ASTNode2Value<String>(concat(
-      (new DecimalFormat(StringTools.REAL_FORMAT,
-        new DecimalFormatSymbols(Locale.ENGLISH)))
-        .format(mantissa), "E", exponent).toString(), this);
+    return new ASTNode2Value<String>(DoubleFormatter.appendReal(
+      new StringBuilder(), mantissa).append('E').append(exponent).toString(), this);
   }
 
   /* (non-Javadoc)
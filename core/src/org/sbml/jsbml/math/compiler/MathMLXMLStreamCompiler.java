@@ -55,6 +55,7 @@ import org.sbml.jsbml.math.ASTPiecewiseFunctionNode;
 import org.sbml.jsbml.math.ASTQualifierNode;
 import org.sbml.jsbml.math.ASTRelationalOperatorNode;
 import org.sbml.jsbml.math.ASTRootNode;
+import org.sbml.jsbml.util.DoubleFormatter;
 import org.sbml.jsbml.util.StringTools;
 
 
@@ -153,13 +154,17 @@ public class MathMLXMLStreamCompiler {
   private final FindUnitsCompiler findUnitsCompiler = new FindUnitsCompiler();
 
   /**
-   * Formats the real number in a valid way for mathML.
-   * When java read 0.000166, it transforms it to 1.66E-4.
-   * This DecimalFormat will wrote the number as it was read.
+   * Buffer in which the real numbers are formatted in a valid way for mathML,
+   * with {@link DoubleFormatter#appendReal(StringBuilder, double)}. When java
+   * reads 0.000166, it transforms it to 1.66E-4, whereas the number is written
+   * as it was read.
    */
-  DecimalFormat realFormat = new DecimalFormat(StringTools.REAL_FORMAT,
-    new DecimalFormatSymbols(Locale.ENGLISH));
+  private final StringBuilder realBuffer = new StringBuilder(32);
 
+  /**
+   * The characters of {@link #realBuffer} given to the writer.
+   */
+  private char realChars[] = new char[32];
 
   /**
    * Create a new MathMLXMLStreamCompiler.
@@ -722,10 +727,9 @@ public class MathMLXMLStreamCompiler {
         writer.writeAttribute(" sbml:units", real.getUnits());
       }
       writer.writeCharacters(" ");
-      // We need the DecimalFormat to have number like 0.000166, that get transformed into 1.66E-4 which is
+      // We need to have number like 0.000166, that get transformed into 1.66E-4 which is
       // invalid in mathML, written properly
-      String doubleStr = realFormat.format(real.getReal());
-      writer.writeCharacters(doubleStr);
+      writeReal(real.getReal());
       writer.writeCharacters(" ");
       writer.writeEndElement();
       writer.writeCharacters("\n");
@@ -746,11 +750,11 @@ public class MathMLXMLStreamCompiler {
       if (exponential.isSetUnits()) {
         writer.writeAttribute("sbml:units", exponential.getUnits());
       }
-      writer.writeCharacters(realFormat.format(exponential.getMantissa()));
+      writeReal(exponential.getMantissa());
       writer.writeCharacters(" ");
       writer.writeEmptyElement(ASTNode.URI_MATHML_DEFINITION, "sep");
       writer.writeCharacters(" ");
-      writer.writeCharacters(realFormat.format(exponential.getExponent()));
+      writeReal(exponential.getExponent());
       writer.writeCharacters(" ");
       writer.writeEndElement();
       writer.writeCharacters("\n");
@@ -759,6 +763,25 @@ public class MathMLXMLStreamCompiler {
     }
   }
 
+  /**
+   * Writes the given number as characters, formatted in a valid way for
+   * mathML.
+   * 
+   * @param value
+   * @throws XMLStreamException
+   */
+  private void writeReal(double value) throws XMLStreamException {
+    realBuffer.setLength(0);
+    DoubleFormatter.appendReal(realBuffer, value);
+
+    int length = realBuffer.length();
+    if (realChars.length < length) {
+      realChars = new char[length];
+    }
+    realBuffer.getChars(0, length, realChars, 0);
+    writer.writeCharacters(realChars, 0, length);
+  }
+
   /**
    * @param operator
    */
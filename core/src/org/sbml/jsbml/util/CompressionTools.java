@@ -0,0 +1,150 @@
+/*
+ * ----------------------------------------------------------------------------
+ * This file is part of JSBML. Please visit <http://sbml.org/Software/JSBML>
+ * for the latest version of JSBML and more information about SBML.
+ * 
+ * Copyright (C) 2009-2018 jointly by the following organizations:
+ * 1. The University of Tuebingen, Germany
+ * 2. EMBL European Bioinformatics Institute (EBML-EBI), Hinxton, UK
+ * 3. The California Institute of Technology, Pasadena, CA, USA
+ * 4. The University of California, San Diego, La Jolla, CA, USA
+ * 5. The Babraham Institute, Cambridge, UK
+ * 
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation. A copy of the license agreement is provided
+ * in the file named "LICENSE.txt" included with this software distribution
+ * and also available online as <http://sbml.org/Software/JSBML/License>.
+ * ----------------------------------------------------------------------------
+ */
+package org.sbml.jsbml.util;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * This class provides a collection of convenient methods to read and write
+ * SBML files compressed with gzip or zip without temporary files, the data
+ * being decompressed or compressed while it is parsed or written.
+ * 
+ * @since 1.6
+ */
+public class CompressionTools {
+
+  /**
+   * The size of the buffers used for the decompression.
+   */
+  private static final int BUFFER_SIZE = 65536;
+
+  /**
+   * The name of the manifest of a COMBINE archive, that is never read as
+   * SBML.
+   */
+  public static final String OMEX_MANIFEST = "manifest.xml";
+
+  /**
+   * The name of the metadata file of a COMBINE archive, that is never read
+   * as SBML.
+   */
+  public static final String OMEX_METADATA = "metadata.rdf";
+
+  /**
+   * Returns a stream giving the uncompressed content of the given stream.
+   * 
+   * <p>The compression is detected from the first bytes of the stream: gzip
+   * data is decompressed, and the first entry of a zip archive that can
+   * contain SBML, i.e., whose name ends with {@code .xml} or {@code .sbml}
+   * and that is not the manifest or the metadata of a COMBINE archive, is
+   * returned. Any other stream is returned unchanged, apart from being
+   * buffered if it does not support {@link InputStream#mark(int)}.</p>
+   * 
+   * @param stream the stream to read, compressed or not.
+   * @return a stream of the uncompressed content, to be closed instead of
+   *         the given stream.
+   * @throws IOException if the stream cannot be read or if a zip archive
+   *         does not contain any SBML file.
+   */
+  public static InputStream decompress(InputStream stream) throws IOException {
+    InputStream buffer = stream.markSupported()
+        ? stream : new BufferedInputStream(stream, BUFFER_SIZE);
+
+    buffer.mark(4);
+    int b0 = buffer.read(), b1 = buffer.read(), b2 = buffer.read(), b3 = buffer.read();
+    buffer.reset();
+
+    if ((b0 == 0x1f) && (b1 == 0x8b)) {
+      return new GZIPInputStream(buffer, BUFFER_SIZE);
+    }
+    if ((b0 == 'P') && (b1 == 'K') && (b2 == 3) && (b3 == 4)) {
+      ZipInputStream zipStream = new ZipInputStream(buffer);
+
+      for (ZipEntry entry = zipStream.getNextEntry(); entry != null; entry = zipStream.getNextEntry()) {
+        if (isSBMLEntry(entry)) {
+          return zipStream;
+        }
+      }
+      zipStream.close();
+
+      throw new IOException("The zip archive does not contain any SBML file.");
+    }
+
+    return buffer;
+  }
+
+  /**
+   * Returns a stream compressing the data written to it as expected from the
+   * extension of the given file name, {@code .gz} for gzip and {@code .zip}
+   * for a zip archive containing a single entry, named as the file without
+   * the {@code .zip} extension. For any other extension, the given stream is
+   * returned unchanged.
+   * 
+   * <p>The returned stream has to be closed to finish the compressed data.</p>
+   * 
+   * @param stream the stream to write the compressed data to.
+   * @param fileName the name of the written file.
+   * @return a stream compressing the data, if needed.
+   * @throws IOException if the compressed data cannot be started.
+   */
+  public static OutputStream compress(OutputStream stream, String fileName) throws IOException {
+    String lowerCaseName = fileName.toLowerCase();
+
+    if (lowerCaseName.endsWith(".gz")) {
+      return new GZIPOutputStream(stream, BUFFER_SIZE);
+    }
+    if (lowerCaseName.endsWith(".zip")) {
+      ZipOutputStream zipStream = new ZipOutputStream(stream);
+      String entryName = fileName.substring(fileName.lastIndexOf('/') + 1, fileName.length() - 4);
+
+      if (entryName.indexOf('.') < 0) {
+        entryName += ".xml";
+      }
+      zipStream.putNextEntry(new ZipEntry(entryName));
+
+      return zipStream;
+    }
+
+    return stream;
+  }
+
+  /**
+   * Returns {@code true} if the given zip entry may contain SBML.
+   * 
+   * @param entry an entry of a zip archive.
+   * @return {@code true} if the given zip entry may contain SBML.
+   */
+  private static boolean isSBMLEntry(ZipEntry entry) {
+    String name = entry.getName().toLowerCase();
+    String fileName = name.substring(name.lastIndexOf('/') + 1);
+
+    return !entry.isDirectory() && (name.endsWith(".xml") || name.endsWith(".sbml"))
+        && !fileName.equals(OMEX_MANIFEST) && !fileName.equals(OMEX_METADATA);
+  }
+
+}
@@ -0,0 +1,290 @@
+/*
+ * ----------------------------------------------------------------------------
+ * This file is part of JSBML. Please visit <http://sbml.org/Software/JSBML>
+ * for the latest version of JSBML and more information about SBML.
+ * 
+ * Copyright (C) 2009-2018 jointly by the following organizations:
+ * 1. The University of Tuebingen, Germany
+ * 2. EMBL European Bioinformatics Institute (EBML-EBI), Hinxton, UK
+ * 3. The California Institute of Technology, Pasadena, CA, USA
+ * 4. The University of California, San Diego, La Jolla, CA, USA
+ * 5. The Babraham Institute, Cambridge, UK
+ * 
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation. A copy of the license agreement is provided
+ * in the file named "LICENSE.txt" included with this software distribution
+ * and also available online as <http://sbml.org/Software/JSBML/License>.
+ * ----------------------------------------------------------------------------
+ */
+package org.sbml.jsbml.util;
+
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.util.Locale;
+
+/**
+ * Appends {@code double} values to a {@link StringBuilder} following the
+ * number formats of {@link StringTools}, without creating a
+ * {@link DecimalFormat} for each value.
+ * 
+ * <p>
+ * The digits are those of {@link Double#toString(double)}, which are also the
+ * ones {@link DecimalFormat} starts from, and they are only laid out again
+ * according to the patterns {@link StringTools#DECIMAL_FORMAT},
+ * {@link StringTools#SCIENTIFIC_FORMAT} and {@link StringTools#REAL_FORMAT}
+ * with the {@link Locale#ENGLISH} symbols. The result is therefore the same
+ * string as the one given by these patterns. The rare values that would need
+ * to be rounded, because they have more fraction digits than a pattern
+ * allows, are still given to a {@link DecimalFormat}, kept for each thread.
+ * 
+ * @since 1.6
+ */
+public final class DoubleFormatter {
+
+  /**
+   * Maximal number of fraction digits of {@link StringTools#DECIMAL_FORMAT}.
+   */
+  private static final int DECIMAL_FRACTION_DIGITS = StringTools.DECIMAL_FORMAT.length() - 2;
+
+  /**
+   * Maximal number of fraction digits of {@link StringTools#REAL_FORMAT}.
+   */
+  private static final int REAL_FRACTION_DIGITS = StringTools.REAL_FORMAT.length() - 2;
+
+  /**
+   * The {@link StringTools#REAL_FORMAT} used for the values that need to be
+   * rounded or that are not finite.
+   */
+  private static final ThreadLocal<DecimalFormat> realFormat = new ThreadLocal<DecimalFormat>() {
+
+    @Override
+    protected DecimalFormat initialValue() {
+      return new DecimalFormat(StringTools.REAL_FORMAT, new DecimalFormatSymbols(Locale.ENGLISH));
+    }
+  };
+
+  /**
+   * The {@link StringTools#DECIMAL_FORMAT} used for the values that need to
+   * be rounded.
+   */
+  private static final ThreadLocal<DecimalFormat> decimalFormat = new ThreadLocal<DecimalFormat>() {
+
+    @Override
+    protected DecimalFormat initialValue() {
+      return new DecimalFormat(StringTools.DECIMAL_FORMAT, new DecimalFormatSymbols(Locale.ENGLISH));
+    }
+  };
+
+  /**
+   * Appends the given value as {@link StringTools#toString(Locale, double)}
+   * would write it with {@link Locale#ENGLISH}: {@code NaN}, {@code INF},
+   * {@code -INF}, an integer, or a decimal or scientific number depending on
+   * its magnitude.
+   * 
+   * @param sb
+   *        the buffer to append to.
+   * @param value
+   * @return the given buffer.
+   */
+  public static StringBuilder append(StringBuilder sb, double value) {
+    if (Double.isNaN(value)) {
+      return sb.append("NaN");
+    } else if (Double.isInfinite(value)) {
+      return sb.append(value < 0 ? "-INF" : "INF");
+    }
+
+    if ((((int) value) - value) == 0) {
+      return sb.append((int) value);
+    }
+
+    double abs = Math.abs(value);
+
+    if ((abs < 1E-4) || (1E4 < abs)) {
+      return appendScientific(sb, value);
+    }
+    return appendDecimal(sb, value, DECIMAL_FRACTION_DIGITS, decimalFormat);
+  }
+
+  /**
+   * Appends the given value as a {@link DecimalFormat} with the pattern
+   * {@link StringTools#REAL_FORMAT} and the {@link Locale#ENGLISH} symbols
+   * would format it, that is to say without exponent.
+   * 
+   * @param sb
+   *        the buffer to append to.
+   * @param value
+   * @return the given buffer.
+   */
+  public static StringBuilder appendReal(StringBuilder sb, double value) {
+    if (Double.isNaN(value) || Double.isInfinite(value)) {
+      return sb.append(realFormat.get().format(value));
+    }
+    return appendDecimal(sb, value, REAL_FRACTION_DIGITS, realFormat);
+  }
+
+  /**
+   * Returns the given value formatted as {@link #append(StringBuilder, double)}
+   * would append it.
+   * 
+   * @param value
+   * @return
+   */
+  public static String toString(double value) {
+    return append(new StringBuilder(24), value).toString();
+  }
+
+  /**
+   * Appends a finite value in a fixed point notation, with at most the given
+   * number of fraction digits.
+   * 
+   * @param sb
+   * @param value
+   * @param maxFractionDigits
+   * @param format
+   *        the format to use if the value has to be rounded.
+   * @return the given buffer.
+   */
+  private static StringBuilder appendDecimal(StringBuilder sb, double value,
+    int maxFractionDigits, ThreadLocal<DecimalFormat> format) {
+    if (value == 0d) {
+      return sb.append((Double.doubleToRawLongBits(value) < 0) ? "-0" : "0");
+    }
+
+    int start = sb.length();
+    char digits[] = new char[32];
+    int decimalAt = decompose(sb, start, Math.abs(value), digits);
+    int count = digitCount(digits);
+
+    if (count - decimalAt > maxFractionDigits) {
+      return sb.append(format.get().format(value));
+    }
+
+    if (value < 0) {
+      sb.append('-');
+    }
+
+    if (decimalAt <= 0) {
+      sb.append("0.");
+      for (int i = decimalAt; i < 0; i++) {
+        sb.append('0');
+      }
+      sb.append(digits, 0, count);
+    } else if (decimalAt >= count) {
+      sb.append(digits, 0, count);
+      for (int i = count; i < decimalAt; i++) {
+        sb.append('0');
+      }
+    } else {
+      sb.append(digits, 0, decimalAt);
+      sb.append('.');
+      sb.append(digits, decimalAt, count - decimalAt);
+    }
+    return sb;
+  }
+
+  /**
+   * Appends a finite value that is not zero with one integer digit and an
+   * exponent, as {@link StringTools#SCIENTIFIC_FORMAT} does.
+   * 
+   * @param sb
+   * @param value
+   * @return the given buffer.
+   */
+  private static StringBuilder appendScientific(StringBuilder sb, double value) {
+    int start = sb.length();
+    char digits[] = new char[32];
+    int decimalAt = decompose(sb, start, Math.abs(value), digits);
+    int count = digitCount(digits);
+
+    if (value < 0) {
+      sb.append('-');
+    }
+    sb.append(digits[0]);
+    if (count > 1) {
+      sb.append('.');
+      sb.append(digits, 1, count - 1);
+    }
+    return sb.append('E').append(decimalAt - 1);
+  }
+
+  /**
+   * Writes the significant digits of the given positive value into the given
+   * array, without leading or trailing zeros, and followed by {@code '\0'}
+   * characters. The buffer is used as a scratch area, from the given
+   * position, and is given back at its original length.
+   * 
+   * @param sb
+   * @param start
+   *        the length of the buffer.
+   * @param value
+   *        a positive finite value that is not zero.
+   * @param digits
+   * @return the position of the decimal point relative to the first digit,
+   *         that is to say the value equals {@code 0.d1d2d3... * 10^n}.
+   */
+  private static int decompose(StringBuilder sb, int start, double value, char digits[]) {
+    sb.append(value);
+
+    int end = sb.length();
+    int count = 0;
+    int decimalAt = 0;
+    int exponent = 0;
+    boolean leading = true, point = false;
+
+    for (int i = start; i < end; i++) {
+      char c = sb.charAt(i);
+
+      if (c == '.') {
+        decimalAt += count;
+        point = true;
+      } else if (c == 'E') {
+        boolean negative = sb.charAt(i + 1) == '-';
+        for (int j = negative ? i + 2 : i + 1; j < end; j++) {
+          exponent = 10 * exponent + (sb.charAt(j) - '0');
+        }
+        if (negative) {
+          exponent = -exponent;
+        }
+        break;
+      } else if (leading && (c == '0')) {
+        if (point) {
+          // a leading zero after the decimal point moves it to the left
+          decimalAt--;
+        }
+      } else {
+        leading = false;
+        digits[count++] = c;
+      }
+    }
+    if (!point) {
+      decimalAt = count;
+    }
+    sb.setLength(start);
+
+    return decimalAt + exponent;
+  }
+
+  /**
+   * @param digits
+   *        digits written by {@link #decompose(StringBuilder, int, double, char[])}.
+   * @return the number of significant digits, trailing zeros excluded.
+   */
+  private static int digitCount(char digits[]) {
+    int count = 0;
+    while ((count < digits.length) && (digits[count] != '\0')) {
+      count++;
+    }
+    while ((count > 1) && (digits[count - 1] == '0')) {
+      count--;
+    }
+    return count;
+  }
+
+  /**
+   * Not to be instantiated.
+   */
+  private DoubleFormatter() {
+  }
+
+}
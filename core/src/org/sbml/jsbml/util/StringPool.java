@@ -0,0 +1,194 @@
+/*
+ * ----------------------------------------------------------------------------
+ * This file is part of JSBML. Please visit <http://sbml.org/Software/JSBML>
+ * for the latest version of JSBML and more information about SBML.
+ * 
+ * Copyright (C) 2009-2018 jointly by the following organizations:
+ * 1. The University of Tuebingen, Germany
+ * 2. EMBL European Bioinformatics Institute (EBML-EBI), Hinxton, UK
+ * 3. The California Institute of Technology, Pasadena, CA, USA
+ * 4. The University of California, San Diego, La Jolla, CA, USA
+ * 5. The Babraham Institute, Cambridge, UK
+ * 
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation. A copy of the license agreement is provided
+ * in the file named "LICENSE.txt" included with this software distribution
+ * and also available online as <http://sbml.org/Software/JSBML/License>.
+ * ----------------------------------------------------------------------------
+ */
+package org.sbml.jsbml.util;
+
+import java.lang.ref.WeakReference;
+import java.text.MessageFormat;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A pool of {@link String}s used to share one instance of each distinct value
+ * read from SBML files, like identifiers, unit references or namespace URIs,
+ * instead of keeping one instance per occurrence.
+ * 
+ * <p>A pool can be used for one document only, and then be garbage collected
+ * with the reader, or shared by all the documents read, for instance when a
+ * large number of documents are kept in memory. The values are only weakly
+ * referenced, so that a pool only keeps the values still used elsewhere, for
+ * instance by the documents read, and does not grow with the documents that
+ * are no longer used. A pool can be used by several threads at the same
+ * time.</p>
+ * 
+ * <p>The pool counts how many values were requested and how many of them were
+ * already present, so that the memory saved can be estimated with
+ * {@link #getEstimatedSavedBytes()}.</p>
+ * 
+ * @since 1.6
+ * @see org.sbml.jsbml.xml.stax.SBMLReader#setStringPooling(boolean)
+ */
+public class StringPool {
+
+  /**
+   * Estimated size in bytes of a {@link String} object without its
+   * characters: the object header and fields of the {@link String} plus the
+   * header of its character array.
+   */
+  private static final int STRING_OVERHEAD = 40;
+
+  /**
+   * The distinct values of this pool, each one weakly referenced by its entry
+   * so that it is removed once no longer used elsewhere.
+   */
+  private final Map<String, WeakReference<String>> pool = new WeakHashMap<String, WeakReference<String>>();
+
+  /**
+   * The number of calls to {@link #intern(String)} with a non-null value.
+   */
+  private final AtomicLong requestCount = new AtomicLong();
+
+  /**
+   * The number of calls to {@link #intern(String)} that returned a value
+   * already in the pool.
+   */
+  private final AtomicLong hitCount = new AtomicLong();
+
+  /**
+   * The number of characters of the values that were replaced by the pooled
+   * instance.
+   */
+  private final AtomicLong savedCharacterCount = new AtomicLong();
+
+  /**
+   * Creates a new empty {@link StringPool}.
+   */
+  public StringPool() {
+    super();
+  }
+
+  /**
+   * Returns the instance of the pool equal to the given value, adding the
+   * value to the pool if it is not yet present.
+   * 
+   * @param value the value to share, can be {@code null}.
+   * @return the pooled instance equal to {@code value}, or {@code null} if
+   *         {@code value} is {@code null}.
+   */
+  public String intern(String value) {
+    if (value == null) {
+      return null;
+    }
+    requestCount.incrementAndGet();
+
+    String pooled;
+
+    synchronized (pool) {
+      WeakReference<String> reference = pool.get(value);
+      pooled = (reference != null) ? reference.get() : null;
+
+      if (pooled == null) {
+        pool.put(value, new WeakReference<String>(value));
+        return value;
+      }
+    }
+    if (pooled != value) {
+      hitCount.incrementAndGet();
+      savedCharacterCount.addAndGet(value.length());
+    }
+
+    return pooled;
+  }
+
+  /**
+   * Removes all the values from this pool and resets its counters.
+   */
+  public void clear() {
+    synchronized (pool) {
+      pool.clear();
+    }
+    requestCount.set(0);
+    hitCount.set(0);
+    savedCharacterCount.set(0);
+  }
+
+  /**
+   * Returns the number of distinct values in this pool that are still used.
+   * 
+   * @return the number of distinct values in this pool.
+   */
+  public int size() {
+    synchronized (pool) {
+      return pool.size();
+    }
+  }
+
+  /**
+   * Returns the number of values given to {@link #intern(String)}.
+   * 
+   * @return the number of values given to {@link #intern(String)}.
+   */
+  public long getRequestCount() {
+    return requestCount.get();
+  }
+
+  /**
+   * Returns the number of values given to {@link #intern(String)} that were
+   * replaced by an instance already present in the pool.
+   * 
+   * @return the number of duplicated values removed.
+   */
+  public long getHitCount() {
+    return hitCount.get();
+  }
+
+  /**
+   * Returns the number of characters of the duplicated values replaced by an
+   * instance of the pool.
+   * 
+   * @return the number of characters saved.
+   */
+  public long getSavedCharacterCount() {
+    return savedCharacterCount.get();
+  }
+
+  /**
+   * Returns an estimation of the number of bytes saved by this pool, assuming
+   * that each duplicated value would otherwise be kept in memory, with two
+   * bytes per character and a fixed overhead per {@link String}.
+   * 
+   * @return an estimation of the number of bytes saved by this pool.
+   */
+  public long getEstimatedSavedBytes() {
+    return (STRING_OVERHEAD * getHitCount()) + (2 * getSavedCharacterCount());
+  }
+
+  /* (non-Javadoc)
+   * @see java.lang.Object#toString()
+   */
+  @Override
+  public String toString() {
+    return MessageFormat.format(
+      "{0} [size={1,number,#}, requests={2,number,#}, duplicates={3,number,#}, savedBytes={4,number,#}]",
+      getClass().getSimpleName(), size(), getRequestCount(), getHitCount(),
+      getEstimatedSavedBytes());
+  }
+
+}
@@ -589,7 +589,8 @@ public class StringTools {
   }
 
   /**
-   * Allows for {@link Locale}-dependent number formatting.
+   * Allows for {@link Locale}-dependent number formatting. The English
+   * formatting, used when writing SBML, is done by {@link DoubleFormatter}.
    *
    * @param locale
    * @param value
@@ -604,6 +605,10 @@ public class StringTools {
       return value < 0 ? '-' + infinity : infinity;
     }
 
+    if (Locale.ENGLISH.equals(locale) || Locale.US.equals(locale)) {
+      return DoubleFormatter.toString(value);
+    }
+
     if ((((int) value) - value) == 0) {
       return String.format(locale, "%d", Integer.valueOf((int) value));
     }
@@ -0,0 +1,358 @@
+/*
+ * ----------------------------------------------------------------------------
+ * This file is part of JSBML. Please visit <http://sbml.org/Software/JSBML>
+ * for the latest version of JSBML and more information about SBML.
+ * 
+ * Copyright (C) 2009-2018 jointly by the following organizations:
+ * 1. The University of Tuebingen, Germany
+ * 2. EMBL European Bioinformatics Institute (EBML-EBI), Hinxton, UK
+ * 3. The California Institute of Technology, Pasadena, CA, USA
+ * 4. The University of California, San Diego, La Jolla, CA, USA
+ * 5. The Babraham Institute, Cambridge, UK
+ * 
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation. A copy of the license agreement is provided
+ * in the file named "LICENSE.txt" included with this software distribution
+ * and also available online as <http://sbml.org/Software/JSBML/License>.
+ * ----------------------------------------------------------------------------
+ */
+package org.sbml.jsbml.util;
+
+import java.beans.PropertyChangeEvent;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import javax.swing.tree.TreeNode;
+
+import org.sbml.jsbml.ASTNode;
+import org.sbml.jsbml.SBMLDocument;
+import org.sbml.jsbml.math.ASTNode2;
+
+/**
+ * Dispatches the changes of all the nodes of an {@link SBMLDocument} to the
+ * {@link TreeNodeChangeListener}s subscribed to it, see
+ * {@link SBMLDocument#getChangeDispatcher()}.
+ * 
+ * <p>A listener added with
+ * {@link TreeNodeWithChangeSupport#addTreeNodeChangeListener(TreeNodeChangeListener, boolean)}
+ * is copied into the list of listeners of each node of the tree, which
+ * takes a walk over the whole tree and some memory for each node. A
+ * subscription to the dispatcher is only kept here instead: each node
+ * fires its events to the dispatcher of the document it belongs to, found
+ * from its parents, so that subscribing does not depend on the size of the
+ * document and the nodes need no list of listeners. A subscription can be
+ * restricted to the nodes of a given type or of a given subtree.</p>
+ * 
+ * <p>As the dispatcher is found from the parents of a node, the changes of
+ * a node that is not part of the document yet are not dispatched. Once it is
+ * added to the document, a {@link TreeNodeChangeListener#nodeAdded(TreeNode)}
+ * event is.</p>
+ * 
+ * <p>The nodes only look for the dispatcher of their document while a
+ * dispatcher with subscriptions is in use. The dispatchers are only weakly
+ * referenced for this, so that a document that is not used anymore stops
+ * counting once it is garbage collected, even if its listeners were never
+ * removed.</p>
+ * 
+ * @since 1.6
+ */
+public class TreeNodeChangeDispatcher implements TreeNodeChangeListener {
+
+  /**
+   * The dispatchers that have subscriptions, weakly referenced.
+   */
+  private static final Set<Reference<TreeNodeChangeDispatcher>> subscribed = new HashSet<Reference<TreeNodeChangeDispatcher>>();
+
+  /**
+   * The references of the dispatchers of {@link #subscribed} that were
+   * garbage collected.
+   */
+  private static final ReferenceQueue<TreeNodeChangeDispatcher> collected = new ReferenceQueue<TreeNodeChangeDispatcher>();
+
+  /**
+   * The size of {@link #subscribed}, so that the nodes only look for the
+   * dispatcher of their document when there is any.
+   */
+  private static volatile int subscribedCount;
+
+  /**
+   * A listener, with the nodes it listens to.
+   */
+  private static class Subscription {
+
+    /**
+     * 
+     */
+    private final TreeNodeChangeListener listener;
+
+    /**
+     * The type of the nodes the listener listens to.
+     */
+    private final Class<?> type;
+
+    /**
+     * The root of the subtree the listener listens to, or {@code null}.
+     */
+    private final TreeNode subtree;
+
+    /**
+     * @param listener
+     * @param type
+     * @param subtree
+     */
+    public Subscription(TreeNodeChangeListener listener, Class<?> type, TreeNode subtree) {
+      this.listener = listener;
+      this.type = type;
+      this.subtree = subtree;
+    }
+
+    /**
+     * @param node
+     *        the node that changed.
+     * @param parent
+     *        the parent of the node, or its previous parent if it was
+     *        removed.
+     * @return {@code true} if the listener listens to the given node.
+     */
+    public boolean accepts(Object node, TreeNode parent) {
+      return type.isInstance(node)
+          && ((subtree == null) || (node == subtree) || isInSubtree(parent, subtree));
+    }
+
+  }
+
+  /**
+   * 
+   */
+  private final List<Subscription> subscriptions = new CopyOnWriteArrayList<Subscription>();
+
+  /**
+   * The reference to this dispatcher in {@link #subscribed}, {@code null}
+   * while it has no subscription.
+   */
+  private Reference<TreeNodeChangeDispatcher> reference;
+
+  /**
+   * @return {@code true} if any dispatcher in use has subscriptions.
+   */
+  public static boolean hasSubscriptions() {
+    if (subscribedCount == 0) {
+      return false;
+    }
+    Reference<? extends TreeNodeChangeDispatcher> reference = collected.poll();
+
+    if (reference != null) {
+      synchronized (subscribed) {
+        for (; reference != null; reference = collected.poll()) {
+          subscribed.remove(reference);
+        }
+        subscribedCount = subscribed.size();
+      }
+    }
+    return subscribedCount > 0;
+  }
+
+  /**
+   * Adds this dispatcher to the {@link #subscribed} ones or removes it, after
+   * its subscriptions changed.
+   */
+  private void subscriptionsChanged() {
+    synchronized (subscribed) {
+      if (subscriptions.isEmpty()) {
+        if (reference != null) {
+          subscribed.remove(reference);
+          reference = null;
+        }
+      } else if (reference == null) {
+        reference = new WeakReference<TreeNodeChangeDispatcher>(this, collected);
+        subscribed.add(reference);
+      }
+      subscribedCount = subscribed.size();
+    }
+  }
+
+  /**
+   * Returns the dispatcher of the document the given node belongs to, if it
+   * has subscriptions.
+   * 
+   * @param node
+   * @return the dispatcher of the document of the given node, or
+   *         {@code null}.
+   */
+  public static TreeNodeChangeDispatcher getDispatcher(TreeNode node) {
+    TreeNode root = node;
+
+    for (TreeNode parent = getParent(node); parent != null; parent = getParent(parent)) {
+      root = parent;
+    }
+    if ((root instanceof SBMLDocument) && ((SBMLDocument) root).isSetChangeDispatcher()) {
+      TreeNodeChangeDispatcher dispatcher = ((SBMLDocument) root).getChangeDispatcher();
+
+      return dispatcher.subscriptions.isEmpty() ? null : dispatcher;
+    }
+    return null;
+  }
+
+  /**
+   * @param node
+   * @return the parent of the given node, the container of its math for the
+   *         root of a math formula.
+   */
+  private static TreeNode getParent(TreeNode node) {
+    TreeNode parent = node.getParent();
+
+    if (parent == null) {
+      if (node instanceof ASTNode) {
+        parent = ((ASTNode) node).getParentSBMLObject();
+      } else if (node instanceof ASTNode2) {
+        parent = ((ASTNode2) node).getParentSBMLObject();
+      }
+    }
+    return parent;
+  }
+
+  /**
+   * @param node
+   * @param subtree
+   * @return {@code true} if the given node is the root of the subtree or
+   *         one of its descendants.
+   */
+  private static boolean isInSubtree(TreeNode node, TreeNode subtree) {
+    for (; node != null; node = getParent(node)) {
+      if (node == subtree) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Subscribes a listener to the changes of all the nodes of the document.
+   * 
+   * @param listener
+   */
+  public void addListener(TreeNodeChangeListener listener) {
+    addListener(listener, TreeNode.class, null);
+  }
+
+  /**
+   * Subscribes a listener to the changes of the nodes of the given type,
+   * for instance {@link org.sbml.jsbml.Species}.
+   * 
+   * @param listener
+   * @param type
+   */
+  public void addListener(TreeNodeChangeListener listener, Class<?> type) {
+    addListener(listener, type, null);
+  }
+
+  /**
+   * Subscribes a listener to the changes of the given node and of all its
+   * descendants.
+   * 
+   * @param listener
+   * @param subtree
+   */
+  public void addListener(TreeNodeChangeListener listener, TreeNode subtree) {
+    addListener(listener, TreeNode.class, subtree);
+  }
+
+  /**
+   * Subscribes a listener to the changes of the nodes of the given type in
+   * the given subtree.
+   * 
+   * @param listener
+   * @param type
+   *        the type of the nodes, {@link TreeNode} for all of them.
+   * @param subtree
+   *        the root of the subtree, {@code null} for the whole document.
+   */
+  public void addListener(TreeNodeChangeListener listener, Class<?> type, TreeNode subtree) {
+    if ((listener == null) || (type == null)) {
+      throw new IllegalArgumentException("The listener and the type of the nodes cannot be null.");
+    }
+    subscriptions.add(new Subscription(listener, type, subtree));
+    subscriptionsChanged();
+  }
+
+  /**
+   * Removes all the subscriptions of the given listener.
+   * 
+   * @param listener
+   * @return {@code true} if the listener was subscribed.
+   */
+  public boolean removeListener(TreeNodeChangeListener listener) {
+    boolean removed = false;
+
+    for (Subscription subscription : subscriptions) {
+      if ((subscription.listener == listener) && subscriptions.remove(subscription)) {
+        removed = true;
+      }
+    }
+    subscriptionsChanged();
+    return removed;
+  }
+
+  /**
+   * Removes all the subscriptions.
+   */
+  public void removeAllListeners() {
+    subscriptions.clear();
+    subscriptionsChanged();
+  }
+
+  /**
+   * @return the number of subscriptions.
+   */
+  public int getSubscriptionCount() {
+    return subscriptions.size();
+  }
+
+  /* (non-Javadoc)
+   * @see java.beans.PropertyChangeListener#propertyChange(java.beans.PropertyChangeEvent)
+   */
+  @Override
+  public void propertyChange(PropertyChangeEvent event) {
+    Object source = event.getSource();
+    TreeNode parent = (source instanceof TreeNode) ? getParent((TreeNode) source) : null;
+
+    for (Subscription subscription : subscriptions) {
+      if (subscription.accepts(source, parent)) {
+        subscription.listener.propertyChange(event);
+      }
+    }
+  }
+
+  /* (non-Javadoc)
+   * @see org.sbml.jsbml.util.TreeNodeChangeListener#nodeAdded(javax.swing.tree.TreeNode)
+   */
+  @Override
+  public void nodeAdded(TreeNode node) {
+    TreeNode parent = getParent(node);
+
+    for (Subscription subscription : subscriptions) {
+      if (subscription.accepts(node, parent)) {
+        subscription.listener.nodeAdded(node);
+      }
+    }
+  }
+
+  /* (non-Javadoc)
+   * @see org.sbml.jsbml.util.TreeNodeChangeListener#nodeRemoved(org.sbml.jsbml.util.TreeNodeRemovedEvent)
+   */
+  @Override
+  public void nodeRemoved(TreeNodeRemovedEvent event) {
+    for (Subscription subscription : subscriptions) {
+      if (subscription.accepts(event.getSource(), event.getPreviousParent())) {
+        subscription.listener.nodeRemoved(event);
+      }
+    }
+  }
+
+}
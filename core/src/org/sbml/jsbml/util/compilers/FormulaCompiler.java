@@ -19,8 +19,6 @@
  */
 package org.sbml.jsbml.util.compilers;
 
-import java.text.DecimalFormat;
-import java.text.DecimalFormatSymbols;
 import java.util.ArrayList;
 import java.util.IllegalFormatException;
 import java.util.List;
@@ -34,6 +32,7 @@ import org.sbml.jsbml.Compartment;
 import org.sbml.jsbml.FunctionDefinition;
 import org.sbml.jsbml.SBMLException;
 import org.sbml.jsbml.SpeciesReference;
+import org.sbml.jsbml.util.DoubleFormatter;
 import org.sbml.jsbml.util.StringTools;
 
 /**
@@ -534,10 +533,8 @@ public class FormulaCompiler extends StringTools implements ASTNodeCompiler {
       return new ASTNodeValue(mantissa, this);
     }
 
-    return new ASTNodeValue(concat(
-      (new DecimalFormat(StringTools.REAL_FORMAT,
-        new DecimalFormatSymbols(Locale.ENGLISH)))
-        .format(mantissa), "E", exponent).toString(), this);
+    return new ASTNodeValue(DoubleFormatter.appendReal(
+      new StringBuilder(), mantissa).append('E').append(exponent).toString(), this);
   }
 
   /* (non-Javadoc)
@@ -239,7 +239,10 @@ public class XMLNode extends XMLToken {
     if (orig.childElements != null && orig.childElements.size() > 0) {
       childElements = new ArrayList<XMLNode>();
       for (XMLNode origchildren : orig.childElements) {
-        childElements.add(origchildren.clone());
+        XMLNode child = origchildren.clone();
+        // the copy of the child belongs to this copy, not to the original node
+        child.parent = this;
+        childElements.add(child);
       }
     }
     // clone our jsbml user objects for XMLNode
@@ -25,6 +25,8 @@ import java.text.MessageFormat;
 import java.util.ArrayList;
 import java.util.Enumeration;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import javax.swing.tree.TreeNode;
 
@@ -56,6 +58,18 @@ public abstract class AbstractReaderWriter implements ReadingParser, WritingPars
    */
   private static final transient Logger logger = Logger.getLogger(AbstractReaderWriter.class);
 
+  /**
+   * Dispatch table used by {@link #createListOfChild(ListOf, String)}: for each
+   * parent class, the 'create' method to call for a given element name. It is
+   * filled the first time an element is found below a parent class and shared
+   * by all the parsers, which can run in several threads at the same time.
+   * This is the only table the package parsers go through: their
+   * processStartElement methods still compare the element name with the few
+   * names allowed in each context, unlike the {@link SBMLCoreParser}.
+   */
+  private static final ConcurrentMap<Class<?>, ConcurrentMap<String, Method>> createMethodTable =
+      new ConcurrentHashMap<Class<?>, ConcurrentMap<String, Method>>();
+
   /* (non-Javadoc)
    * @see org.sbml.jsbml.xml.parsers.ReadingParser#processAttribute(String
    *      elementName, String attributeName, String value, String prefix,
@@ -488,15 +502,33 @@ public abstract class AbstractReaderWriter implements ReadingParser, WritingPars
       parentSBase = parentPlugin;
     }
 
-    String createMethodName = "create" + elementName.substring(0, 1).toUpperCase() + elementName.substring(1);
-    Method createMethod = null;
+    ConcurrentMap<String, Method> createMethods = createMethodTable.get(parentSBase.getClass());
 
-    if (logger.isDebugEnabled()) {
-      logger.debug("Method '" + createMethodName + "' will be used");
+    if (createMethods == null) {
+      createMethods = new ConcurrentHashMap<String, Method>();
+      ConcurrentMap<String, Method> previous = createMethodTable.putIfAbsent(parentSBase.getClass(), createMethods);
+
+      if (previous != null) {
+        createMethods = previous;
+      }
     }
 
+    Method createMethod = createMethods.get(elementName);
+    String createMethodName = null;
+
     try {
-      createMethod = parentSBase.getClass().getMethod(createMethodName, (Class<?>[]) null);
+      if (createMethod == null) {
+        createMethodName = "create" + elementName.substring(0, 1).toUpperCase() + elementName.substring(1);
+
+        if (logger.isDebugEnabled()) {
+          logger.debug("Method '" + createMethodName + "' will be used");
+        }
+
+        createMethod = parentSBase.getClass().getMethod(createMethodName, (Class<?>[]) null);
+        createMethods.put(elementName, createMethod);
+      } else {
+        createMethodName = createMethod.getName();
+      }
 
       return createMethod.invoke(parentSBase, (Object[]) null);
 
@@ -41,6 +41,7 @@ import org.sbml.jsbml.Priority;
 import org.sbml.jsbml.Rule;
 import org.sbml.jsbml.SBMLDocument;
 import org.sbml.jsbml.Trigger;
+import org.sbml.jsbml.util.StringPool;
 import org.sbml.jsbml.util.StringTools;
 import org.sbml.jsbml.validator.offline.constraints.ASTNodeConstraints;
 import org.sbml.jsbml.xml.XMLAttributes;
@@ -119,6 +120,12 @@ public class MathMLStaxParser implements ReadingParser {
    * <p>The size of the list should be equals to piecewiseCount.
    */
   private ArrayList<Integer> piecewiseOtherwiseCount = new ArrayList<Integer>();
+
+  /**
+   * The pool used to share the identifiers read, {@code null} if they are
+   * not pooled.
+   */
+  private StringPool stringPool;
   
   /**
    * Returns the indent
@@ -148,6 +155,27 @@ public class MathMLStaxParser implements ReadingParser {
     return omitXMLDeclaration;
   }
 
+  /**
+   * Returns the pool used to share the identifiers read.
+   * 
+   * @return the pool used to share the identifiers read, or {@code null} if
+   *         they are not pooled.
+   */
+  public StringPool getStringPool() {
+    return stringPool;
+  }
+
+  /**
+   * Returns the instance of the {@link #stringPool} equal to the given
+   * value, or the value itself if the identifiers are not pooled.
+   * 
+   * @param value
+   * @return the value to store in the {@link ASTNode}.
+   */
+  private String intern(String value) {
+    return (stringPool != null) ? stringPool.intern(value) : value;
+  }
+
   /* (non-Javadoc)
    * @see org.sbml.jsbml.xml.ReadingParser#processAttribute(String ElementName, String AttributeName, String value, String prefix, boolean isLastAttribute, Object contextObject)
    */
@@ -259,7 +287,7 @@ public class MathMLStaxParser implements ReadingParser {
     }
 
     if (astNode.isName() || astNode.isFunction()) {
-      astNode.setName(characters.trim());
+      astNode.setName(intern(characters.trim()));
     } else if (astNode.isInteger()) {
       astNode.setValue(StringTools.parseSBMLInt(characters.trim()));
     } else if (astNode.isRational()) {
@@ -277,7 +305,7 @@ public class MathMLStaxParser implements ReadingParser {
     } else if (astNode.isReal()) {
       astNode.setValue(Double.valueOf(characters.trim()));
     } else if (astNode.getType().equals(Type.FUNCTION_DELAY)) {
-      astNode.setName(characters.trim());
+      astNode.setName(intern(characters.trim()));
     } else {
       logger.warn("processCharactersOf : !!!!!!!!! I don't know what to do with that : " +
           elementName + " !!!!!!!!!!");
@@ -587,6 +615,19 @@ public class MathMLStaxParser implements ReadingParser {
       mathContainer = ((ASTNode) contextObject).getParentSBMLObject();
     }
     
+    countMathElement(mathContainer, userObjectKey, elementName);
+  }
+
+  /**
+   * Adds one to the number of {@code math} or {@code semantics} elements
+   * encountered for the given {@link MathContainer}, which is used by the
+   * offline validator.
+   * 
+   * @param mathContainer a {@link MathContainer} instance, can be {@code null}.
+   * @param userObjectKey the key of the user object storing the number of elements.
+   * @param elementName the name of the element encountered.
+   */
+  public static void countMathElement(MathContainer mathContainer, String userObjectKey, String elementName) {
     if (mathContainer != null 
         && (mathContainer instanceof InitialAssignment || mathContainer instanceof Rule 
             || mathContainer instanceof Constraint || mathContainer instanceof KineticLaw
@@ -634,6 +675,17 @@ public class MathMLStaxParser implements ReadingParser {
     this.omitXMLDeclaration = omitXMLDeclaration;
   }
 
+  /**
+   * Sets the pool used to share the names of the {@code ci} and
+   * {@code csymbol} elements read.
+   * 
+   * @param stringPool
+   *            the pool to use, or {@code null} to not pool the names.
+   */
+  public void setStringPool(StringPool stringPool) {
+    this.stringPool = stringPool;
+  }
+
   /* (non-Javadoc)
    * @see org.sbml.jsbml.xml.parsers.ReadingParser#getNamespaces()
    */
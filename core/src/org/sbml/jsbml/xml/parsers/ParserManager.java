@@ -97,7 +97,7 @@ public class ParserManager {
    * 
    * @return the {@link ParserManager}.
    */
-  public static ParserManager getManager() {
+  public static synchronized ParserManager getManager() {
     if (manager == null) {
       manager = new ParserManager();
     }
@@ -309,9 +309,13 @@ public class ParserManager {
   /**
    * Gets a copy of the registered {@link ReadingParser}s map.
    * 
+   * <p>The {@link ReadingParser}s of the returned map are new instances that
+   * are not shared with any other caller, so that they can be used to read
+   * documents in parallel in different threads.
+   * 
    * @return a copy of the registered {@link ReadingParser}s map.
    */
-  public Map<String, ReadingParser> getReadingParsers() {
+  public synchronized Map<String, ReadingParser> getReadingParsers() {
 
     Map<String, ReadingParser> clonedMap = new HashMap<String, ReadingParser>();
     List<String> classNames = new ArrayList<String>();
@@ -379,7 +383,7 @@ public class ParserManager {
    * 
    * @return a copy of the registered {@link WritingParser}s map.
    */
-  public Map<String, WritingParser> getWritingParsers() {
+  public synchronized Map<String, WritingParser> getWritingParsers() {
 
     Map<String, WritingParser> clonedMap = new HashMap<String, WritingParser>();
     List<String> classNames = new ArrayList<String>();
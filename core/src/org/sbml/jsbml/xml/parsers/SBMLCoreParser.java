@@ -88,11 +88,91 @@ import org.sbml.jsbml.xml.stax.SBMLObjectForXML;
 @ProviderFor(ReadingParser.class)
 public class SBMLCoreParser implements ReadingParser, WritingParser {
 
+  /**
+   * The SBML core elements known by this parser, named after their XML
+   * element name. {@link #processStartElement} switches on these constants
+   * instead of comparing the element name with each possible name.
+   * 
+   * @since 1.6
+   */
+  private static enum CoreElement {
+    algebraicRule,
+    annotation,
+    assignmentRule,
+    compartment,
+    compartmentType,
+    compartmentVolumeRule,
+    constraint,
+    delay,
+    event,
+    eventAssignment,
+    functionDefinition,
+    initialAssignment,
+    kineticLaw,
+    listOfCompartments,
+    listOfCompartmentTypes,
+    listOfConstraints,
+    listOfEventAssignments,
+    listOfEvents,
+    listOfFunctionDefinitions,
+    listOfInitialAssignments,
+    listOfLocalParameters,
+    listOfModifiers,
+    listOfParameters,
+    listOfProducts,
+    listOfReactants,
+    listOfReactions,
+    listOfRules,
+    listOfSpecies,
+    listOfSpeciesTypes,
+    listOfUnitDefinitions,
+    listOfUnits,
+    localParameter,
+    math,
+    message,
+    model,
+    modifierSpeciesReference,
+    notes,
+    parameter,
+    parameterRule,
+    priority,
+    rateRule,
+    reaction,
+    specie,
+    specieConcentrationRule,
+    specieReference,
+    species,
+    speciesConcentrationRule,
+    speciesReference,
+    speciesType,
+    stoichiometryMath,
+    trigger,
+    unit,
+    unitDefinition;
+  }
+
   /**
    * This map contains all the relationships XML element name <=> matching
-   * java class.
+   * java class. It is loaded only once and shared by all the instances of
+   * this parser.
+   */
+  private static final Map<String, Class<? extends Object>> sbmlCoreElements = new HashMap<String, Class<? extends Object>>();
+
+  /**
+   * This map contains all the relationships XML element name <=>
+   * {@link CoreElement}.
    */
-  private Map<String, Class<? extends Object>> sbmlCoreElements;
+  private static final Map<String, CoreElement> coreElementTable = new HashMap<String, CoreElement>();
+
+  static {
+    // Initializes the sbmlCoreElements of this parser.
+    JSBML.loadClasses("org/sbml/jsbml/resources/cfg/SBMLCoreElements.xml",
+      sbmlCoreElements);
+
+    for (CoreElement element : CoreElement.values()) {
+      coreElementTable.put(element.name(), element);
+    }
+  }
 
   /**
    * Log4j logger
@@ -105,15 +185,12 @@ public class SBMLCoreParser implements ReadingParser, WritingParser {
   private static final transient ResourceBundle bundle = ResourceManager.getBundle("org.sbml.jsbml.resources.cfg.Messages");
 
   /**
-   * Creates a SBMLCoreParser instance. Initializes the sbmlCoreElements of
-   * this PackageParser.
+   * Creates a SBMLCoreParser instance. The sbmlCoreElements of this parser
+   * are loaded once, when the class is initialized.
    * 
    */
   public SBMLCoreParser() {
-    sbmlCoreElements = new HashMap<String, Class<? extends Object>>();
-    // Initializes the sbmlCoreElements of this parser.
-    JSBML.loadClasses("org/sbml/jsbml/resources/cfg/SBMLCoreElements.xml",
-      sbmlCoreElements);
+    super();
   }
 
   /* (non-Javadoc)
@@ -235,6 +312,46 @@ public class SBMLCoreParser implements ReadingParser, WritingParser {
     }
   }
 
+  /**
+   * Converts a level 1 rule, as created while reading a level 1 document, into
+   * the matching {@link AssignmentRule} or {@link RateRule}. The real type of a
+   * level 1 rule is only known once its 'type' attribute has been read.
+   * 
+   * @param rule a rule read from a level 1 document.
+   * @return the converted rule, or the given rule itself if it does not need
+   *         to be converted.
+   */
+  public static Rule convertLevel1Rule(Rule rule) {
+    if (!(rule instanceof SBMLLevel1Rule)) {
+      return rule;
+    }
+    Rule realRule;
+
+    if (((SBMLLevel1Rule) rule).isScalar()) {
+      realRule = ((SBMLLevel1Rule) rule).cloneAsAssignmentRule();
+      if (logger.isDebugEnabled()) {
+        logger.debug(MessageFormat.format(
+          "Transformed SBMLLevel1Rule: {0} into AssignmentRule.",
+          ((SBMLLevel1Rule) rule).getVariable()));
+      }
+    } else {
+      realRule = ((SBMLLevel1Rule) rule).cloneAsRateRule();
+      if (logger.isDebugEnabled()) {
+        logger.debug(MessageFormat.format(
+          "Transformed SBMLLevel1Rule: {0} into RateRule.",
+          ((SBMLLevel1Rule) rule).getVariable()));
+      }
+    }
+
+    if (logger.isDebugEnabled()) {
+      logger.debug(MessageFormat.format(
+        "Transformed SBMLLevel1Rule: realRule = {0}",
+        realRule));
+    }
+
+    return realRule;
+  }
+
   /* (non-Javadoc)
    * @see org.sbml.jsbml.xml.ReadingParser#processEndDocument(SBMLDocument sbmlDocument)
    */
@@ -299,31 +416,9 @@ public class SBMLCoreParser implements ReadingParser, WritingParser {
 
           int i = 0;
           for (Rule rule : model.getListOfRules().clone()) {
-            if (rule instanceof SBMLLevel1Rule) {
-              Rule realRule;
-
-              if (((SBMLLevel1Rule) rule).isScalar()) {
-                realRule = ((SBMLLevel1Rule) rule).cloneAsAssignmentRule();
-                if (logger.isDebugEnabled()) {
-                  logger.debug(MessageFormat.format(
-                    "Transformed SBMLLevel1Rule: {0} into AssignmentRule.",
-                    ((SBMLLevel1Rule) rule).getVariable()));
-                }
-              } else {
-                realRule = ((SBMLLevel1Rule) rule).cloneAsRateRule();
-                if (logger.isDebugEnabled()) {
-                  logger.debug(MessageFormat.format(
-                    "Transformed SBMLLevel1Rule: {0} into RateRule.",
-                    ((SBMLLevel1Rule) rule).getVariable()));
-                }
-              }
-
-              if (logger.isDebugEnabled()) {
-                logger.debug(MessageFormat.format(
-                  "Transformed SBMLLevel1Rule: realRule = {0}",
-                  realRule));
-              }
+            Rule realRule = convertLevel1Rule(rule);
 
+            if (realRule != rule) {
               model.getListOfRules().remove(i);
               model.getListOfRules().add(i, realRule);
             }
@@ -596,7 +691,7 @@ public class SBMLCoreParser implements ReadingParser, WritingParser {
       public boolean accepts(Object o) {
         if (o instanceof TreeNodeWithChangeSupport) {
           if (((TreeNodeWithChangeSupport) o).isSetUserObjects()) {
-            ((TreeNodeWithChangeSupport) o).userObjectKeySet().remove(JSBML.READING_IN_PROGRESS);
+            ((TreeNodeWithChangeSupport) o).removeUserObject(JSBML.READING_IN_PROGRESS);
           } // else if (! ((o instanceof TreeNodeAdapter) || (o instanceof XMLNode))) {
 //            System.out.println("######### user objects not set !!!!!!!! " + o + " class name = " + o.getClass().getSimpleName());
 //          }
@@ -677,27 +772,33 @@ public class SBMLCoreParser implements ReadingParser, WritingParser {
     // some of the warning logs could be added in the ErrorLog also ??
 
     // All the possible elements name should be present in the HashMap
-    // sbmlCoreElements of this parser.
-    if (sbmlCoreElements.containsKey(elementName)) {
+    // sbmlCoreElements of this parser. The element is then dispatched on
+    // its CoreElement constant rather than on a chain of String comparisons.
+    Class<? extends Object> elementClass = sbmlCoreElements.get(elementName);
+    CoreElement element = coreElementTable.get(elementName);
+
+    if ((elementClass != null) && (element != null)) {
       try {
 
-        Object newContextObject = sbmlCoreElements.get(elementName).newInstance();
+        Object newContextObject = elementClass.newInstance();
 
         if (contextObject instanceof SBase) {
           setLevelAndVersionFor(newContextObject,
             (SBase) contextObject);
         }
 
-        if (elementName.equals("notes")
+        if ((element == CoreElement.notes)
             && (contextObject instanceof SBase)) 
         {
           SBase sbase = (SBase) contextObject;
           sbase.setNotes(new XMLNode(new XMLTriple("notes", null, null), new XMLAttributes()));
           
           // keep order of elements for later validation
-          AbstractReaderWriter.storeElementsOrder(elementName, contextObject);          
+          AbstractReaderWriter.storeElementsOrder(elementName, contextObject);
+
+          return contextObject;
         }
-        else if (elementName.equals("annotation")
+        else if ((element == CoreElement.annotation)
             && (contextObject instanceof SBase)) 
         {
           SBase sbase = (SBase) contextObject;
@@ -715,7 +816,7 @@ public class SBMLCoreParser implements ReadingParser, WritingParser {
           // keep order of elements for later validation
           AbstractReaderWriter.storeElementsOrder(elementName, contextObject);
 
-          if (elementName.equals("model")) {
+          if (element == CoreElement.model) {
             Model model = (Model) newContextObject;
             model.setLevel(sbmlDocument.getLevel());
             model.setVersion(sbmlDocument.getVersion());
@@ -723,9 +824,6 @@ public class SBMLCoreParser implements ReadingParser, WritingParser {
             sbmlDocument.setModel(model);
 
             return model;
-          } else {
-            logger.warn(MessageFormat.format(bundle.getString("SBMLCoreParser.unknownElement"), elementName));
-            return AbstractReaderWriter.processUnknownElement(elementName, uri, prefix, contextObject);
           }
         } else if (contextObject instanceof Model) {
 
@@ -735,81 +833,90 @@ public class SBMLCoreParser implements ReadingParser, WritingParser {
           AbstractReaderWriter.storeElementsOrder(elementName, contextObject);
           
           if (newContextObject instanceof ListOf<?>) {
-            if (elementName.equals("listOfFunctionDefinitions")
-                && model.getLevel() > 1) {
-              ListOf<FunctionDefinition> listOfFunctionDefinitions = (ListOf<FunctionDefinition>) newContextObject;
-              model.setListOfFunctionDefinitions(listOfFunctionDefinitions);
+            switch (element) {
+            case listOfFunctionDefinitions:
+              if (model.getLevel() > 1) {
+                ListOf<FunctionDefinition> listOfFunctionDefinitions = (ListOf<FunctionDefinition>) newContextObject;
+                model.setListOfFunctionDefinitions(listOfFunctionDefinitions);
 
-              return listOfFunctionDefinitions;
-            } else if (elementName.equals("listOfUnitDefinitions")) {
+                return listOfFunctionDefinitions;
+              }
+              break;
+            case listOfUnitDefinitions:
               ListOf<UnitDefinition> listOfUnitDefinitions = (ListOf<UnitDefinition>) newContextObject;
               model.setListOfUnitDefinitions(listOfUnitDefinitions);
 
               return listOfUnitDefinitions;
-            } else if (elementName.equals("listOfCompartments")) {
+            case listOfCompartments:
               ListOf<Compartment> listOfCompartments = (ListOf<Compartment>) newContextObject;
               model.setListOfCompartments(listOfCompartments);
 
               return listOfCompartments;
-            } else if (elementName.equals("listOfSpecies")) {
+            case listOfSpecies:
               ListOf<Species> listOfSpecies = (ListOf<Species>) newContextObject;
               model.setListOfSpecies(listOfSpecies);
 
               return listOfSpecies;
-            } else if (elementName.equals("listOfParameters")) {
+            case listOfParameters:
               ListOf<Parameter> listOfParameters = (ListOf<Parameter>) newContextObject;
               model.setListOfParameters(listOfParameters);
 
               return listOfParameters;
-            } else if (elementName.equals("listOfInitialAssignments")
-                && ((model.getLevel() == 2 && model.getVersion() > 1)
-                    || model.getLevel() >= 3)) {
-              ListOf<InitialAssignment> listOfInitialAssignments = (ListOf<InitialAssignment>) newContextObject;
-              model.setListOfInitialAssignments(listOfInitialAssignments);
-
-              return listOfInitialAssignments;
-            } else if (elementName.equals("listOfRules")) {
+            case listOfInitialAssignments:
+              if ((model.getLevel() == 2 && model.getVersion() > 1)
+                || model.getLevel() >= 3) {
+                ListOf<InitialAssignment> listOfInitialAssignments = (ListOf<InitialAssignment>) newContextObject;
+                model.setListOfInitialAssignments(listOfInitialAssignments);
+
+                return listOfInitialAssignments;
+              }
+              break;
+            case listOfRules:
               ListOf<Rule> listOfRules = (ListOf<Rule>) newContextObject;
               model.setListOfRules(listOfRules);
 
               return listOfRules;
-            } else if (elementName.equals("listOfConstraints")
-                && ((model.getLevel() == 2 && model.getVersion() > 1)
-                    || model.getLevel() >= 3)) {
-              ListOf<Constraint> listOfConstraints = (ListOf<Constraint>) newContextObject;
-              model.setListOfConstraints(listOfConstraints);
-
-              return listOfConstraints;
-            } else if (elementName.equals("listOfReactions")) {
+            case listOfConstraints:
+              if ((model.getLevel() == 2 && model.getVersion() > 1)
+                || model.getLevel() >= 3) {
+                ListOf<Constraint> listOfConstraints = (ListOf<Constraint>) newContextObject;
+                model.setListOfConstraints(listOfConstraints);
+
+                return listOfConstraints;
+              }
+              break;
+            case listOfReactions:
               ListOf<Reaction> listOfReactions = (ListOf<Reaction>) newContextObject;
               model.setListOfReactions(listOfReactions);
 
               return listOfReactions;
-            } else if (elementName.equals("listOfEvents")
-                && model.getLevel() > 1) {
-              ListOf<Event> listOfEvents = (ListOf<Event>) newContextObject;
-              model.setListOfEvents(listOfEvents);
-
-              return listOfEvents;
-            } else if (elementName.equals("listOfCompartmentTypes")
-                && (model.getLevel() == 2 && model.getVersion() > 1)) {
-              ListOf<CompartmentType> listOfCompartmentTypes = (ListOf<CompartmentType>) newContextObject;
-              model.setListOfCompartmentTypes(listOfCompartmentTypes);
-
-              return listOfCompartmentTypes;
-            } else if (elementName.equals("listOfSpeciesTypes")
-                && (model.getLevel() == 2 && model.getVersion() > 1)) {
-              ListOf<SpeciesType> listOfSpeciesTypes = (ListOf<SpeciesType>) newContextObject;
-              model.setListOfSpeciesTypes(listOfSpeciesTypes);
-
-              return listOfSpeciesTypes;
-            } else {
-              logger.warn(MessageFormat.format(bundle.getString("SBMLCoreParser.unknownElement"), elementName));
-              return AbstractReaderWriter.processUnknownElement(elementName, uri, prefix, contextObject);
+            case listOfEvents:
+              if (model.getLevel() > 1) {
+                ListOf<Event> listOfEvents = (ListOf<Event>) newContextObject;
+                model.setListOfEvents(listOfEvents);
+
+                return listOfEvents;
+              }
+              break;
+            case listOfCompartmentTypes:
+              if (model.getLevel() == 2 && model.getVersion() > 1) {
+                ListOf<CompartmentType> listOfCompartmentTypes = (ListOf<CompartmentType>) newContextObject;
+                model.setListOfCompartmentTypes(listOfCompartmentTypes);
+
+                return listOfCompartmentTypes;
+              }
+              break;
+            case listOfSpeciesTypes:
+              if (model.getLevel() == 2 && model.getVersion() > 1) {
+                ListOf<SpeciesType> listOfSpeciesTypes = (ListOf<SpeciesType>) newContextObject;
+                model.setListOfSpeciesTypes(listOfSpeciesTypes);
+
+                return listOfSpeciesTypes;
+              }
+              break;
+            default:
+              break;
             }
-          } else {
-            logger.warn(MessageFormat.format(bundle.getString("SBMLCoreParser.unknownElement"), elementName));
-            return AbstractReaderWriter.processUnknownElement(elementName, uri, prefix, contextObject);
           }
         } else if (contextObject instanceof ListOf<?>) {
           
@@ -818,175 +925,146 @@ public class SBMLCoreParser implements ReadingParser, WritingParser {
           if (list.getParentSBMLObject() instanceof Model) {
 
             Model model = (Model) list.getParentSBMLObject();
+            ListOf.Type listType = list.getSBaseListType();
             
-            if (elementName.equals("functionDefinition") 
-                && list.getSBaseListType().equals(
-                  ListOf.Type.listOfFunctionDefinitions)
+            switch (element) {
+            case functionDefinition:
+              if (listType.equals(ListOf.Type.listOfFunctionDefinitions)
                   && model.getLevel() > 1) {
-              FunctionDefinition functionDefinition = (FunctionDefinition) newContextObject;
-              model.addFunctionDefinition(functionDefinition);
-
-              return functionDefinition;
-            } else if (elementName.equals("unitDefinition")
-                && list.getSBaseListType().equals(
-                  ListOf.Type.listOfUnitDefinitions)) {
-              UnitDefinition unitDefinition = (UnitDefinition) newContextObject;
-              model.addUnitDefinition(unitDefinition);
+                FunctionDefinition functionDefinition = (FunctionDefinition) newContextObject;
+                model.addFunctionDefinition(functionDefinition);
 
-              return unitDefinition;
-            } else if (elementName.equals("compartment")
-                && list.getSBaseListType().equals(
-                  ListOf.Type.listOfCompartments)) {
-              Compartment compartment = (Compartment) newContextObject;
-              compartment.initDefaults();
-              model.addCompartment(compartment);
+                return functionDefinition;
+              }
+              break;
+            case unitDefinition:
+              if (listType.equals(ListOf.Type.listOfUnitDefinitions)) {
+                UnitDefinition unitDefinition = (UnitDefinition) newContextObject;
+                model.addUnitDefinition(unitDefinition);
 
-              return compartment;
-            } else if (elementName.equals("species")
-                && list.getSBaseListType().equals(
-                  ListOf.Type.listOfSpecies)
+                return unitDefinition;
+              }
+              break;
+            case compartment:
+              if (listType.equals(ListOf.Type.listOfCompartments)) {
+                Compartment compartment = (Compartment) newContextObject;
+                compartment.initDefaults();
+                model.addCompartment(compartment);
+
+                return compartment;
+              }
+              break;
+            case species:
+              if (listType.equals(ListOf.Type.listOfSpecies)
                   && ((model.getLevel() == 1 && model
                   .getVersion() > 1) || model.getLevel() > 1)) {
-              Species species = (Species) newContextObject;
-              species.initDefaults();
-              model.addSpecies(species);
+                Species species = (Species) newContextObject;
+                species.initDefaults();
+                model.addSpecies(species);
 
-              return species;
-            }
-            // level 1: species => specie
-            else if (elementName.equals("specie")
-                && list.getSBaseListType().equals(
-                  ListOf.Type.listOfSpecies)
+                return species;
+              }
+              break;
+            case specie:
+              // level 1: species => specie
+              if (listType.equals(ListOf.Type.listOfSpecies)
                   && model.getLevel() == 1
                   && model.getVersion() == 1) {
-              Species species = (Species) newContextObject;
-              species.initDefaults();
-              model.addSpecies(species);
-
-              return species;
-            } else if (elementName.equals("parameter")
-                && list.getSBaseListType().equals(
-                  ListOf.Type.listOfParameters)) {
-              Parameter parameter = (Parameter) newContextObject;
-              parameter.initDefaults();
-              model.addParameter(parameter);
-
-              return parameter;
-            } else if (elementName.equals("initialAssignment")
-                && list.getSBaseListType().equals(
-                  ListOf.Type.listOfInitialAssignments)
-                  && ((model.getLevel() == 2 && model
-                  .getVersion() > 1) || model.getLevel() >= 3)) {
-              InitialAssignment initialAssignment = (InitialAssignment) newContextObject;
-              model.addInitialAssignment(initialAssignment);
-
-              return initialAssignment;
-            } else if (elementName.equals("algebraicRule")
-                && list.getSBaseListType().equals(
-                  ListOf.Type.listOfRules)) {
-              AlgebraicRule rule = (AlgebraicRule) newContextObject;
-              model.addRule(rule);
-
-              return rule;
-            } else if (elementName.equals("assignmentRule")
-                && list.getSBaseListType().equals(
-                  ListOf.Type.listOfRules)
-                  && model.getLevel() > 1) {
-              AssignmentRule rule = (AssignmentRule) newContextObject;
-              model.addRule(rule);
-
-              return rule;
-            } else if (elementName.equals("parameterRule")
-                && list.getSBaseListType().equals(ListOf.Type.listOfRules)
-                && model.getLevel() == 1)
-            {
-              ExplicitRule rule = (ExplicitRule) newContextObject;
-              model.addRule(rule);
-
-              return rule;
-            } else if (elementName.equals("specieConcentrationRule")
-                && list.getSBaseListType().equals(ListOf.Type.listOfRules)
-                && model.getLevel() == 1
-                && model.getVersion() == 1)
-            {
-              ExplicitRule rule = (ExplicitRule) newContextObject;
-              model.addRule(rule);
-
-              return rule;
-            } else if (elementName.equals("speciesConcentrationRule")
-                && list.getSBaseListType().equals(ListOf.Type.listOfRules)
-                && model.getLevel() == 1
-                && model.getVersion() == 2)
-            {
-              ExplicitRule rule = (ExplicitRule) newContextObject;
-              model.addRule(rule);
-
-              return rule;
-            } else if (elementName.equals("compartmentVolumeRule")
-                && list.getSBaseListType().equals(ListOf.Type.listOfRules)
-                && model.getLevel() == 1)
-            {
-              ExplicitRule rule = (ExplicitRule) newContextObject;
-              model.addRule(rule);
-
-              return rule;
-            } else if (elementName.equals("rateRule")
-                && list.getSBaseListType().equals(
-                  ListOf.Type.listOfRules)) {
-              RateRule rule = (RateRule) newContextObject;
-              model.addRule(rule);
-
-              return rule;
-            } else if (elementName.equals("constraint")
-                && list.getSBaseListType().equals(
-                  ListOf.Type.listOfConstraints)
-                  && ((model.getLevel() == 2 && model
-                  .getVersion() > 1) || model.getLevel() >= 3)) {
-              Constraint constraint = (Constraint) newContextObject;
-              model.addConstraint(constraint);
-
-              return constraint;
-            } else if (elementName.equals("reaction")
-                && list.getSBaseListType().equals(
-                  ListOf.Type.listOfReactions)) {
-              Reaction reaction = (Reaction) newContextObject;
-              model.addReaction(reaction);
-              reaction.initDefaults();
+                Species species = (Species) newContextObject;
+                species.initDefaults();
+                model.addSpecies(species);
 
-              return reaction;
-            } else if (elementName.equals("event")
-                && list.getSBaseListType().equals(
-                  ListOf.Type.listOfEvents)
+                return species;
+              }
+              break;
+            case parameter:
+              if (listType.equals(ListOf.Type.listOfParameters)) {
+                Parameter parameter = (Parameter) newContextObject;
+                parameter.initDefaults();
+                model.addParameter(parameter);
+
+                return parameter;
+              }
+              break;
+            case initialAssignment:
+              if (listType.equals(ListOf.Type.listOfInitialAssignments)
+                  && ((model.getLevel() == 2 && model.getVersion() > 1)
+                      || model.getLevel() >= 3)) {
+                InitialAssignment initialAssignment = (InitialAssignment) newContextObject;
+                model.addInitialAssignment(initialAssignment);
+
+                return initialAssignment;
+              }
+              break;
+            case algebraicRule:
+            case rateRule:
+            case assignmentRule:
+            case parameterRule:
+            case compartmentVolumeRule:
+            case specieConcentrationRule:
+            case speciesConcentrationRule:
+              if (listType.equals(ListOf.Type.listOfRules)
+                  && isRuleAllowed(element, model.getLevel(), model.getVersion())) {
+                Rule rule = (Rule) newContextObject;
+                model.addRule(rule);
+
+                return rule;
+              }
+              break;
+            case constraint:
+              if (listType.equals(ListOf.Type.listOfConstraints)
+                  && ((model.getLevel() == 2 && model.getVersion() > 1)
+                      || model.getLevel() >= 3)) {
+                Constraint constraint = (Constraint) newContextObject;
+                model.addConstraint(constraint);
+
+                return constraint;
+              }
+              break;
+            case reaction:
+              if (listType.equals(ListOf.Type.listOfReactions)) {
+                Reaction reaction = (Reaction) newContextObject;
+                model.addReaction(reaction);
+                reaction.initDefaults();
+
+                return reaction;
+              }
+              break;
+            case event:
+              if (listType.equals(ListOf.Type.listOfEvents)
                   && model.getLevel() > 1) {
-              Event event = (Event) newContextObject;
-              model.addEvent(event);
-              event.initDefaults();
+                Event event = (Event) newContextObject;
+                model.addEvent(event);
+                event.initDefaults();
 
-              return event;
-            } else if (elementName.equals("compartmentType")
-                && list.getSBaseListType().equals(
-                  ListOf.Type.listOfCompartmentTypes)
+                return event;
+              }
+              break;
+            case compartmentType:
+              if (listType.equals(ListOf.Type.listOfCompartmentTypes)
                   && (model.getLevel() == 2 && model.getVersion() > 1)) {
-              CompartmentType compartmentType = (CompartmentType) newContextObject;
-              model.addCompartmentType(compartmentType);
+                CompartmentType compartmentType = (CompartmentType) newContextObject;
+                model.addCompartmentType(compartmentType);
 
-              return compartmentType;
-            } else if (elementName.equals("speciesType")
-                && list.getSBaseListType().equals(
-                  ListOf.Type.listOfSpeciesTypes)
+                return compartmentType;
+              }
+              break;
+            case speciesType:
+              if (listType.equals(ListOf.Type.listOfSpeciesTypes)
                   && (model.getLevel() == 2 && model.getVersion() > 1)) {
-              SpeciesType speciesType = (SpeciesType) newContextObject;
-              model.addSpeciesType(speciesType);
+                SpeciesType speciesType = (SpeciesType) newContextObject;
+                model.addSpeciesType(speciesType);
 
-              return speciesType;
-            } else {
-              logger.warn(MessageFormat.format(bundle.getString("SBMLCoreParser.unknownElement"), elementName));
-              return AbstractReaderWriter.processUnknownElement(elementName, uri, prefix, contextObject);
+                return speciesType;
+              }
+              break;
+            default:
+              break;
             }
           } else if (list.getParentSBMLObject() instanceof UnitDefinition) {
             UnitDefinition unitDefinition = (UnitDefinition) list.getParentSBMLObject();
 
-            if (elementName.equals("unit")
+            if ((element == CoreElement.unit)
                 && list.getSBaseListType().equals(
                   ListOf.Type.listOfUnits)) {
               Unit unit = (Unit) newContextObject;
@@ -994,71 +1072,67 @@ public class SBMLCoreParser implements ReadingParser, WritingParser {
               unitDefinition.addUnit(unit);
 
               return unit;
-            } else {
-              logger.warn(MessageFormat.format(bundle.getString("SBMLCoreParser.unknownElement"), elementName));
-              return AbstractReaderWriter.processUnknownElement(elementName, uri, prefix, contextObject);
             }
           } else if (list.getParentSBMLObject() instanceof Reaction) {
             Reaction reaction = (Reaction) list.getParentSBMLObject();
 
-            if (elementName.equals("speciesReference")
-                && (reaction.getLevel() > 1 ||
-                    ((reaction.getLevel() == 1) && (reaction.getVersion() == 2)))) {
-              SpeciesReference speciesReference = (SpeciesReference) newContextObject;
-              speciesReference.initDefaults();
+            switch (element) {
+            case speciesReference:
+              if (reaction.getLevel() > 1 ||
+                  ((reaction.getLevel() == 1) && (reaction.getVersion() == 2))) {
+                SpeciesReference speciesReference = (SpeciesReference) newContextObject;
+                speciesReference.initDefaults();
 
-              if (list.getSBaseListType().equals(
-                ListOf.Type.listOfReactants)) {
-                reaction.addReactant(speciesReference);
-
-                return speciesReference;
-              } else if (list.getSBaseListType().equals(
-                ListOf.Type.listOfProducts)) {
-                reaction.addProduct(speciesReference);
-
-                return speciesReference;
-              } else {
-                logger.warn(MessageFormat.format(bundle.getString("SBMLCoreParser.unknownElement"), elementName));
-                return AbstractReaderWriter.processUnknownElement(elementName, uri, prefix, contextObject);
-              }
-            } else if (elementName.equals("specieReference")
-                && reaction.getLevel() == 1) {
-              SpeciesReference speciesReference = (SpeciesReference) newContextObject;
-              speciesReference.initDefaults();
+                if (list.getSBaseListType().equals(
+                  ListOf.Type.listOfReactants)) {
+                  reaction.addReactant(speciesReference);
 
+                  return speciesReference;
+                } else if (list.getSBaseListType().equals(
+                  ListOf.Type.listOfProducts)) {
+                  reaction.addProduct(speciesReference);
+
+                  return speciesReference;
+                }
+              }
+              break;
+            case specieReference:
+              if (reaction.getLevel() == 1) {
+                SpeciesReference speciesReference = (SpeciesReference) newContextObject;
+                speciesReference.initDefaults();
+
+                if (list.getSBaseListType().equals(
+                  ListOf.Type.listOfReactants)) {
+                  reaction.addReactant(speciesReference);
+
+                  return speciesReference;
+                } else if (list.getSBaseListType().equals(
+                  ListOf.Type.listOfProducts)) {
+                  reaction.addProduct(speciesReference);
+
+                  return speciesReference;
+                }
+              }
+              break;
+            case modifierSpeciesReference:
               if (list.getSBaseListType().equals(
-                ListOf.Type.listOfReactants)) {
-                reaction.addReactant(speciesReference);
-
-                return speciesReference;
-              } else if (list.getSBaseListType().equals(
-                ListOf.Type.listOfProducts)) {
-                reaction.addProduct(speciesReference);
-
-                return speciesReference;
-              } else {
-                logger.warn(MessageFormat.format(bundle.getString("SBMLCoreParser.unknownElement"), elementName));
-                return AbstractReaderWriter.processUnknownElement(elementName, uri, prefix, contextObject);
+                ListOf.Type.listOfModifiers)
+                && reaction.getLevel() > 1) {
+                ModifierSpeciesReference modifierSpeciesReference = (ModifierSpeciesReference) newContextObject;
+                reaction.addModifier(modifierSpeciesReference);
+
+                return modifierSpeciesReference;
               }
-            } else if (elementName
-                .equals("modifierSpeciesReference")
-                && list.getSBaseListType().equals(
-                  ListOf.Type.listOfModifiers)
-                  && reaction.getLevel() > 1) {
-              ModifierSpeciesReference modifierSpeciesReference = (ModifierSpeciesReference) newContextObject;
-              reaction.addModifier(modifierSpeciesReference);
-
-              return modifierSpeciesReference;
-            } else {
-              logger.warn(MessageFormat.format(bundle.getString("SBMLCoreParser.unknownElement"), elementName));
-              return AbstractReaderWriter.processUnknownElement(elementName, uri, prefix, contextObject);
+              break;
+            default:
+              break;
             }
           } else if (list.getParentSBMLObject() instanceof KineticLaw) {
             KineticLaw kineticLaw = (KineticLaw) list
                 .getParentSBMLObject();
             // Level 3: parameter and listOfParameters =>
             // localParameter and listOfLocalParameter
-            if (elementName.equals("localParameter")
+            if ((element == CoreElement.localParameter)
                 && list.getSBaseListType().equals(
                   ListOf.Type.listOfLocalParameters)
                   && kineticLaw.getLevel() >= 3) {
@@ -1066,7 +1140,7 @@ public class SBMLCoreParser implements ReadingParser, WritingParser {
               kineticLaw.addLocalParameter(localParameter);
 
               return localParameter;
-            } else if (elementName.equals("parameter")
+            } else if ((element == CoreElement.parameter)
                 && list.getSBaseListType().equals(
                   ListOf.Type.listOfLocalParameters)
                   && kineticLaw.isSetLevel()
@@ -1076,14 +1150,11 @@ public class SBMLCoreParser implements ReadingParser, WritingParser {
               kineticLaw.addLocalParameter(localParameter);
 
               return localParameter;
-            } else {
-              logger.warn(MessageFormat.format(bundle.getString("SBMLCoreParser.unknownElement"), elementName));
-              return AbstractReaderWriter.processUnknownElement(elementName, uri, prefix, contextObject);
             }
           } else if (list.getParentSBMLObject() instanceof Event) {
             Event event = (Event) list.getParentSBMLObject();
 
-            if (elementName.equals("eventAssignment")
+            if ((element == CoreElement.eventAssignment)
                 && list.getSBaseListType().equals(
                   ListOf.Type.listOfEventAssignments)
                   && event.getLevel() > 1) {
@@ -1091,13 +1162,7 @@ public class SBMLCoreParser implements ReadingParser, WritingParser {
               event.addEventAssignment(eventAssignment);
 
               return eventAssignment;
-            } else {
-              logger.warn(MessageFormat.format(bundle.getString("SBMLCoreParser.unknownElement"), elementName));
-              return AbstractReaderWriter.processUnknownElement(elementName, uri, prefix, contextObject);
             }
-          } else {
-            logger.warn(MessageFormat.format(bundle.getString("SBMLCoreParser.unknownElement"), elementName));
-            return AbstractReaderWriter.processUnknownElement(elementName, uri, prefix, contextObject);
           }
         } else if (contextObject instanceof UnitDefinition) {
           UnitDefinition unitDefinition = (UnitDefinition) contextObject;
@@ -1105,14 +1170,11 @@ public class SBMLCoreParser implements ReadingParser, WritingParser {
           // keep order of elements for later validation
           AbstractReaderWriter.storeElementsOrder(elementName, contextObject);
 
-          if (elementName.equals("listOfUnits")) {
+          if (element == CoreElement.listOfUnits) {
             ListOf<Unit> listOfUnits = (ListOf<Unit>) newContextObject;
             unitDefinition.setListOfUnits(listOfUnits);
 
             return listOfUnits;
-          } else {
-            logger.warn(MessageFormat.format(bundle.getString("SBMLCoreParser.unknownElement"), elementName));
-            return AbstractReaderWriter.processUnknownElement(elementName, uri, prefix, contextObject);
           }
         } else if (contextObject instanceof Event) {
           Event event = (Event) contextObject;
@@ -1120,29 +1182,29 @@ public class SBMLCoreParser implements ReadingParser, WritingParser {
           // keep order of elements for later validation
           AbstractReaderWriter.storeElementsOrder(elementName, contextObject);
 
-          if (elementName.equals("listOfEventAssignments")) {
+          switch (element) {
+          case listOfEventAssignments:
             ListOf<EventAssignment> listOfEventAssignments = (ListOf<EventAssignment>) newContextObject;
             event.setListOfEventAssignments(listOfEventAssignments);
 
             return listOfEventAssignments;
-          } else if (elementName.equals("trigger")) {
+          case trigger:
             Trigger trigger = (Trigger) newContextObject;
             event.setTrigger(trigger);
 
             return trigger;
-          } else if (elementName.equals("delay")) {
+          case delay:
             Delay delay = (Delay) newContextObject;
             event.setDelay(delay);
 
             return delay;
-          } else if (elementName.equals("priority")) {
+          case priority:
             Priority priority = (Priority) newContextObject;
             event.setPriority(priority);
 
             return priority;
-          } else {
-            logger.warn(MessageFormat.format(bundle.getString("SBMLCoreParser.unknownElement"), elementName));
-            return AbstractReaderWriter.processUnknownElement(elementName, uri, prefix, contextObject);
+          default:
+            break;
           }
         } else if (contextObject instanceof Reaction) {
           Reaction reaction = (Reaction) contextObject; 
@@ -1150,43 +1212,42 @@ public class SBMLCoreParser implements ReadingParser, WritingParser {
           // keep order of elements for later validation
           AbstractReaderWriter.storeElementsOrder(elementName, contextObject);
           
-          if (elementName.equals("listOfReactants")) {
+          switch (element) {
+          case listOfReactants:
             ListOf<SpeciesReference> listOfReactants = (ListOf<SpeciesReference>) newContextObject;
             reaction.setListOfReactants(listOfReactants);
 
             return listOfReactants;
-          } else if (elementName.equals("listOfProducts")) {
+          case listOfProducts:
             ListOf<SpeciesReference> listOfProducts = (ListOf<SpeciesReference>) newContextObject;
             reaction.setListOfProducts(listOfProducts);
 
             return listOfProducts;
-          } else if (elementName.equals("listOfModifiers")
-              && reaction.getLevel() > 1) {
-            ListOf<ModifierSpeciesReference> listOfModifiers = (ListOf<ModifierSpeciesReference>) newContextObject;
-            reaction.setListOfModifiers(listOfModifiers);
+          case listOfModifiers:
+            if (reaction.getLevel() > 1) {
+              ListOf<ModifierSpeciesReference> listOfModifiers = (ListOf<ModifierSpeciesReference>) newContextObject;
+              reaction.setListOfModifiers(listOfModifiers);
 
-            return listOfModifiers;
-          } else if (elementName.equals("kineticLaw")) {
+              return listOfModifiers;
+            }
+            break;
+          case kineticLaw:
             KineticLaw kineticLaw = (KineticLaw) newContextObject;
             reaction.setKineticLaw(kineticLaw);
 
             return kineticLaw;
-          } else {
-            logger.warn(MessageFormat.format(bundle.getString("SBMLCoreParser.unknownElement"), elementName));
-            return AbstractReaderWriter.processUnknownElement(elementName, uri, prefix, contextObject);
+          default:
+            break;
           }
         } else if (contextObject instanceof SpeciesReference) {
           SpeciesReference speciesReference = (SpeciesReference) contextObject;
 
           // if level = 1 or level >= 3 - stoichiometryMath is an unknown/invalid element
-          if (elementName.equals("stoichiometryMath") && speciesReference.getLevel() == 2) {
+          if ((element == CoreElement.stoichiometryMath) && speciesReference.getLevel() == 2) {
             StoichiometryMath stoichiometryMath = (StoichiometryMath) newContextObject;
             speciesReference.setStoichiometryMath(stoichiometryMath);
 
             return stoichiometryMath;
-          } else {
-            logger.warn(MessageFormat.format(bundle.getString("SBMLCoreParser.unknownElement"), elementName));
-            return AbstractReaderWriter.processUnknownElement(elementName, uri, prefix, contextObject);
           }
         } else if (contextObject instanceof KineticLaw) {
           KineticLaw kineticLaw = (KineticLaw) contextObject;
@@ -1194,23 +1255,15 @@ public class SBMLCoreParser implements ReadingParser, WritingParser {
           // keep order of elements for later validation
           AbstractReaderWriter.storeElementsOrder(elementName, contextObject);          
 
-          if (elementName.equals("listOfLocalParameters")
-              && kineticLaw.getLevel() >= 3) {
+          if (((element == CoreElement.listOfLocalParameters)
+              && kineticLaw.getLevel() >= 3)
+              || ((element == CoreElement.listOfParameters)
+                  && kineticLaw.isSetLevel() && kineticLaw.getLevel() < 3)) {
             ListOf<LocalParameter> listOfLocalParameters = (ListOf<LocalParameter>) newContextObject;
             kineticLaw.setListOfLocalParameters(listOfLocalParameters);
             listOfLocalParameters.setSBaseListType(ListOf.Type.listOfLocalParameters);
 
             return listOfLocalParameters;
-          } else if (elementName.equals("listOfParameters")
-              && kineticLaw.isSetLevel() && kineticLaw.getLevel() < 3) {
-            ListOf<LocalParameter> listOfLocalParameters = (ListOf<LocalParameter>) newContextObject;
-            kineticLaw.setListOfLocalParameters(listOfLocalParameters);
-            listOfLocalParameters.setSBaseListType(ListOf.Type.listOfLocalParameters);
-
-            return listOfLocalParameters;
-          } else {
-            logger.warn(MessageFormat.format(bundle.getString("SBMLCoreParser.unknownElement"), elementName));
-            return AbstractReaderWriter.processUnknownElement(elementName, uri, prefix, contextObject);
           }
         } else if (contextObject instanceof Constraint) {
           Constraint constraint = (Constraint) contextObject;
@@ -1218,20 +1271,14 @@ public class SBMLCoreParser implements ReadingParser, WritingParser {
           // keep order of elements for later validation
           AbstractReaderWriter.storeElementsOrder(elementName, contextObject);          
           
-          if (elementName.equals("message")
+          if ((element == CoreElement.message)
               && ((constraint.getLevel() == 2 && constraint
               .getVersion() > 1) || constraint.getLevel() >= 3))
           {
             constraint.setMessage(new XMLNode(new XMLTriple("message", null, null), new XMLAttributes()));
 
             return constraint.getMessage();
-          } else {
-            logger.warn(MessageFormat.format(bundle.getString("SBMLCoreParser.unknownElement"), elementName));
-            return AbstractReaderWriter.processUnknownElement(elementName, uri, prefix, contextObject);
           }
-        } else {
-          logger.warn(MessageFormat.format(bundle.getString("SBMLCoreParser.unknownElement"), elementName));
-          return AbstractReaderWriter.processUnknownElement(elementName, uri, prefix, contextObject);
         }
       } catch (InstantiationException exc) {
         logger.error(MessageFormat.format(
@@ -1240,6 +1287,7 @@ public class SBMLCoreParser implements ReadingParser, WritingParser {
           logger.debug(exc.getMessage());
           logger.debug(exc.getStackTrace());
         }
+        return contextObject;
       } catch (IllegalAccessException exc) {
         logger.error(MessageFormat.format(
           bundle.getString("SBMLCoreParser.instanciationError"), elementName));
@@ -1247,13 +1295,41 @@ public class SBMLCoreParser implements ReadingParser, WritingParser {
           logger.debug(exc.getMessage());
           logger.debug(exc.getStackTrace());
         }
+        return contextObject;
       }
-    } else {
-      logger.warn(MessageFormat.format(bundle.getString("SBMLCoreParser.unknownElement"), elementName));
-      return AbstractReaderWriter.processUnknownElement(elementName, uri, prefix, contextObject);
     }
-    
-    return contextObject;
+
+    logger.warn(MessageFormat.format(bundle.getString("SBMLCoreParser.unknownElement"), elementName));
+    return AbstractReaderWriter.processUnknownElement(elementName, uri, prefix, contextObject);
+  }
+
+  /**
+   * Checks if the given rule element is allowed in the given SBML level and
+   * version.
+   * 
+   * @param element one of the rule elements of {@link CoreElement}
+   * @param level the SBML level
+   * @param version the SBML version
+   * @return {@code true} if the rule element can be read for this level and
+   *         version.
+   */
+  private static boolean isRuleAllowed(CoreElement element, int level, int version) {
+    switch (element) {
+    case algebraicRule:
+    case rateRule:
+      return true;
+    case assignmentRule:
+      return level > 1;
+    case parameterRule:
+    case compartmentVolumeRule:
+      return level == 1;
+    case specieConcentrationRule:
+      return (level == 1) && (version == 1);
+    case speciesConcentrationRule:
+      return (level == 1) && (version == 2);
+    default:
+      return false;
+    }
   }
 
   /**
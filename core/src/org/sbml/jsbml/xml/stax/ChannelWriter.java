@@ -0,0 +1,265 @@
+/*
+ * ----------------------------------------------------------------------------
+ * This file is part of JSBML. Please visit <http://sbml.org/Software/JSBML>
+ * for the latest version of JSBML and more information about SBML.
+ * 
+ * Copyright (C) 2009-2018 jointly by the following organizations:
+ * 1. The University of Tuebingen, Germany
+ * 2. EMBL European Bioinformatics Institute (EBML-EBI), Hinxton, UK
+ * 3. The California Institute of Technology, Pasadena, CA, USA
+ * 4. The University of California, San Diego, La Jolla, CA, USA
+ * 5. The Babraham Institute, Cambridge, UK
+ * 
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation. A copy of the license agreement is provided
+ * in the file named "LICENSE.txt" included with this software distribution
+ * and also available online as <http://sbml.org/Software/JSBML/License>.
+ * ----------------------------------------------------------------------------
+ */
+package org.sbml.jsbml.xml.stax;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * A {@link Writer} encoding the characters written to it in UTF-8 into a
+ * direct {@link ByteBuffer}, that is written to a
+ * {@link WritableByteChannel} each time it is full, see
+ * {@link SBMLWriter#write(org.sbml.jsbml.SBMLDocument, WritableByteChannel)}.
+ * 
+ * <p>The characters are encoded without any {@link java.nio.charset.CharsetEncoder},
+ * the ASCII characters that make most of an SBML document being copied in a
+ * tight loop. The buffers are taken from a pool shared by all the writers,
+ * and given back by {@link #release()}, so that writing many documents does
+ * not allocate new direct memory for each of them. The channel itself is
+ * never closed by this writer.</p>
+ * 
+ * @since 1.6
+ */
+class ChannelWriter extends Writer {
+
+  /**
+   * The size of the buffers, in bytes.
+   */
+  static final int BUFFER_SIZE = 65536;
+
+  /**
+   * The number of released buffers kept for the next writers.
+   */
+  private static final int POOL_SIZE = 16;
+
+  /**
+   * The character written in place of a surrogate that is not part of a
+   * pair.
+   */
+  private static final byte REPLACEMENT = '?';
+
+  /**
+   * The buffers released by the writers.
+   */
+  private static final BlockingQueue<ByteBuffer> pool = new ArrayBlockingQueue<ByteBuffer>(POOL_SIZE);
+
+  /**
+   * The channel the encoded bytes are written to.
+   */
+  private final WritableByteChannel channel;
+
+  /**
+   * The bytes encoded and not yet written to the channel, {@code null} once
+   * the buffer is released.
+   */
+  private ByteBuffer buffer;
+
+  /**
+   * The characters of the last {@link String} written.
+   */
+  private char[] chars;
+
+  /**
+   * The high surrogate of a pair whose low surrogate is not written yet, or
+   * {@code 0}.
+   */
+  private char highSurrogate;
+
+  /**
+   * @param channel
+   *        the channel to write to.
+   */
+  ChannelWriter(WritableByteChannel channel) {
+    this.channel = channel;
+    buffer = pool.poll();
+
+    if (buffer == null) {
+      buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    }
+  }
+
+  /* (non-Javadoc)
+   * @see java.io.Writer#write(char[], int, int)
+   */
+  @Override
+  public void write(char[] cbuf, int off, int len) throws IOException {
+    ensureOpen();
+    ByteBuffer buffer = this.buffer;
+    int end = off + len;
+
+    while (off < end) {
+      if (buffer.remaining() < 4) {
+        drain();
+      }
+      char c = cbuf[off];
+
+      if ((c < 0x80) && (highSurrogate == 0)) {
+        int asciiEnd = Math.min(end, off + buffer.remaining());
+
+        do {
+          buffer.put((byte) c);
+          off++;
+        } while ((off < asciiEnd) && ((c = cbuf[off]) < 0x80));
+      } else {
+        encode(c);
+        off++;
+      }
+    }
+  }
+
+  /* (non-Javadoc)
+   * @see java.io.Writer#write(java.lang.String, int, int)
+   */
+  @Override
+  public void write(String str, int off, int len) throws IOException {
+    if (chars == null) {
+      chars = new char[4096];
+    }
+    while (len > 0) {
+      int count = Math.min(len, chars.length);
+      str.getChars(off, off + count, chars, 0);
+      write(chars, 0, count);
+      off += count;
+      len -= count;
+    }
+  }
+
+  /* (non-Javadoc)
+   * @see java.io.Writer#write(int)
+   */
+  @Override
+  public void write(int c) throws IOException {
+    ensureOpen();
+
+    if (buffer.remaining() < 4) {
+      drain();
+    }
+    if ((c < 0x80) && (highSurrogate == 0)) {
+      buffer.put((byte) c);
+    } else {
+      encode((char) c);
+    }
+  }
+
+  /**
+   * Encodes a character that is not ASCII, or that follows a high
+   * surrogate, into the buffer, which must have room for four bytes.
+   * 
+   * @param c
+   */
+  private void encode(char c) {
+    if (highSurrogate != 0) {
+      if (Character.isLowSurrogate(c)) {
+        int codePoint = Character.toCodePoint(highSurrogate, c);
+        highSurrogate = 0;
+        buffer.put((byte) (0xf0 | (codePoint >> 18)));
+        buffer.put((byte) (0x80 | ((codePoint >> 12) & 0x3f)));
+        buffer.put((byte) (0x80 | ((codePoint >> 6) & 0x3f)));
+        buffer.put((byte) (0x80 | (codePoint & 0x3f)));
+        return;
+      }
+      highSurrogate = 0;
+      buffer.put(REPLACEMENT);
+
+      if (c < 0x80) {
+        buffer.put((byte) c);
+        return;
+      }
+    }
+    if (c < 0x800) {
+      buffer.put((byte) (0xc0 | (c >> 6)));
+      buffer.put((byte) (0x80 | (c & 0x3f)));
+    } else if (Character.isHighSurrogate(c)) {
+      highSurrogate = c;
+    } else if (Character.isLowSurrogate(c)) {
+      buffer.put(REPLACEMENT);
+    } else {
+      buffer.put((byte) (0xe0 | (c >> 12)));
+      buffer.put((byte) (0x80 | ((c >> 6) & 0x3f)));
+      buffer.put((byte) (0x80 | (c & 0x3f)));
+    }
+  }
+
+  /**
+   * Writes the encoded bytes to the channel.
+   * 
+   * @throws IOException
+   */
+  private void drain() throws IOException {
+    buffer.flip();
+
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+    buffer.clear();
+  }
+
+  /**
+   * @throws IOException
+   *         if the buffer was released.
+   */
+  private void ensureOpen() throws IOException {
+    if (buffer == null) {
+      throw new IOException("The writer is closed.");
+    }
+  }
+
+  /* (non-Javadoc)
+   * @see java.io.Writer#flush()
+   */
+  @Override
+  public void flush() throws IOException {
+    if (buffer != null) {
+      drain();
+    }
+  }
+
+  /**
+   * Gives the buffer back to the pool, without writing the bytes it still
+   * holds. Further writes fail.
+   */
+  void release() {
+    if (buffer != null) {
+      buffer.clear();
+      pool.offer(buffer);
+      buffer = null;
+    }
+  }
+
+  /**
+   * Writes the remaining bytes to the channel and releases the buffer. The
+   * channel is not closed.
+   * 
+   * @see java.io.Writer#close()
+   */
+  @Override
+  public void close() throws IOException {
+    try {
+      flush();
+    } finally {
+      release();
+    }
+  }
+
+}
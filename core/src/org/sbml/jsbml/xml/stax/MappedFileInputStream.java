@@ -0,0 +1,220 @@
+/*
+ * ----------------------------------------------------------------------------
+ * This file is part of JSBML. Please visit <http://sbml.org/Software/JSBML>
+ * for the latest version of JSBML and more information about SBML.
+ * 
+ * Copyright (C) 2009-2018 jointly by the following organizations:
+ * 1. The University of Tuebingen, Germany
+ * 2. EMBL European Bioinformatics Institute (EBML-EBI), Hinxton, UK
+ * 3. The California Institute of Technology, Pasadena, CA, USA
+ * 4. The University of California, San Diego, La Jolla, CA, USA
+ * 5. The Babraham Institute, Cambridge, UK
+ * 
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation. A copy of the license agreement is provided
+ * in the file named "LICENSE.txt" included with this software distribution
+ * and also available online as <http://sbml.org/Software/JSBML/License>.
+ * ----------------------------------------------------------------------------
+ */
+package org.sbml.jsbml.xml.stax;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * An {@link InputStream} reading a file mapped in memory with
+ * {@link FileChannel#map(MapMode, long, long)}, so that the parser reads the
+ * content of the file directly from the page cache, without the system calls
+ * and copies done by a {@link java.io.FileInputStream}.
+ * 
+ * <p>Files larger than {@link #MAX_REGION_SIZE} are mapped by consecutive
+ * regions. The mapping of a region is released by the garbage collector,
+ * after the stream is closed.</p>
+ * 
+ * @since 1.6
+ */
+class MappedFileInputStream extends InputStream {
+
+  /**
+   * The maximal size of the regions of the file mapped at once.
+   */
+  static final long MAX_REGION_SIZE = Integer.MAX_VALUE;
+
+  /**
+   * The channel of the mapped file, {@code null} once closed.
+   */
+  private FileChannel channel;
+
+  /**
+   * The size of the file.
+   */
+  private final long size;
+
+  /**
+   * The position in the file of the first byte of {@link #region}.
+   */
+  private long regionStart;
+
+  /**
+   * The mapped region being read.
+   */
+  private MappedByteBuffer region;
+
+  /**
+   * The position in the file given to {@link #mark(int)}.
+   */
+  private long mark;
+
+  /**
+   * Opens and maps the given file.
+   * 
+   * @param path the file to read.
+   * @throws IOException if the file cannot be opened or mapped.
+   */
+  public MappedFileInputStream(Path path) throws IOException {
+    super();
+    channel = FileChannel.open(path, StandardOpenOption.READ);
+    try {
+      size = channel.size();
+      map(0);
+    } catch (IOException exc) {
+      channel.close();
+      throw exc;
+    }
+  }
+
+  /**
+   * Maps the region of the file starting at the given position.
+   * 
+   * @param position a position in the file.
+   * @throws IOException if the stream is closed or the region cannot be
+   *         mapped.
+   */
+  private void map(long position) throws IOException {
+    if (channel == null) {
+      throw new IOException("The stream is closed.");
+    }
+    regionStart = position;
+    region = channel.map(MapMode.READ_ONLY, position, Math.min(MAX_REGION_SIZE, size - position));
+  }
+
+  /**
+   * Makes sure the current region has remaining bytes, mapping the next
+   * region if needed.
+   * 
+   * @return {@code false} if the end of the file is reached.
+   * @throws IOException if the next region cannot be mapped.
+   */
+  private boolean ensureRemaining() throws IOException {
+    if (region.hasRemaining()) {
+      return true;
+    }
+    long position = regionStart + region.limit();
+
+    if (position >= size) {
+      return false;
+    }
+    map(position);
+    return true;
+  }
+
+  /* (non-Javadoc)
+   * @see java.io.InputStream#read()
+   */
+  @Override
+  public int read() throws IOException {
+    return ensureRemaining() ? (region.get() & 0xff) : -1;
+  }
+
+  /* (non-Javadoc)
+   * @see java.io.InputStream#read(byte[], int, int)
+   */
+  @Override
+  public int read(byte[] b, int off, int len) throws IOException {
+    if (len == 0) {
+      return 0;
+    }
+    if (!ensureRemaining()) {
+      return -1;
+    }
+    int count = Math.min(len, region.remaining());
+    region.get(b, off, count);
+    return count;
+  }
+
+  /* (non-Javadoc)
+   * @see java.io.InputStream#skip(long)
+   */
+  @Override
+  public long skip(long n) throws IOException {
+    long position = regionStart + region.position();
+    long skipped = Math.max(0, Math.min(n, size - position));
+
+    seek(position + skipped);
+    return skipped;
+  }
+
+  /* (non-Javadoc)
+   * @see java.io.InputStream#available()
+   */
+  @Override
+  public int available() {
+    return region.remaining();
+  }
+
+  /* (non-Javadoc)
+   * @see java.io.InputStream#markSupported()
+   */
+  @Override
+  public boolean markSupported() {
+    return true;
+  }
+
+  /* (non-Javadoc)
+   * @see java.io.InputStream#mark(int)
+   */
+  @Override
+  public synchronized void mark(int readlimit) {
+    mark = regionStart + region.position();
+  }
+
+  /* (non-Javadoc)
+   * @see java.io.InputStream#reset()
+   */
+  @Override
+  public synchronized void reset() throws IOException {
+    seek(mark);
+  }
+
+  /**
+   * Moves to the given position in the file.
+   * 
+   * @param position a position in the file.
+   * @throws IOException if the region containing the position cannot be
+   *         mapped.
+   */
+  private void seek(long position) throws IOException {
+    if ((position < regionStart) || (position > regionStart + region.limit())) {
+      map(position);
+    }
+    region.position((int) (position - regionStart));
+  }
+
+  /* (non-Javadoc)
+   * @see java.io.InputStream#close()
+   */
+  @Override
+  public void close() throws IOException {
+    if (channel != null) {
+      channel.close();
+      channel = null;
+    }
+  }
+
+}
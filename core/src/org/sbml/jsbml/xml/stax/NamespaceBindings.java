@@ -0,0 +1,263 @@
+/*
+ * ----------------------------------------------------------------------------
+ * This file is part of JSBML. Please visit <http://sbml.org/Software/JSBML>
+ * for the latest version of JSBML and more information about SBML.
+ * 
+ * Copyright (C) 2009-2018 jointly by the following organizations:
+ * 1. The University of Tuebingen, Germany
+ * 2. EMBL European Bioinformatics Institute (EBML-EBI), Hinxton, UK
+ * 3. The California Institute of Technology, Pasadena, CA, USA
+ * 4. The University of California, San Diego, La Jolla, CA, USA
+ * 5. The Babraham Institute, Cambridge, UK
+ * 
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation. A copy of the license agreement is provided
+ * in the file named "LICENSE.txt" included with this software distribution
+ * and also available online as <http://sbml.org/Software/JSBML/License>.
+ * ----------------------------------------------------------------------------
+ */
+package org.sbml.jsbml.xml.stax;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.xml.stream.XMLStreamException;
+
+import org.codehaus.stax2.XMLStreamWriter2;
+
+/**
+ * Keeps track of the namespaces bound while the {@link SBMLWriter} writes
+ * elements directly to an {@link XMLStreamWriter2}.
+ * 
+ * <p>The prefixes are chosen the same way as the StaxMate output context
+ * does, so that both ways of writing produce the same document: an element
+ * of the current default namespace has no prefix, an element of a bound
+ * namespace uses its prefix and otherwise the namespace is declared on the
+ * element, with the prefix it was last bound to, its preferred prefix or as
+ * the default namespace. The bindings end with the element that declared
+ * them.</p>
+ * 
+ * @since 1.6
+ */
+class NamespaceBindings {
+
+  /**
+   * The URI of the current default namespace.
+   */
+  private String defaultNamespace = "";
+
+  /**
+   * The preferred prefix of each namespace URI, given when the namespace is
+   * first used.
+   */
+  private Map<String, String> preferredPrefixes = new HashMap<String, String>();
+
+  /**
+   * The prefix each namespace URI is currently bound to.
+   */
+  private Map<String, String> boundPrefixes = new HashMap<String, String>();
+
+  /**
+   * The prefix each namespace URI was last bound to.
+   */
+  private Map<String, String> lastPrefixes = new HashMap<String, String>();
+
+  /**
+   * The URIs of the bound namespaces, in the order they were bound.
+   */
+  private String[] boundURIs = new String[16];
+
+  /**
+   * The number of bound namespaces.
+   */
+  private int boundCount;
+
+  /**
+   * For each open element, the number of namespaces bound before it.
+   */
+  private int[] elementBoundCounts = new int[32];
+
+  /**
+   * For each open element, the default namespace of its parent.
+   */
+  private String[] elementDefaultNamespaces = new String[32];
+
+  /**
+   * The number of open elements.
+   */
+  private int depth;
+
+  /**
+   * Sets the preferred prefix of a namespace, if it has none yet.
+   * 
+   * @param namespaceURI
+   * @param prefix the preferred prefix, {@code ""} to prefer declaring the
+   *        namespace as the default namespace.
+   */
+  public void addPreferredPrefix(String namespaceURI, String prefix) {
+    if ((namespaceURI != null) && (namespaceURI.length() > 0)
+        && !preferredPrefixes.containsKey(namespaceURI)) {
+      preferredPrefixes.put(namespaceURI, prefix);
+    }
+  }
+
+  /**
+   * Returns a copy of these bindings, for writing a part of the elements
+   * of a {@link org.sbml.jsbml.ListOf} in parallel, see
+   * {@link SBMLWriter#setThreadCount(int)}.
+   * 
+   * @return a copy of these bindings, with the same elements open.
+   */
+  public NamespaceBindings copy() {
+    NamespaceBindings copy = new NamespaceBindings();
+    copy.defaultNamespace = defaultNamespace;
+    copy.preferredPrefixes.putAll(preferredPrefixes);
+    copy.boundPrefixes.putAll(boundPrefixes);
+    copy.lastPrefixes.putAll(lastPrefixes);
+    copy.boundURIs = boundURIs.clone();
+    copy.boundCount = boundCount;
+    copy.elementBoundCounts = elementBoundCounts.clone();
+    copy.elementDefaultNamespaces = elementDefaultNamespaces.clone();
+    copy.depth = depth;
+
+    return copy;
+  }
+
+  /**
+   * Takes over the prefixes preferred and last bound in the given copy of
+   * these bindings, once its elements are written.
+   * 
+   * @param copy
+   *        a {@link #copy()} of these bindings.
+   */
+  public void addPrefixes(NamespaceBindings copy) {
+    for (Map.Entry<String, String> prefix : copy.preferredPrefixes.entrySet()) {
+      addPreferredPrefix(prefix.getKey(), prefix.getValue());
+    }
+    lastPrefixes.putAll(copy.lastPrefixes);
+  }
+
+  /**
+   * Writes the start tag of an element, declaring its namespace if it is not
+   * in scope.
+   * 
+   * @param writer
+   * @param namespaceURI
+   * @param localName
+   * @throws XMLStreamException
+   */
+  public void writeStartElement(XMLStreamWriter2 writer, String namespaceURI,
+    String localName) throws XMLStreamException {
+    if (namespaceURI == null) {
+      namespaceURI = "";
+    }
+    if (depth == elementBoundCounts.length) {
+      elementBoundCounts = Arrays.copyOf(elementBoundCounts, 2 * depth);
+      elementDefaultNamespaces = Arrays.copyOf(elementDefaultNamespaces, 2 * depth);
+    }
+    elementBoundCounts[depth] = boundCount;
+    elementDefaultNamespaces[depth] = defaultNamespace;
+    depth++;
+
+    if (namespaceURI.equals(defaultNamespace)) {
+      writer.writeStartElement("", localName, namespaceURI);
+      return;
+    }
+    if (namespaceURI.length() == 0) {
+      writer.writeStartElement("", localName, namespaceURI);
+      defaultNamespace = namespaceURI;
+      writer.writeDefaultNamespace(namespaceURI);
+      return;
+    }
+
+    String prefix = boundPrefixes.get(namespaceURI);
+
+    if (prefix != null) {
+      writer.writeStartElement(prefix, localName, namespaceURI);
+      return;
+    }
+
+    prefix = lastPrefixes.get(namespaceURI);
+
+    if ((prefix == null) || isPrefixBound(prefix)) {
+      prefix = preferredPrefixes.get(namespaceURI);
+
+      if ((prefix == null) || isPrefixBound(prefix)) {
+        prefix = "";
+      }
+    }
+    writer.writeStartElement(prefix, localName, namespaceURI);
+
+    if (prefix.length() == 0) {
+      defaultNamespace = namespaceURI;
+      writer.writeDefaultNamespace(namespaceURI);
+    } else {
+      if (boundCount == boundURIs.length) {
+        boundURIs = Arrays.copyOf(boundURIs, 2 * boundCount);
+      }
+      boundURIs[boundCount++] = namespaceURI;
+      boundPrefixes.put(namespaceURI, prefix);
+      lastPrefixes.put(namespaceURI, prefix);
+      writer.writeNamespace(prefix, namespaceURI);
+    }
+  }
+
+  /**
+   * Writes the end tag of the last open element and ends the bindings it
+   * declared.
+   * 
+   * @param writer
+   * @throws XMLStreamException
+   */
+  public void writeEndElement(XMLStreamWriter2 writer) throws XMLStreamException {
+    writer.writeEndElement();
+    depth--;
+
+    while (boundCount > elementBoundCounts[depth]) {
+      boundCount--;
+      boundPrefixes.remove(boundURIs[boundCount]);
+      boundURIs[boundCount] = null;
+    }
+    defaultNamespace = elementDefaultNamespaces[depth];
+    elementDefaultNamespaces[depth] = null;
+  }
+
+  /**
+   * @return the URI of the current default namespace, {@code ""} if there is
+   *         none.
+   */
+  public String getDefaultNamespace() {
+    return defaultNamespace;
+  }
+
+  /**
+   * @param prefix
+   * @return the URI of the namespace bound to the given prefix by the
+   *         elements written, or {@code null} if none is.
+   */
+  public String getNamespaceURI(String prefix) {
+    for (int i = boundCount - 1; i >= 0; i--) {
+      if (prefix.equals(boundPrefixes.get(boundURIs[i]))) {
+        return boundURIs[i];
+      }
+    }
+    return null;
+  }
+
+  /**
+   * @param prefix
+   * @return {@code true} if a namespace is currently bound to the given
+   *         prefix.
+   */
+  private boolean isPrefixBound(String prefix) {
+    for (int i = boundCount - 1; i >= 0; i--) {
+      if (prefix.equals(boundPrefixes.get(boundURIs[i]))) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+}
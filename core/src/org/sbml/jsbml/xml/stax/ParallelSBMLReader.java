@@ -0,0 +1,768 @@
+/*
+ * ----------------------------------------------------------------------------
+ * This file is part of JSBML. Please visit <http://sbml.org/Software/JSBML>
+ * for the latest version of JSBML and more information about SBML.
+ * 
+ * Copyright (C) 2009-2018 jointly by the following organizations:
+ * 1. The University of Tuebingen, Germany
+ * 2. EMBL European Bioinformatics Institute (EBML-EBI), Hinxton, UK
+ * 3. The California Institute of Technology, Pasadena, CA, USA
+ * 4. The University of California, San Diego, La Jolla, CA, USA
+ * 5. The Babraham Institute, Cambridge, UK
+ * 
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation. A copy of the license agreement is provided
+ * in the file named "LICENSE.txt" included with this software distribution
+ * and also available online as <http://sbml.org/Software/JSBML/License>.
+ * ----------------------------------------------------------------------------
+ */
+package org.sbml.jsbml.xml.stax;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.swing.tree.TreeNode;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.apache.log4j.Logger;
+import org.codehaus.stax2.XMLStreamReader2;
+import org.sbml.jsbml.AbstractTreeNode;
+import org.sbml.jsbml.ListOf;
+import org.sbml.jsbml.Model;
+import org.sbml.jsbml.SBMLDocument;
+import org.sbml.jsbml.SBase;
+import org.sbml.jsbml.ext.SBasePlugin;
+import org.sbml.jsbml.util.CompressionTools;
+import org.sbml.jsbml.util.SimpleTreeNodeChangeListener;
+import org.sbml.jsbml.util.StringTools;
+import org.sbml.jsbml.util.TreeNodeChangeListener;
+
+/**
+ * Reads one large SBML document using several threads.
+ * 
+ * <p>The document is first scanned, without creating any SBML element, to
+ * find the large {@code listOf*} sections of the model, such as the
+ * {@code listOfSpecies}, the {@code listOfReactions} or the lists of a
+ * package like {@code fbc:listOfGeneProducts}. These sections are cut into
+ * parts of about {@link #getMinSectionSize()} characters, between two of
+ * their elements, and each part is read in parallel by its own
+ * {@link SBMLReader}, while the rest of the document is read in the calling
+ * thread. The content preceding a section in the document, apart from the
+ * other large sections, is read with each of its parts, so that they are read
+ * in the right context, and the function and unit definitions, which are
+ * looked up while the other elements are read, are never read separately.
+ * Once the rest of the document is read, the elements of the parts are
+ * gathered in their {@link ListOf}, which is then attached to the
+ * {@link Model}, in the order of the document, registering their identifiers
+ * in one pass, and the end of the document is processed as usual.</p>
+ * 
+ * <p>The document read is the same as with {@link SBMLReader}, but the
+ * {@link TreeNodeChangeListener} given is only added to the document once it
+ * is read, so it does not receive the events of the reading. Documents
+ * without large sections, SBML Level 1 documents and documents whose
+ * sections cannot be merged, for instance because of identifiers repeated in
+ * different parts, are read sequentially.</p>
+ * 
+ * @since 1.6
+ */
+public class ParallelSBMLReader {
+
+  /**
+   * The default minimal size, in characters, of a section read separately,
+   * which is also the size of its parts.
+   */
+  public static final int DEFAULT_MIN_SECTION_SIZE = 256 * 1024;
+
+  /**
+   * The sections that are always read with the rest of the document, as
+   * their elements are looked up while the other elements are read.
+   */
+  private static final Set<String> CONTEXT_SECTIONS = new HashSet<String>(Arrays.asList(
+    "listOfFunctionDefinitions", "listOfUnitDefinitions"));
+
+  /**
+   * A {@link Logger} for this class.
+   */
+  private static final transient Logger logger = Logger.getLogger(ParallelSBMLReader.class);
+
+  /**
+   * The factory creating the XML readers, shared by all threads.
+   */
+  private final XMLInputFactory inputFactory = SBMLReader.createInputFactory();
+
+  /**
+   * The maximal number of parts read in parallel.
+   */
+  private final int threadCount;
+
+  /**
+   * The minimal size, in characters, of a section read separately.
+   */
+  private int minSectionSize = DEFAULT_MIN_SECTION_SIZE;
+
+  /**
+   * Creates a new {@link ParallelSBMLReader} reading as many parts in
+   * parallel as there are processors available.
+   */
+  public ParallelSBMLReader() {
+    this(Runtime.getRuntime().availableProcessors());
+  }
+
+  /**
+   * Creates a new {@link ParallelSBMLReader}.
+   * 
+   * @param threadCount the maximal number of parts read in parallel, besides
+   *        the rest of the document read in the calling thread.
+   */
+  public ParallelSBMLReader(int threadCount) {
+    super();
+    if (threadCount < 1) {
+      throw new IllegalArgumentException(MessageFormat.format(
+        "The number of threads must be positive, but was {0,number,integer}.", threadCount));
+    }
+    this.threadCount = threadCount;
+  }
+
+  /**
+   * Returns the minimal size, in characters, of the {@code listOf*} sections
+   * read separately.
+   * 
+   * @return the minimal size of a section read separately.
+   */
+  public int getMinSectionSize() {
+    return minSectionSize;
+  }
+
+  /**
+   * Sets the minimal size, in characters, of the {@code listOf*} sections
+   * read separately, {@link #DEFAULT_MIN_SECTION_SIZE} by default. Smaller
+   * sections are read with the rest of the document, as reading them
+   * separately costs more than it saves. The sections read separately are
+   * cut into parts of about this size.
+   * 
+   * @param minSectionSize the minimal size of a section read separately.
+   */
+  public void setMinSectionSize(int minSectionSize) {
+    if (minSectionSize < 1) {
+      throw new IllegalArgumentException(MessageFormat.format(
+        "The minimal section size must be positive, but was {0,number,integer}.", minSectionSize));
+    }
+    this.minSectionSize = minSectionSize;
+  }
+
+  /**
+   * Reads a SBML document from the given file, which can be compressed, see
+   * {@link CompressionTools#decompress(InputStream)}.
+   * 
+   * @param file
+   *            A file containing SBML content.
+   * @return the matching SBMLDocument instance.
+   * @throws IOException
+   * @throws XMLStreamException
+   */
+  public SBMLDocument readSBML(File file) throws IOException, XMLStreamException {
+    InputStream stream = new FileInputStream(file);
+    SBMLDocument doc;
+
+    try {
+      doc = readSBMLFromStream(stream);
+    } finally {
+      stream.close();
+    }
+    doc.setLocationURI(file.toURI().toString());
+
+    return doc;
+  }
+
+  /**
+   * Reads a SBML document from the given stream, which can be compressed,
+   * see {@link CompressionTools#decompress(InputStream)}. The whole content
+   * of the stream is read before the document is parsed.
+   * 
+   * @param stream
+   * @return the matching SBMLDocument instance.
+   * @throws IOException
+   * @throws XMLStreamException
+   */
+  public SBMLDocument readSBMLFromStream(InputStream stream) throws IOException, XMLStreamException {
+    InputStream uncompressedStream = CompressionTools.decompress(stream);
+    ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    byte[] bytes = new byte[8192];
+    int count;
+
+    while ((count = uncompressedStream.read(bytes)) != -1) {
+      buffer.write(bytes, 0, count);
+    }
+    bytes = buffer.toByteArray();
+
+    // Lets the XML parser detect the encoding, from the byte order mark or the XML declaration
+    XMLStreamReader encodingReader = inputFactory.createXMLStreamReader(new ByteArrayInputStream(bytes));
+    String encoding = encodingReader.getEncoding();
+    encodingReader.close();
+
+    String xml = new String(bytes, (encoding != null) ? encoding : "UTF-8");
+
+    if ((xml.length() > 0) && (xml.charAt(0) == '\uFEFF')) {
+      xml = xml.substring(1);
+    }
+
+    return readSBMLFromString(xml);
+  }
+
+  /**
+   * Reads a SBML document from the given XML String.
+   * 
+   * @param xml
+   * @return the matching SBMLDocument instance.
+   * @throws XMLStreamException
+   */
+  public SBMLDocument readSBMLFromString(String xml) throws XMLStreamException {
+    return readSBMLFromString(xml, new SimpleTreeNodeChangeListener());
+  }
+
+  /**
+   * Reads a SBML document from the given XML String.
+   * 
+   * @param xml
+   * @param listener
+   * @return the matching SBMLDocument instance.
+   * @throws XMLStreamException
+   */
+  public SBMLDocument readSBMLFromString(String xml, TreeNodeChangeListener listener) throws XMLStreamException {
+    List<Section> sections = findSections(xml);
+
+    if (sections.isEmpty()) {
+      return readSequentially(xml, listener);
+    }
+
+    // The document without the content of the sections, whose beginning
+    // is the context of each section
+    StringBuilder buffer = new StringBuilder(xml.length());
+    int position = 0;
+
+    for (Section section : sections) {
+      buffer.append(xml, position, section.start);
+      section.contextLength = buffer.length();
+      buffer.append(xml, section.start, section.contentStart);
+      position = section.contentEnd;
+    }
+    buffer.append(xml, position, xml.length());
+    String mainXML = buffer.toString();
+    buffer = null;
+
+    ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+
+    try {
+      for (Section section : sections) {
+        for (Part part : section.parts) {
+          part.result = executor.submit(new PartReader(xml, mainXML, section, part));
+        }
+      }
+
+      SBMLReader reader = new SBMLReader(inputFactory);
+      reader.setEndOfDocumentHandler(new SectionMerger(sections));
+
+      return addListener(reader.readSBML(createReader(mainXML), null), listener);
+    } catch (MergeException exc) {
+      if (exc.getCause() instanceof XMLStreamException) {
+        throw (XMLStreamException) exc.getCause();
+      } else if (exc.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) exc.getCause();
+      } else if (exc.getCause() instanceof Error) {
+        throw (Error) exc.getCause();
+      }
+
+      logger.debug(MessageFormat.format(
+        "The sections of the document cannot be read separately, reading it sequentially: {0}",
+        exc.getCause().getMessage()));
+      return readSequentially(xml, listener);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * Reads the given XML String with a single {@link SBMLReader}.
+   * 
+   * @param xml
+   * @param listener
+   * @return the matching SBMLDocument instance.
+   * @throws XMLStreamException
+   */
+  private SBMLDocument readSequentially(String xml, TreeNodeChangeListener listener) throws XMLStreamException {
+    return addListener(new SBMLReader(inputFactory).readSBML(createReader(xml), null), listener);
+  }
+
+  /**
+   * Adds the given listener to all the elements of the given document.
+   * 
+   * @param doc
+   * @param listener
+   * @return the given document.
+   */
+  private static SBMLDocument addListener(SBMLDocument doc, TreeNodeChangeListener listener) {
+    if (listener != null) {
+      doc.addTreeNodeChangeListener(listener, true);
+    }
+    return doc;
+  }
+
+  /**
+   * Creates a {@link XMLStreamReader2} reading the given XML String.
+   * 
+   * @param xml
+   * @return a {@link XMLStreamReader2} reading the given XML String.
+   * @throws XMLStreamException
+   */
+  private XMLStreamReader2 createReader(String xml) throws XMLStreamException {
+    return (XMLStreamReader2) inputFactory.createXMLStreamReader(new StringReader(xml));
+  }
+
+  /**
+   * Finds the {@code listOf*} children of the {@code model} element of at
+   * least {@link #getMinSectionSize()} characters and cuts them into parts.
+   * 
+   * @param xml
+   * @return the sections found, in the order of the document.
+   * @throws XMLStreamException
+   */
+  private List<Section> findSections(String xml) throws XMLStreamException {
+    List<Section> sections = new ArrayList<Section>();
+    XMLStreamReader2 reader = createReader(xml);
+    String sbmlName = null, modelName = null;
+    int depth = 0;
+
+    try {
+      while (reader.hasNext()) {
+        int eventType = reader.next();
+
+        if (eventType == XMLStreamConstants.END_ELEMENT) {
+          if (--depth == 1) {
+            // end of the model
+            break;
+          }
+          continue;
+        } else if (eventType != XMLStreamConstants.START_ELEMENT) {
+          continue;
+        }
+        depth++;
+
+        if (depth == 1) {
+          sbmlName = reader.getPrefixedName();
+          String level = reader.getAttributeValue(null, "level");
+
+          if ((level == null) || (StringTools.parseSBMLInt(level) < 2)) {
+            // Level 1 rules can only be converted when the whole model is known
+            break;
+          }
+        } else if ((depth == 2) && reader.getLocalName().equals("model")) {
+          modelName = reader.getPrefixedName();
+        } else if ((depth == 3) && reader.getLocalName().startsWith("listOf")
+            && !CONTEXT_SECTIONS.contains(reader.getLocalName())) {
+          Section section = new Section(reader.getLocalName(),
+            (int) reader.getLocationInfo().getStartingCharOffset());
+          section.contentStart = getStartTagEnd(xml, section.start);
+          List<Integer> cuts = new ArrayList<Integer>();
+          int partStart = section.contentStart;
+          int partElementCount = 0;
+
+          while (reader.next() != XMLStreamConstants.END_ELEMENT) {
+            if (reader.getEventType() == XMLStreamConstants.START_ELEMENT) {
+              String name = reader.getLocalName();
+
+              // the notes and annotation stay with the first part, and each part has at least one element
+              if (!name.equals("notes") && !name.equals("annotation")) {
+                int elementStart = (int) reader.getLocationInfo().getStartingCharOffset();
+
+                if ((partElementCount > 0) && (elementStart - partStart >= minSectionSize)) {
+                  cuts.add(elementStart);
+                  partStart = elementStart;
+                  partElementCount = 0;
+                }
+                partElementCount++;
+              }
+              reader.skipElement();
+            }
+          }
+          depth--;
+          section.contentEnd = (int) reader.getLocationInfo().getStartingCharOffset();
+          section.end = (int) reader.getLocationInfo().getEndingCharOffset();
+          section.closingTags = "</" + modelName + "></" + sbmlName + ">";
+
+          if (section.contentEnd - section.start >= minSectionSize) {
+            partStart = section.contentStart;
+
+            for (int cut : cuts) {
+              section.parts.add(new Part(partStart, cut));
+              partStart = cut;
+            }
+            section.parts.add(new Part(partStart, section.contentEnd));
+            sections.add(section);
+          }
+        } else {
+          reader.skipElement();
+          depth--;
+        }
+      }
+    } finally {
+      reader.close();
+    }
+
+    return sections;
+  }
+
+  /**
+   * Returns the position following the end of the start tag beginning at
+   * the given position, ignoring the {@code >} in the attribute values.
+   * 
+   * @param xml
+   * @param start the position of the {@code <} of a start tag.
+   * @return the position following the {@code >} of the start tag.
+   */
+  private static int getStartTagEnd(String xml, int start) {
+    char quote = 0;
+
+    for (int i = start; i < xml.length(); i++) {
+      char c = xml.charAt(i);
+
+      if (quote != 0) {
+        if (c == quote) {
+          quote = 0;
+        }
+      } else if ((c == '"') || (c == '\'')) {
+        quote = c;
+      } else if (c == '>') {
+        return i + 1;
+      }
+    }
+
+    return xml.length();
+  }
+
+  /**
+   * Returns the {@link Model} or the {@link SBasePlugin} of the model
+   * holding the {@link ListOf} of the given element name.
+   * 
+   * @param model
+   * @param elementName the element name of a {@link ListOf}.
+   * @return the owner of the {@link ListOf}, {@code null} if none is found.
+   */
+  private static TreeNode findOwner(Model model, String elementName) {
+    for (SBasePlugin plugin : model.getExtensionPackages().values()) {
+      if (getListOf(plugin, elementName) != null) {
+        return plugin;
+      }
+    }
+
+    return (getListOf(model, elementName) != null) ? model : null;
+  }
+
+  /**
+   * Returns the child of the given {@link Model} or {@link SBasePlugin}
+   * that is a {@link ListOf} with the given element name.
+   * 
+   * @param owner a {@link Model} or one of its {@link SBasePlugin}s.
+   * @param elementName the element name of a {@link ListOf}.
+   * @return the {@link ListOf}, {@code null} if none is found.
+   */
+  private static ListOf<?> getListOf(TreeNode owner, String elementName) {
+    for (int i = 0; i < owner.getChildCount(); i++) {
+      TreeNode child = owner.getChildAt(i);
+
+      if ((child instanceof ListOf<?>) && ((ListOf<?>) child).getElementName().equals(elementName)) {
+        return (ListOf<?>) child;
+      }
+    }
+
+    return null;
+  }
+
+  /**
+   * Calls the {@code set} method of the given owner for the {@link ListOf}
+   * of the given element name, e.g. {@link Model#setListOfReactions(ListOf)}.
+   * 
+   * @param owner a {@link Model} or one of its {@link SBasePlugin}s.
+   * @param elementName the element name of a {@link ListOf}.
+   * @param listOf the {@link ListOf} to set.
+   * @throws ReflectiveOperationException if the method cannot be found or
+   *         fails.
+   */
+  private static void setListOf(TreeNode owner, String elementName, ListOf<?> listOf)
+      throws ReflectiveOperationException {
+    String methodName = "set" + Character.toUpperCase(elementName.charAt(0)) + elementName.substring(1);
+
+    for (Method method : owner.getClass().getMethods()) {
+      Class<?>[] parameterTypes = method.getParameterTypes();
+
+      if (method.getName().equals(methodName) && (parameterTypes.length == 1)
+          && parameterTypes[0].isInstance(listOf)) {
+        method.invoke(owner, listOf);
+        return;
+      }
+    }
+
+    throw new NoSuchMethodException(owner.getClass().getName() + '.' + methodName);
+  }
+
+  /**
+   * A large {@code listOf*} section of the model.
+   * 
+   * @since 1.6
+   */
+  private static class Section {
+
+    /**
+     * The local name of the section element.
+     */
+    private final String name;
+    /**
+     * The positions, in the whole document, of the start tag, of the end of
+     * the start tag, of the end tag and of the end of the section.
+     */
+    private int start, contentStart, contentEnd, end;
+    /**
+     * The length of the content preceding the section in the document read
+     * in the calling thread.
+     */
+    private int contextLength;
+    /**
+     * The end tags of the model and of the document.
+     */
+    private String closingTags;
+    /**
+     * The parts of the section, read separately.
+     */
+    private final List<Part> parts = new ArrayList<Part>();
+
+    /**
+     * @param name
+     * @param start
+     */
+    public Section(String name, int start) {
+      this.name = name;
+      this.start = start;
+    }
+  }
+
+  /**
+   * A part of a {@link Section}, starting with the content of the section or
+   * with one of its elements.
+   * 
+   * @since 1.6
+   */
+  private static class Part {
+
+    /**
+     * The positions, in the whole document, of the part.
+     */
+    private final int start, end;
+    /**
+     * The {@link ListOf} read, holding the elements of the part.
+     */
+    private Future<ListOf<?>> result;
+
+    /**
+     * @param start
+     * @param end
+     */
+    public Part(int start, int end) {
+      this.start = start;
+      this.end = end;
+    }
+  }
+
+  /**
+   * Reads a {@link Part} and detaches the {@link ListOf} read from its
+   * document.
+   * 
+   * @since 1.6
+   */
+  private class PartReader implements Callable<ListOf<?>> {
+
+    /**
+     * The whole document.
+     */
+    private final String xml;
+    /**
+     * The document read in the calling thread.
+     */
+    private final String mainXML;
+    /**
+     * 
+     */
+    private final Section section;
+    /**
+     * 
+     */
+    private final Part part;
+
+    /**
+     * @param xml
+     * @param mainXML
+     * @param section
+     * @param part
+     */
+    public PartReader(String xml, String mainXML, Section section, Part part) {
+      this.xml = xml;
+      this.mainXML = mainXML;
+      this.section = section;
+      this.part = part;
+    }
+
+    /* (non-Javadoc)
+     * @see java.util.concurrent.Callable#call()
+     */
+    @Override
+    public ListOf<?> call() throws Exception {
+      StringBuilder partXML = new StringBuilder(section.contextLength + part.end - part.start + 256);
+      partXML.append(mainXML, 0, section.contextLength)
+      .append(xml, section.start, section.contentStart)
+      .append(xml, part.start, part.end)
+      .append(xml, section.contentEnd, section.end)
+      .append(section.closingTags);
+
+      SBMLReader reader = new SBMLReader(inputFactory);
+      reader.setEndOfDocumentHandler(new SBMLReader.EndOfDocumentHandler() {
+
+        @Override
+        public boolean endOfDocument(SBMLDocument document) {
+          // done once the sections are merged
+          return false;
+        }
+      });
+
+      SBMLDocument doc = reader.readSBML(createReader(partXML.toString()), null);
+      TreeNode owner = doc.isSetModel() ? findOwner(doc.getModel(), section.name) : null;
+
+      if (owner == null) {
+        throw new NoSuchMethodException("No list found for " + section.name);
+      }
+
+      // The document of the part is dropped, its identifiers do not need to be unregistered
+      ListOf<?> listOf = getListOf(owner, section.name);
+      listOf.setParent(null);
+
+      if (part != section.parts.get(0)) {
+        for (SBase element : listOf) {
+          ((AbstractTreeNode) element).setParent(null);
+        }
+      }
+
+      return listOf;
+    }
+  }
+
+  /**
+   * Replaces the empty lists of the sections in the document read by the
+   * lists read separately.
+   * 
+   * @since 1.6
+   */
+  private static class SectionMerger implements SBMLReader.EndOfDocumentHandler {
+
+    /**
+     * The sections read separately.
+     */
+    private final List<Section> sections;
+
+    /**
+     * @param sections
+     */
+    public SectionMerger(List<Section> sections) {
+      this.sections = sections;
+    }
+
+    /**
+     * Waits for the given part to be read and returns its {@link ListOf}.
+     * 
+     * @param part
+     * @return the {@link ListOf} read.
+     */
+    private ListOf<?> getResult(Part part) {
+      try {
+        return part.result.get();
+      } catch (InterruptedException exc) {
+        Thread.currentThread().interrupt();
+        throw new MergeException(new XMLStreamException(exc));
+      } catch (ExecutionException exc) {
+        throw new MergeException(exc.getCause());
+      }
+    }
+
+    /* (non-Javadoc)
+     * @see org.sbml.jsbml.xml.stax.SBMLReader.EndOfDocumentHandler#endOfDocument(org.sbml.jsbml.SBMLDocument)
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public boolean endOfDocument(SBMLDocument document) {
+      for (Section section : sections) {
+        ListOf<SBase> listOf = (ListOf<SBase>) getResult(section.parts.get(0));
+
+        // the list is not attached yet, so the identifiers are only registered once
+        for (int i = 1; i < section.parts.size(); i++) {
+          listOf.addAll((ListOf<SBase>) getResult(section.parts.get(i)));
+        }
+
+        Model model = document.getModel();
+        TreeNode owner = listOf.getPackageName().equals("core") ? model : model.getPlugin(listOf.getPackageName());
+
+        try {
+          setListOf(owner, section.name, listOf);
+        } catch (InvocationTargetException exc) {
+          // the identifiers of the list could not be registered
+          throw new MergeException(new ReflectiveOperationException(exc.getCause()));
+        } catch (ReflectiveOperationException exc) {
+          throw new MergeException(exc);
+        }
+      }
+
+      return true;
+    }
+  }
+
+  /**
+   * Thrown from the reading of the rest of the document when the lists
+   * read separately could not be merged. Its cause is the exception that
+   * failed the reading of a part, or a {@link ReflectiveOperationException}
+   * if the document should be read sequentially.
+   * 
+   * @since 1.6
+   */
+  private static class MergeException extends RuntimeException {
+
+    /**
+     * Generated serial version identifier.
+     */
+    private static final long serialVersionUID = -2305452017366453617L;
+
+    /**
+     * @param cause
+     */
+    public MergeException(Throwable cause) {
+      super(cause);
+    }
+  }
+
+}
@@ -0,0 +1,343 @@
+/*
+ * ----------------------------------------------------------------------------
+ * This file is part of JSBML. Please visit <http://sbml.org/Software/JSBML>
+ * for the latest version of JSBML and more information about SBML.
+ * 
+ * Copyright (C) 2009-2018 jointly by the following organizations:
+ * 1. The University of Tuebingen, Germany
+ * 2. EMBL European Bioinformatics Institute (EBML-EBI), Hinxton, UK
+ * 3. The California Institute of Technology, Pasadena, CA, USA
+ * 4. The University of California, San Diego, La Jolla, CA, USA
+ * 5. The Babraham Institute, Cambridge, UK
+ * 
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation. A copy of the license agreement is provided
+ * in the file named "LICENSE.txt" included with this software distribution
+ * and also available online as <http://sbml.org/Software/JSBML/License>.
+ * ----------------------------------------------------------------------------
+ */
+package org.sbml.jsbml.xml.stax;
+
+import java.beans.PropertyChangeEvent;
+import java.text.MessageFormat;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+import javax.swing.tree.TreeNode;
+
+import org.sbml.jsbml.util.TreeNodeChangeListener;
+import org.sbml.jsbml.util.TreeNodeRemovedEvent;
+
+/**
+ * Statistics collected by the {@link SBMLReader} while reading one document,
+ * to find out where the reading time is spent.
+ * 
+ * <p>The statistics contain the number of XML elements read for each element
+ * name, the time spent in each
+ * {@link org.sbml.jsbml.xml.parsers.ReadingParser} and
+ * {@link org.sbml.jsbml.xml.parsers.AnnotationReader}, the time spent
+ * setting the identifiers and meta identifiers read, which are registered by
+ * the elements at that time, the time spent in the
+ * {@link TreeNodeChangeListener}s of the document, the number of bytes parsed
+ * and the total reading time. All the times are in nanoseconds.</p>
+ * 
+ * <p>The time of the parsers includes the time spent on the identifiers and
+ * the events given to the listeners that happen while the parsers create and
+ * modify the elements. The elements skipped or kept as unparsed XML by the
+ * reader are counted, but not the elements they contain.</p>
+ * 
+ * <p>The statistics can be exported with {@link #toMap()} as a flat map of
+ * named values.</p>
+ * 
+ * @since 1.6
+ * @see SBMLReader#setCollectingStatistics(boolean)
+ */
+public class ReaderStatistics {
+
+  /**
+   * The number of elements read for each element name.
+   */
+  private final Map<String, Long> elementCounts = new HashMap<String, Long>();
+
+  /**
+   * The time spent in each parser or annotation reader, by class name.
+   */
+  private final Map<String, Long> parserTimes = new HashMap<String, Long>();
+
+  /**
+   * The time spent setting and registering identifiers.
+   */
+  private long idRegistrationTime;
+
+  /**
+   * The number of identifier registrations.
+   */
+  private long idRegistrationCount;
+
+  /**
+   * The time spent in the listeners of the document.
+   */
+  private long listenerTime;
+
+  /**
+   * The number of events given to the listeners of the document.
+   */
+  private long listenerEventCount;
+
+  /**
+   * The number of bytes parsed, -1 if unknown.
+   */
+  private long bytesRead = -1L;
+
+  /**
+   * The time when the reading started.
+   */
+  private long startTime;
+
+  /**
+   * The total reading time.
+   */
+  private long totalTime;
+
+  /**
+   * Creates new empty statistics.
+   */
+  public ReaderStatistics() {
+    super();
+  }
+
+  /**
+   * Starts the collection of the statistics for a read.
+   */
+  void start() {
+    startTime = System.nanoTime();
+  }
+
+  /**
+   * Ends the collection of the statistics for a read.
+   */
+  void stop() {
+    totalTime += System.nanoTime() - startTime;
+  }
+
+  /**
+   * Counts one XML element with the given name.
+   * 
+   * @param elementName
+   */
+  void countElement(String elementName) {
+    Long count = elementCounts.get(elementName);
+    elementCounts.put(elementName, (count == null) ? 1L : count + 1L);
+  }
+
+  /**
+   * Adds the given time to the time spent in the given parser.
+   * 
+   * @param parser a parser or annotation reader.
+   * @param time
+   */
+  void addParserTime(Object parser, long time) {
+    String name = parser.getClass().getSimpleName();
+    Long total = parserTimes.get(name);
+    parserTimes.put(name, (total == null) ? time : total + time);
+  }
+
+  /**
+   * Adds the time spent setting and registering the identifier or meta
+   * identifier of an element.
+   * 
+   * @param time the time spent in nanoseconds.
+   */
+  void addIdRegistrationTime(long time) {
+    idRegistrationTime += time;
+    idRegistrationCount++;
+  }
+
+  /**
+   * Sets the number of bytes parsed.
+   * 
+   * @param bytesRead
+   */
+  void setBytesRead(long bytesRead) {
+    this.bytesRead = bytesRead;
+  }
+
+  /**
+   * Returns a listener giving all the events to the given listener and
+   * measuring the time it takes.
+   * 
+   * @param listener
+   * @return a listener measuring the time spent in {@code listener}.
+   */
+  TreeNodeChangeListener createTimedListener(final TreeNodeChangeListener listener) {
+    return new TreeNodeChangeListener() {
+
+      @Override
+      public void propertyChange(PropertyChangeEvent evt) {
+        long start = System.nanoTime();
+        listener.propertyChange(evt);
+        addListenerTime(System.nanoTime() - start);
+      }
+
+      @Override
+      public void nodeAdded(TreeNode node) {
+        long start = System.nanoTime();
+        listener.nodeAdded(node);
+        addListenerTime(System.nanoTime() - start);
+      }
+
+      @Override
+      public void nodeRemoved(TreeNodeRemovedEvent event) {
+        long start = System.nanoTime();
+        listener.nodeRemoved(event);
+        addListenerTime(System.nanoTime() - start);
+      }
+    };
+  }
+
+  /**
+   * Adds the time spent in the listeners for one event.
+   * 
+   * @param time
+   */
+  private void addListenerTime(long time) {
+    listenerTime += time;
+    listenerEventCount++;
+  }
+
+  /**
+   * Returns the number of XML elements read for each element name.
+   * 
+   * @return the number of XML elements read for each element name, sorted by
+   *         name.
+   */
+  public Map<String, Long> getElementCounts() {
+    return new TreeMap<String, Long>(elementCounts);
+  }
+
+  /**
+   * Returns the number of XML elements read with the given name.
+   * 
+   * @param elementName
+   * @return the number of XML elements read with the given name.
+   */
+  public long getElementCount(String elementName) {
+    Long count = elementCounts.get(elementName);
+    return (count == null) ? 0L : count;
+  }
+
+  /**
+   * Returns the time spent in each parser and annotation reader.
+   * 
+   * @return the time in nanoseconds spent in each parser and annotation
+   *         reader, by simple class name, sorted by name.
+   */
+  public Map<String, Long> getParserTimes() {
+    return new TreeMap<String, Long>(parserTimes);
+  }
+
+  /**
+   * Returns the time spent setting and registering the identifiers and meta
+   * identifiers of the elements read.
+   * 
+   * @return the time in nanoseconds spent registering the identifiers.
+   */
+  public long getIdRegistrationTime() {
+    return idRegistrationTime;
+  }
+
+  /**
+   * Returns the number of identifiers and meta identifiers read.
+   * 
+   * @return the number of identifier registrations.
+   */
+  public long getIdRegistrationCount() {
+    return idRegistrationCount;
+  }
+
+  /**
+   * Returns the time spent in the {@link TreeNodeChangeListener}s of the
+   * document while it was read.
+   * 
+   * @return the time in nanoseconds spent in the listeners.
+   */
+  public long getListenerTime() {
+    return listenerTime;
+  }
+
+  /**
+   * Returns the number of events given to the {@link TreeNodeChangeListener}s
+   * of the document while it was read.
+   * 
+   * @return the number of events given to the listeners.
+   */
+  public long getListenerEventCount() {
+    return listenerEventCount;
+  }
+
+  /**
+   * Returns the number of bytes of XML parsed.
+   * 
+   * @return the number of bytes of XML parsed, or -1 if it is not known,
+   *         when reading from an {@link javax.xml.stream.XMLStreamReader} or
+   *         an {@link javax.xml.stream.XMLEventReader} given to the
+   *         {@link SBMLReader}.
+   */
+  public long getBytesRead() {
+    return bytesRead;
+  }
+
+  /**
+   * Returns the total reading time.
+   * 
+   * @return the total reading time in nanoseconds.
+   */
+  public long getTotalTime() {
+    return totalTime;
+  }
+
+  /**
+   * Returns these statistics as a flat map, for instance to give them to a
+   * metrics system. The keys are {@code total.time}, {@code bytes.read},
+   * {@code id.registration.time}, {@code id.registration.count},
+   * {@code listener.time}, {@code listener.events}, then
+   * {@code parser.<class name>.time} for each parser and
+   * {@code element.<element name>.count} for each element name.
+   * 
+   * @return these statistics as a map of named values.
+   */
+  public Map<String, Long> toMap() {
+    Map<String, Long> map = new LinkedHashMap<String, Long>();
+
+    map.put("total.time", totalTime);
+    map.put("bytes.read", bytesRead);
+    map.put("id.registration.time", idRegistrationTime);
+    map.put("id.registration.count", idRegistrationCount);
+    map.put("listener.time", listenerTime);
+    map.put("listener.events", listenerEventCount);
+
+    for (Map.Entry<String, Long> entry : getParserTimes().entrySet()) {
+      map.put("parser." + entry.getKey() + ".time", entry.getValue());
+    }
+    for (Map.Entry<String, Long> entry : getElementCounts().entrySet()) {
+      map.put("element." + entry.getKey() + ".count", entry.getValue());
+    }
+
+    return map;
+  }
+
+  /* (non-Javadoc)
+   * @see java.lang.Object#toString()
+   */
+  @Override
+  public String toString() {
+    return MessageFormat.format(
+      "{0} [totalTime={1,number,#}, bytesRead={2,number,#}, idRegistrationTime={3,number,#}, listenerTime={4,number,#}, parserTimes={5}, elementCounts={6}]",
+      getClass().getSimpleName(), totalTime, bytesRead, idRegistrationTime,
+      listenerTime, getParserTimes(), getElementCounts());
+  }
+
+}
@@ -0,0 +1,307 @@
+/*
+ * ----------------------------------------------------------------------------
+ * This file is part of JSBML. Please visit <http://sbml.org/Software/JSBML>
+ * for the latest version of JSBML and more information about SBML.
+ * 
+ * Copyright (C) 2009-2018 jointly by the following organizations:
+ * 1. The University of Tuebingen, Germany
+ * 2. EMBL European Bioinformatics Institute (EBML-EBI), Hinxton, UK
+ * 3. The California Institute of Technology, Pasadena, CA, USA
+ * 4. The University of California, San Diego, La Jolla, CA, USA
+ * 5. The Babraham Institute, Cambridge, UK
+ * 
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation. A copy of the license agreement is provided
+ * in the file named "LICENSE.txt" included with this software distribution
+ * and also available online as <http://sbml.org/Software/JSBML/License>.
+ * ----------------------------------------------------------------------------
+ */
+package org.sbml.jsbml.xml.stax;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.sbml.jsbml.SBMLDocument;
+import org.sbml.jsbml.util.SimpleTreeNodeChangeListener;
+import org.sbml.jsbml.util.TreeNodeChangeListener;
+
+/**
+ * Reads an SBML document from chunks of bytes given as they arrive, for
+ * instance by a non-blocking network server, without waiting for the whole
+ * document.
+ * 
+ * <p>The chunks given to {@link #feed(ByteBuffer)} are copied and parsed by an
+ * {@link SBMLReader} running on the given {@link Executor}, which keeps its
+ * reading state between the chunks and waits for the next one when all the
+ * previous ones are parsed. The thread calling {@link #feed(ByteBuffer)} and
+ * {@link #endOfInput()} is never blocked. Once {@link #endOfInput()} is
+ * called, the {@link Future} returned by {@link #getDocument()} completes
+ * with the {@link SBMLDocument}, or with the exception that stopped the
+ * reading. Cancelling the {@link Future} stops the reading.</p>
+ * 
+ * <p>This is a thread-per-upload adapter, not a non-blocking parser: the
+ * {@link SBMLReader} pulls the bytes from a blocking {@link InputStream}, as
+ * Woodstox has no push parser, so a thread of the executor waits for the
+ * next chunk during the whole upload. It only keeps the thread of the caller
+ * from blocking. With a bounded executor, the uploads beyond its size wait
+ * for a free thread.</p>
+ * 
+ * <p>The chunks are consumed while they are parsed, and at most
+ * {@link #getMaxPendingBytes()} bytes are held before being parsed, so that
+ * a waiting upload does not buffer the whole document. Once this limit is
+ * reached, {@link #feed(ByteBuffer)} refuses the chunk, and the caller
+ * should stop reading from the connection and give the chunk again
+ * later.</p>
+ * 
+ * <p>A {@link SBMLChunkReader} reads only one document, and
+ * {@link #feed(ByteBuffer)} and {@link #endOfInput()} must be called by one
+ * thread at a time.</p>
+ * 
+ * @since 1.6
+ */
+public class SBMLChunkReader {
+
+  /**
+   * Marks the end of the input in the {@link #chunks} queue.
+   */
+  private static final ByteBuffer END_OF_INPUT = ByteBuffer.allocate(0);
+
+  /**
+   * The default number of bytes held before being parsed.
+   */
+  public static final int DEFAULT_MAX_PENDING_BYTES = 1 << 20;
+
+  /**
+   * The chunks received and not yet parsed.
+   */
+  private final BlockingQueue<ByteBuffer> chunks = new LinkedBlockingQueue<ByteBuffer>();
+
+  /**
+   * The maximal number of bytes held in the {@link #chunks}.
+   */
+  private final int maxPendingBytes;
+
+  /**
+   * The number of bytes held in the {@link #chunks}.
+   */
+  private final AtomicInteger pendingBytes = new AtomicInteger();
+
+  /**
+   * The reading of the document.
+   */
+  private final FutureTask<SBMLDocument> task;
+
+  /**
+   * Whether {@link #endOfInput()} was called.
+   */
+  private boolean ended;
+
+  /**
+   * Creates a {@link SBMLChunkReader} reading the document with a new
+   * {@link SBMLReader} on the given {@link Executor}.
+   * 
+   * @param executor the {@link Executor} running the reading.
+   */
+  public SBMLChunkReader(Executor executor) {
+    this(new SBMLReader(), executor, new SimpleTreeNodeChangeListener());
+  }
+
+  /**
+   * Creates a {@link SBMLChunkReader} reading the document with the given
+   * {@link SBMLReader} on the given {@link Executor}, holding at most
+   * {@link #DEFAULT_MAX_PENDING_BYTES} bytes before they are parsed. The
+   * reader must not be used by anything else until the reading is complete.
+   * 
+   * @param reader the reader to use, with its options.
+   * @param executor the {@link Executor} running the reading.
+   * @param listener the listener to add to the read {@link SBMLDocument}.
+   */
+  public SBMLChunkReader(SBMLReader reader, Executor executor,
+    TreeNodeChangeListener listener) {
+    this(reader, executor, listener, DEFAULT_MAX_PENDING_BYTES);
+  }
+
+  /**
+   * Creates a {@link SBMLChunkReader} reading the document with the given
+   * {@link SBMLReader} on the given {@link Executor}. The reader must not be
+   * used by anything else until the reading is complete.
+   * 
+   * @param reader the reader to use, with its options.
+   * @param executor the {@link Executor} running the reading.
+   * @param listener the listener to add to the read {@link SBMLDocument}.
+   * @param maxPendingBytes the number of bytes from which
+   *        {@link #feed(ByteBuffer)} refuses the chunks until some are
+   *        parsed.
+   */
+  public SBMLChunkReader(final SBMLReader reader, Executor executor,
+    final TreeNodeChangeListener listener, int maxPendingBytes) {
+    super();
+    if (maxPendingBytes <= 0) {
+      throw new IllegalArgumentException("The maximal number of pending bytes must be positive.");
+    }
+    this.maxPendingBytes = maxPendingBytes;
+    task = new FutureTask<SBMLDocument>(new Callable<SBMLDocument>() {
+
+      @Override
+      public SBMLDocument call() throws Exception {
+        return reader.readSBMLFromStream(new ChunkInputStream(), listener);
+      }
+    });
+    executor.execute(task);
+  }
+
+  /**
+   * Gives the next chunk of the document. The remaining bytes of the buffer
+   * are copied, so the buffer can be reused as soon as this method returns.
+   * Chunks received after the reading failed or was cancelled are ignored.
+   * 
+   * <p>The chunk is refused, and the buffer left unchanged, if it would
+   * make the bytes held before being parsed exceed
+   * {@link #getMaxPendingBytes()}. A chunk is always accepted when no bytes
+   * are held.</p>
+   * 
+   * @param chunk the next bytes of the document.
+   * @return {@code false} if the chunk was refused and must be given again
+   *         later.
+   * @throws IllegalStateException if {@link #endOfInput()} was already
+   *         called.
+   */
+  public boolean feed(ByteBuffer chunk) {
+    if (ended) {
+      throw new IllegalStateException("The end of the input was already reached.");
+    }
+    if (task.isDone() || !chunk.hasRemaining()) {
+      return true;
+    }
+    int pending = pendingBytes.get();
+
+    if ((pending > 0) && (chunk.remaining() > maxPendingBytes - pending)) {
+      return false;
+    }
+    ByteBuffer copy = ByteBuffer.allocate(chunk.remaining());
+    copy.put(chunk);
+    copy.flip();
+    pendingBytes.addAndGet(copy.remaining());
+    chunks.add(copy);
+
+    return true;
+  }
+
+  /**
+   * @return the number of bytes from which {@link #feed(ByteBuffer)}
+   *         refuses the chunks until some are parsed.
+   */
+  public int getMaxPendingBytes() {
+    return maxPendingBytes;
+  }
+
+  /**
+   * @return the number of bytes received and not yet parsed.
+   */
+  public int getPendingBytes() {
+    return pendingBytes.get();
+  }
+
+  /**
+   * Tells this reader that all the chunks of the document were given.
+   */
+  public void endOfInput() {
+    if (!ended) {
+      ended = true;
+      chunks.add(END_OF_INPUT);
+    }
+  }
+
+  /**
+   * Returns the result of the reading.
+   * 
+   * @return a {@link Future} completed with the {@link SBMLDocument} after
+   *         the last chunk is parsed, or with the exception that stopped the
+   *         reading.
+   */
+  public Future<SBMLDocument> getDocument() {
+    return task;
+  }
+
+  /**
+   * The {@link InputStream} read by the {@link SBMLReader}, giving the
+   * content of the chunks in the order they were received and waiting for
+   * the next chunk when needed.
+   * 
+   * @since 1.6
+   */
+  private class ChunkInputStream extends InputStream {
+
+    /**
+     * The chunk being read, {@link #END_OF_INPUT} once all the chunks are
+     * read.
+     */
+    private ByteBuffer current = ByteBuffer.allocate(0);
+
+    /**
+     * Makes sure {@link #current} has remaining bytes, waiting for the next
+     * chunk if needed.
+     * 
+     * @return {@code false} if the end of the input is reached.
+     * @throws IOException if the thread is interrupted while waiting.
+     */
+    private boolean nextChunk() throws IOException {
+      while (!current.hasRemaining()) {
+        if (current == END_OF_INPUT) {
+          return false;
+        }
+        try {
+          current = chunks.take();
+          pendingBytes.addAndGet(-current.remaining());
+        } catch (InterruptedException exc) {
+          Thread.currentThread().interrupt();
+          throw new InterruptedIOException("The reading of the chunks was interrupted.");
+        }
+      }
+      return true;
+    }
+
+    /* (non-Javadoc)
+     * @see java.io.InputStream#read()
+     */
+    @Override
+    public int read() throws IOException {
+      return nextChunk() ? (current.get() & 0xff) : -1;
+    }
+
+    /* (non-Javadoc)
+     * @see java.io.InputStream#read(byte[], int, int)
+     */
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      if (len == 0) {
+        return 0;
+      }
+      if (!nextChunk()) {
+        return -1;
+      }
+      int count = Math.min(len, current.remaining());
+      current.get(b, off, count);
+      return count;
+    }
+
+    /* (non-Javadoc)
+     * @see java.io.InputStream#available()
+     */
+    @Override
+    public int available() {
+      return current.remaining();
+    }
+  }
+
+}
@@ -0,0 +1,61 @@
+/*
+ * ----------------------------------------------------------------------------
+ * This file is part of JSBML. Please visit <http://sbml.org/Software/JSBML>
+ * for the latest version of JSBML and more information about SBML.
+ * 
+ * Copyright (C) 2009-2018 jointly by the following organizations:
+ * 1. The University of Tuebingen, Germany
+ * 2. EMBL European Bioinformatics Institute (EBML-EBI), Hinxton, UK
+ * 3. The California Institute of Technology, Pasadena, CA, USA
+ * 4. The University of California, San Diego, La Jolla, CA, USA
+ * 5. The Babraham Institute, Cambridge, UK
+ * 
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation. A copy of the license agreement is provided
+ * in the file named "LICENSE.txt" included with this software distribution
+ * and also available online as <http://sbml.org/Software/JSBML/License>.
+ * ----------------------------------------------------------------------------
+ */
+package org.sbml.jsbml.xml.stax;
+
+import java.util.EventListener;
+
+import org.sbml.jsbml.ListOf;
+import org.sbml.jsbml.Model;
+import org.sbml.jsbml.SBase;
+
+/**
+ * Receives the top-level elements of a {@link Model} while an SBML document is
+ * still being read, as soon as the end tag of each element has been processed.
+ * 
+ * <p>Top-level elements are the direct children of any {@link ListOf} that
+ * belongs to the {@link Model}, including the lists contributed by package
+ * plugins (for example each {@link org.sbml.jsbml.Species},
+ * {@link org.sbml.jsbml.Reaction}, {@link org.sbml.jsbml.Rule} or fbc gene
+ * product). When a visited element is discarded, it is removed from its
+ * {@link ListOf} straight away so that it can be garbage collected before the
+ * rest of the document is read, which keeps the peak heap of one pass
+ * extraction jobs close to the size of the largest single element.</p>
+ * 
+ * <p>Discarded elements are not available any more when the parsers process
+ * the end of the document, so any cross reference checks done at that point
+ * will only see the elements that were kept.</p>
+ * 
+ * @see SBMLReader#readSBMLStreaming(java.io.InputStream, SBMLElementVisitor)
+ * @since 1.6
+ */
+public interface SBMLElementVisitor extends EventListener {
+
+  /**
+   * Called once for each fully read top-level element of the {@link Model}.
+   * 
+   * @param sbase
+   *        the element that was just read, still attached to its
+   *        {@link ListOf}.
+   * @return {@code true} to keep the element in the {@link Model},
+   *         {@code false} to discard it.
+   */
+  public boolean visit(SBase sbase);
+
+}
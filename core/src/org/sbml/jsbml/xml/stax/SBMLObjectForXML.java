@@ -73,6 +73,21 @@ public class SBMLObjectForXML {
     prefix = null;
   }
 
+  /**
+   * Sets all the variable of this object to {@code null}, except the
+   * attributes that are only removed, so that this object can be used again
+   * without creating a new {@link Map}.
+   */
+  void reset() {
+    if (attributes != null) {
+      attributes.clear();
+    }
+    characters = null;
+    name = null;
+    namespace = null;
+    prefix = null;
+  }
+
   /**
    * @return the attributes
    */
@@ -20,24 +20,39 @@
 package org.sbml.jsbml.xml.stax;
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.UnsupportedEncodingException;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.text.MessageFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
 import java.util.Stack;
 
+import javax.swing.tree.TreeNode;
+import javax.xml.XMLConstants;
 import javax.xml.namespace.QName;
 import javax.xml.stream.XMLEventReader;
 import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamConstants;
 import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
 import javax.xml.stream.events.Attribute;
 import javax.xml.stream.events.Characters;
 import javax.xml.stream.events.EndDocument;
@@ -47,27 +62,41 @@ import javax.xml.stream.events.StartElement;
 import javax.xml.stream.events.XMLEvent;
 
 import org.apache.log4j.Logger;
+import org.codehaus.stax2.XMLStreamReader2;
+import org.codehaus.stax2.XMLStreamWriter2;
+import org.codehaus.stax2.util.StreamReader2Delegate;
 import org.sbml.jsbml.ASTNode;
 import org.sbml.jsbml.ASTNode.Type;
+import org.sbml.jsbml.AbstractMathContainer;
+import org.sbml.jsbml.AbstractSBase;
 import org.sbml.jsbml.AbstractTreeNode;
 import org.sbml.jsbml.Annotation;
 import org.sbml.jsbml.Constraint;
 import org.sbml.jsbml.JSBML;
+import org.sbml.jsbml.ListOf;
 import org.sbml.jsbml.MathContainer;
+import org.sbml.jsbml.Model;
+import org.sbml.jsbml.Rule;
 import org.sbml.jsbml.SBMLDocument;
 import org.sbml.jsbml.SBMLException;
 import org.sbml.jsbml.SBase;
 import org.sbml.jsbml.Species;
+import org.sbml.jsbml.util.CompressionTools;
 import org.sbml.jsbml.util.SimpleTreeNodeChangeListener;
+import org.sbml.jsbml.util.StringPool;
 import org.sbml.jsbml.util.StringTools;
 import org.sbml.jsbml.util.TreeNodeChangeListener;
 import org.sbml.jsbml.util.TreeNodeWithChangeSupport;
 import org.sbml.jsbml.util.filters.Filter;
 import org.sbml.jsbml.validator.offline.constraints.SBMLDocumentConstraints;
+import org.sbml.jsbml.xml.XMLAttributes;
+import org.sbml.jsbml.xml.XMLNamespaces;
 import org.sbml.jsbml.xml.XMLNode;
+import org.sbml.jsbml.xml.XMLTriple;
 import org.sbml.jsbml.xml.parsers.AbstractReaderWriter;
 import org.sbml.jsbml.xml.parsers.AnnotationReader;
 import org.sbml.jsbml.xml.parsers.MathMLStaxParser;
+import org.sbml.jsbml.xml.parsers.PackageParser;
 import org.sbml.jsbml.xml.parsers.ParserManager;
 import org.sbml.jsbml.xml.parsers.ReadingParser;
 import org.sbml.jsbml.xml.parsers.SBMLCoreParser;
@@ -75,13 +104,15 @@ import org.sbml.jsbml.xml.parsers.XMLNodeReader;
 
 import com.ctc.wstx.api.WstxInputProperties;
 import com.ctc.wstx.stax.WstxInputFactory;
+import com.ctc.wstx.stax.WstxOutputFactory;
 
 
 /**
  * Provides all the methods to read a SBML file.
  * 
  * <p>Warning: This class is not thread safe, so if using several thread to process SBML files in parallel
- * you should make sure to use new instances of SBMLReader in each thread.</p> 
+ * you should make sure to use new instances of SBMLReader in each thread, or use
+ * {@link org.sbml.jsbml.ConcurrentSBMLReader} that keeps one initialized instance per thread.</p> 
  *
  * @author Marine Dumousseau
  * @author Andreas Dr&auml;ger
@@ -129,17 +160,563 @@ public class SBMLReader {
    */
   private MathContainer astNodeParent;
 
+  /**
+   * The parent of the notes, annotation or math we are parsing through the
+   * {@link #readNotesOrAnnotation(String, SBase)} or
+   * {@link #readUnparsedMath(String, MathContainer)} methods.
+   */
+  private SBase fragmentParent;
+
+  /**
+   * Whether the notes and annotations are kept as unparsed XML until they
+   * are needed.
+   */
+  private boolean lazyNotesAndAnnotation;
+
+  /**
+   * Whether the MathML of the {@link MathContainer}s is kept as unparsed XML
+   * until it is needed.
+   */
+  private boolean lazyMath;
+
+  /**
+   * The namespace URIs of the XML elements that are skipped while reading.
+   */
+  private Set<String> skippedNamespaces = new HashSet<String>();
+
+  /**
+   * The names of the XML elements that are skipped while reading.
+   */
+  private Set<String> skippedElements = new HashSet<String>();
+
+  /**
+   * Whether the skipped XML elements are kept as {@link XMLNode}s to be
+   * written back.
+   */
+  private boolean keepSkippedElements;
+
+  /**
+   * Whether the XML text of the documents read is kept in a
+   * {@link SourceCache}.
+   */
+  private boolean keepSource;
+
+  /**
+   * Whether the identifiers and the references to them, the namespace URIs
+   * and the MathML identifiers read are shared through a {@link StringPool}.
+   */
+  private boolean stringPooling;
+
+  /**
+   * The size, in bytes, from which the files read with
+   * {@link #readSBML(Path, TreeNodeChangeListener)} are mapped in memory.
+   */
+  private long minMappedFileSize = DEFAULT_MIN_MAPPED_FILE_SIZE;
+
+  /**
+   * The {@link StringPool} shared by all the documents read, {@code null} to
+   * use a new pool for each document.
+   */
+  private StringPool sharedStringPool;
+
+  /**
+   * The {@link StringPool} used for the document being read, or for the last
+   * document read, {@code null} if the strings were not pooled.
+   */
+  private StringPool stringPool;
 
   /**
-   * Initialize a static instance of the core parser.
+   * Whether {@link ReaderStatistics} are collected for each document read.
    */
-  private static SBMLCoreParser sbmlCoreParser = new SBMLCoreParser();
+  private boolean collectingStatistics;
+
+  /**
+   * The statistics of the document being read, or of the last document read,
+   * {@code null} if they are not collected.
+   */
+  private ReaderStatistics statistics;
+
+  /**
+   * The visitor receiving the top-level elements of the model while the
+   * document is read, {@code null} if the whole document should be kept.
+   */
+  private SBMLElementVisitor elementVisitor;
+
+  /**
+   * Notified when the end of the document is reached, {@code null} for a
+   * normal reading. Used by {@link ParallelSBMLReader}.
+   */
+  private EndOfDocumentHandler endOfDocumentHandler;
+
+
+  /**
+   * The core parser used when reading notes, message or annotation fragments.
+   */
+  private SBMLCoreParser sbmlCoreParser = new SBMLCoreParser();
+
+  /**
+   * The factory creating the XML readers, {@code null} until the first read
+   * if none was given to the constructor.
+   */
+  private XMLInputFactory inputFactory;
+
+  /**
+   * The factory creating the XML writers used to capture the unparsed notes
+   * and annotations, {@code null} until first needed.
+   */
+  private XMLOutputFactory outputFactory;
 
   /**
    * A {@link Logger} for this class.
    */
   private static final transient Logger logger = Logger.getLogger(SBMLReader.class);
 
+  /**
+   * The default size, in bytes, from which
+   * {@link #readSBML(Path, TreeNodeChangeListener)} maps the file in memory.
+   * Below about 10 MB, reading through a stream is as fast or faster.
+   */
+  public static final long DEFAULT_MIN_MAPPED_FILE_SIZE = 16L * 1024 * 1024;
+
+  /**
+   * The names of the attributes referring to an identifier that are pooled,
+   * besides {@code id} and the names ending with {@code Ref} or
+   * {@code Units}, see {@link #isPooledAttribute(String)}.
+   */
+  private static final Set<String> POOLED_ATTRIBUTES = new HashSet<String>(Arrays.asList(
+    "compartment", "species", "reaction", "variable", "symbol", "units",
+    "outside", "speciesType", "compartmentType", "conversionFactor",
+    "geneProduct", "qualitativeSpecies"));
+
+  /**
+   * Creates a new {@link SBMLReader} that creates its own
+   * {@link XMLInputFactory} on the first read.
+   */
+  public SBMLReader() {
+    this(null);
+  }
+
+  /**
+   * Creates a new {@link SBMLReader} using the given factory to create the
+   * XML readers.
+   *
+   * <p>A configured {@link XMLInputFactory} is thread safe and can be shared
+   * between {@link SBMLReader} instances used in different threads, which
+   * avoids configuring a new factory, and rebuilding its internal symbol
+   * tables, for each document.</p>
+   *
+   * @param inputFactory the factory to use or {@code null} to create one
+   * with {@link #createInputFactory()}.
+   */
+  public SBMLReader(XMLInputFactory inputFactory) {
+    super();
+    this.inputFactory = inputFactory;
+  }
+
+  /**
+   * Creates a new {@link XMLInputFactory} configured as needed to read SBML,
+   * with DTD and external entity support turned off.
+   *
+   * @return a new configured {@link XMLInputFactory}.
+   */
+  public static XMLInputFactory createInputFactory() {
+    WstxInputFactory inputFactory = new WstxInputFactory();
+
+    try {
+      // see https://groups.google.com/d/msg/jsbml-development/cckEJPYNzQY/5ynmIbqNCAAJ for why we did set this value
+      inputFactory.setProperty(WstxInputProperties.P_MAX_ELEMENT_DEPTH, 5000);
+
+      // see https://github.com/OWASP/CheatSheetSeries/blob/master/cheatsheets/XML_External_Entity_Prevention_Cheat_Sheet.md
+      inputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+      inputFactory.setProperty("javax.xml.stream.isSupportingExternalEntities", false);
+    } catch(IllegalArgumentException e) {
+      // do nothing - the XML libraries used do not support this property for some reason
+    }
+
+    return inputFactory;
+  }
+
+  /**
+   * Returns the {@link XMLInputFactory} of this reader, creating it if needed.
+   *
+   * @return the {@link XMLInputFactory} of this reader.
+   */
+  private XMLInputFactory getInputFactory() {
+    if (inputFactory == null) {
+      inputFactory = createInputFactory();
+    }
+    return inputFactory;
+  }
+
+  /**
+   * Returns the {@link XMLOutputFactory} of this reader, creating it if needed.
+   *
+   * @return the {@link XMLOutputFactory} of this reader.
+   */
+  private XMLOutputFactory getOutputFactory() {
+    if (outputFactory == null) {
+      outputFactory = new WstxOutputFactory();
+    }
+    return outputFactory;
+  }
+
+  /**
+   * Returns {@code true} if the notes and annotations are kept as unparsed
+   * XML until they are needed.
+   *
+   * @return {@code true} if the notes and annotations are parsed lazily.
+   * @see #setLazyNotesAndAnnotation(boolean)
+   */
+  public boolean isLazyNotesAndAnnotation() {
+    return lazyNotesAndAnnotation;
+  }
+
+  /**
+   * Sets whether the notes and annotations should be kept as unparsed XML
+   * until they are needed.
+   *
+   * <p>When enabled, the {@code notes} and {@code annotation} elements of
+   * each {@link SBase} are not parsed while reading the document, but stored
+   * as XML {@link String}s with {@link AbstractSBase#setUnparsedNotes(String)}
+   * and {@link AbstractSBase#setUnparsedAnnotation(String)}. They are parsed
+   * the first time {@link SBase#getNotes()}, {@link SBase#getAnnotation()},
+   * {@link SBase#getCVTerms()} or any other method needing them is called,
+   * and are written back unchanged by the {@link SBMLWriter} if that never
+   * happens. Until they are parsed, they are not children of their
+   * {@link SBase} in the tree.</p>
+   *
+   * <p>The annotation of the {@link Model} is always parsed, as it can
+   * contain the SBML Level 2 layout, and this option is only used when
+   * reading with the cursor API, i.e., not by
+   * {@link #readSBML(XMLEventReader)}.</p>
+   *
+   * @param lazyNotesAndAnnotation {@code true} to parse the notes and
+   * annotations lazily.
+   */
+  public void setLazyNotesAndAnnotation(boolean lazyNotesAndAnnotation) {
+    this.lazyNotesAndAnnotation = lazyNotesAndAnnotation;
+  }
+
+  /**
+   * Returns {@code true} if the MathML of the {@link MathContainer}s is kept
+   * as unparsed XML until it is needed.
+   *
+   * @return {@code true} if the MathML is parsed lazily.
+   * @see #setLazyMath(boolean)
+   */
+  public boolean isLazyMath() {
+    return lazyMath;
+  }
+
+  /**
+   * Sets whether the MathML of the {@link MathContainer}s should be kept as
+   * unparsed XML until it is needed.
+   *
+   * <p>When enabled, the {@code math} elements are not parsed into
+   * {@link ASTNode}s while reading the document, but stored as XML
+   * {@link String}s with {@link AbstractMathContainer#setUnparsedMath(String)}.
+   * They are parsed the first time {@link MathContainer#getMath()} or any
+   * other method needing the {@link ASTNode} is called, and are written back
+   * unchanged by the {@link SBMLWriter} if that never happens. Until it is
+   * parsed, the math is not a child of its {@link MathContainer} in the
+   * tree.</p>
+   *
+   * <p>As for {@link #setLazyNotesAndAnnotation(boolean)}, this option is
+   * only used when reading with the cursor API.</p>
+   *
+   * @param lazyMath {@code true} to parse the MathML lazily.
+   */
+  public void setLazyMath(boolean lazyMath) {
+    this.lazyMath = lazyMath;
+  }
+
+  /**
+   * Tells this reader to skip all the XML elements of the given SBML package,
+   * with their content, without creating any object for them.
+   *
+   * <p>Only the elements are skipped, the attributes of the package found on
+   * other elements are still read. The content of the annotations is never
+   * skipped, so the SBML Level 2 layout is not affected.</p>
+   *
+   * @param packageNameOrURI the name of a package known by JSBML, like
+   * {@code layout}, in which case all the namespaces of the package are
+   * skipped, or the namespace URI of the elements to skip.
+   * @see #addSkippedElement(String)
+   * @see #setKeepSkippedElements(boolean)
+   */
+  public void addSkippedPackage(String packageNameOrURI) {
+    PackageParser packageParser = ParserManager.getManager().getPackageParser(packageNameOrURI);
+
+    if (packageParser != null) {
+      skippedNamespaces.addAll(packageParser.getPackageNamespaces());
+    } else {
+      skippedNamespaces.add(packageNameOrURI);
+    }
+  }
+
+  /**
+   * Tells this reader to skip all the XML elements with the given name, with
+   * their content, without creating any object for them, for example
+   * {@code listOfEvents} or {@code notes}.
+   *
+   * <p>The elements are skipped in any namespace, except inside the
+   * annotations, the notes and the MathML.</p>
+   *
+   * @param elementName the local name of the elements to skip.
+   * @see #addSkippedPackage(String)
+   * @see #setKeepSkippedElements(boolean)
+   */
+  public void addSkippedElement(String elementName) {
+    skippedElements.add(elementName);
+  }
+
+  /**
+   * Returns {@code true} if the skipped XML elements are kept as
+   * {@link XMLNode}s.
+   *
+   * @return {@code true} if the skipped XML elements are kept as
+   * {@link XMLNode}s.
+   * @see #setKeepSkippedElements(boolean)
+   */
+  public boolean isKeepSkippedElements() {
+    return keepSkippedElements;
+  }
+
+  /**
+   * Sets whether the XML elements skipped because of
+   * {@link #addSkippedPackage(String)} or {@link #addSkippedElement(String)}
+   * should be kept as opaque {@link XMLNode}s, so that the {@link SBMLWriter}
+   * writes them back.
+   *
+   * <p>The {@link XMLNode}s are stored as children of an {@link XMLNode} put
+   * in the user objects of their parent {@link SBase} with the key
+   * {@link JSBML#SKIPPED_XML}. They are written back after the other child
+   * elements of their parent, except the {@code notes} and {@code annotation}
+   * that are written first.</p>
+   *
+   * <p>As the lazy reading options, the skip options are only used when
+   * reading with the cursor API.</p>
+   *
+   * @param keepSkippedElements {@code true} to keep the skipped XML elements.
+   */
+  public void setKeepSkippedElements(boolean keepSkippedElements) {
+    this.keepSkippedElements = keepSkippedElements;
+  }
+
+  /**
+   * Returns {@code true} if the XML text of the documents read is kept.
+   *
+   * @return {@code true} if the XML text of the documents read is kept.
+   * @see #setKeepSource(boolean)
+   */
+  public boolean isKeepSource() {
+    return keepSource;
+  }
+
+  /**
+   * Sets whether the XML text of the documents read should be kept, with the
+   * range of the text of each {@link SBase} element, in a
+   * {@link SourceCache} put in the user objects of the
+   * {@link SBMLDocument}. The {@link SBMLWriter} then copies the text of the
+   * elements that did not change since they were read, instead of writing
+   * them again, see {@link SBMLWriter#setReuseSource(boolean)}.
+   *
+   * <p>The whole text of the document is kept in memory as long as the
+   * document is. It is only kept for the documents read from a file, a
+   * stream or a {@link String}, and not when reading in streaming mode with
+   * an {@link SBMLElementVisitor}. An element containing skipped XML
+   * elements is always written again.</p>
+   *
+   * @param keepSource {@code true} to keep the XML text of the documents
+   *        read.
+   */
+  public void setKeepSource(boolean keepSource) {
+    this.keepSource = keepSource;
+  }
+
+  /**
+   * Returns the size, in bytes, from which the files read with
+   * {@link #readSBML(Path, TreeNodeChangeListener)} are mapped in memory.
+   *
+   * @return the size from which the files are mapped in memory.
+   */
+  public long getMinMappedFileSize() {
+    return minMappedFileSize;
+  }
+
+  /**
+   * Sets the size, in bytes, from which the files read with
+   * {@link #readSBML(Path, TreeNodeChangeListener)} are mapped in memory,
+   * {@link #DEFAULT_MIN_MAPPED_FILE_SIZE} by default. Smaller files are read
+   * through a stream.
+   *
+   * @param minMappedFileSize the size from which the files are mapped in
+   *        memory, {@code 0} to map all the files.
+   */
+  public void setMinMappedFileSize(long minMappedFileSize) {
+    this.minMappedFileSize = minMappedFileSize;
+  }
+
+  /**
+   * Returns {@code true} if the strings read are shared through a
+   * {@link StringPool}.
+   *
+   * @return {@code true} if the strings read are pooled.
+   * @see #setStringPooling(boolean)
+   */
+  public boolean isStringPooling() {
+    return stringPooling;
+  }
+
+  /**
+   * Sets whether the strings read should be shared through a
+   * {@link StringPool}.
+   *
+   * <p>Large models repeat the same identifiers many times, for instance the
+   * compartment of each {@link Species} or the species of each species
+   * reference and MathML {@code ci} element. When enabled, the identifiers
+   * and the attributes referring to them, the namespace URIs and the MathML
+   * identifiers of a document are replaced by one shared instance of each
+   * distinct value, which reduces the memory needed to keep the document.
+   * The other attribute values, like numbers or names, are rarely repeated
+   * and are not pooled.</p>
+   *
+   * <p>By default, a new pool is used for each document, see
+   * {@link #setSharedStringPool(StringPool)} to share the values between
+   * documents. The pool used for the last document read is returned by
+   * {@link #getStringPool()} and tells how much was saved.</p>
+   *
+   * @param stringPooling {@code true} to pool the strings read.
+   */
+  public void setStringPooling(boolean stringPooling) {
+    this.stringPooling = stringPooling;
+  }
+
+  /**
+   * Returns the {@link StringPool} shared by all the documents read, if any.
+   *
+   * @return the shared {@link StringPool} or {@code null} if a new pool is
+   * used for each document.
+   */
+  public StringPool getSharedStringPool() {
+    return sharedStringPool;
+  }
+
+  /**
+   * Sets the {@link StringPool} to use for all the documents read by this
+   * reader, and possibly by other readers, when
+   * {@link #setStringPooling(boolean) string pooling} is enabled.
+   *
+   * @param sharedStringPool the pool to share, or {@code null} to use a new
+   * pool for each document.
+   */
+  public void setSharedStringPool(StringPool sharedStringPool) {
+    this.sharedStringPool = sharedStringPool;
+  }
+
+  /**
+   * Returns the {@link StringPool} used for the last document read.
+   *
+   * @return the {@link StringPool} used for the last document read, or
+   * {@code null} if the strings were not pooled.
+   */
+  public StringPool getStringPool() {
+    return stringPool;
+  }
+
+  /**
+   * Returns {@code true} if {@link ReaderStatistics} are collected for each
+   * document read.
+   *
+   * @return {@code true} if statistics are collected.
+   * @see #setCollectingStatistics(boolean)
+   */
+  public boolean isCollectingStatistics() {
+    return collectingStatistics;
+  }
+
+  /**
+   * Sets whether {@link ReaderStatistics} should be collected for each
+   * document read.
+   *
+   * <p>When enabled, the reader counts the XML elements read and measures the
+   * time spent in each parser and annotation reader, in setting the
+   * identifiers and in the {@link TreeNodeChangeListener}s of the
+   * document. The statistics of the last document read are returned by
+   * {@link #getStatistics()}. Collecting the statistics slows down the
+   * reading a little, so it is disabled by default.</p>
+   *
+   * @param collectingStatistics {@code true} to collect statistics.
+   */
+  public void setCollectingStatistics(boolean collectingStatistics) {
+    this.collectingStatistics = collectingStatistics;
+  }
+
+  /**
+   * Returns the statistics collected while reading the last document.
+   *
+   * @return the {@link ReaderStatistics} of the last document read, or
+   * {@code null} if they were not collected.
+   * @see #setCollectingStatistics(boolean)
+   */
+  public ReaderStatistics getStatistics() {
+    return statistics;
+  }
+
+  /**
+   * Returns the current time if statistics are collected.
+   *
+   * @return the current time in nanoseconds, or 0 if no statistics are
+   * collected.
+   */
+  private long startTiming() {
+    return (statistics != null) ? System.nanoTime() : 0L;
+  }
+
+  /**
+   * Adds the time elapsed since {@code startTime} to the time spent in the
+   * given parser, if statistics are collected.
+   *
+   * @param parser a {@link ReadingParser} or an {@link AnnotationReader}.
+   * @param startTime the value returned by {@link #startTiming()}.
+   */
+  private void stopTiming(Object parser, long startTime) {
+    if (statistics != null) {
+      statistics.addParserTime(parser, System.nanoTime() - startTime);
+    }
+  }
+
+  /**
+   * Creates the {@link ReaderStatistics} of the document about to be read, if
+   * they are collected, and starts collecting them.
+   */
+  private void initializeStatistics() {
+    statistics = null;
+
+    if (collectingStatistics) {
+      statistics = new ReaderStatistics();
+      statistics.start();
+    }
+  }
+
+  /**
+   * Selects the {@link StringPool} to use for the document about to be read
+   * and gives it to the {@link MathMLStaxParser}.
+   */
+  private void initializeStringPool() {
+    stringPool = null;
+
+    if (stringPooling) {
+      stringPool = (sharedStringPool != null) ? sharedStringPool : new StringPool();
+    }
+
+    ReadingParser mathMLParser = initializedParsers.get(ASTNode.URI_MATHML_DEFINITION);
+
+    if (mathMLParser instanceof MathMLStaxParser) {
+      ((MathMLStaxParser) mathMLParser).setStringPool(stringPool);
+    }
+  }
+
   /**
    * Creates the ReadingParser instances and stores them in a
    * HashMap.
@@ -165,13 +742,10 @@ public class SBMLReader {
    * Associates any unknown namespaces with the {@link AnnotationReader}.
    * @param startElement
    */
-  private void addAnnotationParsers(StartElement startElement)
+  private void addAnnotationParsers(StartElementData startElement)
   {
-    @SuppressWarnings("unchecked")
-    Iterator<Namespace> namespacesIterator = startElement.getNamespaces();
-
-    while (namespacesIterator.hasNext()) {
-      String namespaceURI = namespacesIterator.next().getNamespaceURI();
+    for (int i = 0; i < startElement.getNamespaceCount(); i++) {
+      String namespaceURI = startElement.getNamespaceURI(i);
 
       if (initializedParsers.get(namespaceURI) == null) {
         initializedParsers.put(namespaceURI, initializedParsers.get("anyXML"));
@@ -291,6 +865,10 @@ public class SBMLReader {
   /**
    * Reads a SBML String from the given file.
    *
+   * <p>The file can be compressed with gzip or be a zip archive, see
+   * {@link CompressionTools#decompress(InputStream)}, it is then decompressed
+   * while it is read.</p>
+   *
    * @param file
    *            A file containing SBML content.
    * @param listener
@@ -299,22 +877,87 @@ public class SBMLReader {
    * @throws XMLStreamException
    */
   public SBMLDocument readSBML(File file, TreeNodeChangeListener listener) throws IOException, XMLStreamException {
-    FileInputStream stream = new FileInputStream(file);
-    XMLStreamException exc1 = null;
-    Object readObject = null;
-    try {
-      readObject = readXMLFromStream(stream, listener);
-    } catch (XMLStreamException exc) {
-      /*
-       * Catching this exception makes sure that we have still the chance to
-       * close the stream. Otherwise it will stay opened although the execution
-       * of this method is over.
-       */
-      exc1 = exc;
-    } finally {
-      try {
-        stream.close();
-      } catch (IOException exc2) {
+    return readSBMLFromFileStream(new FileInputStream(file), file.toURI().toString(),
+      (file.getPath() == null) ? "null" : file.getAbsolutePath(), listener);
+  }
+
+  /**
+   *
+   * @param path
+   * @return
+   * @throws XMLStreamException
+   * @throws IOException
+   * @see #readSBML(Path, TreeNodeChangeListener)
+   */
+  public SBMLDocument readSBML(Path path) throws IOException, XMLStreamException {
+    return readSBML(path, null);
+  }
+
+  /**
+   * Reads a SBML document from the given file, mapped in memory if it is
+   * larger than {@link #getMinMappedFileSize()}.
+   *
+   * <p>The parser reads the content of the file directly from the mapped
+   * memory, which avoids the system calls and the copies done when reading
+   * through a {@link FileInputStream} and is faster for large files. Smaller
+   * files are read through a stream, as mapping them costs more than it
+   * saves. UTF-8 content is decoded by the parser from the mapped bytes,
+   * without going through a {@link java.io.Reader}. A file compressed with
+   * gzip or a zip archive is decompressed while it is read, as in
+   * {@link #readSBML(File, TreeNodeChangeListener)}.</p>
+   *
+   * @param path
+   *            A file containing SBML content.
+   * @param listener
+   * @return the matching SBMLDocument instance.
+   * @throws IOException
+   * @throws XMLStreamException
+   */
+  public SBMLDocument readSBML(Path path, TreeNodeChangeListener listener) throws IOException, XMLStreamException {
+    InputStream fileStream = (Files.size(path) >= minMappedFileSize)
+        ? new MappedFileInputStream(path) : Files.newInputStream(path);
+    return readSBMLFromFileStream(fileStream, path.toUri().toString(),
+      path.toAbsolutePath().toString(), listener);
+  }
+
+  /**
+   * Reads a SBML document from the given stream of a file, and closes it.
+   *
+   * @param fileStream
+   *            the stream of the file.
+   * @param locationURI
+   *            the URI of the file, set as location of the document.
+   * @param fileName
+   *            the name of the file, used in the error message.
+   * @param listener
+   * @return the matching SBMLDocument instance.
+   * @throws IOException
+   * @throws XMLStreamException
+   */
+  private SBMLDocument readSBMLFromFileStream(InputStream fileStream, String locationURI,
+    String fileName, TreeNodeChangeListener listener) throws IOException, XMLStreamException {
+    InputStream stream;
+    try {
+      stream = CompressionTools.decompress(fileStream);
+    } catch (IOException exc) {
+      fileStream.close();
+      throw exc;
+    }
+    XMLStreamException exc1 = null;
+    Object readObject = null;
+    try {
+      readObject = readXMLFromStream(stream, listener);
+    } catch (XMLStreamException exc) {
+      /*
+       * Catching this exception makes sure that we have still the chance to
+       * close the stream. Otherwise it will stay opened although the execution
+       * of this method is over.
+       */
+      exc1 = exc;
+    } finally {
+      try {
+        stream.close();
+      } catch (IOException exc2) {
         // Ok, we lost. No chance to really close this stream. Heavy error.
         if (exc1 != null) {
           exc2.initCause(exc1);
@@ -327,13 +970,37 @@ public class SBMLReader {
       }
     }
     if (readObject instanceof SBMLDocument) {
-      ((SBMLDocument) readObject).setLocationURI(file.toURI().toString());
+      ((SBMLDocument) readObject).setLocationURI(locationURI);
 
       return (SBMLDocument) readObject;
     }
     throw new XMLStreamException(MessageFormat.format(
       "JSBML could not properly read file {0}. Please check if it contains valid SBML. If you think it is valid, please submit a bug report to the bug tracker of JSBML.",
-      (file.getPath() == null) ? "null" : file.getAbsolutePath()));
+      fileName));
+  }
+
+  /**
+   * Reads a SBML document from the given file in streaming mode, giving each
+   * top-level element of the model to the {@code visitor} as soon as it is
+   * read.
+   *
+   * @param file
+   *            A file containing SBML content.
+   * @param visitor
+   *            the {@link SBMLElementVisitor} deciding which elements are
+   *            kept in the returned document.
+   * @return the matching SBMLDocument instance, without the discarded elements.
+   * @throws IOException
+   * @throws XMLStreamException
+   * @see SBMLElementVisitor
+   */
+  public SBMLDocument readSBMLStreaming(File file, SBMLElementVisitor visitor) throws IOException, XMLStreamException {
+    elementVisitor = visitor;
+    try {
+      return readSBML(file, null);
+    } finally {
+      elementVisitor = null;
+    }
   }
 
   /**
@@ -389,6 +1056,20 @@ public class SBMLReader {
     return readSBML(xmlEventReader, new SimpleTreeNodeChangeListener());
   }
 
+  /**
+   * Reads an {@link SBMLDocument} from the given {@link XMLStreamReader2}, using
+   * its cursor API instead of building an {@link XMLEvent} for each token.
+   *
+   * @param xmlStreamReader
+   * @param listener
+   * @return the read {@link SBMLDocument}.
+   * @throws XMLStreamException
+   */
+  public SBMLDocument readSBML(XMLStreamReader2 xmlStreamReader, TreeNodeChangeListener listener)
+      throws XMLStreamException {
+    return (SBMLDocument) readXMLFromXMLStreamReader(xmlStreamReader, listener);
+  }
+
   /**
    * Reads a mathML String into an {@link ASTNode}.
    *
@@ -429,7 +1110,7 @@ public class SBMLReader {
       public boolean accepts(Object o) {
         if (o instanceof TreeNodeWithChangeSupport) {
           if (((TreeNodeWithChangeSupport) o).isSetUserObjects()) {
-            ((TreeNodeWithChangeSupport) o).userObjectKeySet().remove(JSBML.READING_IN_PROGRESS);
+            ((TreeNodeWithChangeSupport) o).removeUserObject(JSBML.READING_IN_PROGRESS);
           } // else if (! ((o instanceof TreeNodeAdapter) || (o instanceof XMLNode))) {
           //	            System.out.println("######### user objects not set !!!!!!!! " + o + " class name = " + o.getClass().getSimpleName());
           //	          }
@@ -536,9 +1217,159 @@ public class SBMLReader {
     return readNotes(notesXHTML, new SimpleTreeNodeChangeListener());
   }
 
+  /**
+   * Reads a {@code notes} or {@code annotation} XML {@link String} and sets
+   * the result on the given {@link SBase}, as if it had been read with the
+   * rest of the document, including the parsing of the RDF annotation.
+   *
+   * <p>The namespaces declared on the given {@link SBase} and its ancestors
+   * can be used in the XML without being declared again.</p>
+   *
+   * @param notesOrAnnotationXML a complete {@code notes} or
+   * {@code annotation} element.
+   * @param parent the {@link SBase} owning the notes or annotation.
+   * @throws XMLStreamException if the XML is not valid.
+   * @see #setLazyNotesAndAnnotation(boolean)
+   */
+  public void readNotesOrAnnotation(String notesOrAnnotationXML, SBase parent)
+      throws XMLStreamException {
+
+    readFragment(notesOrAnnotationXML, parent);
+
+    // the unparsed notes or annotation are tested first so that they are not parsed here
+    if (!((parent instanceof AbstractSBase) && (((AbstractSBase) parent).getUnparsedNotes() != null))
+        && parent.isSetNotes()) {
+      cleanTreeNode(parent.getNotes());
+    }
+    if (!((parent instanceof AbstractSBase) && (((AbstractSBase) parent).getUnparsedAnnotation() != null))
+        && parent.isSetAnnotation()) {
+      cleanTreeNode(parent.getAnnotation());
+    }
+  }
+
+  /**
+   * Reads a {@code math} XML {@link String} and sets the resulting
+   * {@link ASTNode} on the given {@link MathContainer}, as if it had been
+   * read with the rest of the document.
+   *
+   * <p>The namespaces declared on the given {@link MathContainer} and its
+   * ancestors can be used in the XML without being declared again.</p>
+   *
+   * @param mathML a complete {@code math} element.
+   * @param parent the {@link MathContainer} owning the math.
+   * @throws XMLStreamException if the XML is not valid.
+   * @see #setLazyMath(boolean)
+   */
+  public void readUnparsedMath(String mathML, MathContainer parent)
+      throws XMLStreamException {
+
+    Object mathCount = parent.isSetUserObjects() ? parent.getUserObject(MathMLStaxParser.JSBML_MATH_COUNT) : null;
+
+    try {
+      readFragment(mathML, parent);
+    } finally {
+      // the math element was already counted when the XML was read with the rest of the document
+      if (mathCount != null) {
+        parent.putUserObject(MathMLStaxParser.JSBML_MATH_COUNT, mathCount);
+      }
+    }
+
+    if ((parent instanceof AbstractMathContainer) && (((AbstractMathContainer) parent).getUnparsedMath() == null)
+        && parent.isSetMath()) {
+      cleanTreeNode(parent.getMath());
+    }
+  }
+
+  /**
+   * Reads an XML element belonging to the given {@link SBase}, which is put
+   * at the bottom of the stack of SBML elements.
+   *
+   * @param xml the XML element.
+   * @param parent the {@link SBase} owning the element.
+   * @throws XMLStreamException if the XML is not valid.
+   */
+  private void readFragment(String xml, SBase parent) throws XMLStreamException {
+
+    // Wraps the XML into an element declaring the namespaces visible to the parent
+    StringWriter buffer = new StringWriter();
+    XMLStreamWriter writer = getOutputFactory().createXMLStreamWriter(buffer);
+    Map<String, String> namespaces = AbstractSBase.getAllDeclaredNamespaces(parent);
+
+    initializePackageParsers();
+    writer.writeStartElement("fragment");
+    if (!namespaces.containsKey(XMLConstants.XMLNS_ATTRIBUTE) && parent.isSetLevelAndVersion()) {
+      writer.writeDefaultNamespace(JSBML.getNamespaceFrom(parent.getLevel(), parent.getVersion()));
+    }
+    for (Entry<String, String> namespace : namespaces.entrySet()) {
+      String prefix = namespace.getKey();
+
+      // as done by addAnnotationParsers when the declaring elements were read
+      if (initializedParsers.get(namespace.getValue()) == null) {
+        initializedParsers.put(namespace.getValue(), initializedParsers.get("anyXML"));
+      }
+
+      if (prefix.equals(XMLConstants.XMLNS_ATTRIBUTE)) {
+        writer.writeDefaultNamespace(namespace.getValue());
+      } else {
+        writer.writeNamespace(prefix.substring(prefix.indexOf(':') + 1), namespace.getValue());
+      }
+    }
+    writer.writeCharacters("");
+    writer.flush();
+    buffer.append(xml).append("</fragment>");
+
+    XMLStreamReader2 xmlStreamReader = (XMLStreamReader2) getInputFactory().createXMLStreamReader(
+      new StringReader(buffer.toString()));
+    xmlStreamReader.nextTag();
+
+    // Hides the wrapping element from the reading loop
+    XMLStreamReader2 fragmentReader = new StreamReader2Delegate(xmlStreamReader) {
+
+      private int depth = 0;
+
+      @Override
+      public int next() throws XMLStreamException {
+        int eventType = super.next();
+
+        if (eventType == XMLStreamConstants.START_ELEMENT) {
+          depth++;
+        } else if (eventType == XMLStreamConstants.END_ELEMENT) {
+          depth--;
+        }
+        return eventType;
+      }
+
+      @Override
+      public boolean hasNext() throws XMLStreamException {
+        return ((depth > 0) || (getEventType() != XMLStreamConstants.END_ELEMENT)) && super.hasNext();
+      }
+    };
+
+    // The element names are already stored if the XML was read with the rest of the document
+    @SuppressWarnings("unchecked")
+    List<String> elementNames = (List<String>) parent.getUserObject(JSBML.CHILD_ELEMENT_NAMES);
+    List<String> storedElementNames = elementNames != null ? new ArrayList<String>(elementNames) : null;
+    fragmentParent = parent;
+
+    try {
+      readXMLFromXMLStreamReader(fragmentReader, null);
+    } finally {
+      fragmentParent = null;
+
+      if (storedElementNames != null) {
+        parent.putUserObject(JSBML.CHILD_ELEMENT_NAMES, storedElementNames);
+      } else if (parent.isSetUserObjects()) {
+        parent.removeUserObject(JSBML.CHILD_ELEMENT_NAMES);
+      }
+    }
+  }
+
   /**
    * Reads a SBML document from the given {@code stream}.
    *
+   * <p>The stream can be compressed with gzip or contain a zip archive, see
+   * {@link CompressionTools#decompress(InputStream)}.</p>
+   *
    * @param stream
    * @param listener
    * @return
@@ -546,12 +1377,13 @@ public class SBMLReader {
    */
   public SBMLDocument readSBMLFromStream(InputStream stream, TreeNodeChangeListener listener)
       throws XMLStreamException {
-    WstxInputFactory inputFactory = new WstxInputFactory();
-    // see https://github.com/OWASP/CheatSheetSeries/blob/master/cheatsheets/XML_External_Entity_Prevention_Cheat_Sheet.md
-    inputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
-    inputFactory.setProperty("javax.xml.stream.isSupportingExternalEntities", false);
-    XMLEventReader xmlEventReader = inputFactory.createXMLEventReader(stream);
-    return (SBMLDocument) readXMLFromXMLEventReader(xmlEventReader, listener);
+    InputStream uncompressedStream;
+    try {
+      uncompressedStream = CompressionTools.decompress(stream);
+    } catch (IOException exc) {
+      throw new XMLStreamException(exc);
+    }
+    return (SBMLDocument) readXMLFromStream(uncompressedStream, listener);
   }
 
   /**
@@ -564,6 +1396,29 @@ public class SBMLReader {
     return readSBMLFromStream(stream, new SimpleTreeNodeChangeListener());
   }
 
+  /**
+   * Reads a SBML document from the given {@code stream} in streaming mode,
+   * giving each top-level element of the model to the {@code visitor} as soon
+   * as it is read.
+   *
+   * @param stream
+   * @param visitor
+   *            the {@link SBMLElementVisitor} deciding which elements are
+   *            kept in the returned document.
+   * @return the read {@link SBMLDocument}, without the discarded elements.
+   * @throws XMLStreamException
+   * @see SBMLElementVisitor
+   */
+  public SBMLDocument readSBMLStreaming(InputStream stream, SBMLElementVisitor visitor)
+      throws XMLStreamException {
+    elementVisitor = visitor;
+    try {
+      return readSBMLFromStream(stream, new SimpleTreeNodeChangeListener());
+    } finally {
+      elementVisitor = null;
+    }
+  }
+
   /**
    * Reads a XML document from the given {@code stream}. It need to be a self contain part of
    * an SBML document.
@@ -575,321 +1430,1118 @@ public class SBMLReader {
    */
   private Object readXMLFromStream(InputStream stream, TreeNodeChangeListener listener)
       throws XMLStreamException {
-    WstxInputFactory inputFactory = new WstxInputFactory();
+    CountingInputStream countingStream = collectingStatistics ? new CountingInputStream(stream) : null;
+
+    if (keepSource && (elementVisitor == null)) {
+      String source = readSource((countingStream != null) ? countingStream : stream);
+      XMLStreamReader2 xmlStreamReader = (XMLStreamReader2) getInputFactory().createXMLStreamReader(
+        new StringReader(source));
+      Object readObject = readXMLFromXMLStreamReader(xmlStreamReader, listener, new SourceCache(source));
+
+      if ((countingStream != null) && (statistics != null)) {
+        statistics.setBytesRead(countingStream.getCount());
+      }
+      return readObject;
+    }
+
+    XMLStreamReader2 xmlStreamReader = (XMLStreamReader2) getInputFactory().createXMLStreamReader(
+      (countingStream != null) ? countingStream : stream);
+    Object readObject = readXMLFromXMLStreamReader(xmlStreamReader, listener);
+
+    if ((countingStream != null) && (statistics != null)) {
+      statistics.setBytesRead(countingStream.getCount());
+    }
+
+    return readObject;
+  }
+
+  /**
+   * Reads the whole XML text of the given stream, decoded with the encoding
+   * detected by the parser.
+   *
+   * @param stream
+   * @return the XML text read.
+   * @throws XMLStreamException
+   */
+  private String readSource(InputStream stream) throws XMLStreamException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    byte[] buffer = new byte[8192];
+
+    try {
+      for (int count = stream.read(buffer); count >= 0; count = stream.read(buffer)) {
+        bytes.write(buffer, 0, count);
+      }
+    } catch (IOException exc) {
+      throw new XMLStreamException(exc);
+    }
+
+    // the parser only reads the XML declaration to detect the encoding
+    XMLStreamReader2 encodingReader = (XMLStreamReader2) getInputFactory().createXMLStreamReader(
+      new ByteArrayInputStream(bytes.toByteArray()));
+    String encoding = encodingReader.getEncoding();
+    encodingReader.closeCompletely();
+
+    try {
+      return bytes.toString((encoding != null) ? encoding : "UTF-8");
+    } catch (UnsupportedEncodingException exc) {
+      throw new XMLStreamException(exc);
+    }
+  }
+
+  /**
+   * An {@link InputStream} counting the bytes read from the stream it
+   * wraps, used to give the number of bytes read in the
+   * {@link ReaderStatistics}.
+   *
+   * @since 1.6
+   */
+  private static class CountingInputStream extends FilterInputStream {
+
+    /**
+     * The number of bytes read so far.
+     */
+    private long count;
+
+    /**
+     * @param in the stream to read.
+     */
+    public CountingInputStream(InputStream in) {
+      super(in);
+    }
+
+    /**
+     * Returns the number of bytes read so far.
+     *
+     * @return the number of bytes read so far.
+     */
+    public long getCount() {
+      return count;
+    }
+
+    /* (non-Javadoc)
+     * @see java.io.FilterInputStream#read()
+     */
+    @Override
+    public int read() throws IOException {
+      int b = super.read();
+
+      if (b != -1) {
+        count++;
+      }
+      return b;
+    }
+
+    /* (non-Javadoc)
+     * @see java.io.FilterInputStream#read(byte[], int, int)
+     */
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      int n = super.read(b, off, len);
+
+      if (n > 0) {
+        count += n;
+      }
+      return n;
+    }
+
+    /* (non-Javadoc)
+     * @see java.io.FilterInputStream#skip(long)
+     */
+    @Override
+    public long skip(long n) throws IOException {
+      long skipped = super.skip(n);
+      count += skipped;
+      return skipped;
+    }
+  }
+
+
+  /**
+   * Reads an XML document from the given {@link XMLEventReader}. It need to represent a self contain part of
+   * an SBML document. It can be either a math element, a notes element or the whole SBML model. If math or notes are given,
+   * a Rule containing the math or notes will be returned, otherwise an SBMLDocument is returned.
+   *
+   *
+   * @param xmlEventReader
+   * @param listener
+   * @return an {@code Object} representing the given XML.
+   * @throws XMLStreamException
+   */
+  private Object readXMLFromXMLEventReader(XMLEventReader xmlEventReader, TreeNodeChangeListener listener)  throws XMLStreamException {
+
+    initializePackageParsers();
+    initializeStringPool();
+    initializeStatistics();
+
+    XMLEvent event;
+    ReadingState state = new ReadingState(listener);
+
+    try {
+      // Read all the elements of the file
+      while (xmlEventReader.hasNext()) {
+        event = xmlEventReader.nextEvent();
+
+        // StartDocument
+        if (event.isStartDocument()) {
+          StartDocument startDocument = (StartDocument) event;
+          // checking the declared encoding
+          if (startDocument.encodingSet()) {
+            state.encoding = startDocument.getCharacterEncodingScheme();
+          }
+        }
+        // EndDocument
+        else if (event.isEndDocument()) {
+          @SuppressWarnings("unused")
+          EndDocument endDocument = (EndDocument) event;
+          // nothing to do?
+        }
+        // StartElement
+        else if (event.isStartElement()) {
+          StartElement startElement = event.asStartElement();
+
+          if (statistics != null) {
+            statistics.countElement(startElement.getName().getLocalPart());
+          }
+          state.startElement(startElement.getName(), new EventStartElementData(startElement));
+        }
+        // Characters
+        else if (event.isCharacters()) {
+          Characters characters = event.asCharacters();
+          state.characters(characters.getData(), characters.isWhiteSpace());
+        }
+        // EndElement
+        else if (event.isEndElement()) {
+          SBMLDocument sbmlDocument = state.endElement(event.asEndElement().getName());
+
+          if (sbmlDocument != null) {
+            return sbmlDocument;
+          }
+        }
+      }
+
+      return state.endOfInput();
+    } finally {
+      state.stopStatistics();
+    }
+  }
+
+  /**
+   * Reads an XML document from the given {@link XMLStreamReader2}, in the same way as
+   * {@link #readXMLFromXMLEventReader(XMLEventReader, TreeNodeChangeListener)}, but using
+   * the cursor API of the reader so that no {@link XMLEvent}, {@link Attribute} or
+   * {@link Namespace} objects are created for each token of the document.
+   *
+   * @param xmlStreamReader
+   * @param listener
+   * @return an {@code Object} representing the given XML.
+   * @throws XMLStreamException
+   */
+  private Object readXMLFromXMLStreamReader(XMLStreamReader2 xmlStreamReader, TreeNodeChangeListener listener) throws XMLStreamException {
+    return readXMLFromXMLStreamReader(xmlStreamReader, listener, null);
+  }
+
+  /**
+   * Reads an XML document from the given {@link XMLStreamReader2}, recording
+   * the range of the text of each {@link SBase} element in the given
+   * {@link SourceCache}, if any.
+   *
+   * @param xmlStreamReader
+   * @param listener
+   * @param sourceCache
+   *        the cache of the XML text read by the reader, or {@code null}.
+   * @return an {@code Object} representing the given XML.
+   * @throws XMLStreamException
+   * @see #setKeepSource(boolean)
+   */
+  private Object readXMLFromXMLStreamReader(XMLStreamReader2 xmlStreamReader, TreeNodeChangeListener listener,
+    SourceCache sourceCache) throws XMLStreamException {
+
+    initializePackageParsers();
+    initializeStringPool();
+    initializeStatistics();
+
+    ReadingState state = new ReadingState(listener);
+    StreamStartElementData startElementData = new StreamStartElementData(xmlStreamReader);
+
+    // the cursor is positioned on the start of the document, checking the declared encoding
+    if (xmlStreamReader.getEventType() == XMLStreamConstants.START_DOCUMENT) {
+      state.encoding = xmlStreamReader.getCharacterEncodingScheme();
+    }
+
+    try {
+      // Read all the elements of the file
+      while (xmlStreamReader.hasNext()) {
+        switch (xmlStreamReader.next()) {
+        case XMLStreamConstants.START_ELEMENT:
+          if (statistics != null) {
+            statistics.countElement(xmlStreamReader.getLocalName());
+          }
+          if (!(skippedNamespaces.isEmpty() && skippedElements.isEmpty()) && state.skipElement(xmlStreamReader)) {
+            if (sourceCache != null) {
+              sourceCache.discardOpenElements();
+            }
+            break;
+          }
+          if (!(lazyNotesAndAnnotation || lazyMath) || !state.captureUnparsedElement(xmlStreamReader)) {
+            int stackSize = state.sbmlElements.size();
+            state.startElement(xmlStreamReader.getName(), startElementData);
+
+            if (sourceCache != null) {
+              startSourceElement(xmlStreamReader, sourceCache,
+                (state.sbmlElements.size() > stackSize) ? state.sbmlElements.peek() : null);
+            }
+          }
+          break;
+        case XMLStreamConstants.CHARACTERS:
+        case XMLStreamConstants.CDATA:
+        case XMLStreamConstants.SPACE:
+          state.characters(xmlStreamReader.getText(), xmlStreamReader.isWhiteSpace());
+          break;
+        case XMLStreamConstants.END_ELEMENT:
+          if (sourceCache != null) {
+            sourceCache.endElement((int) xmlStreamReader.getLocationInfo().getEndingCharOffset());
+          }
+          SBMLDocument sbmlDocument = state.endElement(xmlStreamReader.getName());
+
+          if (sbmlDocument != null) {
+            if (sourceCache != null) {
+              sourceCache.attach(sbmlDocument);
+            }
+            return sbmlDocument;
+          }
+          break;
+        default:
+          // comments, processing instructions and the end of the document are ignored
+          break;
+        }
+      }
+
+      return state.endOfInput();
+    } finally {
+      state.stopStatistics();
+    }
+  }
+
+  /**
+   * Records the start of the current element of the reader in the given
+   * {@link SourceCache}.
+   *
+   * @param reader
+   *        the reader, positioned on the start of an element.
+   * @param sourceCache
+   * @param element
+   *        the object pushed on the stack for this element, if any.
+   */
+  private void startSourceElement(XMLStreamReader2 reader, SourceCache sourceCache, Object element) {
+    int namespaceCount = reader.getNamespaceCount();
+
+    if (reader.getDepth() == 1) {
+      for (int i = 0; i < namespaceCount; i++) {
+        sourceCache.addRootNamespace(reader.getNamespacePrefix(i), reader.getNamespaceURI(i));
+      }
+    }
+    sourceCache.startElement((int) reader.getLocationInfo().getStartingCharOffset(), element,
+      namespaceCount > 0);
+  }
+
+  /**
+   * Holds the state of the reading of one XML document and processes the XML
+   * tokens given to it by one of the reading loops, independently of the StAX
+   * API used to produce them.
+   *
+   * @since 1.6
+   */
+  private class ReadingState {
+
+    /**
+     * The stack of objects created by the parsers, the top of the stack being
+     * the context object of the current element.
+     */
+    private Stack<Object> sbmlElements = new Stack<Object>();
+    /**
+     *
+     */
+    private TreeNodeChangeListener listener;
+    /**
+     *
+     */
+    private ReadingParser parser;
+    /**
+     *
+     */
+    private QName currentNode;
+    /**
+     * The encoding declared in the XML declaration, if any.
+     */
+    private String encoding;
+    /**
+     *
+     */
+    private boolean isNested = false;
+    /**
+     *
+     */
+    private boolean isText = false;
+    /**
+     *
+     */
+    private boolean isHTML = false;
+    /**
+     *
+     */
+    private boolean isInsideAnnotation = false;
+    /**
+     *
+     */
+    private int annotationDeepness = -1;
+    /**
+     *
+     */
+    private int level = -1, version = -1;
+    /**
+     *
+     */
+    private Object lastElement;
+
+    /**
+     * The document created by this state, if any.
+     */
+    private SBMLDocument document;
+    /**
+     * The listener measuring the time spent in {@link #listener}, used
+     * instead of it while reading when statistics are collected.
+     */
+    private TreeNodeChangeListener timedListener;
+
+    /**
+     * @param listener
+     */
+    public ReadingState(TreeNodeChangeListener listener) {
+      this.listener = listener;
+    }
+
+    /**
+     * Ends the collection of the statistics, if they are collected, and gives
+     * back the listener of the document, that was replaced by a listener
+     * measuring its time while reading.
+     */
+    public void stopStatistics() {
+      if (statistics == null) {
+        return;
+      }
+      statistics.stop();
+
+      if ((document != null) && (timedListener != null)) {
+        document.removeTreeNodeChangeListener(timedListener, true);
+        document.addTreeNodeChangeListener(listener, true);
+      }
+    }
+
+    /**
+     * Processes the start of an element.
+     *
+     * @param elementName
+     * @param startElement gives access to the namespaces and attributes of the element.
+     */
+    public void startElement(QName elementName, StartElementData startElement) {
+
+      currentNode = elementName;
+      isNested = false;
+      isText = false;
+
+      addAnnotationParsers(startElement);
+
+      // If the XML element is the sbml element, creates the
+      // necessary ReadingParser instances.
+      // Creates an empty SBMLDocument instance and pushes it on
+      // the SBMLElements stack.
+      if (currentNode.getLocalPart().equals("sbml")) {
+
+        SBMLDocument sbmlDocument = new SBMLDocument();
+        sbmlDocument.putUserObject(JSBML.READING_IN_PROGRESS, Boolean.TRUE);
+
+        if (encoding != null) {
+          sbmlDocument.putUserObject(SBMLDocumentConstraints.XML_DECLARED_ENCODING, encoding);
+        }
+
+        if (currentNode.getPrefix() != null && currentNode.getPrefix().trim().length() > 0) {
+          sbmlDocument.putUserObject(JSBML.ELEMENT_XML_PREFIX, currentNode.getPrefix());
+        }
+
+        // the output of the change listener is activated or not via log4j.properties
+        if (listener == null) {
+          listener = new SimpleTreeNodeChangeListener();
+        }
+        document = sbmlDocument;
+
+        if (statistics != null) {
+          timedListener = statistics.createTimedListener(listener);
+          sbmlDocument.addTreeNodeChangeListener(timedListener);
+        } else {
+          sbmlDocument.addTreeNodeChangeListener(listener);
+        }
+
+        for (int i = 0; i < startElement.getAttributeCount(); i++) {
+          String attributeName = startElement.getAttributeName(i).toString();
+
+          if (attributeName.equals("level")) {
+            level = StringTools.parseSBMLInt(startElement.getAttributeValue(i));
+            sbmlDocument.setLevel(level);
+          } else if (attributeName.equals("version")) {
+            version = StringTools.parseSBMLInt(startElement.getAttributeValue(i));
+            sbmlDocument.setVersion(version);
+          }
+        }
+        sbmlElements.push(sbmlDocument);
+      }
+      else if ((lastElement == null) && (fragmentParent != null))
+      {
+        // We are reading the notes, annotation or math of an existing element, see readFragment
+        sbmlElements.push(fragmentParent);
+
+        if (currentNode.getLocalPart().equals("annotation")) {
+          isInsideAnnotation = true;
+        } else if (currentNode.getLocalPart().equals("notes")) {
+          isHTML = true;
+        }
+      }
+      else if (lastElement == null) // We are probably reading some 'free' XML, mathML or HTML
+      {
+        // We put a fake Constraint element in the stack that can take either math, notes or message.
+        // This a hack to be able to read some mathMl or notes by themselves.
+        // If the parent container is set in this SBMLReader, we use it instead.
+
+        // TODO: will not work with arbitrary SBML part
+        // TODO: we need to be able, somehow, to set the Model element in the Constraint
+        // to be able to have a fully functional parsing. Without it the functionDefinition, for examples, are
+        // not properly recognized.
+        if (astNodeParent != null)
+        {
+          sbmlElements.push(astNodeParent);
+        }
+        else
+        {
+          Constraint constraint = new Constraint(3,1);
+          sbmlElements.push(constraint);
+        }
+
+        if (currentNode.getLocalPart().equals("notes") || currentNode.getLocalPart().equals("message")
+            || currentNode.getLocalPart().equals("annotation"))
+        {
+          initializedParsers.put("", sbmlCoreParser);
+
+          // get the sbml namespace to set it on the first element to parse
+          SBase sbase = (SBase) sbmlElements.firstElement();
+          String sbmlNamespace = JSBML.getNamespaceFrom(sbase.getLevel(), sbase.getVersion());
+          currentNode = new QName(sbmlNamespace, currentNode.getLocalPart());
+        }
+        else if (currentNode.getLocalPart().equals("math"))
+        {
+          initializedParsers.put("", new MathMLStaxParser());
+          initializedParsers.put(ASTNode.URI_MATHML_DEFINITION, new MathMLStaxParser());
+          currentNode = new QName(ASTNode.URI_MATHML_DEFINITION, "math");
+        }
+        // TODO - add something generic for the L3 packages or change all the parsers to work if the contextObject is 'null' ??
+
+      } else if (currentNode.getLocalPart().equals("annotation")) {
+
+        // get the sbml namespace as some element can have similar names in different namespaces
+        SBase sbmlDoc = (SBase) sbmlElements.firstElement();
+        String sbmlNamespace = JSBML.getNamespaceFrom(sbmlDoc.getLevel(), sbmlDoc.getVersion());
+
+        if (currentNode.getNamespaceURI().equals(sbmlNamespace)) {
+          if (isInsideAnnotation) {
+            logger.warn("Starting to read a new annotation element while the previous annotation element is not finished.");
+          }
+          isInsideAnnotation = true;
+        }
+      }
+      else if (isInsideAnnotation) {
+        // Count the number of open elements to know how deep we are in the annotation
+        annotationDeepness++;
+      }
+      else if (currentNode.getLocalPart().equals("notes") || currentNode.getLocalPart().equals("message"))
+      {
+        // get the sbml namespace as some element can have similar names in different namespaces
+        SBase firstElement = (SBase) sbmlElements.firstElement();
+
+        if (firstElement instanceof SBMLDocument) {
+          SBase sbmlDoc = (SBase) sbmlElements.firstElement();
+          String sbmlNamespace = JSBML.getNamespaceFrom(sbmlDoc.getLevel(), sbmlDoc.getVersion());
+
+          if (currentNode.getNamespaceURI().equals(sbmlNamespace)) {
+            isHTML = true;
+          }
+        } else if (firstElement instanceof Constraint) { // we are reading a partial document from SBMLReader#readNotes for example
+          isHTML = true;
+        }
+      }
 
-    try {
-      // see https://groups.google.com/d/msg/jsbml-development/cckEJPYNzQY/5ynmIbqNCAAJ for why we did set this value
-      inputFactory.setProperty(WstxInputProperties.P_MAX_ELEMENT_DEPTH, 5000);
+      if (isInsideAnnotation && logger.isDebugEnabled()) {
+        logger.debug("startElement: local part = " + currentNode.getLocalPart());
+        // logger.debug("startElement: annotation deepness = " + annotationDeepness);
+      }
 
-      // see https://github.com/OWASP/CheatSheetSeries/blob/master/cheatsheets/XML_External_Entity_Prevention_Cheat_Sheet.md
-      inputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
-      inputFactory.setProperty("javax.xml.stream.isSupportingExternalEntities", false);
-    } catch(IllegalArgumentException e) {
-      // do nothing - the XML libraries used do not support this property for some reason
+      // annotationDeepness = 0 is the annotation element and we want to pass everything inside it to the anyXML parser
+      parser = processStartElement(startElement, currentNode, isHTML, sbmlElements, (annotationDeepness > 0));
+      lastElement = sbmlElements.peek();
     }
 
-    XMLEventReader xmlEventReader = inputFactory.createXMLEventReader(stream);
-    return readXMLFromXMLEventReader(xmlEventReader, listener);
-  }
+    /**
+     * Captures the current element as unparsed XML if it is the notes or the
+     * annotation of an {@link AbstractSBase} or the math of an
+     * {@link AbstractMathContainer}, see
+     * {@link SBMLReader#setLazyNotesAndAnnotation(boolean)} and
+     * {@link SBMLReader#setLazyMath(boolean)}.
+     *
+     * @param reader the reader, positioned on the start of the element. It is
+     *        left on the end of the element if it was captured.
+     * @return {@code true} if the element was captured, {@code false} if it
+     *         has to be processed as usual.
+     * @throws XMLStreamException
+     */
+    public boolean captureUnparsedElement(XMLStreamReader2 reader) throws XMLStreamException {
 
+      String localName = reader.getLocalName();
+      boolean isNotes = localName.equals("notes");
+      boolean isMath = localName.equals("math");
 
-  /**
-   * Reads an XML document from the given {@link XMLEventReader}. It need to represent a self contain part of
-   * an SBML document. It can be either a math element, a notes element or the whole SBML model. If math or notes are given,
-   * a Rule containing the math or notes will be returned, otherwise an SBMLDocument is returned.
-   *
-   *
-   * @param xmlEventReader
-   * @param listener
-   * @return an {@code Object} representing the given XML.
-   * @throws XMLStreamException
-   */
-  private Object readXMLFromXMLEventReader(XMLEventReader xmlEventReader, TreeNodeChangeListener listener)  throws XMLStreamException {
+      if (isInsideAnnotation || isHTML || sbmlElements.isEmpty()
+          || !(sbmlElements.firstElement() instanceof SBMLDocument)
+          || !(sbmlElements.peek() instanceof AbstractSBase))
+      {
+        return false;
+      }
 
-    initializePackageParsers();
+      AbstractSBase sbase = (AbstractSBase) sbmlElements.peek();
 
-    XMLEvent event;
-    StartElement startElement = null;
-    ReadingParser parser = null;
-    Stack<Object> sbmlElements = new Stack<Object>();
-    QName currentNode = null;
-    String encoding = null;
-    boolean isNested = false;
-    boolean isText = false;
-    boolean isHTML = false;
-    boolean isInsideAnnotation = false;
-    int annotationDeepness = -1;
-    int level = -1, version = -1;
-    Object lastElement = null;
-
-    // Read all the elements of the file
-    while (xmlEventReader.hasNext()) {
-      event = xmlEventReader.nextEvent();
-
-      // StartDocument
-      if (event.isStartDocument()) {
-        @SuppressWarnings("unused")
-        StartDocument startDocument = (StartDocument) event;
-        // checking the declared encoding
-        if (startDocument.encodingSet()) {
-          encoding = startDocument.getCharacterEncodingScheme();        
+      if (isMath) {
+        // a second math element is merged into the first one by the MathMLStaxParser
+        if (!lazyMath || !(sbase instanceof AbstractMathContainer) || ((AbstractMathContainer) sbase).isSetMath()
+            || !ASTNode.URI_MATHML_DEFINITION.equals(reader.getNamespaceURI()))
+        {
+          return false;
+        }
+      } else if (isNotes || localName.equals("annotation")) {
+        SBase sbmlDoc = (SBase) sbmlElements.firstElement();
+        String sbmlNamespace = JSBML.getNamespaceFrom(sbmlDoc.getLevel(), sbmlDoc.getVersion());
+
+        // the annotation of the model can contain the SBML Level 2 layout, that needs to be read with the model
+        if (!lazyNotesAndAnnotation || !sbmlNamespace.equals(reader.getNamespaceURI())
+            || (!isNotes && (sbase instanceof Model)))
+        {
+          return false;
+        }
+      } else {
+        return false;
+      }
+
+      // Copying the element as it is, the namespaces declared on its ancestors are declared again when parsing it
+      StringWriter buffer = new StringWriter();
+      XMLStreamWriter2 writer = (XMLStreamWriter2) getOutputFactory().createXMLStreamWriter(buffer);
+      int depth = 0;
+
+      while (true) {
+        switch (reader.getEventType()) {
+        case XMLStreamConstants.START_ELEMENT:
+          depth++;
+          break;
+        case XMLStreamConstants.END_ELEMENT:
+          depth--;
+          break;
+        default:
+          break;
+        }
+        writer.copyEventFromReader(reader, false);
+
+        if (depth == 0) {
+          break;
         }
+        reader.next();
       }
-      // EndDocument
-      else if (event.isEndDocument()) {
-        @SuppressWarnings("unused")
-        EndDocument endDocument = (EndDocument) event;
-        // nothing to do?
+      writer.close();
+
+      if (isMath) {
+        MathMLStaxParser.countMathElement((MathContainer) sbase, MathMLStaxParser.JSBML_MATH_COUNT, localName);
+        ((AbstractMathContainer) sbase).setUnparsedMath(buffer.toString());
+      } else if (isNotes) {
+        AbstractReaderWriter.storeElementsOrder(localName, sbase);
+        sbase.setUnparsedNotes(buffer.toString());
+      } else {
+        AbstractReaderWriter.storeElementsOrder(localName, sbase);
+        sbase.setUnparsedAnnotation(buffer.toString());
       }
-      // StartElement
-      else if (event.isStartElement()) {
-
-        startElement = event.asStartElement();
-        currentNode = startElement.getName();
-        isNested = false;
-        isText = false;
-
-        addAnnotationParsers(startElement);
-
-        // If the XML element is the sbml element, creates the
-        // necessary ReadingParser instances.
-        // Creates an empty SBMLDocument instance and pushes it on
-        // the SBMLElements stack.
-        if (currentNode.getLocalPart().equals("sbml")) {
-
-          SBMLDocument sbmlDocument = new SBMLDocument();
-          sbmlDocument.putUserObject(JSBML.READING_IN_PROGRESS, Boolean.TRUE);
-          
-          if (encoding != null) {
-            sbmlDocument.putUserObject(SBMLDocumentConstraints.XML_DECLARED_ENCODING, encoding);
-          }
 
-          if (currentNode.getPrefix() != null && currentNode.getPrefix().trim().length() > 0) {
-            sbmlDocument.putUserObject(JSBML.ELEMENT_XML_PREFIX, currentNode.getPrefix());
-          }
+      currentNode = null;
+      isNested = false;
+      isText = false;
 
-          // the output of the change listener is activated or not via log4j.properties
-          sbmlDocument.addTreeNodeChangeListener(listener == null
-              ? new SimpleTreeNodeChangeListener() : listener);
+      return true;
+    }
 
-          for (@SuppressWarnings("unchecked")
-          Iterator<Attribute> iterator = startElement.getAttributes(); iterator.hasNext();)
-          {
-            Attribute attr = iterator.next();
-            if (attr.getName().toString().equals("level")) {
-              level = StringTools.parseSBMLInt(attr.getValue());
-              sbmlDocument.setLevel(level);
-            } else if (attr.getName().toString().equals("version")) {
-              version = StringTools.parseSBMLInt(attr.getValue());
-              sbmlDocument.setVersion(version);
-            }
-          }
-          sbmlElements.push(sbmlDocument);
+    /**
+     * Skips the current element if it is configured to be skipped, see
+     * {@link SBMLReader#addSkippedPackage(String)} and
+     * {@link SBMLReader#addSkippedElement(String)}, keeping it as an
+     * {@link XMLNode} if {@link SBMLReader#isKeepSkippedElements()}.
+     *
+     * @param reader the reader, positioned on the start of the element. It is
+     *        left on the end of the element if it was skipped.
+     * @return {@code true} if the element was skipped, {@code false} if it
+     *         has to be processed as usual.
+     * @throws XMLStreamException
+     */
+    public boolean skipElement(XMLStreamReader2 reader) throws XMLStreamException {
+
+      if ((!skippedElements.contains(reader.getLocalName()) && !skippedNamespaces.contains(reader.getNamespaceURI()))
+          || isInsideAnnotation || isHTML || sbmlElements.isEmpty() || !(sbmlElements.peek() instanceof SBase))
+      {
+        return false;
+      }
+
+      if (keepSkippedElements) {
+        SBase parent = (SBase) sbmlElements.peek();
+        XMLNode skippedXML = (XMLNode) parent.getUserObject(JSBML.SKIPPED_XML);
+
+        if (skippedXML == null) {
+          skippedXML = new XMLNode(new XMLTriple("skipped", "", ""), null, null);
+          parent.putUserObject(JSBML.SKIPPED_XML, skippedXML);
         }
-        else if (lastElement == null) // We are probably reading some 'free' XML, mathML or HTML
-        {
-          // We put a fake Constraint element in the stack that can take either math, notes or message.
-          // This a hack to be able to read some mathMl or notes by themselves.
-          // If the parent container is set in this SBMLReader, we use it instead.
-
-          // TODO: will not work with arbitrary SBML part
-          // TODO: we need to be able, somehow, to set the Model element in the Constraint
-          // to be able to have a fully functional parsing. Without it the functionDefinition, for examples, are
-          // not properly recognized.
-          if (astNodeParent != null)
-          {
-            sbmlElements.push(astNodeParent);
-          }
-          else
-          {
-            Constraint constraint = new Constraint(3,1);
-            sbmlElements.push(constraint);
-          }
 
-          if (currentNode.getLocalPart().equals("notes") || currentNode.getLocalPart().equals("message")
-              || currentNode.getLocalPart().equals("annotation"))
-          {
-            initializedParsers.put("", sbmlCoreParser);
+        Stack<XMLNode> xmlNodes = new Stack<XMLNode>();
+        xmlNodes.push(skippedXML);
+
+        while (true) {
+          switch (reader.getEventType()) {
+          case XMLStreamConstants.START_ELEMENT:
+            XMLAttributes attributes = new XMLAttributes();
+            XMLNamespaces namespaces = new XMLNamespaces();
 
-            // get the sbml namespace to set it on the first element to parse
-            SBase sbase = (SBase) sbmlElements.firstElement();
-            String sbmlNamespace = JSBML.getNamespaceFrom(sbase.getLevel(), sbase.getVersion());
-            currentNode = new QName(sbmlNamespace, currentNode.getLocalPart());
+            for (int i = 0; i < reader.getAttributeCount(); i++) {
+              attributes.add(reader.getAttributeLocalName(i), reader.getAttributeValue(i),
+                reader.getAttributeNamespace(i), reader.getAttributePrefix(i));
+            }
+            for (int i = 0; i < reader.getNamespaceCount(); i++) {
+              namespaces.add(reader.getNamespaceURI(i), reader.getNamespacePrefix(i));
+            }
+            XMLNode xmlNode = new XMLNode(new XMLTriple(reader.getLocalName(), reader.getNamespaceURI(),
+              reader.getPrefix()), attributes, namespaces);
+            xmlNodes.peek().addChild(xmlNode);
+            xmlNodes.push(xmlNode);
+            break;
+          case XMLStreamConstants.END_ELEMENT:
+            xmlNodes.pop();
+            break;
+          case XMLStreamConstants.CHARACTERS:
+          case XMLStreamConstants.CDATA:
+          case XMLStreamConstants.SPACE:
+            xmlNodes.peek().addChild(new XMLNode(reader.getText()));
+            break;
+          default:
+            break;
           }
-          else if (currentNode.getLocalPart().equals("math"))
-          {
-            initializedParsers.put("", new MathMLStaxParser());
-            initializedParsers.put(ASTNode.URI_MATHML_DEFINITION, new MathMLStaxParser());
-            currentNode = new QName(ASTNode.URI_MATHML_DEFINITION, "math");
+
+          if (xmlNodes.size() == 1) {
+            break;
           }
-          // TODO - add something generic for the L3 packages or change all the parsers to work if the contextObject is 'null' ??
+          reader.next();
+        }
+      } else {
+        reader.skipElement();
+      }
 
-        } else if (currentNode.getLocalPart().equals("annotation")) {
+      currentNode = null;
+      isNested = false;
+      isText = false;
 
-          // get the sbml namespace as some element can have similar names in different namespaces
-          SBase sbmlDoc = (SBase) sbmlElements.firstElement();
-          String sbmlNamespace = JSBML.getNamespaceFrom(sbmlDoc.getLevel(), sbmlDoc.getVersion());
+      return true;
+    }
 
-          if (currentNode.getNamespaceURI().equals(sbmlNamespace)) {
-            if (isInsideAnnotation) {
-              logger.warn("Starting to read a new annotation element while the previous annotation element is not finished.");
-            }
-            isInsideAnnotation = true;
-          }
+    /**
+     * Processes the text content of the current element.
+     *
+     * @param data
+     * @param isWhiteSpace {@code true} if the text contains only white spaces.
+     */
+    public void characters(String data, boolean isWhiteSpace) {
+
+      if (!isWhiteSpace) {
+        isText = true; // the characters are not only 'white spaces'
+      }
+      if ((!sbmlElements.isEmpty() && (sbmlElements.peek() instanceof XMLNode)) || isHTML || isInsideAnnotation) {
+        isText = true; // We want to keep the whitespace/formatting when reading html block
+      }
+
+      // process the text of a XML element.
+      if ((parser != null) && !sbmlElements.isEmpty()	&& (isText || isInsideAnnotation)) {
+
+        if (isHTML) {
+          parser = initializedParsers.get(JSBML.URI_XHTML_DEFINITION); // TODO : this is probably not needed
         }
         else if (isInsideAnnotation) {
-          // Count the number of open elements to know how deep we are in the annotation
-          annotationDeepness++;
+          parser = initializedParsers.get("anyXML");
         }
-        else if (currentNode.getLocalPart().equals("notes") || currentNode.getLocalPart().equals("message"))
-        {
-          // get the sbml namespace as some element can have similar names in different namespaces
-          SBase firstElement = (SBase) sbmlElements.firstElement();
 
-          if (firstElement instanceof SBMLDocument) {
-            SBase sbmlDoc = (SBase) sbmlElements.firstElement();
-            String sbmlNamespace = JSBML.getNamespaceFrom(sbmlDoc.getLevel(), sbmlDoc.getVersion());
-
-            if (currentNode.getNamespaceURI().equals(sbmlNamespace)) {
-              isHTML = true;
-            }
-          } else if (firstElement instanceof Constraint) { // we are reading a partial document from SBMLReader#readNotes for example
-            isHTML = true;
-          }
+        if (logger.isDebugEnabled()) {
+          logger.debug(" PackageParser = " + parser.getClass().getName());
+          logger.debug(" Characters = @" + data + "@");
         }
 
-        if (isInsideAnnotation && logger.isDebugEnabled()) {
-          logger.debug("startElement: local part = " + currentNode.getLocalPart());
-          // logger.debug("startElement: annotation deepness = " + annotationDeepness);
-        }
+        long startTime = startTiming();
 
-        // annotationDeepness = 0 is the annotation element and we want to pass everything inside it to the anyXML parser
-        parser = processStartElement(startElement, currentNode, isHTML,	sbmlElements, (annotationDeepness > 0));
-        lastElement = sbmlElements.peek();
+        if (currentNode != null) {
 
-      }
-      // Characters
-      else if (event.isCharacters()) {
-        Characters characters = event.asCharacters();
+          // logger.debug("isCharacter: elementName = " + currentNode.getLocalPart());
 
-        if (!characters.isWhiteSpace()) {
-          isText = true; // the characters are not only 'white spaces'
+          parser.processCharactersOf(currentNode.getLocalPart(),
+            data, sbmlElements.peek());
+        } else {
+          parser.processCharactersOf(null, data,
+            sbmlElements.peek());
         }
-        if ((!sbmlElements.isEmpty() && (sbmlElements.peek() instanceof XMLNode)) || isHTML || isInsideAnnotation) {
-          isText = true; // We want to keep the whitespace/formatting when reading html block
+        stopTiming(parser, startTime);
+      } else if (isText) {
+        logger.warn(MessageFormat.format("Some characters cannot be read: {0}", data));
+        if (logger.isDebugEnabled()) {
+          logger.debug("PackageParser = " + parser);
+          if (sbmlElements.isEmpty()) {
+            logger.debug("The Object Stack is empty!");
+          } else {
+            logger.debug("The current Object in the stack is: " + sbmlElements.peek());
+          }
         }
+      }
+    }
 
-        // process the text of a XML element.
-        if ((parser != null) && !sbmlElements.isEmpty()	&& (isText || isInsideAnnotation)) {
+    /**
+     * Processes the end of an element.
+     *
+     * @param elementName
+     * @return the read {@link SBMLDocument} when the end of the 'sbml' element
+     *         is reached, {@code null} otherwise.
+     */
+    public SBMLDocument endElement(QName elementName) {
 
-          if (isHTML) {
-            parser = initializedParsers.get(JSBML.URI_XHTML_DEFINITION); // TODO : this is probably not needed
-          }
-          else if (isInsideAnnotation) {
-            parser = initializedParsers.get("anyXML");
-          }
+      // the method  processEndElement will return null until we arrive at the end of the 'sbml' element.
+      lastElement = sbmlElements.peek();
 
-          if (logger.isDebugEnabled()) {
-            logger.debug(" PackageParser = " + parser.getClass().getName());
-            logger.debug(" Characters = @" + characters.getData() + "@");
-          }
+      currentNode = elementName;
 
-          if (currentNode != null) {
+      if (currentNode != null) {
 
-            // logger.debug("isCharacter: elementName = " + currentNode.getLocalPart());
+        boolean isSBMLelement = true;
 
-            parser.processCharactersOf(currentNode.getLocalPart(),
-              characters.getData(), sbmlElements.peek());
-          } else {
-            parser.processCharactersOf(null, characters.getData(),
-              sbmlElements.peek());
-          }
-        } else if (isText) {
-          logger.warn(MessageFormat.format("Some characters cannot be read: {0}", characters.getData()));
-          if (logger.isDebugEnabled()) {
-            logger.debug("PackageParser = " + parser);
-            if (sbmlElements.isEmpty()) {
-              logger.debug("The Object Stack is empty!");
-            } else {
-              logger.debug("The current Object in the stack is: " + sbmlElements.peek());
-            }
+        // get the sbml namespace as some element can have similar names in different namespaces
+        if (sbmlElements.firstElement() instanceof SBase)
+        {
+          SBase sbmlDoc = (SBase) sbmlElements.firstElement();
+          String sbmlNamespace = JSBML.getNamespaceFrom(sbmlDoc.getLevel(), sbmlDoc.getVersion());
+
+          if (!currentNode.getNamespaceURI().equals(sbmlNamespace)) {
+            isSBMLelement = false;
           }
+        }
 
+        if (currentNode.getLocalPart().equals("annotation") && isSBMLelement)
+        {
+          isInsideAnnotation = false;
+          annotationDeepness = -1;
+
+          // calling the annotation parsers
+          for (AnnotationReader annoReader : annotationParsers) {
+            long startTime = startTiming();
+            annoReader.processAnnotation((SBase) ((Annotation) lastElement).getParent()); // or take the second element in the stack ??
+            stopTiming(annoReader, startTime);
+          }
 
+        } else if (isInsideAnnotation) {
+          annotationDeepness--;
+        }
+        else if ((currentNode.getLocalPart().equals("notes") || currentNode.getLocalPart().equals("message")) && isSBMLelement)
+        {
+          isHTML = false;
         }
       }
-      // EndElement
-      else if (event.isEndElement()) {
 
-        // the method  processEndElement will return null until we arrive at the end of the 'sbml' element.
-        lastElement = sbmlElements.peek();
+      SBMLDocument sbmlDocument = processEndElement(currentNode, isNested, isText, isHTML,
+        level, version, parser, sbmlElements, (annotationDeepness >= 0));
 
-        currentNode = event.asEndElement().getName();
+      currentNode = null;
+      isNested = false;
+      isText = false;
 
-        if (currentNode != null) {
+      return sbmlDocument;
+    }
 
-          boolean isSBMLelement = true;
+    /**
+     * Called when the end of the XML input is reached without finding the end
+     * of an 'sbml' element.
+     *
+     * @return the top of the stack, representing the XML fragment that was read.
+     */
+    public Object endOfInput() {
 
-          // get the sbml namespace as some element can have similar names in different namespaces
-          if (sbmlElements.firstElement() instanceof SBase)
-          {
-            SBase sbmlDoc = (SBase) sbmlElements.firstElement();
-            String sbmlNamespace = JSBML.getNamespaceFrom(sbmlDoc.getLevel(), sbmlDoc.getVersion());
+      // We reach the end of the XML fragment and no 'sbml' have been found
+      // so we are probably parsing some math or notes String.
 
-            if (!currentNode.getNamespaceURI().equals(sbmlNamespace)) {
-              isSBMLelement = false;
-            }
-          }
+      if (logger.isDebugEnabled()) {
+        logger.debug("no more XMLEvent: stack.size = " + sbmlElements.size());
 
-          if (currentNode.getLocalPart().equals("annotation") && isSBMLelement)
-          {
-            isInsideAnnotation = false;
-            annotationDeepness = -1;
+        logger.debug("no more XMLEvent: stack = " + sbmlElements);
+      }
 
-            // calling the annotation parsers
-            for (AnnotationReader annoReader : annotationParsers) {
-              annoReader.processAnnotation((SBase) ((Annotation) lastElement).getParent()); // or take the second element in the stack ??
-            }
+      initializedParsers.remove("");
 
-          } else if (isInsideAnnotation) {
-            annotationDeepness--;
-          }
-          else if ((currentNode.getLocalPart().equals("notes") || currentNode.getLocalPart().equals("message")) && isSBMLelement)
-          {
-            isHTML = false;
-          }
-        }
+      if (sbmlElements.size() > 0) {
+        return sbmlElements.peek();
+      }
 
-        SBMLDocument sbmlDocument = processEndElement(currentNode, isNested, isText, isHTML,
-          level, version, parser, sbmlElements, (annotationDeepness >= 0));
+      return null;
+    }
 
-        if (sbmlDocument != null) {
-          return sbmlDocument;
-        }
+  }
+
+  /**
+   * Sets the handler notified when the end of the document is reached.
+   *
+   * @param endOfDocumentHandler the handler, {@code null} for a normal
+   *        reading.
+   */
+  void setEndOfDocumentHandler(EndOfDocumentHandler endOfDocumentHandler) {
+    this.endOfDocumentHandler = endOfDocumentHandler;
+  }
+
+  /**
+   * Notified when the closing {@code sbml} element is read, before the
+   * parsers process the end of the document.
+   *
+   * @since 1.6
+   */
+  interface EndOfDocumentHandler {
+
+    /**
+     * Called when the end of the document is reached.
+     *
+     * @param document the document read.
+     * @return {@code false} if the parsers should not process the end of the
+     *         document.
+     */
+    public boolean endOfDocument(SBMLDocument document);
+  }
+
+  /**
+   * Gives indexed access to the namespace declarations and the attributes of
+   * the start element being processed, so that the same code can be used for
+   * the {@link XMLEventReader} and the {@link XMLStreamReader2} reading loops.
+   *
+   * @since 1.6
+   */
+  private interface StartElementData {
+
+    /**
+     * @return the number of namespaces declared on the element.
+     */
+    public int getNamespaceCount();
+
+    /**
+     * @param index
+     * @return the URI of the namespace declaration at the given index.
+     */
+    public String getNamespaceURI(int index);
+
+    /**
+     * @param index
+     * @return the prefix bound by the namespace declaration at the given index,
+     *         an empty {@link String} for the default namespace.
+     */
+    public String getNamespacePrefix(int index);
+
+    /**
+     * @return the number of attributes of the element.
+     */
+    public int getAttributeCount();
+
+    /**
+     * @param index
+     * @return the qualified name of the attribute at the given index.
+     */
+    public QName getAttributeName(int index);
+
+    /**
+     * @param index
+     * @return the local name of the attribute at the given index.
+     */
+    public String getAttributeLocalName(int index);
+
+    /**
+     * @param index
+     * @return the namespace URI of the attribute at the given index, an empty
+     *         {@link String} if the attribute has no namespace.
+     */
+    public String getAttributeNamespace(int index);
 
+    /**
+     * @param index
+     * @return the prefix of the attribute at the given index, an empty
+     *         {@link String} if the attribute has no prefix.
+     */
+    public String getAttributePrefix(int index);
+
+    /**
+     * @param index
+     * @return the value of the attribute at the given index.
+     */
+    public String getAttributeValue(int index);
+  }
+
+  /**
+   * {@link StartElementData} backed by a {@link StartElement} event.
+   *
+   * @since 1.6
+   */
+  private static class EventStartElementData implements StartElementData {
 
-        currentNode = null;
-        isNested = false;
-        isText = false;
+    /**
+     *
+     */
+    private List<Namespace> namespaces = new ArrayList<Namespace>();
+    /**
+     *
+     */
+    private List<Attribute> attributes = new ArrayList<Attribute>();
+
+    /**
+     * @param startElement
+     */
+    @SuppressWarnings("unchecked")
+    public EventStartElementData(StartElement startElement) {
+      for (Iterator<Namespace> iterator = startElement.getNamespaces(); iterator.hasNext();) {
+        namespaces.add(iterator.next());
+      }
+      for (Iterator<Attribute> iterator = startElement.getAttributes(); iterator.hasNext();) {
+        attributes.add(iterator.next());
       }
     }
 
-    // We reach the end of the XML fragment and no 'sbml' have been found
-    // so we are probably parsing some math or notes String.
+    @Override
+    public int getNamespaceCount() {
+      return namespaces.size();
+    }
 
-    if (logger.isDebugEnabled()) {
-      logger.debug("no more XMLEvent: stack.size = " + sbmlElements.size());
+    @Override
+    public String getNamespaceURI(int index) {
+      return namespaces.get(index).getNamespaceURI();
+    }
 
-      logger.debug("no more XMLEvent: stack = " + sbmlElements);
+    @Override
+    public String getNamespacePrefix(int index) {
+      return namespaces.get(index).getPrefix();
     }
 
-    initializedParsers.remove("");
+    @Override
+    public int getAttributeCount() {
+      return attributes.size();
+    }
 
-    if (sbmlElements.size() > 0) {
-      return sbmlElements.peek();
+    @Override
+    public QName getAttributeName(int index) {
+      return attributes.get(index).getName();
     }
 
-    return null;
+    @Override
+    public String getAttributeLocalName(int index) {
+      return attributes.get(index).getName().getLocalPart();
+    }
+
+    @Override
+    public String getAttributeNamespace(int index) {
+      return attributes.get(index).getName().getNamespaceURI();
+    }
+
+    @Override
+    public String getAttributePrefix(int index) {
+      return attributes.get(index).getName().getPrefix();
+    }
+
+    @Override
+    public String getAttributeValue(int index) {
+      return attributes.get(index).getValue();
+    }
+  }
+
+  /**
+   * {@link StartElementData} reading directly from the current start element
+   * of a {@link XMLStreamReader2}. One instance is reused for all the elements
+   * of a document.
+   *
+   * @since 1.6
+   */
+  private static class StreamStartElementData implements StartElementData {
+
+    /**
+     *
+     */
+    private XMLStreamReader2 reader;
+
+    /**
+     * @param reader
+     */
+    public StreamStartElementData(XMLStreamReader2 reader) {
+      this.reader = reader;
+    }
+
+    /**
+     * @param value
+     * @return the given value or an empty {@link String} if it is {@code null}.
+     */
+    private static String emptyIfNull(String value) {
+      return value == null ? XMLConstants.DEFAULT_NS_PREFIX : value;
+    }
+
+    @Override
+    public int getNamespaceCount() {
+      return reader.getNamespaceCount();
+    }
+
+    @Override
+    public String getNamespaceURI(int index) {
+      return reader.getNamespaceURI(index);
+    }
+
+    @Override
+    public String getNamespacePrefix(int index) {
+      return emptyIfNull(reader.getNamespacePrefix(index));
+    }
+
+    @Override
+    public int getAttributeCount() {
+      return reader.getAttributeCount();
+    }
+
+    @Override
+    public QName getAttributeName(int index) {
+      return reader.getAttributeName(index);
+    }
+
+    @Override
+    public String getAttributeLocalName(int index) {
+      return reader.getAttributeLocalName(index);
+    }
+
+    @Override
+    public String getAttributeNamespace(int index) {
+      return emptyIfNull(reader.getAttributeNamespace(index));
+    }
+
+    @Override
+    public String getAttributePrefix(int index) {
+      return emptyIfNull(reader.getAttributePrefix(index));
+    }
+
+    @Override
+    public String getAttributeValue(int index) {
+      return reader.getAttributeValue(index);
+    }
   }
 
   /**
@@ -933,7 +2585,7 @@ public class SBMLReader {
 
 
   /**
-   * Process a {@link StartElement} event.
+   * Process the start of an element.
    *
    * @param startElement
    * @param currentNode
@@ -942,7 +2594,7 @@ public class SBMLReader {
    * @param isInsideAnnotation
    * @return
    */
-  private ReadingParser processStartElement(StartElement startElement, QName currentNode,
+  private ReadingParser processStartElement(StartElementData startElement, QName currentNode,
     Boolean isHTML, Stack<Object> sbmlElements, boolean isInsideAnnotation)
   {
     ReadingParser parser = null;
@@ -985,12 +2637,8 @@ public class SBMLReader {
 
         if (parser != null) {
 
-          @SuppressWarnings("unchecked")
-          Iterator<Namespace> nam = startElement.getNamespaces();
-          @SuppressWarnings("unchecked")
-          Iterator<Attribute> att = startElement.getAttributes();
-          boolean hasAttributes = att.hasNext();
-          boolean hasNamespace = nam.hasNext();
+          boolean hasAttributes = startElement.getAttributeCount() > 0;
+          boolean hasNamespace = startElement.getNamespaceCount() > 0;
 
           // if the object on the top of the stack is an XMLNode, we always use the XMLNodeReader
           if (isInsideAnnotation || (sbmlElements.peek() instanceof XMLNode))
@@ -1001,10 +2649,12 @@ public class SBMLReader {
           // All the subNodes of SBML are processed.
           if (!currentNode.getLocalPart().equals("sbml"))
           {
+            long startTime = startTiming();
             Object processedElement = parser.processStartElement(currentNode.getLocalPart(),
               currentNode.getNamespaceURI(),
               currentNode.getPrefix(), hasAttributes,
               hasNamespace, sbmlElements.peek());
+            stopTiming(parser, startTime);
 
             if (processedElement != null) {
               // TODO - we won't need this code any more if the list of child is stored directly in the ASTNode facade
@@ -1014,13 +2664,12 @@ public class SBMLReader {
                 if (currentNode.getLocalPart().equals("cn") && hasAttributes) {
                   Object object = sbmlElements.peek();
 
-                  while (att.hasNext()) {
+                  for (int i = 0; i < startElement.getAttributeCount(); i++) {
 
-                    Attribute attribute = att.next();
-                    String attributeName = attribute.getName().getLocalPart();
+                    String attributeName = startElement.getAttributeLocalName(i);
 
                     if (attributeName.equals("type")) {
-                      String type = attribute.getValue();
+                      String type = startElement.getAttributeValue(i);
 
                       if (type.equalsIgnoreCase("integer")) {
                         astNode.setType(Type.INTEGER);
@@ -1043,13 +2692,12 @@ public class SBMLReader {
                 if (currentNode.getLocalPart().equals("csymbol") && hasAttributes) {
                   Object object = sbmlElements.peek();
 
-                  while (att.hasNext()) {
+                  for (int i = 0; i < startElement.getAttributeCount(); i++) {
 
-                    Attribute attribute = att.next();
-                    String attributeName = attribute.getName().getLocalPart();
+                    String attributeName = startElement.getAttributeLocalName(i);
 
                     if (attributeName.equals("definitionURL")) {
-                      String type = attribute.getValue();
+                      String type = startElement.getAttributeValue(i);
 
                       if (type.equalsIgnoreCase(ASTNode.URI_TIME_DEFINITION)) {
                         astNode.setType(Type.NAME_TIME);
@@ -1071,9 +2719,6 @@ public class SBMLReader {
                     }
                   }
                 }
-
-                // reset the Iterator of attributes so that they can be processed correctly in #processAttributes(...)
-                att = startElement.getAttributes();
               }
 
               sbmlElements.push(processedElement);
@@ -1087,10 +2732,10 @@ public class SBMLReader {
           }
 
           // process the namespaces
-          processNamespaces(nam, currentNode,sbmlElements, parser, hasAttributes);
+          processNamespaces(startElement, currentNode,sbmlElements, parser, hasAttributes);
 
           // Process the attributes
-          processAttributes(att, currentNode, sbmlElements, parser, hasAttributes, isInsideAnnotation);
+          processAttributes(startElement, currentNode, sbmlElements, parser, hasAttributes, isInsideAnnotation);
 
         } else {
           logger.warn(MessageFormat.format("Cannot find a parser for the {0} namespace", elementNamespace));
@@ -1108,75 +2753,111 @@ public class SBMLReader {
   /**
    * Process Namespaces of the current element on the stack.
    *
-   * @param nam
+   * @param startElement
    * @param currentNode
    * @param sbmlElements
    * @param parser
    * @param hasAttributes
    */
-  private void processNamespaces(Iterator<Namespace> nam, QName currentNode,
+  private void processNamespaces(StartElementData startElement, QName currentNode,
     Stack<Object> sbmlElements,	ReadingParser parser, boolean hasAttributes)
   {
     ReadingParser namespaceParser = null;
+    int namespaceCount = startElement.getNamespaceCount();
+
+    for (int i = 0; i < namespaceCount; i++) {
+      String namespaceURI = startElement.getNamespaceURI(i);
+      boolean isLastNamespace = i == namespaceCount - 1;
 
-    while (nam.hasNext()) {
-      Namespace namespace = nam.next();
-      boolean isLastNamespace = !nam.hasNext();
-      namespaceParser = initializedParsers.get(namespace.getNamespaceURI());
+      if (stringPool != null) {
+        namespaceURI = stringPool.intern(namespaceURI);
+      }
+      namespaceParser = initializedParsers.get(namespaceURI);
+
+      // The parsers expect the prefix and local name of the namespace declaration itself,
+      // i.e. 'xmlns' and the bound prefix, or an empty prefix and 'xmlns' for the default namespace.
+      String boundPrefix = startElement.getNamespacePrefix(i);
+      String prefix = XMLConstants.DEFAULT_NS_PREFIX;
+      String localName = XMLConstants.XMLNS_ATTRIBUTE;
+
+      if (boundPrefix.length() > 0) {
+        prefix = XMLConstants.XMLNS_ATTRIBUTE;
+        localName = boundPrefix;
+      }
 
-      logger.debug("processNamespaces: " + namespace.getNamespaceURI());
+      logger.debug("processNamespaces: " + namespaceURI);
 
       // Calling the currentNode parser to store all the declared namespaces
+      long startTime = startTiming();
       parser.processNamespace(currentNode.getLocalPart(),
-        namespace.getNamespaceURI(),
-        namespace.getName().getPrefix(),
-        namespace.getName().getLocalPart(),
+        namespaceURI, prefix, localName,
         hasAttributes, isLastNamespace,
         sbmlElements.peek());
+      stopTiming(parser, startTime);
 
       // Calling each corresponding parser, in case they want to initialize things for the currentNode
       if ((namespaceParser != null) && !namespaceParser.getClass().equals(parser.getClass())) {
 
         logger.debug("processNamespaces 2e parser: " + namespaceParser);
 
+        startTime = startTiming();
         namespaceParser.processNamespace(currentNode.getLocalPart(),
-          namespace.getNamespaceURI(),
-          namespace.getName().getPrefix(),
-          namespace.getName().getLocalPart(),
+          namespaceURI, prefix, localName,
           hasAttributes, isLastNamespace,
           sbmlElements.peek());
+        stopTiming(namespaceParser, startTime);
       } else if (namespaceParser == null) {
         // These namespaces would be treated by the anyXML parser
-        logger.warn(MessageFormat.format("Cannot find a parser for the {0} namespace", namespace.getNamespaceURI()));
+        logger.warn(MessageFormat.format("Cannot find a parser for the {0} namespace", namespaceURI));
       }
     }
 
   }
 
+  /**
+   * Returns {@code true} if the values of the attributes with the given name
+   * are identifiers, or references to identifiers, shared through the
+   * {@link StringPool}.
+   * 
+   * @param attributeName
+   *        the local name of the attribute.
+   * @return whether the values of the attribute are pooled.
+   */
+  private static boolean isPooledAttribute(String attributeName) {
+    return attributeName.equals("id") || attributeName.endsWith("Ref") || attributeName.endsWith("Units")
+        || POOLED_ATTRIBUTES.contains(attributeName);
+  }
+
   /**
    * Process Attributes of the current element on the stack.
    *
-   * @param att
+   * @param startElement
    * @param currentNode
    * @param sbmlElements
    * @param parser
    * @param hasAttributes
    * @param isInsideAnnotation
    */
-  private void processAttributes(Iterator<Attribute> att, QName currentNode,
+  private void processAttributes(StartElementData startElement, QName currentNode,
     Stack<Object> sbmlElements, ReadingParser parser, boolean hasAttributes,
     boolean isInsideAnnotation)
   {
     ReadingParser attributeParser = null;
+    int attributeCount = startElement.getAttributeCount();
 
-    while (att.hasNext()) {
+    for (int i = 0; i < attributeCount; i++) {
 
-      Attribute attribute = att.next();
-      boolean isLastAttribute = !att.hasNext();
-      QName attributeName = attribute.getName();
+      boolean isLastAttribute = i == attributeCount - 1;
+      String attributeLocalName = startElement.getAttributeLocalName(i);
+      String attributeNamespaceURI = startElement.getAttributeNamespace(i);
+      String attributePrefix = startElement.getAttributePrefix(i);
+      String attributeValue = startElement.getAttributeValue(i);
+
+      if ((stringPool != null) && !isInsideAnnotation && isPooledAttribute(attributeLocalName)) {
+        attributeValue = stringPool.intern(attributeValue);
+      }
 
-      if (attribute.getName().getNamespaceURI().length() > 0) {
-        String attributeNamespaceURI = attribute.getName().getNamespaceURI();
+      if (attributeNamespaceURI.length() > 0) {
 
         if (isInsideAnnotation)
         {
@@ -1192,27 +2873,79 @@ public class SBMLReader {
       }
 
       if (attributeParser != null) {
+        long startTime = startTiming();
         boolean isAttributeRead = attributeParser.processAttribute(
           currentNode.getLocalPart(),
-          attributeName.getLocalPart(),
-          attribute.getValue(),
-          attributeName.getNamespaceURI(),
-          attributeName.getPrefix(),
+          attributeLocalName,
+          attributeValue,
+          attributeNamespaceURI,
+          attributePrefix,
           isLastAttribute, sbmlElements.peek());
+        stopTiming(attributeParser, startTime);
+
+        // the elements register their identifiers when they are set
+        if ((statistics != null) && !isInsideAnnotation
+            && (attributeLocalName.equals("id") || attributeLocalName.equals("metaid"))) {
+          statistics.addIdRegistrationTime(System.nanoTime() - startTime);
+        }
 
         if (!isAttributeRead) {
           // store the unknownAttribute
-          AbstractReaderWriter.processUnknownAttribute(attributeName.getLocalPart(), attributeName.getNamespaceURI(),
-            attribute.getValue(), attributeName.getPrefix(), sbmlElements.peek());
+          AbstractReaderWriter.processUnknownAttribute(attributeLocalName, attributeNamespaceURI,
+            attributeValue, attributePrefix, sbmlElements.peek());
         }
 
       } else {
-        logger.warn("Cannot find a parser for the " + attribute.getName().getNamespaceURI() + " namespace");
+        logger.warn("Cannot find a parser for the " + attributeNamespaceURI + " namespace");
       }
     }
   }
 
 
+  /**
+   * Gives the given element to the {@link #elementVisitor} if it is a
+   * top-level element of the {@link Model}, i.e., a direct child of one of the
+   * {@link ListOf} of the {@link Model}, and removes it from its
+   * {@link ListOf} if the visitor does not want to keep it.
+   *
+   * @param processedElement the element that was just removed from the stack.
+   */
+  private void visitTopLevelElement(Object processedElement) {
+    if (!(processedElement instanceof SBase) || (processedElement instanceof ListOf<?>)) {
+      return;
+    }
+    SBase sbase = (SBase) processedElement;
+    TreeNode parent = sbase.getParent();
+
+    if (!(parent instanceof ListOf<?>) || !(((ListOf<?>) parent).getParent() instanceof Model)) {
+      return;
+    }
+    @SuppressWarnings("unchecked")
+    ListOf<SBase> listOf = (ListOf<SBase>) parent;
+    int index = listOf.size() - 1;
+
+    if ((index < 0) || (listOf.get(index) != sbase)) {
+      return;
+    }
+
+    // Level 1 rules are otherwise only converted at the end of the document by the core parser
+    if (sbase instanceof Rule) {
+      Rule realRule = SBMLCoreParser.convertLevel1Rule((Rule) sbase);
+
+      if (realRule != sbase) {
+        listOf.remove(index);
+        listOf.add(realRule);
+        sbase = realRule;
+      }
+    }
+
+    cleanTreeNode((AbstractTreeNode) sbase);
+
+    if (!elementVisitor.visit(sbase)) {
+      listOf.remove(index);
+    }
+  }
+
   /**
    * Process the end of an element.
    *
@@ -1258,14 +2991,20 @@ public class SBMLReader {
           logger.debug("event.isEndElement: calling parser.processEndElement " + parser.getClass());
         }
 
+        long startTime = startTiming();
         boolean popElementFromTheStack = parser.processEndElement(currentNode.getLocalPart(),
           currentNode.getPrefix(), isNested, sbmlElements.peek());
+        stopTiming(parser, startTime);
         // remove the top of the SBMLElements stack at the
         // end of an element if this element is not the sbml
         // element.
         if (!currentNode.getLocalPart().equals("sbml")) {
           if (popElementFromTheStack) {
-            sbmlElements.pop();
+            Object processedElement = sbmlElements.pop();
+
+            if (elementVisitor != null) {
+              visitTopLevelElement(processedElement);
+            }
           }
 
           // System.out.println("SBMLReader: event.isEndElement: new stack.size = "
@@ -1280,6 +3019,10 @@ public class SBMLReader {
           if (sbmlElements.peek() instanceof SBMLDocument) {
             SBMLDocument sbmlDocument = (SBMLDocument) sbmlElements.peek();
 
+            if ((endOfDocumentHandler != null) && !endOfDocumentHandler.endOfDocument(sbmlDocument)) {
+              return sbmlDocument;
+            }
+
             Iterator<Entry<String, ReadingParser>> iterator = initializedParsers.entrySet().iterator();
             List<String> readingParserClasses = new ArrayList<String>();
 
@@ -1294,7 +3037,9 @@ public class SBMLReader {
 
                 logger.debug("event.isEndElement: EndDocument found: parser = " + sbmlParser.getClass());
 
+                startTime = startTiming();
                 sbmlParser.processEndDocument(sbmlDocument);
+                stopTiming(sbmlParser, startTime);
 
                 // call endDocument only on the parser associated with the namespaces
                 // declared on the sbml document ??.
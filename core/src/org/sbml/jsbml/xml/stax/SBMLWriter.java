@@ -21,6 +21,7 @@ package org.sbml.jsbml.xml.stax;
 
 import java.io.BufferedOutputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.CharArrayWriter;
 import java.io.File;
 import java.io.FileFilter;
 import java.io.FileOutputStream;
@@ -28,6 +29,8 @@ import java.io.IOException;
 import java.io.OutputStream;
 import java.io.StringWriter;
 import java.io.UnsupportedEncodingException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
 import java.text.MessageFormat;
 import java.util.ArrayList;
 import java.util.Calendar;
@@ -38,6 +41,11 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import javax.swing.tree.TreeNode;
 import javax.xml.stream.XMLStreamException;
@@ -47,12 +55,12 @@ import org.apache.log4j.Logger;
 import org.codehaus.stax2.XMLStreamWriter2;
 import org.codehaus.staxmate.SMOutputFactory;
 import org.codehaus.staxmate.out.SMNamespace;
-import org.codehaus.staxmate.out.SMOutputContainer;
 import org.codehaus.staxmate.out.SMOutputContext;
 import org.codehaus.staxmate.out.SMOutputDocument;
 import org.codehaus.staxmate.out.SMOutputElement;
-import org.codehaus.staxmate.out.SMRootFragment;
 import org.sbml.jsbml.ASTNode;
+import org.sbml.jsbml.AbstractMathContainer;
+import org.sbml.jsbml.AbstractSBase;
 import org.sbml.jsbml.Annotation;
 import org.sbml.jsbml.Constraint;
 import org.sbml.jsbml.JSBML;
@@ -63,6 +71,7 @@ import org.sbml.jsbml.SBMLDocument;
 import org.sbml.jsbml.SBMLException;
 import org.sbml.jsbml.SBase;
 import org.sbml.jsbml.UnitDefinition;
+import org.sbml.jsbml.util.CompressionTools;
 import org.sbml.jsbml.util.StringTools;
 import org.sbml.jsbml.util.compilers.MathMLXMLStreamCompiler;
 import org.sbml.jsbml.xml.XMLNode;
@@ -71,6 +80,7 @@ import org.sbml.jsbml.xml.parsers.ParserManager;
 import org.sbml.jsbml.xml.parsers.WritingParser;
 import org.sbml.jsbml.xml.parsers.XMLNodeWriter;
 
+import com.ctc.wstx.api.WstxOutputProperties;
 import com.ctc.wstx.stax.WstxOutputFactory;
 
 /**
@@ -83,6 +93,12 @@ import com.ctc.wstx.stax.WstxOutputFactory;
  */
 public class SBMLWriter {
 
+  /**
+   * The default minimal number of elements of a {@link ListOf} written in
+   * parallel, see {@link #setThreadCount(int)}.
+   */
+  public static final int DEFAULT_MIN_PARALLEL_LIST_SIZE = 1000;
+
   // Commenting out this static block as setting those system properties has some unwanted side
   // effect, for example in OSGi where the properties are global
   // The fact to use directly WstxOutputFactory and WstxInputFactory when creating the parser
@@ -236,6 +252,35 @@ public class SBMLWriter {
      */
   }
 
+  /**
+   * Whether the elements are written directly to the {@link XMLStreamWriter2}
+   * rather than through StaxMate output elements.
+   */
+  private boolean directOutput = true;
+
+  /**
+   * Whether the text of the unchanged elements of the documents read with
+   * {@link SBMLReader#setKeepSource(boolean)} is copied.
+   */
+  private boolean reuseSource = true;
+
+  /**
+   * The maximal number of parts of the large {@link ListOf}s written in
+   * parallel, {@code 1} to write the documents sequentially.
+   */
+  private int threadCount = 1;
+
+  /**
+   * The minimal number of elements of a {@link ListOf} written in parallel.
+   */
+  private int minParallelListSize = DEFAULT_MIN_PARALLEL_LIST_SIZE;
+
+  /**
+   * The threads writing the parts of the large {@link ListOf}s while a
+   * document is written, or {@code null}.
+   */
+  private transient ExecutorService executor;
+
   /**
    * The symbol for indentation.
    */
@@ -339,6 +384,130 @@ public class SBMLWriter {
     return indentCount;
   }
 
+  /**
+   * Returns {@code true} if the elements are written directly to the
+   * {@link XMLStreamWriter2}.
+   * 
+   * @return {@code true} if the elements are written directly.
+   * @see #setDirectOutput(boolean)
+   */
+  public boolean isDirectOutput() {
+    return directOutput;
+  }
+
+  /**
+   * Sets whether the elements should be written directly to the
+   * {@link XMLStreamWriter2}, which is the default, or through a StaxMate
+   * {@link SMOutputDocument}.
+   * 
+   * <p>Both ways produce the same bytes, but the direct output does not
+   * create any StaxMate object nor any new {@link SBMLObjectForXML} for the
+   * elements it writes, which makes it faster for large documents.</p>
+   * 
+   * @param directOutput {@code false} to write through StaxMate output
+   * elements.
+   */
+  public void setDirectOutput(boolean directOutput) {
+    this.directOutput = directOutput;
+  }
+
+  /**
+   * Returns {@code true} if the text of the unchanged elements of a document
+   * is copied from the {@link SourceCache} of the document.
+   * 
+   * @return {@code true} if the text of the unchanged elements is copied.
+   * @see #setReuseSource(boolean)
+   */
+  public boolean isReuseSource() {
+    return reuseSource;
+  }
+
+  /**
+   * Sets whether the elements of a document read with
+   * {@link SBMLReader#setKeepSource(boolean)} that did not change since they
+   * were read should be copied from the text they were read from, which is
+   * the default, instead of being written again.
+   * 
+   * <p>The copied elements keep the indentation and the formatting of the
+   * source, so turning this off is the way to write such a document with the
+   * indentation of this writer. The source is only copied with the
+   * {@link #setDirectOutput(boolean) direct output}.</p>
+   * 
+   * @param reuseSource {@code false} to write all the elements again.
+   */
+  public void setReuseSource(boolean reuseSource) {
+    this.reuseSource = reuseSource;
+  }
+
+  /**
+   * Returns the maximal number of parts of the large {@link ListOf}s written
+   * in parallel.
+   * 
+   * @return the number of threads writing a document, {@code 1} if the
+   *         documents are written sequentially.
+   * @see #setThreadCount(int)
+   */
+  public int getThreadCount() {
+    return threadCount;
+  }
+
+  /**
+   * Sets the number of threads writing a document, {@code 1} by default.
+   * 
+   * <p>With more than one thread, the {@link ListOf}s having at least
+   * {@link #getMinParallelListSize()} elements, such as the lists of species,
+   * of reactions or of the glyphs of a layout, are cut into parts of
+   * consecutive elements. Each part is written to its own buffer by a
+   * separate {@link SBMLWriter}, with the indentation and the namespace
+   * bindings of the list, and the buffers are copied to the output in the
+   * order of the list, while the rest of the document is written by the
+   * calling thread. The document must not be changed while it is written.</p>
+   * 
+   * <p>The bytes written are the same as when writing sequentially, except
+   * that a namespace first declared below an element of a part does not see
+   * the prefixes chosen in the previous parts of the same list. The parts are
+   * only written in parallel with the
+   * {@link #setDirectOutput(boolean) direct output}.</p>
+   * 
+   * @param threadCount the maximal number of parts written in parallel.
+   */
+  public void setThreadCount(int threadCount) {
+    if (threadCount < 1) {
+      throw new IllegalArgumentException(MessageFormat.format(
+        "The number of threads must be positive, but was {0,number,integer}.", threadCount));
+    }
+    this.threadCount = threadCount;
+  }
+
+  /**
+   * Returns the minimal number of elements of a {@link ListOf} written in
+   * parallel.
+   * 
+   * @return the minimal number of elements of a list written in parallel.
+   * @see #setMinParallelListSize(int)
+   */
+  public int getMinParallelListSize() {
+    return minParallelListSize;
+  }
+
+  /**
+   * Sets the minimal number of elements of a {@link ListOf} written in
+   * parallel when {@link #setThreadCount(int) several threads} are used,
+   * {@link #DEFAULT_MIN_PARALLEL_LIST_SIZE} by default. Smaller lists are
+   * written by the calling thread, as writing them separately costs more
+   * than it saves.
+   * 
+   * @param minParallelListSize the minimal number of elements of a list
+   *        written in parallel.
+   */
+  public void setMinParallelListSize(int minParallelListSize) {
+    if (minParallelListSize < 1) {
+      throw new IllegalArgumentException(MessageFormat.format(
+        "The minimal list size must be positive, but was {0,number,integer}.", minParallelListSize));
+    }
+    this.minParallelListSize = minParallelListSize;
+  }
+
 
   /**
    * Gets all the writing parsers necessary to write the given object.
@@ -392,6 +561,37 @@ public class SBMLWriter {
   }
 
 
+  /**
+   * Gets the writing parser necessary to write the given object.
+   * 
+   * @param object
+   * @param parentNamespace the namespace used when the object has none.
+   * @return the writing parser necessary to write this element or
+   *         {@code null} if there is none.
+   * @see #getWritingParsers(Object, String)
+   */
+  private WritingParser getWritingParser(Object object, String parentNamespace) {
+    String namespace = parentNamespace;
+
+    if (object instanceof SBase) {
+      if (((SBase) object).getNamespace() != null) {
+        namespace = ((SBase) object).getNamespace();
+      }
+    } else if (!(object instanceof Annotation)) {
+      logger.warn("getInitializedParsers: I don't know what to do with " + object);
+    }
+
+    WritingParser sbmlParser = instantiatedSBMLParsers.get(namespace);
+
+    if ((sbmlParser == null) && !issuedWarnings.contains(namespace)) {
+      logger.debug("Skipping detailed parsing of Namespace '" + namespace
+        + "'. No parser available.");
+      issuedWarnings.add(namespace);
+    }
+
+    return sbmlParser;
+  }
+
   /**
    * Creates the ReadingParser instances and stores them in a HashMap.
    * 
@@ -466,6 +666,10 @@ public class SBMLWriter {
   /**
    * Writes the {@link SBMLDocument} into a {@link File}.
    * 
+   * <p>If the name of the file ends with {@code .gz} or {@code .zip}, the
+   * document is compressed while it is written, see
+   * {@link CompressionTools#compress(OutputStream, String)}.</p>
+   * 
    * @param document the {@link SBMLDocument} to write.
    * @param file the {@link File} to write to.
    * @param programName the program name.
@@ -480,9 +684,17 @@ public class SBMLWriter {
     String programVersion) throws XMLStreamException, SBMLException, IOException {
     FileOutputStream stream = new FileOutputStream(file);
     BufferedOutputStream buffer = new BufferedOutputStream(stream);
+    OutputStream compressedStream = buffer;
     XMLStreamException exc1 = null;
     try {
-      write(document, buffer, programName, programVersion);
+      compressedStream = CompressionTools.compress(buffer, file.getName());
+
+      if (compressedStream == buffer) {
+        // an uncompressed file does not need the buffered stream
+        write(document, stream.getChannel(), programName, programVersion);
+      } else {
+        write(document, compressedStream, programName, programVersion);
+      }
     } catch (XMLStreamException exc) {
       /*
        * Catching this exception makes sure that we have still the chance to
@@ -492,10 +704,11 @@ public class SBMLWriter {
       exc1 = exc;
     } finally {
       try {
+        // closing the outermost stream first finishes the compressed data
         try {
-          stream.close();
+          compressedStream.close();
         } finally {
-          buffer.close();
+          stream.close();
         }
       } catch (IOException exc2) {
         // Ok, we lost. No chance to really close these streams. Heavy error.
@@ -543,23 +756,93 @@ public class SBMLWriter {
   public void write(SBMLDocument sbmlDocument, OutputStream stream,
     String programName, String programVersion)
         throws XMLStreamException, SBMLException {
-    if ((sbmlDocument == null) || !sbmlDocument.isSetLevel() || !sbmlDocument.isSetVersion()) {
-      throw new IllegalArgumentException(
-          "Unable to write SBML output for documents with undefined SBML Level and Version flag.");
-    }
+    checkDocument(sbmlDocument);
 
-    Logger logger = Logger.getLogger(SBMLWriter.class);
+    // Explicitly creating WstxOutputFactory as it is needed by staxmate and it is then easier for
+    // OSGi to find the needed dependencies
+    WstxOutputFactory factory = new WstxOutputFactory();
 
-    // check package version and namespace in general and register packages if needed.
-    PackageUtil.checkPackages(sbmlDocument, true, true);
+    if (directOutput) {
+      writeDirectly(sbmlDocument, (XMLStreamWriter2) factory.createXMLStreamWriter(stream),
+        programName, programVersion);
+    } else {
+      writeWithStaxMate(sbmlDocument, new SMOutputFactory(factory).createStax2Writer(stream),
+        programName, programVersion);
+    }
+  }
 
-    initializePackageParsers();
+  /**
+   * Writes the {@link SBMLDocument} into a {@link WritableByteChannel}, such
+   * as a {@link FileChannel} or a {@link java.nio.channels.SocketChannel}.
+   * 
+   * @param sbmlDocument the {@link SBMLDocument} to write.
+   * @param channel the {@link WritableByteChannel} to write to.
+   * @throws XMLStreamException if any error occur while creating the XML document.
+   * @throws SBMLException if any error is detected in the {@link SBMLDocument}.
+   * @throws IOException if the channel cannot be written to.
+   * @see #write(SBMLDocument, WritableByteChannel, String, String)
+   */
+  public void write(SBMLDocument sbmlDocument, WritableByteChannel channel)
+      throws XMLStreamException, SBMLException, IOException {
+    write(sbmlDocument, channel, null, null);
+  }
+
+  /**
+   * Writes the XML representation of an {@link SBMLDocument} into a
+   * {@link WritableByteChannel}, such as a {@link FileChannel} or a
+   * {@link java.nio.channels.SocketChannel}.
+   * 
+   * <p>The document is encoded in UTF-8 straight into a direct
+   * {@link java.nio.ByteBuffer}, without the {@link OutputStream} and
+   * encoder layers, and the buffers are reused from one document to the
+   * next, which pays off when many documents are written. The channel is
+   * not closed.</p>
+   * 
+   * @param sbmlDocument the {@link SBMLDocument} to write.
+   * @param channel the {@link WritableByteChannel} to write to.
+   * @param programName the program name (can be null).
+   * @param programVersion the program version (can be null).
+   * @throws XMLStreamException if any error occur while creating the XML document.
+   * @throws SBMLException if any error is detected in the {@link SBMLDocument}.
+   * @throws IOException if the channel cannot be written to.
+   */
+  public void write(SBMLDocument sbmlDocument, WritableByteChannel channel,
+    String programName, String programVersion)
+        throws XMLStreamException, SBMLException, IOException {
+    checkDocument(sbmlDocument);
 
-    // Explicitly creating WstxOutputFactory as it is needed by staxmate and it is then easier for
-    // OSGi to find the needed dependencies
     WstxOutputFactory factory = new WstxOutputFactory();
-    SMOutputFactory smFactory = new SMOutputFactory(factory);
-    XMLStreamWriter2 streamWriter = smFactory.createStax2Writer(stream);
+    ChannelWriter writer = new ChannelWriter(channel);
+
+    try {
+      if (directOutput) {
+        writeDirectly(sbmlDocument, factory.createXMLStreamWriter(writer, "UTF-8"),
+          programName, programVersion);
+      } else {
+        writeWithStaxMate(sbmlDocument, new SMOutputFactory(factory).createStax2Writer(writer),
+          programName, programVersion);
+      }
+      writer.flush();
+    } finally {
+      writer.release();
+    }
+  }
+
+  /**
+   * Writes the XML representation of an {@link SBMLDocument} through
+   * StaxMate output elements, see {@link #setDirectOutput(boolean)}.
+   * 
+   * @param sbmlDocument the {@link SBMLDocument}
+   * @param streamWriter the {@link XMLStreamWriter2} to write to.
+   * @param programName the program name (can be null).
+   * @param programVersion the program version (can be null).
+   * @throws XMLStreamException if any error occur while creating the XML document.
+   * @throws SBMLException if any error is detected in the {@link SBMLDocument}.
+   */
+  private void writeWithStaxMate(SBMLDocument sbmlDocument, XMLStreamWriter2 streamWriter,
+    String programName, String programVersion)
+        throws XMLStreamException, SBMLException {
+    Logger logger = Logger.getLogger(SBMLWriter.class);
 
     SMOutputDocument outputDocument = SMOutputFactory.createOutputDocument(
       streamWriter, "1.0", "UTF-8", false);
@@ -579,12 +862,7 @@ public class SBMLWriter {
      * which version of JSBML was used for this purpose.
      */
     if ((programName != null) && (programName.length() > 0)) {
-      outputDocument.addComment(
-        MessageFormat.format(
-          " Created by {0} version {1} on {2,date,yyyy-MM-dd} at {2,time,kk:mm:ss z} with JSBML version {3}. ",
-          (programName != null) && (programName.length() > 0) ? programName : "?",
-            (programVersion != null)  && (programVersion.length() > 0) ? programVersion : "?",
-              Calendar.getInstance().getTime(), JSBML.getJSBMLDottedVersion()));
+      outputDocument.addComment(createProgramComment(programName, programVersion));
       outputDocument.addCharacters("\n");
     }
 
@@ -628,13 +906,12 @@ public class SBMLWriter {
 
     int indent = indentCount;
     if (sbmlDocument.isSetNotes()) {
-      writeNotes(sbmlDocument, smOutputElement, streamWriter,
-        SBMLNamespace, indent);
+      writeNotes(sbmlDocument, streamWriter, indent);
     }
     if (sbmlDocument.isSetAnnotation()) {
-      writeAnnotation(sbmlDocument, smOutputElement, streamWriter,
-        indent, false);
+      writeAnnotation(sbmlDocument, streamWriter, indent);
     }
+    writeSkippedXML(sbmlDocument, true, streamWriter, indent);
     smOutputElement.addCharacters("\n");
 
     writeSBMLElements(xmlObject, smOutputElement, streamWriter,
@@ -643,6 +920,153 @@ public class SBMLWriter {
     outputDocument.closeRoot();
   }
 
+  /**
+   * Checks that the given document can be written and prepares the parsers
+   * of its packages.
+   * 
+   * @param sbmlDocument the {@link SBMLDocument}
+   */
+  private void checkDocument(SBMLDocument sbmlDocument) {
+    if ((sbmlDocument == null) || !sbmlDocument.isSetLevel() || !sbmlDocument.isSetVersion()) {
+      throw new IllegalArgumentException(
+          "Unable to write SBML output for documents with undefined SBML Level and Version flag.");
+    }
+
+    // check package version and namespace in general and register packages if needed.
+    PackageUtil.checkPackages(sbmlDocument, true, true);
+
+    initializePackageParsers();
+  }
+
+  /**
+   * Writes the tokens of an {@link SBMLDocument} to the given
+   * {@link XMLStreamWriter2}, in the same way as
+   * {@link #setDirectOutput(boolean) direct output}. The indentation is
+   * written as white space characters, and the elements of a document read
+   * with {@link SBMLReader#setLazyMath(boolean) lazy math} or
+   * {@link SBMLReader#setLazyNotesAndAnnotation(boolean) lazy notes and
+   * annotations}, or copied from its {@link SourceCache}, are written with
+   * {@link XMLStreamWriter2#writeRaw(String)}, so that a stream writer laying
+   * out the document itself has to handle both.
+   * 
+   * @param sbmlDocument the {@link SBMLDocument}
+   * @param streamWriter the {@link XMLStreamWriter2} to write to.
+   * @param programName the program name (can be null).
+   * @param programVersion the program version (can be null).
+   * @throws XMLStreamException if any error occur while creating the XML document.
+   * @throws SBMLException if any error is detected in the {@link SBMLDocument}.
+   */
+  public void write(SBMLDocument sbmlDocument, XMLStreamWriter2 streamWriter,
+    String programName, String programVersion)
+        throws XMLStreamException, SBMLException {
+    checkDocument(sbmlDocument);
+    writeDirectly(sbmlDocument, streamWriter, programName, programVersion);
+  }
+
+  /**
+   * Writes the XML representation of an {@link SBMLDocument} directly to an
+   * {@link XMLStreamWriter2}, see {@link #setDirectOutput(boolean)}.
+   * 
+   * @param sbmlDocument the {@link SBMLDocument}
+   * @param streamWriter the {@link XMLStreamWriter2} to write to.
+   * @param programName the program name (can be null).
+   * @param programVersion the program version (can be null).
+   * @throws XMLStreamException if any error occur while creating the XML document.
+   * @throws SBMLException if any error is detected in the {@link SBMLDocument}.
+   */
+  private void writeDirectly(SBMLDocument sbmlDocument, XMLStreamWriter2 streamWriter,
+    String programName, String programVersion)
+        throws XMLStreamException, SBMLException {
+    String SBMLNamespace = JSBML.getNamespaceFrom(sbmlDocument.getLevel(),
+      sbmlDocument.getVersion());
+    SourceCache sourceCache = reuseSource ? SourceCache.getSourceCache(sbmlDocument) : null;
+
+    if ((sourceCache != null) && !sourceCache.isDeclaredIn(sbmlDocument, SBMLNamespace)) {
+      sourceCache = null;
+    }
+    boolean copyDocument = (sourceCache != null) && sourceCache.isUnchanged(sbmlDocument);
+
+    NamespaceBindings namespaces = new NamespaceBindings();
+
+    streamWriter.writeStartDocument("1.0", "UTF-8", false);
+    streamWriter.writeCharacters("\n");
+
+    if ((programName != null) && (programName.length() > 0)) {
+      streamWriter.writeComment(createProgramComment(programName, programVersion));
+      streamWriter.writeCharacters("\n");
+    }
+
+    if (copyDocument) {
+      // the writer does not see the copied root element and could not end the document
+      sourceCache.writeSource(sbmlDocument, streamWriter);
+      streamWriter.flush();
+      return;
+    }
+
+    namespaces.addPreferredPrefix(SBMLNamespace, "");
+    namespaces.writeStartElement(streamWriter, SBMLNamespace, sbmlDocument.getElementName());
+
+    SBMLObjectForXML xmlObject = new SBMLObjectForXML();
+    xmlObject.addAttributes(sbmlDocument.writeXMLAttributes());
+
+    // register all the name spaces of the SBMLDocument to the writer
+    for (Map.Entry<String, String> namespace : sbmlDocument.getDeclaredNamespaces().entrySet()) {
+      String prefix = namespace.getKey();
+
+      if (!prefix.equals("xmlns")) {
+        streamWriter.setPrefix(prefix.substring(prefix.indexOf(':') + 1), namespace.getValue());
+        xmlObject.getAttributes().put(prefix, namespace.getValue());
+      }
+    }
+
+    for (Map.Entry<String, String> attribute : xmlObject.getAttributes().entrySet()) {
+      streamWriter.writeAttribute(attribute.getKey(), attribute.getValue());
+    }
+
+    int indent = indentCount;
+    if (sbmlDocument.isSetNotes()) {
+      writeNotes(sbmlDocument, streamWriter, indent);
+    }
+    if (sbmlDocument.isSetAnnotation()) {
+      writeAnnotation(sbmlDocument, streamWriter, indent);
+    }
+    writeSkippedXML(sbmlDocument, true, streamWriter, indent);
+    streamWriter.writeCharacters("\n");
+
+    if (threadCount > 1) {
+      executor = Executors.newFixedThreadPool(threadCount);
+    }
+    try {
+      writeSBMLElements(xmlObject, streamWriter, namespaces, sourceCache,
+        sbmlDocument, SBMLNamespace, indent);
+    } finally {
+      if (executor != null) {
+        executor.shutdownNow();
+        executor = null;
+      }
+    }
+
+    namespaces.writeEndElement(streamWriter);
+    streamWriter.writeEndDocument();
+    streamWriter.close();
+  }
+
+  /**
+   * Creates the comment that tracks which program created an SBML file and
+   * which version of JSBML was used for this purpose.
+   * 
+   * @param programName
+   * @param programVersion
+   * @return the text of the comment.
+   */
+  private String createProgramComment(String programName, String programVersion) {
+    return MessageFormat.format(
+      " Created by {0} version {1} on {2,date,yyyy-MM-dd} at {2,time,kk:mm:ss z} with JSBML version {3}. ",
+      (programName != null) && (programName.length() > 0) ? programName : "?",
+        (programVersion != null)  && (programVersion.length() > 0) ? programVersion : "?",
+          Calendar.getInstance().getTime(), JSBML.getJSBMLDottedVersion());
+  }
+
   /**
    * Writes the XML representation of an {@link SBMLDocument} in a SBML file.
    * 
@@ -699,13 +1123,10 @@ public class SBMLWriter {
     SMOutputFactory smFactory = new SMOutputFactory(outputFactory);
     XMLStreamWriter2 writer = smFactory.createStax2Writer(stream);
 
-    // Create an xml fragment to avoid having the xml declaration
-    SMRootFragment outputDocument = SMOutputFactory.createOutputFragment(writer);
-
     // all the sbml element namespaces are registered to the writer in the writeAnnotation method
 
-    // call the writeAnnotation, indicating that we are building an xml fragment
-    writeAnnotation(sbase, outputDocument, writer, 0, true);
+    // no start document is written, to avoid having the xml declaration
+    writeAnnotation(sbase, writer, 0);
 
     writer.writeEndDocument();
     writer.close();
@@ -720,19 +1141,19 @@ public class SBMLWriter {
    * 
    * @param sbase
    *          the {@link SBase} element.
-   * @param element
-   *          the matching {@link SMOutputElement}
    * @param writer
    *          the {@link XMLStreamWriter} to write to.
    * @param indent
    *            the number of indent white spaces of this annotation.
-   * @param xmlFragment
    * @throws XMLStreamException if any error occur while creating the XML document.
    */
-  private void writeAnnotation(SBase sbase, SMOutputContainer element,
-    XMLStreamWriter writer, int indent, boolean xmlFragment)
-        throws XMLStreamException
+  private void writeAnnotation(SBase sbase, XMLStreamWriter writer, int indent)
+      throws XMLStreamException
   {
+    if ((sbase instanceof AbstractSBase) && (((AbstractSBase) sbase).getUnparsedAnnotation() != null)) {
+      writeUnparsedXML(((AbstractSBase) sbase).getUnparsedAnnotation(), writer, indent);
+      return;
+    }
     XMLNode fullAnnotationXMLNode = sbase.getAnnotation().getFullAnnotation();
 
     writer.writeCharacters("\n");
@@ -743,13 +1164,11 @@ public class SBMLWriter {
 
   /**
    * @param xmlNode
-   * @param smOutputParentElement
    * @param writer
    * @param indent
    * @throws XMLStreamException
    */
-  private void writeXMLNode(XMLNode xmlNode,
-    SMOutputElement smOutputParentElement, XMLStreamWriter writer,
+  private void writeXMLNode(XMLNode xmlNode, XMLStreamWriter writer,
     int indent) throws XMLStreamException
   {
 
@@ -777,6 +1196,10 @@ public class SBMLWriter {
   private void writeMathML(MathContainer m, SMOutputElement element,
     XMLStreamWriter writer, int indent) throws XMLStreamException
   {
+    if ((m instanceof AbstractMathContainer) && (((AbstractMathContainer) m).getUnparsedMath() != null)) {
+      writeUnparsedXML(((AbstractMathContainer) m).getUnparsedMath(), writer, indent);
+      return;
+    }
     if (m.isSetMath()) {
 
       String whitespaces = createIndentationString(indent);
@@ -787,82 +1210,130 @@ public class SBMLWriter {
       // Creating an SMOutputElement to be sure that the previous nested element tag is closed properly.
       SMNamespace mathMLNamespace = element.getNamespace(ASTNode.URI_MATHML_DEFINITION, ASTNode.URI_MATHML_PREFIX);
       SMOutputElement mathElement = element.addElement(mathMLNamespace, "math");
-
-      MathMLXMLStreamCompiler compiler = new MathMLXMLStreamCompiler(
-        writer, createIndentationString(indent + indentCount));
-      boolean isSBMLNamespaceNeeded = compiler.isSBMLNamespaceNeeded(m.getMath());
-
-      // TODO: add all other namespaces !!
-
-      if (isSBMLNamespaceNeeded) {
-        // writing the SBML namespace
-        SBMLDocument doc = null;
-        SBase sbase = m.getMath().getParentSBMLObject();
-        String sbmlNamespace = SBMLDocument.URI_NAMESPACE_L3V1Core;
-
-        if (sbase != null) {
-          doc = sbase.getSBMLDocument();
-          sbmlNamespace = doc.getDeclaredNamespaces().get("xmlns");
-
-          if (sbmlNamespace == null) {
-            logger.warn("writeMathML: the SBML namespace of this SBMLDocument" +
-                " could not be found, using the default namespace (" +
-                SBMLDocument.URI_NAMESPACE_L3V1Core + ") instead.");
-            sbmlNamespace = SBMLDocument.URI_NAMESPACE_L3V1Core;
-          }
-        }
-        writer.writeNamespace("sbml", sbmlNamespace);
-      }
-
       mathElement.setIndentation(createIndentationString(indent + 2), indent + indentCount, indentCount);
 
-      writer.writeCharacters(whitespaces);
-      writer.writeCharacters("\n");
-
-      ASTNode astNode = m.getMath();
-
-      // if an ASTNode.isSemantics we need to write the enclosing 'semantics' element !!
-      if (astNode.isSemantics()) {
-        writer.writeCharacters(whitespaces);
-        writer.writeStartElement("semantics");
-        writer.writeCharacters("\n");
-      }
-
-      compiler.compile(m.getMath());
-
-      // writing the semantics annotation elements here to write them only for the top level element.
-      if (astNode.isSemantics()) {
-
-        compiler.compileSemanticAnnotations(astNode);
-
-        writer.writeCharacters(whitespaces);
-        writer.writeEndElement();
-        writer.writeCharacters("\n");
-      }
-
-      writer.writeCharacters(whitespaces);
+      writeMathMLContent(m, writer, indent);
     }
   }
 
   /**
-   * Writes the message of a {@link Constraint} to the given {@link XMLStreamWriter}.
+   * Writes the MathML expression of a {@link MathContainer} element directly
+   * to an {@link XMLStreamWriter2}.
    * 
-   * @param sbase
-   *          the {@link Constraint} element.
-   * @param element
-   *          the matching {@link SMOutputElement}.
+   * @param m
+   *          the {@link MathContainer} element.
    * @param writer
-   *          the {@link XMLStreamWriter} to write to.
-   * @param sbmlNamespace
-   *          the SBML namespace.
+   *          the {@link XMLStreamWriter2} to write to.
+   * @param namespaces
+   *          the namespaces bound in the document written.
    * @param indent the number of white spaces to indent this element.
    * @throws XMLStreamException if any error occur while creating the XML document.
    */
-  private void writeMessage(Constraint sbase, SMOutputElement element,
-    XMLStreamWriter writer, String sbmlNamespace, int indent)
-        throws XMLStreamException
+  private void writeMathML(MathContainer m, XMLStreamWriter2 writer,
+    NamespaceBindings namespaces, int indent) throws XMLStreamException
   {
-
+    if ((m instanceof AbstractMathContainer) && (((AbstractMathContainer) m).getUnparsedMath() != null)) {
+      writeUnparsedXML(((AbstractMathContainer) m).getUnparsedMath(), writer, indent);
+      return;
+    }
+    if (m.isSetMath()) {
+      writer.writeCharacters("\n");
+      writer.writeRaw(createIndentationString(indent));
+
+      namespaces.addPreferredPrefix(ASTNode.URI_MATHML_DEFINITION, ASTNode.URI_MATHML_PREFIX);
+      namespaces.writeStartElement(writer, ASTNode.URI_MATHML_DEFINITION, "math");
+      writeMathMLContent(m, writer, indent);
+      namespaces.writeEndElement(writer);
+    }
+  }
+
+  /**
+   * Writes the content of the {@code math} element of a {@link MathContainer}.
+   * 
+   * @param m
+   *          the {@link MathContainer} element.
+   * @param writer
+   *          the {@link XMLStreamWriter} to write to.
+   * @param indent the number of white spaces to indent the {@code math}
+   *          element.
+   * @throws XMLStreamException if any error occur while creating the XML document.
+   */
+  private void writeMathMLContent(MathContainer m, XMLStreamWriter writer,
+    int indent) throws XMLStreamException
+  {
+    String whitespaces = createIndentationString(indent);
+    MathMLXMLStreamCompiler compiler = new MathMLXMLStreamCompiler(
+      writer, createIndentationString(indent + indentCount));
+    boolean isSBMLNamespaceNeeded = compiler.isSBMLNamespaceNeeded(m.getMath());
+
+    // TODO: add all other namespaces !!
+
+    if (isSBMLNamespaceNeeded) {
+      // writing the SBML namespace
+      SBMLDocument doc = null;
+      SBase sbase = m.getMath().getParentSBMLObject();
+      String sbmlNamespace = SBMLDocument.URI_NAMESPACE_L3V1Core;
+
+      if (sbase != null) {
+        doc = sbase.getSBMLDocument();
+        sbmlNamespace = doc.getDeclaredNamespaces().get("xmlns");
+
+        if (sbmlNamespace == null) {
+          logger.warn("writeMathML: the SBML namespace of this SBMLDocument" +
+              " could not be found, using the default namespace (" +
+              SBMLDocument.URI_NAMESPACE_L3V1Core + ") instead.");
+          sbmlNamespace = SBMLDocument.URI_NAMESPACE_L3V1Core;
+        }
+      }
+      writer.writeNamespace("sbml", sbmlNamespace);
+    }
+
+    writer.writeCharacters(whitespaces);
+    writer.writeCharacters("\n");
+
+    ASTNode astNode = m.getMath();
+
+    // if an ASTNode.isSemantics we need to write the enclosing 'semantics' element !!
+    if (astNode.isSemantics()) {
+      writer.writeCharacters(whitespaces);
+      writer.writeStartElement("semantics");
+      writer.writeCharacters("\n");
+    }
+
+    compiler.compile(m.getMath());
+
+    // writing the semantics annotation elements here to write them only for the top level element.
+    if (astNode.isSemantics()) {
+
+      compiler.compileSemanticAnnotations(astNode);
+
+      writer.writeCharacters(whitespaces);
+      writer.writeEndElement();
+      writer.writeCharacters("\n");
+    }
+
+    writer.writeCharacters(whitespaces);
+  }
+
+  /**
+   * Writes the message of a {@link Constraint} to the given {@link XMLStreamWriter}.
+   * 
+   * @param sbase
+   *          the {@link Constraint} element.
+   * @param element
+   *          the matching {@link SMOutputElement}.
+   * @param writer
+   *          the {@link XMLStreamWriter} to write to.
+   * @param sbmlNamespace
+   *          the SBML namespace.
+   * @param indent the number of white spaces to indent this element.
+   * @throws XMLStreamException if any error occur while creating the XML document.
+   */
+  private void writeMessage(Constraint sbase, SMOutputElement element,
+    XMLStreamWriter writer, String sbmlNamespace, int indent)
+        throws XMLStreamException
+  {
+
     String whitespaces = createIndentationString(indent);
     element.addCharacters("\n");
     // set the indentation for the math opening tag
@@ -873,6 +1344,52 @@ public class SBMLWriter {
     SMOutputElement messageElement = element.addElement(sbmlSMNamespace, "message");
     messageElement.setIndentation(createIndentationString(indent + 2), indent + indentCount, indentCount);
 
+    writeMessageContent(sbase, writer, indent);
+  }
+
+  /**
+   * Writes the message of a {@link Constraint} directly to an
+   * {@link XMLStreamWriter2}.
+   * 
+   * @param sbase
+   *          the {@link Constraint} element.
+   * @param writer
+   *          the {@link XMLStreamWriter2} to write to.
+   * @param namespaces
+   *          the namespaces bound in the document written.
+   * @param namespace
+   *          the namespace of the {@link Constraint} element.
+   * @param indent the number of white spaces to indent this element.
+   * @throws XMLStreamException if any error occur while creating the XML document.
+   */
+  private void writeMessage(Constraint sbase, XMLStreamWriter2 writer,
+    NamespaceBindings namespaces, String namespace, int indent)
+        throws XMLStreamException
+  {
+    writer.writeCharacters("\n");
+    writer.writeRaw(createIndentationString(indent));
+
+    namespaces.writeStartElement(writer, namespace, "message");
+    writeMessageContent(sbase, writer, indent);
+    namespaces.writeEndElement(writer);
+  }
+
+  /**
+   * Writes the content of the {@code message} element of a {@link Constraint}.
+   * 
+   * @param sbase
+   *          the {@link Constraint} element.
+   * @param writer
+   *          the {@link XMLStreamWriter} to write to.
+   * @param indent the number of white spaces to indent the {@code message}
+   *          element.
+   * @throws XMLStreamException if any error occur while creating the XML document.
+   */
+  private void writeMessageContent(Constraint sbase, XMLStreamWriter writer,
+    int indent) throws XMLStreamException
+  {
+    String whitespaces = createIndentationString(indent);
+
     writer.writeCharacters(whitespaces);
     writer.writeCharacters("\n");
 
@@ -888,25 +1405,44 @@ public class SBMLWriter {
    * 
    * @param sbase
    *          the {@link SBase} element.
-   * @param element
-   *          the matching {@link SMOutputElement}
    * @param writer
    *          the {@link XMLStreamWriter} to write to.
-   * @param sbmlNamespace
-   *          the SBML namespace.
    * @param indent the number of white spaces to indent this element.
    * @throws XMLStreamException if any error occur while creating the XML document.
    */
-  private void writeNotes(SBase sbase, SMOutputElement element,
-    XMLStreamWriter writer, String sbmlNamespace, int indent)
-        throws XMLStreamException
+  private void writeNotes(SBase sbase, XMLStreamWriter writer, int indent)
+      throws XMLStreamException
   {
+    if ((sbase instanceof AbstractSBase) && (((AbstractSBase) sbase).getUnparsedNotes() != null)) {
+      writeUnparsedXML(((AbstractSBase) sbase).getUnparsedNotes(), writer, indent);
+      return;
+    }
     writer.writeCharacters("\n");
     XMLNodeWriter xmlNodeWriter = new XMLNodeWriter(writer, indent,
       indentCount, indentChar);
     xmlNodeWriter.write(sbase.getNotes());
   }
 
+  /**
+   * Writes the unparsed notes, annotation or math of an {@link SBase} element
+   * as they were read, see {@link SBMLReader#setLazyNotesAndAnnotation(boolean)}
+   * and {@link SBMLReader#setLazyMath(boolean)}.
+   * 
+   * @param xml
+   *          the unparsed XML.
+   * @param writer
+   *          the {@link XMLStreamWriter} to write to.
+   * @param indent the number of white spaces to indent this element.
+   * @throws XMLStreamException if any error occur while creating the XML document.
+   */
+  private void writeUnparsedXML(String xml, XMLStreamWriter writer, int indent)
+      throws XMLStreamException
+  {
+    writer.writeCharacters("\n");
+    writer.writeCharacters(createIndentationString(indent));
+    ((XMLStreamWriter2) writer).writeRaw(xml);
+  }
+
 
   /**
    * Writes the SBML elements to an {@link XMLStreamWriter}.
@@ -961,59 +1497,12 @@ public class SBMLWriter {
 
       for (Object nextObjectToWrite : sbmlElementsToWrite)
       {
-        if (! (nextObjectToWrite instanceof SBase))
-        {
-          if (parentObject instanceof SBase) {
-            SBase parentSBase = (SBase) parentObject;
-
-            // making several if block to make things easier to read and like this it is
-            // ready in case we decide to write them here, when encountered in the tree.
-
-            // Notes XMLNode is written later in this method
-            if (nextObjectToWrite == parentSBase.getNotes()) {
-              continue;
-            }
-            // MathML and Annotation are written later
-            if (nextObjectToWrite instanceof ASTNode || nextObjectToWrite instanceof Annotation) {
-              continue;
-            }
-            // Constraint Message is written later
-            if ((parentObject instanceof Constraint) && (nextObjectToWrite == ((Constraint) parentObject).getMessage())){
-              continue;
-            }
-          }
-
-          // additional XMLNode that could come from an L3 package or from unknown XML elements
-          if (nextObjectToWrite instanceof XMLNode) {
-            writeXMLNode((XMLNode) nextObjectToWrite, smOutputParentElement, streamWriter, indent);
-            continue;
-          }
-
-          logger.warn("Element '" + nextObjectToWrite.getClass().getSimpleName() +
-              "' ignored, we are not sure what to do with it !!");
+        if (!isSBMLElementToWrite(nextObjectToWrite, parentObject, streamWriter, indent)) {
           continue;
         }
 
         SBase s = (SBase) nextObjectToWrite;
 
-        // test if this element is part of a disabled package. Do not write the element if it is the case
-        if (s.getNamespace() != null) {
-          SBMLDocument doc = s.getSBMLDocument();
-          Boolean isPackageEnabled = null;
-
-          if (doc != null) {
-            isPackageEnabled = doc.isPackageEnabledOrDisabled(s.getNamespace());
-          } else {
-            // Something is wrong - should not happen
-            isPackageEnabled = s.isPackageEnabled(s.getNamespace());
-            logger.warn("The SBMLDocument could not be found!");
-          }
-
-          if ((isPackageEnabled != null) && isPackageEnabled.equals(Boolean.FALSE)) {
-            continue;
-          }
-        }
-
         // this new element might need a different writer than it's parent !!
         List<WritingParser> listOfChildPackages = getWritingParsers(nextObjectToWrite, smOutputParentElement.getNamespace().getURI());
         SBMLObjectForXML childXmlObject = new SBMLObjectForXML();
@@ -1077,17 +1566,19 @@ public class SBMLWriter {
         }
 
         if (s.isSetNotes()) {
-          writeNotes(s, newOutPutElement, streamWriter,
-            newOutPutElement.getNamespace()
-            .getURI(), indent + indentCount);
+          writeNotes(s, streamWriter, indent + indentCount);
           elementIsNested = true;
         }
         if (s.isSetAnnotation()) {
-          writeAnnotation(s, newOutPutElement,
-            streamWriter,
-            indent + indentCount, false);
+          writeAnnotation(s, streamWriter, indent + indentCount);
           elementIsNested = isClosedAnnotation = true;
         }
+        if (writeSkippedXML(s, true, streamWriter, indent + indentCount)) {
+          elementIsNested = isClosedAnnotation = true;
+        }
+        if (s.isSetUserObjects() && (s.getUserObject(JSBML.SKIPPED_XML) != null)) {
+          elementIsNested = true;
+        }
 
         if (childXmlObject.getCharacters() != null && childXmlObject.getCharacters().trim().length() != 0) {
           newOutPutElement.addCharacters(childXmlObject.getCharacters());
@@ -1135,11 +1626,399 @@ public class SBMLWriter {
         smOutputParentElement.addCharacters("\n");
       }
 
+      // the skipped elements are written after all the other child elements
+      if ((parentObject instanceof SBase) && (parser == listOfPackages.get(listOfPackages.size() - 1))) {
+        writeSkippedXML((SBase) parentObject, false, streamWriter, indent);
+      }
+
       // write the indent before closing the element
       streamWriter.writeCharacters(whiteSpaces.substring(0, indent - indentCount));
     }
   }
 
+  /**
+   * Writes the SBML elements directly to an {@link XMLStreamWriter2}, see
+   * {@link #setDirectOutput(boolean)}.
+   * 
+   * <p>The same {@link SBMLObjectForXML} is used for all the elements, as its
+   * content is written as soon as the start tag of an element is.</p>
+   * 
+   * @param xmlObject
+   *          the {@link SBMLObjectForXML} to use to write the elements.
+   * @param streamWriter the {@link XMLStreamWriter2} to write to.
+   * @param namespaces
+   *          the namespaces bound in the document written.
+   * @param sourceCache
+   *          the text of the unchanged elements, or {@code null}.
+   * @param parentObject
+   *          the {@link Object} to write.
+   * @param parentNamespace
+   *          the namespace of the element of the parentObject.
+   * @param indent
+   *            the number of white spaces to indent this element.
+   * @throws XMLStreamException if any error occur while creating the XML document.
+   * @throws SBMLException if any error is detected in the {@link SBMLDocument}.
+   */
+  private void writeSBMLElements(SBMLObjectForXML xmlObject,
+    XMLStreamWriter2 streamWriter, NamespaceBindings namespaces, SourceCache sourceCache,
+    Object parentObject, String parentNamespace, int indent)
+        throws XMLStreamException, SBMLException
+  {
+    WritingParser parser = getWritingParser(parentObject, parentNamespace);
+
+    if (parser == null) {
+      return;
+    }
+
+    List<Object> sbmlElementsToWrite = parser.getListOfSBMLElementsToWrite(parentObject);
+
+    if (sbmlElementsToWrite == null) {
+      return;
+    }
+
+    String whiteSpaces = createIndentationString(indent);
+
+    if ((executor != null) && (parentObject instanceof ListOf<?>)
+        && (sbmlElementsToWrite.size() >= minParallelListSize)) {
+      writeSBMLElementsInParallel(sbmlElementsToWrite, streamWriter, namespaces,
+        sourceCache, parentObject, parentNamespace, indent);
+    } else {
+      for (Object nextObjectToWrite : sbmlElementsToWrite) {
+        writeSBMLElement(xmlObject, streamWriter, namespaces, sourceCache,
+          nextObjectToWrite, parentObject, parentNamespace, indent, whiteSpaces);
+      }
+    }
+
+    // the skipped elements are written after all the other child elements
+    if (parentObject instanceof SBase) {
+      writeSkippedXML((SBase) parentObject, false, streamWriter, indent);
+    }
+
+    // write the indent before closing the element
+    streamWriter.writeCharacters(whiteSpaces.substring(0, indent - indentCount));
+  }
+
+  /**
+   * Writes the elements of a large {@link ListOf} in parallel, see
+   * {@link #setThreadCount(int)}. The parts of the list are written by
+   * {@link PartWriter}s and copied to the {@link XMLStreamWriter2} in order.
+   * 
+   * @param sbmlElementsToWrite
+   *          the elements of the parentObject.
+   * @param streamWriter the {@link XMLStreamWriter2} to write to.
+   * @param namespaces
+   *          the namespaces bound in the document written.
+   * @param sourceCache
+   *          the text of the unchanged elements, or {@code null}.
+   * @param parentObject
+   *          the {@link ListOf} being written.
+   * @param parentNamespace
+   *          the namespace of the element of the parentObject.
+   * @param indent
+   *            the number of white spaces to indent the elements.
+   * @throws XMLStreamException if any error occur while creating the XML document.
+   * @throws SBMLException if any error is detected in the {@link SBMLDocument}.
+   */
+  private void writeSBMLElementsInParallel(List<Object> sbmlElementsToWrite,
+    XMLStreamWriter2 streamWriter, NamespaceBindings namespaces, SourceCache sourceCache,
+    Object parentObject, String parentNamespace, int indent)
+        throws XMLStreamException, SBMLException
+  {
+    int size = sbmlElementsToWrite.size();
+    int partSize = (size + 4 * threadCount - 1) / (4 * threadCount);
+    Map<String, String> declaredNamespaces = ((SBase) parentObject).getSBMLDocument().getDeclaredNamespaces();
+    List<PartWriter> parts = new ArrayList<PartWriter>();
+    List<Future<PartBuffer>> results = new ArrayList<Future<PartBuffer>>();
+
+    for (int start = 0; start < size; start += partSize) {
+      PartWriter part = new PartWriter(sbmlElementsToWrite.subList(start, Math.min(start + partSize, size)),
+        namespaces.copy(), declaredNamespaces, sourceCache, parentObject, parentNamespace, indent);
+      parts.add(part);
+      results.add(executor.submit(part));
+    }
+
+    for (int i = 0; i < parts.size(); i++) {
+      try {
+        results.get(i).get().writeTo(streamWriter);
+      } catch (InterruptedException exc) {
+        Thread.currentThread().interrupt();
+        throw new XMLStreamException(exc);
+      } catch (ExecutionException exc) {
+        Throwable cause = exc.getCause();
+
+        if (cause instanceof XMLStreamException) {
+          throw (XMLStreamException) cause;
+        } else if (cause instanceof RuntimeException) {
+          throw (RuntimeException) cause;
+        } else if (cause instanceof Error) {
+          throw (Error) cause;
+        }
+        throw new XMLStreamException(cause);
+      }
+      // the following elements see the prefixes chosen by this part
+      namespaces.addPrefixes(parts.get(i).namespaces);
+    }
+  }
+
+  /**
+   * Writes one child of an element directly to an {@link XMLStreamWriter2},
+   * see {@link #writeSBMLElements(SBMLObjectForXML, XMLStreamWriter2, NamespaceBindings, SourceCache, Object, String, int)}.
+   * 
+   * @param xmlObject
+   *          the {@link SBMLObjectForXML} to use to write the elements.
+   * @param streamWriter the {@link XMLStreamWriter2} to write to.
+   * @param namespaces
+   *          the namespaces bound in the document written.
+   * @param sourceCache
+   *          the text of the unchanged elements, or {@code null}.
+   * @param nextObjectToWrite
+   *          a child of the parentObject.
+   * @param parentObject
+   *          the {@link Object} being written.
+   * @param parentNamespace
+   *          the namespace of the element of the parentObject.
+   * @param indent
+   *            the number of white spaces to indent the child.
+   * @param whiteSpaces
+   *            the indentation of the child.
+   * @throws XMLStreamException if any error occur while creating the XML document.
+   * @throws SBMLException if any error is detected in the {@link SBMLDocument}.
+   */
+  private void writeSBMLElement(SBMLObjectForXML xmlObject,
+    XMLStreamWriter2 streamWriter, NamespaceBindings namespaces, SourceCache sourceCache,
+    Object nextObjectToWrite, Object parentObject, String parentNamespace, int indent,
+    String whiteSpaces) throws XMLStreamException, SBMLException
+  {
+    if (!isSBMLElementToWrite(nextObjectToWrite, parentObject, streamWriter, indent)) {
+      return;
+    }
+
+    SBase s = (SBase) nextObjectToWrite;
+    WritingParser childParser = getWritingParser(nextObjectToWrite, parentNamespace);
+
+    if (childParser == null) {
+      logger.error("No parser found, element ignored! (" + nextObjectToWrite.getClass().getName() + ")");
+      return;
+    }
+    if (isEmptyListOf(nextObjectToWrite))
+    {
+      streamWriter.writeCharacters(whiteSpaces.substring(0, indent));
+      return;
+    }
+    if ((sourceCache != null) && sourceCache.isUnchanged(s, namespaces)) {
+      streamWriter.writeCharacters(whiteSpaces);
+      sourceCache.writeSource(s, streamWriter);
+      streamWriter.writeCharacters("\n");
+      return;
+    }
+
+    boolean elementIsNested = s.getChildCount() > 0;
+
+    // Writing the element, starting by the indent
+    streamWriter.writeCharacters(whiteSpaces);
+    xmlObject.reset();
+    childParser.writeElement(xmlObject, nextObjectToWrite);
+    childParser.writeNamespaces(xmlObject, nextObjectToWrite);
+    childParser.writeAttributes(xmlObject, nextObjectToWrite);
+    childParser.writeCharacters(xmlObject, nextObjectToWrite);
+
+    if (!xmlObject.isSetName()) {
+      logger.error("XML name not set, element ignored! (" + nextObjectToWrite.getClass().getName() + ")");
+      return;
+    }
+
+    boolean isClosedMathContainer = false, isClosedAnnotation = false;
+    String namespace = parentNamespace;
+
+    if (xmlObject.isSetNamespace()) {
+      namespace = xmlObject.getNamespace();
+      namespaces.addPreferredPrefix(namespace, xmlObject.getPrefix());
+    }
+    namespaces.writeStartElement(streamWriter, namespace, xmlObject.getName());
+
+    for (Map.Entry<String, String> attribute : xmlObject.getAttributes().entrySet()) {
+      streamWriter.writeAttribute(attribute.getKey(), attribute.getValue());
+    }
+
+    if (s.isSetNotes()) {
+      writeNotes(s, streamWriter, indent + indentCount);
+      elementIsNested = true;
+    }
+    if (s.isSetAnnotation()) {
+      writeAnnotation(s, streamWriter, indent + indentCount);
+      elementIsNested = isClosedAnnotation = true;
+    }
+    if (writeSkippedXML(s, true, streamWriter, indent + indentCount)) {
+      elementIsNested = isClosedAnnotation = true;
+    }
+    if (s.isSetUserObjects() && (s.getUserObject(JSBML.SKIPPED_XML) != null)) {
+      elementIsNested = true;
+    }
+
+    if (xmlObject.getCharacters() != null && xmlObject.getCharacters().trim().length() != 0) {
+      streamWriter.writeCharacters(xmlObject.getCharacters());
+    }
+
+    if (nextObjectToWrite instanceof MathContainer) {
+      MathContainer mathContainer = (MathContainer) nextObjectToWrite;
+      if (mathContainer.getLevel() > 1) {
+        writeMathML(mathContainer, streamWriter, namespaces, indent + indentCount);
+        elementIsNested = true;
+      }
+      isClosedMathContainer = true;
+    }
+    if (nextObjectToWrite instanceof Constraint) {
+      Constraint constraint = (Constraint) nextObjectToWrite;
+      if (constraint.isSetMessage()) {
+        writeMessage(constraint, streamWriter, namespaces, namespace, indent + indentCount);
+        elementIsNested = true;
+      }
+    }
+    if (!elementIsNested
+        && ((nextObjectToWrite instanceof Model) || (nextObjectToWrite instanceof UnitDefinition))) {
+      elementIsNested = true;
+    }
+
+    // to allow the XML parser to prune empty element, this line should not be added in all the cases.
+    if (elementIsNested) {
+      streamWriter.writeCharacters("\n");
+      if (isClosedMathContainer || isClosedAnnotation) {
+        streamWriter.writeCharacters(whiteSpaces);
+      }
+    }
+
+    writeSBMLElements(xmlObject, streamWriter, namespaces, sourceCache,
+      nextObjectToWrite, namespace, indent + indentCount);
+    namespaces.writeEndElement(streamWriter);
+    streamWriter.writeCharacters("\n");
+  }
+
+  /**
+   * Returns {@code true} if the given child of an element must be written
+   * as an SBML element. The additional {@link XMLNode}s that are not written
+   * separately, such as the notes, are written by this method.
+   * 
+   * @param nextObjectToWrite
+   *          a child of the parentObject.
+   * @param parentObject
+   *          the {@link Object} being written.
+   * @param streamWriter the {@link XMLStreamWriter} to write to.
+   * @param indent
+   *            the number of white spaces to indent the child.
+   * @return {@code true} if the child is an {@link SBase} to write.
+   * @throws XMLStreamException if any error occur while creating the XML document.
+   */
+  private boolean isSBMLElementToWrite(Object nextObjectToWrite,
+    Object parentObject, XMLStreamWriter streamWriter, int indent)
+        throws XMLStreamException
+  {
+    if (! (nextObjectToWrite instanceof SBase))
+    {
+      if (parentObject instanceof SBase) {
+        SBase parentSBase = (SBase) parentObject;
+
+        // making several if block to make things easier to read and like this it is
+        // ready in case we decide to write them here, when encountered in the tree.
+
+        // Notes XMLNode is written later in this method, unparsed notes are not part of the children
+        if ((nextObjectToWrite instanceof XMLNode) && parentSBase.isSetNotes()
+            && !((parentSBase instanceof AbstractSBase) && (((AbstractSBase) parentSBase).getUnparsedNotes() != null))
+            && (nextObjectToWrite == parentSBase.getNotes())) {
+          return false;
+        }
+        // MathML and Annotation are written later
+        if (nextObjectToWrite instanceof ASTNode || nextObjectToWrite instanceof Annotation) {
+          return false;
+        }
+        // Constraint Message is written later
+        if ((parentObject instanceof Constraint) && (nextObjectToWrite == ((Constraint) parentObject).getMessage())){
+          return false;
+        }
+      }
+
+      // additional XMLNode that could come from an L3 package or from unknown XML elements
+      if (nextObjectToWrite instanceof XMLNode) {
+        writeXMLNode((XMLNode) nextObjectToWrite, streamWriter, indent);
+        return false;
+      }
+
+      logger.warn("Element '" + nextObjectToWrite.getClass().getSimpleName() +
+          "' ignored, we are not sure what to do with it !!");
+      return false;
+    }
+
+    SBase s = (SBase) nextObjectToWrite;
+
+    // test if this element is part of a disabled package. Do not write the element if it is the case
+    if (s.getNamespace() != null) {
+      SBMLDocument doc = s.getSBMLDocument();
+      Boolean isPackageEnabled = null;
+
+      if (doc != null) {
+        isPackageEnabled = doc.isPackageEnabledOrDisabled(s.getNamespace());
+      } else {
+        // Something is wrong - should not happen
+        isPackageEnabled = s.isPackageEnabled(s.getNamespace());
+        logger.warn("The SBMLDocument could not be found!");
+      }
+
+      if ((isPackageEnabled != null) && isPackageEnabled.equals(Boolean.FALSE)) {
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+  /**
+   * Writes the XML elements of an {@link SBase} that were skipped while
+   * reading, see {@link SBMLReader#setKeepSkippedElements(boolean)}.
+   * 
+   * @param sbase
+   *          the {@link SBase} element.
+   * @param leading
+   *          {@code true} to write the skipped {@code notes} and
+   *          {@code annotation}, that come before any other child,
+   *          {@code false} to write the other skipped elements, at the
+   *          beginning of a new line.
+   * @param writer
+   *          the {@link XMLStreamWriter} to write to.
+   * @param indent the number of white spaces to indent the elements.
+   * @return {@code true} if some elements were written.
+   * @throws XMLStreamException if any error occur while creating the XML document.
+   */
+  private boolean writeSkippedXML(SBase sbase, boolean leading,
+    XMLStreamWriter writer, int indent) throws XMLStreamException
+  {
+    XMLNode skippedXML = sbase.isSetUserObjects() ? (XMLNode) sbase.getUserObject(JSBML.SKIPPED_XML) : null;
+    boolean written = false;
+
+    if (skippedXML == null) {
+      return false;
+    }
+
+    for (int i = 0; i < skippedXML.getChildCount(); i++) {
+      XMLNode xmlNode = skippedXML.getChildAt(i);
+
+      if (leading == (xmlNode.getName().equals("notes") || xmlNode.getName().equals("annotation"))) {
+        if (leading) {
+          writer.writeCharacters("\n");
+        }
+
+        // cloned to be written as a top level element
+        XMLNodeWriter xmlNodeWriter = new XMLNodeWriter(writer, indent, indentCount, indentChar);
+        xmlNodeWriter.write(xmlNode.clone());
+        written = true;
+
+        if (!leading) {
+          writer.writeCharacters("\n");
+        }
+      }
+    }
+
+    return written;
+  }
+
 
   /**
    * Returns {@code true} if the given {@link Object} is an empty {@link ListOf}, {@code false} otherwise.
@@ -1202,4 +2081,132 @@ public class SBMLWriter {
     }
   }
 
+  /**
+   * Writes a part of the elements of a large {@link ListOf} to a buffer,
+   * with its own {@link SBMLWriter}, as the {@link WritingParser}s are not
+   * shared between threads.
+   * 
+   * @since 1.6
+   */
+  private class PartWriter implements Callable<PartBuffer> {
+
+    /**
+     * The elements of the part.
+     */
+    private final List<Object> elements;
+
+    /**
+     * The namespaces bound in the document written, where the part starts.
+     */
+    private final NamespaceBindings namespaces;
+
+    /**
+     * The namespaces declared on the {@code sbml} element.
+     */
+    private final Map<String, String> declaredNamespaces;
+
+    /**
+     * The text of the unchanged elements, or {@code null}.
+     */
+    private final SourceCache sourceCache;
+
+    /**
+     * The {@link ListOf} being written.
+     */
+    private final Object parentObject;
+
+    /**
+     * The namespace of the element of the {@link #parentObject}.
+     */
+    private final String parentNamespace;
+
+    /**
+     * The number of white spaces to indent the elements.
+     */
+    private final int indent;
+
+    /**
+     * @param elements
+     * @param namespaces
+     * @param declaredNamespaces
+     * @param sourceCache
+     * @param parentObject
+     * @param parentNamespace
+     * @param indent
+     */
+    public PartWriter(List<Object> elements, NamespaceBindings namespaces,
+      Map<String, String> declaredNamespaces, SourceCache sourceCache,
+      Object parentObject, String parentNamespace, int indent) {
+      this.elements = elements;
+      this.namespaces = namespaces;
+      this.declaredNamespaces = declaredNamespaces;
+      this.sourceCache = sourceCache;
+      this.parentObject = parentObject;
+      this.parentNamespace = parentNamespace;
+      this.indent = indent;
+    }
+
+    /* (non-Javadoc)
+     * @see java.util.concurrent.Callable#call()
+     */
+    @Override
+    public PartBuffer call() throws XMLStreamException, SBMLException {
+      SBMLWriter writer = new SBMLWriter(indentChar, indentCount);
+      writer.initializePackageParsers();
+
+      // the part has no root element
+      WstxOutputFactory factory = new WstxOutputFactory();
+      factory.setProperty(WstxOutputProperties.P_OUTPUT_VALIDATE_STRUCTURE, Boolean.FALSE);
+      PartBuffer buffer = new PartBuffer();
+      XMLStreamWriter2 streamWriter = (XMLStreamWriter2) factory.createXMLStreamWriter(buffer);
+
+      for (Map.Entry<String, String> namespace : declaredNamespaces.entrySet()) {
+        String prefix = namespace.getKey();
+
+        if (!prefix.equals("xmlns")) {
+          streamWriter.setPrefix(prefix.substring(prefix.indexOf(':') + 1), namespace.getValue());
+        }
+      }
+
+      SBMLObjectForXML xmlObject = new SBMLObjectForXML();
+      String whiteSpaces = createIndentationString(indent);
+
+      for (Object nextObjectToWrite : elements) {
+        writer.writeSBMLElement(xmlObject, streamWriter, namespaces, sourceCache,
+          nextObjectToWrite, parentObject, parentNamespace, indent, whiteSpaces);
+      }
+      streamWriter.flush();
+
+      return buffer;
+    }
+
+  }
+
+  /**
+   * The characters written by a {@link PartWriter}, which are copied to the
+   * output without converting them to a {@link String}.
+   * 
+   * @since 1.6
+   */
+  private static class PartBuffer extends CharArrayWriter {
+
+    /**
+     * Creates a new {@link PartBuffer}.
+     */
+    public PartBuffer() {
+      super(8192);
+    }
+
+    /**
+     * Copies the characters of this buffer to the given writer.
+     * 
+     * @param writer
+     * @throws XMLStreamException
+     */
+    public void writeTo(XMLStreamWriter2 writer) throws XMLStreamException {
+      writer.writeRaw(buf, 0, count);
+    }
+
+  }
+
 }
@@ -0,0 +1,415 @@
+/*
+ * ----------------------------------------------------------------------------
+ * This file is part of JSBML. Please visit <http://sbml.org/Software/JSBML>
+ * for the latest version of JSBML and more information about SBML.
+ * 
+ * Copyright (C) 2009-2018 jointly by the following organizations:
+ * 1. The University of Tuebingen, Germany
+ * 2. EMBL European Bioinformatics Institute (EBML-EBI), Hinxton, UK
+ * 3. The California Institute of Technology, Pasadena, CA, USA
+ * 4. The University of California, San Diego, La Jolla, CA, USA
+ * 5. The Babraham Institute, Cambridge, UK
+ * 
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation. A copy of the license agreement is provided
+ * in the file named "LICENSE.txt" included with this software distribution
+ * and also available online as <http://sbml.org/Software/JSBML/License>.
+ * ----------------------------------------------------------------------------
+ */
+package org.sbml.jsbml.xml.stax;
+
+import java.beans.PropertyChangeEvent;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import javax.swing.tree.TreeNode;
+import javax.xml.stream.XMLStreamException;
+
+import org.codehaus.stax2.XMLStreamWriter2;
+import org.sbml.jsbml.ASTNode;
+import org.sbml.jsbml.SBMLDocument;
+import org.sbml.jsbml.SBase;
+import org.sbml.jsbml.util.TreeNodeChangeEvent;
+import org.sbml.jsbml.util.TreeNodeChangeListener;
+import org.sbml.jsbml.util.TreeNodeRemovedEvent;
+
+/**
+ * Keeps the XML text an {@link SBMLDocument} was read from, with the range
+ * of the text of each of its {@link SBase} elements, so that the
+ * {@link SBMLWriter} can copy the elements that did not change since they
+ * were read instead of writing them again. See
+ * {@link SBMLReader#setKeepSource(boolean)} and
+ * {@link SBMLWriter#setReuseSource(boolean)}.
+ * 
+ * <p>The cache listens to the changes of the document, see
+ * {@link org.sbml.jsbml.util.TreeNodeChangeDispatcher}. When an element, or
+ * any node below it such as its math or its notes, fires a
+ * {@link TreeNodeChangeListener} event, the ranges of the element and of all
+ * its ancestors are forgotten and these elements are written again. A change
+ * that does not fire any event is not seen by the cache, and the old text of
+ * the element would be written. Once no element can be copied anymore, the
+ * cache detaches itself from the document, see {@link #detach()}.</p>
+ * 
+ * <p>The elements are copied with the indentation and the namespace prefixes
+ * of the source. An element is only copied where the namespaces declared on
+ * the {@code sbml} element of the source are bound to the same prefixes in
+ * the written document.</p>
+ * 
+ * @since 1.6
+ */
+public class SourceCache implements TreeNodeChangeListener {
+
+  /**
+   * The key of the user object of an {@link SBMLDocument} holding its
+   * {@link SourceCache}.
+   */
+  public static final String SOURCE_CACHE = "org.sbml.jsbml.xml.stax.SourceCache";
+
+  /**
+   * Marks an element read more than once, that cannot be copied.
+   */
+  private static final int[] NO_RANGE = new int[0];
+
+  /**
+   * The XML text the document was read from.
+   */
+  private final String source;
+
+  /**
+   * The range of the text of each element, as its start and end offsets in
+   * {@link #source}.
+   */
+  private final Map<SBase, int[]> ranges = new IdentityHashMap<SBase, int[]>();
+
+  /**
+   * The namespaces declared on the {@code sbml} element of the source, by
+   * prefix, {@code ""} being the prefix of the default namespace.
+   */
+  private final Map<String, String> rootNamespaces = new HashMap<String, String>();
+
+  /**
+   * The document, set once it is read.
+   */
+  private SBMLDocument document;
+
+  /**
+   * For each element being read, its start offset.
+   */
+  private int[] openStarts = new int[32];
+
+  /**
+   * For each element being read, the {@link SBase} it was read into, or
+   * {@code null} if its range is not kept.
+   */
+  private SBase[] openElements = new SBase[32];
+
+  /**
+   * For each element being read, whether it declares namespaces.
+   */
+  private boolean[] openDeclarations = new boolean[32];
+
+  /**
+   * The number of elements being read.
+   */
+  private int depth;
+
+  /**
+   * The number of elements being read, below the {@code sbml} element, that
+   * declare namespaces.
+   */
+  private int declaringElements;
+
+  /**
+   * @param source
+   *        the XML text the document is read from.
+   */
+  SourceCache(String source) {
+    this.source = source;
+  }
+
+  /**
+   * Returns the {@link SourceCache} of the given document, if it was read
+   * with {@link SBMLReader#setKeepSource(boolean)}.
+   * 
+   * @param document
+   * @return the cache of the document, or {@code null}.
+   */
+  public static SourceCache getSourceCache(SBMLDocument document) {
+    if ((document == null) || !document.isSetUserObjects()) {
+      return null;
+    }
+    Object cache = document.getUserObject(SOURCE_CACHE);
+
+    return (cache instanceof SourceCache) ? (SourceCache) cache : null;
+  }
+
+  /**
+   * Records a namespace declared on the {@code sbml} element of the source.
+   * 
+   * @param prefix
+   * @param namespaceURI
+   */
+  void addRootNamespace(String prefix, String namespaceURI) {
+    rootNamespaces.put((prefix != null) ? prefix : "", namespaceURI);
+  }
+
+  /**
+   * Records the start of an element of the source.
+   * 
+   * @param offset
+   *        the offset of the start tag in the source.
+   * @param element
+   *        the {@link SBase} the element is read into, {@code null} if it
+   *        was not read into a new {@link SBase}. An element read into the
+   *        {@link SBase} of one of its ancestors is not kept.
+   * @param declaresNamespaces
+   *        whether the element declares namespaces.
+   */
+  void startElement(int offset, Object element, boolean declaresNamespaces) {
+    if (depth == openStarts.length) {
+      openStarts = Arrays.copyOf(openStarts, 2 * depth);
+      openElements = Arrays.copyOf(openElements, 2 * depth);
+      openDeclarations = Arrays.copyOf(openDeclarations, 2 * depth);
+    }
+    // the element could not be copied in the scope of the written document
+    if (declaringElements > 0) {
+      element = null;
+    }
+    // some parsers push their context object again for its child elements
+    for (int i = depth - 1; (i >= 0) && (element != null); i--) {
+      if (openElements[i] == element) {
+        element = null;
+      }
+    }
+    openStarts[depth] = offset;
+    openElements[depth] = (element instanceof SBase) ? (SBase) element : null;
+    openDeclarations[depth] = declaresNamespaces && (depth > 0);
+
+    if (openDeclarations[depth]) {
+      declaringElements++;
+    }
+    depth++;
+  }
+
+  /**
+   * Records the end of the last element started.
+   * 
+   * @param offset
+   *        the offset following the end tag in the source.
+   */
+  void endElement(int offset) {
+    if (depth == 0) {
+      return;
+    }
+    depth--;
+
+    if (openDeclarations[depth]) {
+      declaringElements--;
+    }
+    SBase element = openElements[depth];
+    openElements[depth] = null;
+
+    if (element != null) {
+      ranges.put(element, ranges.containsKey(element) ? NO_RANGE
+        : new int[] {openStarts[depth], offset});
+    }
+  }
+
+  /**
+   * Forgets the elements being read, when a part of their content is
+   * skipped and their text does not match what was read anymore.
+   */
+  void discardOpenElements() {
+    for (int i = 0; i < depth; i++) {
+      if (openElements[i] != null) {
+        ranges.put(openElements[i], NO_RANGE);
+        openElements[i] = null;
+      }
+    }
+  }
+
+  /**
+   * Attaches this cache to the document read, and starts listening to its
+   * changes through the {@link SBMLDocument#getChangeDispatcher()}, which
+   * does not add the cache to each node of the document.
+   * 
+   * @param document
+   */
+  void attach(SBMLDocument document) {
+    this.document = document;
+    document.putUserObject(SOURCE_CACHE, this);
+    document.getChangeDispatcher().addListener(this);
+  }
+
+  /**
+   * Removes this cache from the document and stops listening to its changes,
+   * so that the text of the document is not kept anymore and its changes do
+   * not need to be dispatched.
+   */
+  public void detach() {
+    if (document != null) {
+      document.getChangeDispatcher().removeListener(this);
+      if (document.getUserObject(SOURCE_CACHE) == this) {
+        document.removeUserObject(SOURCE_CACHE);
+      }
+      document = null;
+    }
+    ranges.clear();
+  }
+
+  /**
+   * Returns {@code true} if the namespaces declared on the {@code sbml}
+   * element of the source are declared the same way by the given document.
+   * 
+   * @param document
+   *        the document being written.
+   * @param sbmlNamespace
+   *        the namespace of the SBML elements in the written document.
+   * @return whether the elements of the source can be copied into the
+   *         written document.
+   */
+  boolean isDeclaredIn(SBMLDocument document, String sbmlNamespace) {
+    if (document != this.document) {
+      return false;
+    }
+    for (Map.Entry<String, String> namespace : rootNamespaces.entrySet()) {
+      String prefix = namespace.getKey();
+      String declared = (prefix.length() == 0) ? sbmlNamespace
+        : document.getDeclaredNamespaces().get("xmlns:" + prefix);
+
+      if (!namespace.getValue().equals(declared)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Returns {@code true} if the text of the given element can be copied at
+   * the current position of the written document.
+   * 
+   * @param sbase
+   * @param namespaces
+   *        the namespaces bound in the written document.
+   * @return whether the element did not change since it was read.
+   */
+  boolean isUnchanged(SBase sbase, NamespaceBindings namespaces) {
+    int[] range = ranges.get(sbase);
+
+    if ((range == null) || (range.length == 0)) {
+      return false;
+    }
+    String defaultNamespace = rootNamespaces.get("");
+
+    if (!namespaces.getDefaultNamespace().equals((defaultNamespace != null) ? defaultNamespace : "")) {
+      return false;
+    }
+    for (Map.Entry<String, String> namespace : rootNamespaces.entrySet()) {
+      String bound = namespaces.getNamespaceURI(namespace.getKey());
+
+      if ((bound != null) && !bound.equals(namespace.getValue())) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Returns {@code true} if the given document did not change since it was
+   * read, in which case its whole {@code sbml} element can be copied.
+   * 
+   * @param document
+   * @return
+   */
+  boolean isUnchanged(SBMLDocument document) {
+    int[] range = ranges.get(document);
+
+    return (range != null) && (range.length > 0);
+  }
+
+  /**
+   * Copies the text of the given element, which must be unchanged.
+   * 
+   * @param sbase
+   * @param writer
+   * @throws XMLStreamException
+   */
+  void writeSource(SBase sbase, XMLStreamWriter2 writer) throws XMLStreamException {
+    int[] range = ranges.get(sbase);
+    writer.writeRaw(source, range[0], range[1] - range[0]);
+  }
+
+  /**
+   * @return the number of elements that can still be copied.
+   */
+  public int getUnchangedElementCount() {
+    int count = 0;
+    for (int[] range : ranges.values()) {
+      if (range.length > 0) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Forgets the ranges of the given node and of its ancestors. If the node
+   * is not part of the document, all the ranges are forgotten, as the
+   * changed elements cannot be found.
+   * 
+   * @param node
+   */
+  private void changed(TreeNode node) {
+    while ((node != null) && (node != document)) {
+      if (node instanceof SBase) {
+        ranges.remove(node);
+      }
+      TreeNode parent = node.getParent();
+
+      if ((parent == null) && (node instanceof ASTNode)) {
+        parent = ((ASTNode) node).getParentSBMLObject();
+      }
+      node = parent;
+    }
+    if (node == null) {
+      ranges.clear();
+    } else {
+      ranges.remove(node);
+    }
+    if (ranges.isEmpty()) {
+      detach();
+    }
+  }
+
+  /* (non-Javadoc)
+   * @see java.beans.PropertyChangeListener#propertyChange(java.beans.PropertyChangeEvent)
+   */
+  @Override
+  public void propertyChange(PropertyChangeEvent event) {
+    // the user objects are not written
+    if (!TreeNodeChangeEvent.userObject.equals(event.getPropertyName())
+        && (event.getSource() instanceof TreeNode)) {
+      changed((TreeNode) event.getSource());
+    }
+  }
+
+  /* (non-Javadoc)
+   * @see org.sbml.jsbml.util.TreeNodeChangeListener#nodeAdded(javax.swing.tree.TreeNode)
+   */
+  @Override
+  public void nodeAdded(TreeNode node) {
+    changed(node);
+  }
+
+  /* (non-Javadoc)
+   * @see org.sbml.jsbml.util.TreeNodeChangeListener#nodeRemoved(org.sbml.jsbml.util.TreeNodeRemovedEvent)
+   */
+  @Override
+  public void nodeRemoved(TreeNodeRemovedEvent event) {
+    changed(event.getPreviousParent());
+  }
+
+}
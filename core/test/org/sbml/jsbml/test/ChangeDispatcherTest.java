@@ -0,0 +1,241 @@
+/*
+ * ----------------------------------------------------------------------------
+ * This file is part of JSBML. Please visit <http://sbml.org/Software/JSBML>
+ * for the latest version of JSBML and more information about SBML.
+ * 
+ * Copyright (C) 2009-2018 jointly by the following organizations:
+ * 1. The University of Tuebingen, Germany
+ * 2. EMBL European Bioinformatics Institute (EBML-EBI), Hinxton, UK
+ * 3. The California Institute of Technology, Pasadena, CA, USA
+ * 4. The University of California, San Diego, La Jolla, CA, USA
+ * 5. The Babraham Institute, Cambridge, UK
+ * 
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation. A copy of the license agreement is provided
+ * in the file named "LICENSE.txt" included with this software distribution
+ * and also available online as <http://sbml.org/Software/JSBML/License>.
+ * ----------------------------------------------------------------------------
+ */
+package org.sbml.jsbml.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.beans.PropertyChangeEvent;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.swing.tree.TreeNode;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.sbml.jsbml.ASTNode;
+import org.sbml.jsbml.Compartment;
+import org.sbml.jsbml.KineticLaw;
+import org.sbml.jsbml.Model;
+import org.sbml.jsbml.Reaction;
+import org.sbml.jsbml.SBMLDocument;
+import org.sbml.jsbml.Species;
+import org.sbml.jsbml.text.parser.ParseException;
+import org.sbml.jsbml.util.TreeNodeChangeDispatcher;
+import org.sbml.jsbml.util.TreeNodeChangeListener;
+import org.sbml.jsbml.util.TreeNodeRemovedEvent;
+
+/**
+ * Checks that the {@link TreeNodeChangeDispatcher} of an
+ * {@link SBMLDocument} receives the changes of all its nodes, and filters
+ * them by type and subtree.
+ * 
+ * @since 1.6
+ */
+public class ChangeDispatcherTest {
+
+  /**
+   * Records the nodes whose changes it receives.
+   */
+  private static class Recorder implements TreeNodeChangeListener {
+
+    /**
+     * 
+     */
+    private final List<Object> changed = new ArrayList<Object>();
+
+    /**
+     * 
+     */
+    private final List<TreeNode> added = new ArrayList<TreeNode>();
+
+    /**
+     * 
+     */
+    private final List<TreeNodeRemovedEvent> removed = new ArrayList<TreeNodeRemovedEvent>();
+
+    /* (non-Javadoc)
+     * @see java.beans.PropertyChangeListener#propertyChange(java.beans.PropertyChangeEvent)
+     */
+    @Override
+    public void propertyChange(PropertyChangeEvent event) {
+      changed.add(event.getSource());
+    }
+
+    /* (non-Javadoc)
+     * @see org.sbml.jsbml.util.TreeNodeChangeListener#nodeAdded(javax.swing.tree.TreeNode)
+     */
+    @Override
+    public void nodeAdded(TreeNode node) {
+      added.add(node);
+    }
+
+    /* (non-Javadoc)
+     * @see org.sbml.jsbml.util.TreeNodeChangeListener#nodeRemoved(org.sbml.jsbml.util.TreeNodeRemovedEvent)
+     */
+    @Override
+    public void nodeRemoved(TreeNodeRemovedEvent event) {
+      removed.add(event);
+    }
+
+  }
+
+  /**
+   * 
+   */
+  private SBMLDocument doc;
+
+  /**
+   * 
+   */
+  private Model model;
+
+  /**
+   * @throws ParseException
+   */
+  @Before public void setUp() throws ParseException {
+    doc = new SBMLDocument(3, 1);
+    model = doc.createModel("m");
+    Compartment compartment = model.createCompartment("c");
+
+    for (int i = 0; i < 2; i++) {
+      Species species = model.createSpecies("s" + i, compartment);
+      Reaction reaction = model.createReaction("r" + i);
+      reaction.createReactant(species);
+      KineticLaw kineticLaw = reaction.createKineticLaw();
+      kineticLaw.setMath(ASTNode.parseFormula("k * s" + i));
+    }
+  }
+
+  /**
+   * 
+   */
+  @Test public void allNodes() {
+    Recorder recorder = new Recorder();
+    doc.getChangeDispatcher().addListener(recorder);
+    Species species = model.getSpecies(0);
+    species.setName("first");
+    model.getCompartment(0).setSize(2d);
+
+    assertEquals(0, species.getTreeNodeChangeListenerCount());
+    assertEquals(2, recorder.changed.size());
+    assertSame(species, recorder.changed.get(0));
+    assertSame(model.getCompartment(0), recorder.changed.get(1));
+
+    doc.getChangeDispatcher().removeListener(recorder);
+    species.setName("second");
+
+    assertEquals(0, doc.getChangeDispatcher().getSubscriptionCount());
+    assertEquals(2, recorder.changed.size());
+  }
+
+  /**
+   * 
+   */
+  @Test public void addedAndRemoved() {
+    Recorder recorder = new Recorder();
+    doc.getChangeDispatcher().addListener(recorder, Species.class);
+    Species species = model.createSpecies("s2", model.getCompartment(0));
+
+    assertTrue(recorder.added.contains(species));
+
+    model.removeSpecies(species);
+
+    assertEquals(1, recorder.removed.size());
+    assertSame(species, recorder.removed.get(0).getSource());
+    assertSame(model.getListOfSpecies(), recorder.removed.get(0).getPreviousParent());
+    doc.getChangeDispatcher().removeListener(recorder);
+  }
+
+  /**
+   * 
+   */
+  @Test public void filteredByType() {
+    Recorder recorder = new Recorder();
+    doc.getChangeDispatcher().addListener(recorder, Species.class);
+    model.getCompartment(0).setSize(2d);
+    model.getSpecies(1).setInitialAmount(3d);
+
+    assertEquals(1, recorder.changed.size());
+    assertSame(model.getSpecies(1), recorder.changed.get(0));
+    doc.getChangeDispatcher().removeListener(recorder);
+  }
+
+  /**
+   * 
+   */
+  @Test public void filteredBySubtree() {
+    Recorder recorder = new Recorder();
+    Reaction reaction = model.getReaction(1);
+    doc.getChangeDispatcher().addListener(recorder, reaction);
+    model.getReaction(0).getKineticLaw().getMath().getChild(0).setName("k0");
+    ASTNode leaf = reaction.getKineticLaw().getMath().getChild(0);
+    leaf.setName("k1");
+    reaction.setFast(false);
+
+    assertEquals(2, recorder.changed.size());
+    assertSame(leaf, recorder.changed.get(0));
+    assertSame(reaction, recorder.changed.get(1));
+    doc.getChangeDispatcher().removeListener(recorder);
+  }
+
+  /**
+   * 
+   */
+  @Test public void detachedNode() {
+    Recorder recorder = new Recorder();
+    doc.getChangeDispatcher().addListener(recorder);
+    Species species = new Species("s3", 3, 1);
+    species.setName("detached");
+
+    assertTrue(recorder.changed.isEmpty());
+    assertNull(TreeNodeChangeDispatcher.getDispatcher(species));
+    assertSame(doc.getChangeDispatcher(), TreeNodeChangeDispatcher.getDispatcher(model.getSpecies(0)));
+
+    doc.getChangeDispatcher().removeAllListeners();
+
+    assertNull(TreeNodeChangeDispatcher.getDispatcher(model.getSpecies(0)));
+    assertFalse(new SBMLDocument(3, 1).isSetChangeDispatcher());
+  }
+
+  /**
+   * Checks that the dispatcher of a document that is not used anymore stops
+   * counting once it is garbage collected, although its listener was not
+   * removed.
+   * 
+   * @throws InterruptedException
+   */
+  @Test public void collectedDispatcher() throws InterruptedException {
+    doc.getChangeDispatcher().addListener(new Recorder());
+    assertTrue(TreeNodeChangeDispatcher.hasSubscriptions());
+
+    doc = null;
+    model = null;
+    for (int i = 0; (i < 50) && TreeNodeChangeDispatcher.hasSubscriptions(); i++) {
+      System.gc();
+      Thread.sleep(10);
+    }
+    assertFalse(TreeNodeChangeDispatcher.hasSubscriptions());
+  }
+
+}
@@ -0,0 +1,127 @@
+/*
+ * ----------------------------------------------------------------------------
+ * This file is part of JSBML. Please visit <http://sbml.org/Software/JSBML>
+ * for the latest version of JSBML and more information about SBML.
+ * 
+ * Copyright (C) 2009-2018 jointly by the following organizations:
+ * 1. The University of Tuebingen, Germany
+ * 2. EMBL European Bioinformatics Institute (EBML-EBI), Hinxton, UK
+ * 3. The California Institute of Technology, Pasadena, CA, USA
+ * 4. The University of California, San Diego, La Jolla, CA, USA
+ * 5. The Babraham Institute, Cambridge, UK
+ * 
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation. A copy of the license agreement is provided
+ * in the file named "LICENSE.txt" included with this software distribution
+ * and also available online as <http://sbml.org/Software/JSBML/License>.
+ * ----------------------------------------------------------------------------
+ */
+package org.sbml.jsbml.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Enumeration;
+
+import javax.swing.tree.TreeNode;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.sbml.jsbml.ASTNode;
+import org.sbml.jsbml.AbstractTreeNode;
+import org.sbml.jsbml.ListOf;
+import org.sbml.jsbml.Model;
+import org.sbml.jsbml.Reaction;
+
+/**
+ * Checks that {@link AbstractTreeNode#indexOf(TreeNode, TreeNode, boolean)}
+ * finds the children by reference, from the position they were last found
+ * at, while the children of their parent change.
+ * 
+ * @since 1.6
+ */
+public class ChildIndexTest {
+
+  /**
+   * 
+   */
+  private static final int SIZE = 100;
+
+  /**
+   * 
+   */
+  private Model model;
+
+  /**
+   * 
+   */
+  @Before public void setUp() {
+    model = new Model("m", 3, 1);
+
+    for (int i = 0; i < SIZE; i++) {
+      model.createReaction("r" + i);
+    }
+  }
+
+  /**
+   * Checks the index of each child of the given parent against its position
+   * in the enumeration of the children.
+   * 
+   * @param parent
+   */
+  private static void assertIndices(TreeNode parent) {
+    Enumeration<? extends TreeNode> children = parent.children();
+    for (int i = 0; children.hasMoreElements(); i++) {
+      assertEquals(i, parent.getIndex(children.nextElement()));
+    }
+  }
+
+  /**
+   * 
+   */
+  @Test public void changedChildren() {
+    ListOf<Reaction> reactions = model.getListOfReactions();
+    assertIndices(reactions);
+
+    for (int i = 0; i < 10; i++) {
+      model.removeReaction(3 * i);
+    }
+    reactions.add(5, new Reaction("inserted", 3, 1));
+    reactions.getLast().removeFromParent();
+    reactions.set(10, new Reaction("replacing", 3, 1));
+    assertIndices(reactions);
+    assertEquals(SIZE - 10, reactions.size());
+  }
+
+  /**
+   * 
+   */
+  @Test public void equalChildren() {
+    ListOf<Reaction> list = new ListOf<Reaction>(3, 1);
+    Reaction reaction = new Reaction("r", 3, 1);
+    list.add(reaction.clone());
+    list.add(reaction.clone());
+    assertIndices(list);
+
+    assertEquals(-1, list.getIndex(reaction));
+    assertEquals(0, AbstractTreeNode.indexOf(list, reaction, true));
+
+    assertTrue(list.remove(list.get(1)));
+    assertEquals(1, list.size());
+    assertEquals(0, list.getIndex(list.get(0)));
+  }
+
+  /**
+   * @throws Exception
+   */
+  @Test public void mathChildren() throws Exception {
+    ASTNode math = ASTNode.parseFormula("a + b + a + c");
+    assertIndices(math);
+
+    math.removeChild(0);
+    math.insertChild(1, new ASTNode("d"));
+    assertIndices(math);
+  }
+
+}
@@ -0,0 +1,123 @@
+/*
+ * ----------------------------------------------------------------------------
+ * This file is part of JSBML. Please visit <http://sbml.org/Software/JSBML>
+ * for the latest version of JSBML and more information about SBML.
+ * 
+ * Copyright (C) 2009-2018 jointly by the following organizations:
+ * 1. The University of Tuebingen, Germany
+ * 2. EMBL European Bioinformatics Institute (EBML-EBI), Hinxton, UK
+ * 3. The California Institute of Technology, Pasadena, CA, USA
+ * 4. The University of California, San Diego, La Jolla, CA, USA
+ * 5. The Babraham Institute, Cambridge, UK
+ * 
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation. A copy of the license agreement is provided
+ * in the file named "LICENSE.txt" included with this software distribution
+ * and also available online as <http://sbml.org/Software/JSBML/License>.
+ * ----------------------------------------------------------------------------
+ */
+package org.sbml.jsbml.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.sbml.jsbml.CVTerm;
+import org.sbml.jsbml.SBMLDocument;
+import org.sbml.jsbml.Species;
+
+/**
+ * Checks that the maps and the annotation of an
+ * {@link org.sbml.jsbml.AbstractSBase} are only allocated when they are
+ * written, and that the elements behave the same way before and after.
+ * 
+ * @since 1.6
+ */
+public class CompactSBaseTest {
+
+  /**
+   * 
+   */
+  private Species species;
+
+  /**
+   * 
+   */
+  @Before public void setUp() {
+    SBMLDocument doc = new SBMLDocument(3, 1);
+    species = doc.createModel("m").createSpecies("s");
+  }
+
+  /**
+   * 
+   */
+  @Test public void sharedEmptyMaps() {
+    Species other = new Species("t", 3, 1);
+
+    assertTrue(species.getDeclaredNamespaces().isEmpty());
+    assertTrue(species.getExtensionPackages().isEmpty());
+    assertSame(species.getDeclaredNamespaces(), other.getDeclaredNamespaces());
+    assertSame(species.getExtensionPackages(), other.getExtensionPackages());
+    assertFalse(species.isExtendedByOtherPackages());
+    assertEquals(0, species.getExtensionCount());
+  }
+
+  /**
+   * 
+   */
+  @Test(expected = UnsupportedOperationException.class)
+  public void readOnlyEmptyMap() {
+    species.getDeclaredNamespaces().put("xmlns:x", "http://x");
+  }
+
+  /**
+   * 
+   */
+  @Test public void declaredNamespaces() {
+    Species fresh = species.clone();
+    int hashCode = species.hashCode();
+
+    species.addDeclaredNamespace("x", "http://x");
+    assertEquals("http://x", species.getDeclaredNamespaces().get("xmlns:x"));
+    assertEquals("http://x", species.clone().getDeclaredNamespaces().get("xmlns:x"));
+    assertFalse(species.equals(fresh));
+
+    species.removeDeclaredNamespaceByPrefix("x");
+    assertTrue(species.getDeclaredNamespaces().isEmpty());
+    assertEquals(fresh, species);
+    assertEquals(hashCode, species.hashCode());
+
+    fresh.removeDeclaredNamespaceByPrefix("x");
+    fresh.removeDeclaredNamespaceByNamespace("http://x");
+  }
+
+  /**
+   * 
+   */
+  @Test public void userObjects() {
+    assertNull(species.getUserObject("key"));
+    assertFalse(species.isSetUserObjects());
+    assertTrue(species.userObjectKeySet().isEmpty());
+
+    species.putUserObject("key", "value");
+    assertEquals("value", species.getUserObject("key"));
+    assertEquals("value", species.removeUserObject("key"));
+    assertFalse(species.isSetUserObjects());
+    assertTrue(species.userObjectKeySet().isEmpty());
+  }
+
+  /**
+   * 
+   */
+  @Test public void noAnnotationCreated() {
+    assertTrue(species.filterCVTerms(CVTerm.Qualifier.BQB_IS).isEmpty());
+    assertTrue(species.filterCVTerms(CVTerm.Qualifier.BQB_IS, true, "urn").isEmpty());
+    assertFalse(species.isSetAnnotation());
+  }
+
+}
@@ -0,0 +1,140 @@
+/*
+ * ----------------------------------------------------------------------------
+ * This file is part of JSBML. Please visit <http://sbml.org/Software/JSBML>
+ * for the latest version of JSBML and more information about SBML.
+ * 
+ * Copyright (C) 2009-2018 jointly by the following organizations:
+ * 1. The University of Tuebingen, Germany
+ * 2. EMBL European Bioinformatics Institute (EBML-EBI), Hinxton, UK
+ * 3. The California Institute of Technology, Pasadena, CA, USA
+ * 4. The University of California, San Diego, La Jolla, CA, USA
+ * 5. The Babraham Institute, Cambridge, UK
+ * 
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation. A copy of the license agreement is provided
+ * in the file named "LICENSE.txt" included with this software distribution
+ * and also available online as <http://sbml.org/Software/JSBML/License>.
+ * ----------------------------------------------------------------------------
+ */
+package org.sbml.jsbml.test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.stream.XMLStreamException;
+
+import org.sbml.jsbml.xml.stax.SBMLReader;
+
+/**
+ * Compares the time needed to read SBML files through a
+ * {@link java.io.FileInputStream}, with {@link SBMLReader#readSBML(File)},
+ * and from the files mapped in memory, with
+ * {@link SBMLReader#readSBML(java.nio.file.Path)}, whatever their size. It
+ * helps to choose {@link SBMLReader#DEFAULT_MIN_MAPPED_FILE_SIZE}: mapping is
+ * slower for files such as {@code core/files/test-models/Download_BRENDA_SBML.xml}
+ * and faster for files of several tens of megabytes.
+ * 
+ * <p>
+ * Unlike in {@link ReadingBenchmark}, the files are read from the disk at
+ * each pass, after a number of warm-up passes done with both methods. The
+ * measured passes of the two methods alternate, so that both see the same
+ * state of the file system cache.
+ * 
+ * @since 1.6
+ */
+public class FileReadingBenchmark {
+
+  /**
+   * Default number of passes done before the measure.
+   */
+  private static final int WARM_UP_PASSES = 3;
+
+  /**
+   * Default number of measured passes.
+   */
+  private static final int MEASURED_PASSES = 10;
+
+  /**
+   * @param args
+   *        the SBML file or folder to read, then optionally the number of
+   *        warm-up passes and the number of measured passes.
+   * @throws IOException
+   * @throws XMLStreamException
+   */
+  public static void main(String[] args) throws IOException, XMLStreamException {
+
+    if (args.length < 1) {
+      System.out.println("Usage: java org.sbml.jsbml.test.FileReadingBenchmark sbmlFileName|folder [warmUpPasses [measuredPasses]]");
+      System.exit(0);
+    }
+
+    int warmUpPasses = args.length > 1 ? Integer.parseInt(args[1]) : WARM_UP_PASSES;
+    int measuredPasses = args.length > 2 ? Integer.parseInt(args[2]) : MEASURED_PASSES;
+
+    List<File> files = new ArrayList<File>();
+    long totalSize = 0;
+
+    for (File file : ReadingBenchmark.listFiles(new File(args[0]))) {
+      try {
+        new SBMLReader().readSBML(file);
+      } catch (Exception exc) {
+        System.out.printf("Skipping %s: %s\n", file, exc.getMessage());
+        continue;
+      }
+      files.add(file);
+      totalSize += file.length();
+    }
+
+    System.out.printf("Reading %d files (%d Kb), %d warm-up passes, %d measured passes\n",
+      files.size(), totalSize / 1024, warmUpPasses, measuredPasses);
+
+    for (int i = 0; i < warmUpPasses; i++) {
+      readAll(files, false);
+      readAll(files, true);
+    }
+
+    long streamTime = 0, mappedTime = 0;
+
+    for (int i = 0; i < measuredPasses; i++) {
+      long start = System.nanoTime();
+      readAll(files, false);
+      streamTime += System.nanoTime() - start;
+
+      start = System.nanoTime();
+      readAll(files, true);
+      mappedTime += System.nanoTime() - start;
+    }
+
+    double streamMean = streamTime / (double) measuredPasses / 1e6;
+    double mappedMean = mappedTime / (double) measuredPasses / 1e6;
+
+    System.out.printf("Mean time per pass: %.2f ms with a stream, %.2f ms mapped in memory (%.1f%%)\n",
+      streamMean, mappedMean, 100d * (mappedMean - streamMean) / streamMean);
+  }
+
+  /**
+   * Reads all the given SBML files.
+   * 
+   * @param files
+   * @param mapped
+   *        whether the files are mapped in memory.
+   * @throws IOException
+   * @throws XMLStreamException
+   */
+  private static void readAll(List<File> files, boolean mapped) throws IOException, XMLStreamException {
+    SBMLReader reader = new SBMLReader();
+    reader.setMinMappedFileSize(0);
+
+    for (File file : files) {
+      if (mapped) {
+        reader.readSBML(file.toPath());
+      } else {
+        reader.readSBML(file);
+      }
+    }
+  }
+
+}
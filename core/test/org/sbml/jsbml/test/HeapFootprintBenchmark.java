@@ -0,0 +1,434 @@
+/*
+ * ----------------------------------------------------------------------------
+ * This file is part of JSBML. Please visit <http://sbml.org/Software/JSBML>
+ * for the latest version of JSBML and more information about SBML.
+ * 
+ * Copyright (C) 2009-2018 jointly by the following organizations:
+ * 1. The University of Tuebingen, Germany
+ * 2. EMBL European Bioinformatics Institute (EBML-EBI), Hinxton, UK
+ * 3. The California Institute of Technology, Pasadena, CA, USA
+ * 4. The University of California, San Diego, La Jolla, CA, USA
+ * 5. The Babraham Institute, Cambridge, UK
+ * 
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation. A copy of the license agreement is provided
+ * in the file named "LICENSE.txt" included with this software distribution
+ * and also available online as <http://sbml.org/Software/JSBML/License>.
+ * ----------------------------------------------------------------------------
+ */
+package org.sbml.jsbml.test;
+
+import java.io.File;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.TreeMap;
+
+import javax.swing.tree.TreeNode;
+
+import org.sbml.jsbml.SBMLDocument;
+import org.sbml.jsbml.SBase;
+import org.sbml.jsbml.xml.stax.SBMLReader;
+
+/**
+ * Reports the heap retained by the elements of SBML documents, in bytes per
+ * element type, that is per {@link SBase} class.
+ * 
+ * <p>
+ * The bytes of an element are those of the objects reachable from it that
+ * are not reached through another {@link SBase}: its attributes, its
+ * extensions, its annotation, notes and math, the maps it allocates and so
+ * on. An object reachable from more than one element is counted once, for
+ * the first element that reaches it, and the objects reachable from static
+ * fields are not counted.
+ * 
+ * <p>
+ * The sizes are estimated for a 64-bit virtual machine with compressed
+ * references, from the fields of the classes, as the internals of the classes
+ * of the JDK cannot be inspected on all the virtual machines: the strings,
+ * arrays, lists and maps of the JDK are estimated from their length or size,
+ * and the other classes of the JDK from their fields only.
+ * 
+ * @since 1.6
+ */
+public class HeapFootprintBenchmark {
+
+  /**
+   * Size of an object header.
+   */
+  private static final int HEADER = 12;
+
+  /**
+   * Size of an array header.
+   */
+  private static final int ARRAY_HEADER = 16;
+
+  /**
+   * Size of a reference.
+   */
+  private static final int REFERENCE = 4;
+
+  /**
+   * Size of the object of a map backing a set.
+   */
+  private static final long MAP = 48;
+
+  /**
+   * Size of an entry of a {@link TreeMap}.
+   */
+  private static final long TREE_ENTRY = 40;
+
+  /**
+   * Size of an entry of a {@link HashMap}.
+   */
+  private static final long HASH_ENTRY = 32;
+
+  /**
+   * Size of an entry of a {@link LinkedHashMap}.
+   */
+  private static final long LINKED_HASH_ENTRY = 40;
+
+  /**
+   * The objects already counted.
+   */
+  private final Map<Object, Object> visited = new IdentityHashMap<Object, Object>();
+
+  /**
+   * The shallow size of each class met.
+   */
+  private final Map<Class<?>, Long> shallowSizes = new HashMap<Class<?>, Long>();
+
+  /**
+   * The instance fields, that are not primitive, of each class met.
+   */
+  private final Map<Class<?>, List<Field>> referenceFields = new HashMap<Class<?>, List<Field>>();
+
+  /**
+   * For each element type, its number of elements and their bytes.
+   */
+  private final Map<String, long[]> types = new TreeMap<String, long[]>();
+
+  /**
+   * @param args
+   *        the SBML file or folder to read.
+   */
+  public static void main(String[] args) {
+
+    if (args.length < 1) {
+      System.out.println("Usage: java org.sbml.jsbml.test.HeapFootprintBenchmark sbmlFileName|folder");
+      System.exit(0);
+    }
+
+    HeapFootprintBenchmark benchmark = new HeapFootprintBenchmark();
+    int documents = 0;
+
+    for (File file : ReadingBenchmark.listFiles(new File(args[0]))) {
+      SBMLDocument document;
+      try {
+        document = new SBMLReader().readSBML(file);
+      } catch (Exception exc) {
+        System.out.printf("Skipping %s: %s\n", file, exc.getMessage());
+        continue;
+      }
+      benchmark.addTree(document);
+      documents++;
+    }
+
+    benchmark.print(documents);
+  }
+
+  /**
+   * Counts the elements of the tree of the given node.
+   * 
+   * @param root
+   */
+  private void addTree(TreeNode root) {
+    Deque<TreeNode> nodes = new ArrayDeque<TreeNode>();
+    nodes.push(root);
+
+    while (!nodes.isEmpty()) {
+      TreeNode node = nodes.pop();
+
+      if (node instanceof SBase) {
+        String type = node.getClass().getSimpleName();
+        long[] counts = types.get(type);
+        if (counts == null) {
+          counts = new long[2];
+          types.put(type, counts);
+        }
+        counts[0]++;
+        counts[1] += getRetainedSize(node);
+      }
+      Enumeration<?> children = node.children();
+      while ((children != null) && children.hasMoreElements()) {
+        Object child = children.nextElement();
+        if (child instanceof TreeNode) {
+          nodes.push((TreeNode) child);
+        }
+      }
+    }
+  }
+
+  /**
+   * Prints the bytes per element type, the types retaining the most bytes
+   * first.
+   * 
+   * @param documents
+   */
+  private void print(int documents) {
+    List<Map.Entry<String, long[]>> entries = new ArrayList<Map.Entry<String, long[]>>(types.entrySet());
+    Collections.sort(entries, new Comparator<Map.Entry<String, long[]>>() {
+
+      @Override
+      public int compare(Map.Entry<String, long[]> entry1, Map.Entry<String, long[]> entry2) {
+        return Long.compare(entry2.getValue()[1], entry1.getValue()[1]);
+      }
+    });
+
+    long elements = 0, bytes = 0;
+    System.out.printf("%-28s %10s %12s %10s\n", "Element type", "Elements", "Bytes", "Bytes/elt");
+
+    for (Map.Entry<String, long[]> entry : entries) {
+      long[] counts = entry.getValue();
+      elements += counts[0];
+      bytes += counts[1];
+      System.out.printf("%-28s %10d %12d %10.1f\n", entry.getKey(), counts[0], counts[1], counts[1] / (double) counts[0]);
+    }
+    System.out.printf("%-28s %10d %12d %10.1f\n", "Total (" + documents + " documents)", elements, bytes,
+      (elements > 0) ? bytes / (double) elements : 0d);
+  }
+
+  /**
+   * @param element
+   * @return the bytes of the objects reachable from the given element, that
+   *         are not reached through another {@link SBase} and were not
+   *         counted before.
+   */
+  private long getRetainedSize(Object element) {
+    Deque<Object> objects = new ArrayDeque<Object>();
+    objects.push(element);
+    long size = 0;
+
+    while (!objects.isEmpty()) {
+      Object object = objects.pop();
+
+      if (visited.containsKey(object)) {
+        continue;
+      }
+      visited.put(object, object);
+      Class<?> type = object.getClass();
+      boolean jdk = type.getName().startsWith("java");
+
+      if (type.isArray()) {
+        size += getArraySize(object, objects);
+      } else if (object instanceof String) {
+        size += getShallowSize(type) + align(ARRAY_HEADER + ((String) object).length());
+      } else if (jdk && (object instanceof Map<?, ?>)) {
+        Map<?, ?> map = (Map<?, ?>) object;
+        size += getShallowSize(type) + getMapSize(map);
+        for (Map.Entry<?, ?> entry : map.entrySet()) {
+          push(objects, entry.getKey(), element);
+          push(objects, entry.getValue(), element);
+        }
+      } else if (jdk && (object instanceof Collection<?>)) {
+        Collection<?> collection = (Collection<?>) object;
+        size += getShallowSize(type) + getCollectionSize(collection);
+        for (Object item : collection) {
+          push(objects, item, element);
+        }
+      } else {
+        size += getShallowSize(type);
+        if (!jdk) {
+          for (Field field : getReferenceFields(type)) {
+            try {
+              push(objects, field.get(object), element);
+            } catch (IllegalAccessException exc) {
+              // not counted
+            }
+          }
+        }
+      }
+    }
+
+    return size;
+  }
+
+  /**
+   * Adds the given object to the objects to count, unless it is another
+   * element, an object shared by all the instances such as a class or an
+   * enum constant, or was counted before.
+   * 
+   * @param objects
+   * @param object
+   * @param element
+   */
+  private void push(Deque<Object> objects, Object object, Object element) {
+    if ((object == null) || ((object instanceof SBase) && (object != element))
+        || (object instanceof Class<?>) || (object instanceof Enum<?>)
+        || visited.containsKey(object)) {
+      return;
+    }
+    objects.push(object);
+  }
+
+  /**
+   * @param array
+   * @param objects
+   * @return the size of the given array, whose elements are added to the
+   *         objects to count.
+   */
+  private long getArraySize(Object array, Deque<Object> objects) {
+    int length = Array.getLength(array);
+    Class<?> componentType = array.getClass().getComponentType();
+
+    if (!componentType.isPrimitive()) {
+      for (Object item : (Object[]) array) {
+        push(objects, item, null);
+      }
+    }
+
+    return align(ARRAY_HEADER + (long) length * getFieldSize(componentType));
+  }
+
+  /**
+   * @param map
+   * @return the size of the entries and table of the given map.
+   */
+  private static long getMapSize(Map<?, ?> map) {
+    int size = map.size();
+
+    if (map instanceof TreeMap<?, ?>) {
+      return size * TREE_ENTRY;
+    }
+
+    return getHashTableSize(size, (map instanceof LinkedHashMap<?, ?>) ? LINKED_HASH_ENTRY : HASH_ENTRY);
+  }
+
+  /**
+   * @param size
+   * @param entrySize
+   * @return the size of the entries and table of a hash table of the given
+   *         size, with the default load factor.
+   */
+  private static long getHashTableSize(int size, long entrySize) {
+    if (size == 0) {
+      return 0;
+    }
+    int capacity = 16;
+    while (capacity * 3 / 4 < size) {
+      capacity *= 2;
+    }
+
+    return size * entrySize + align(ARRAY_HEADER + capacity * REFERENCE);
+  }
+
+  /**
+   * @param collection
+   * @return the size of the array or nodes of the given collection.
+   */
+  private static long getCollectionSize(Collection<?> collection) {
+    int size = collection.size();
+
+    if (collection instanceof List<?>) {
+      return (size > 0) ? align(ARRAY_HEADER + Math.max(size, 10) * REFERENCE) : 0;
+    }
+    // a set backed by a map
+    if (collection instanceof SortedSet<?>) {
+      return MAP + size * TREE_ENTRY;
+    }
+
+    return MAP + getHashTableSize(size, HASH_ENTRY);
+  }
+
+  /**
+   * @param type
+   * @return the size of an instance of the given class, without the objects
+   *         it references.
+   */
+  private long getShallowSize(Class<?> type) {
+    Long size = shallowSizes.get(type);
+
+    if (size == null) {
+      long bytes = HEADER;
+      for (Class<?> c = type; c != null; c = c.getSuperclass()) {
+        for (Field field : c.getDeclaredFields()) {
+          if (!Modifier.isStatic(field.getModifiers())) {
+            bytes += getFieldSize(field.getType());
+          }
+        }
+      }
+      size = Long.valueOf(align(bytes));
+      shallowSizes.put(type, size);
+    }
+
+    return size.longValue();
+  }
+
+  /**
+   * @param type
+   * @return the instance fields of the given class and of its super classes
+   *         that reference objects.
+   */
+  private List<Field> getReferenceFields(Class<?> type) {
+    List<Field> fields = referenceFields.get(type);
+
+    if (fields == null) {
+      fields = new ArrayList<Field>();
+      for (Class<?> c = type; c != null; c = c.getSuperclass()) {
+        for (Field field : c.getDeclaredFields()) {
+          if (!Modifier.isStatic(field.getModifiers()) && !field.getType().isPrimitive()) {
+            try {
+              field.setAccessible(true);
+              fields.add(field);
+            } catch (RuntimeException exc) {
+              // the field of a class of the JDK, not counted
+            }
+          }
+        }
+      }
+      referenceFields.put(type, fields);
+    }
+
+    return fields;
+  }
+
+  /**
+   * @param type
+   * @return the size of a field or array element of the given type.
+   */
+  private static int getFieldSize(Class<?> type) {
+    if ((type == long.class) || (type == double.class)) {
+      return 8;
+    } else if ((type == int.class) || (type == float.class)) {
+      return 4;
+    } else if ((type == short.class) || (type == char.class)) {
+      return 2;
+    } else if ((type == byte.class) || (type == boolean.class)) {
+      return 1;
+    }
+    return REFERENCE;
+  }
+
+  /**
+   * @param bytes
+   * @return the given size, rounded up to a multiple of eight bytes.
+   */
+  private static long align(long bytes) {
+    return (bytes + 7) & ~7L;
+  }
+
+}
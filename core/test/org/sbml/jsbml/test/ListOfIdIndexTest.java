@@ -0,0 +1,287 @@
+/*
+ * ----------------------------------------------------------------------------
+ * This file is part of JSBML. Please visit <http://sbml.org/Software/JSBML>
+ * for the latest version of JSBML and more information about SBML.
+ * 
+ * Copyright (C) 2009-2018 jointly by the following organizations:
+ * 1. The University of Tuebingen, Germany
+ * 2. EMBL European Bioinformatics Institute (EBML-EBI), Hinxton, UK
+ * 3. The California Institute of Technology, Pasadena, CA, USA
+ * 4. The University of California, San Diego, La Jolla, CA, USA
+ * 5. The Babraham Institute, Cambridge, UK
+ * 
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation. A copy of the license agreement is provided
+ * in the file named "LICENSE.txt" included with this software distribution
+ * and also available online as <http://sbml.org/Software/JSBML/License>.
+ * ----------------------------------------------------------------------------
+ */
+package org.sbml.jsbml.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.ListIterator;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.sbml.jsbml.AssignmentRule;
+import org.sbml.jsbml.ListOf;
+import org.sbml.jsbml.Model;
+import org.sbml.jsbml.Parameter;
+import org.sbml.jsbml.Rule;
+import org.sbml.jsbml.SBase;
+
+/**
+ * Checks that the lookups by id of a {@link ListOf} large enough to be
+ * indexed find the same elements as a search through the list, while the
+ * list and the ids of its elements change.
+ * 
+ * @since 1.6
+ */
+public class ListOfIdIndexTest {
+
+  /**
+   * More elements than needed for the list to be indexed.
+   */
+  private static final int SIZE = 50;
+
+  /**
+   * 
+   */
+  private Model model;
+
+  /**
+   * 
+   */
+  @Before public void setUp() {
+    model = new Model("m", 3, 1);
+
+    for (int i = 0; i < SIZE; i++) {
+      model.createParameter("p" + i).setConstant(false);
+    }
+  }
+
+  /**
+   * Looks up each given id in the list, and checks that the list finds the
+   * first element with that id.
+   * 
+   * @param list
+   * @param ids
+   */
+  private static void assertLookups(ListOf<?> list, String... ids) {
+    for (String id : ids) {
+      Object expected = null;
+      for (Object element : list.toArray()) {
+        if (((SBase) element).getId().equals(id)
+            || ((element instanceof AssignmentRule) && ((AssignmentRule) element).getVariable().equals(id))) {
+          expected = element;
+          break;
+        }
+      }
+      assertSame(id, expected, list.get(id));
+    }
+  }
+
+  /**
+   * 
+   */
+  @Test public void addRemoveAndSet() {
+    ListOf<Parameter> parameters = model.getListOfParameters();
+    assertSame(parameters.get(7), parameters.get("p7"));
+
+    model.createParameter("added");
+    parameters.add(3, new Parameter("inserted", 3, 1));
+    assertLookups(parameters, "added", "inserted", "p7", "p49");
+
+    assertSame(parameters.get(10), parameters.remove(parameters.get(10).getId()));
+    assertTrue(parameters.remove(model.getParameter("p20")));
+    assertTrue(parameters.remove((Object) model.getParameter("p21")));
+    parameters.remove(0);
+    parameters.set(5, new Parameter("replacing", 3, 1));
+    assertLookups(parameters, "p0", "p5", "p20", "p21", "replacing", "p30", "added");
+
+    parameters.clear();
+    assertNull(parameters.get("p30"));
+  }
+
+  /**
+   * 
+   */
+  @Test public void changedIds() {
+    ListOf<Parameter> parameters = model.getListOfParameters();
+    parameters.get("p1");
+
+    parameters.get(1).setId("renamed");
+    parameters.get(2).unsetId();
+    assertLookups(parameters, "renamed", "p1", "p2", "p3");
+  }
+
+  /**
+   * 
+   */
+  @Test public void ruleVariables() {
+    for (int i = 0; i < SIZE; i++) {
+      model.createAssignmentRule().setVariable("p" + i);
+    }
+    ListOf<Rule> rules = model.getListOfRules();
+    assertSame(rules.get(4), rules.get("p4"));
+
+    ((AssignmentRule) rules.get(4)).setVariable("p4bis");
+    ((AssignmentRule) rules.get(5)).unsetVariable();
+    rules.remove(6);
+    assertLookups(rules, "p4bis", "p4", "p5", "p6", "p7");
+  }
+
+  /**
+   * 
+   */
+  @Test public void sameIds() {
+    ListOf<Parameter> list = new ListOf<Parameter>(3, 1);
+    for (int i = 0; i < SIZE; i++) {
+      list.add(new Parameter("p" + (i % 10), 3, 1));
+    }
+    assertLookups(list, "p0", "p9");
+
+    list.remove(0);
+    list.add(0, new Parameter("p1", 3, 1));
+    list.get(2).setId("p3");
+    assertLookups(list, "p0", "p1", "p2", "p3");
+  }
+
+  /**
+   * 
+   */
+  @Test public void removedByReference() {
+    ListOf<Parameter> list = new ListOf<Parameter>(3, 1);
+    for (int i = 0; i < SIZE; i++) {
+      list.add(new Parameter(3, 1));
+    }
+    Parameter last = list.getLast();
+    assertTrue(list.remove(last));
+    assertEquals(SIZE - 1, list.size());
+
+    for (Parameter parameter : list) {
+      assertTrue(parameter != last);
+    }
+  }
+
+  /**
+   * 
+   */
+  @Test public void changedThroughViews() {
+    ListOf<Parameter> parameters = model.getListOfParameters();
+    parameters.get("p0");
+
+    for (Iterator<Parameter> iterator = parameters.iterator(); iterator.hasNext();) {
+      if (iterator.next().getId().equals("p3")) {
+        iterator.remove();
+      }
+    }
+    assertLookups(parameters, "p3", "p4");
+
+    ListIterator<Parameter> iterator = parameters.listIterator(5);
+    iterator.next();
+    iterator.set(new Parameter("set", 3, 1));
+    iterator.add(new Parameter("added", 3, 1));
+    assertLookups(parameters, "p6", "set", "added", "p7");
+
+    parameters.subList(0, 2).clear();
+    assertLookups(parameters, "p0", "p1", "p2");
+    assertNull(parameters.remove("p0"));
+    assertFalse(parameters.remove(new Parameter("p1", 3, 1)));
+    assertSame(parameters.get("p2"), parameters.remove("p2"));
+  }
+
+  /**
+   * Checks that the elements removed, replaced or added through the views
+   * of a list are unregistered from or registered in the model, as by the
+   * methods of the list.
+   */
+  @Test public void viewsRegisterElements() {
+    ListOf<Parameter> parameters = model.getListOfParameters();
+    Parameter p3 = model.getParameter("p3");
+    Parameter p6 = model.getParameter("p6");
+    int count = 0;
+
+    for (Iterator<Parameter> iterator = parameters.iterator(); iterator.hasNext(); count++) {
+      if (iterator.next() == p3) {
+        iterator.remove();
+      }
+    }
+    assertEquals(SIZE, count);
+    assertNull(model.getSBaseById("p3"));
+    assertNull(p3.getParent());
+
+    ListIterator<Parameter> iterator = parameters.listIterator(5);
+    assertSame(p6, iterator.next());
+    iterator.set(new Parameter("set", 3, 1));
+    iterator.add(new Parameter("added", 3, 1));
+    assertSame(model.getParameter(7), iterator.next());
+    assertNull(model.getSBaseById("p6"));
+    assertSame(parameters, model.getParameter("set").getParent());
+    assertSame(parameters.get(6), model.getSBaseById("added"));
+
+    List<Parameter> view = parameters.subList(0, 3);
+    view.add(1, new Parameter("inserted", 3, 1));
+    assertSame(parameters.get(1), model.getSBaseById("inserted"));
+    view.clear();
+    assertEquals(SIZE - 3, parameters.size());
+    assertNull(model.getSBaseById("p0"));
+    assertNull(model.getSBaseById("inserted"));
+    assertSame(parameters.getFirst(), model.getSBaseById("p4"));
+  }
+
+  /**
+   * 
+   */
+  @Test public void changedBehindIndex() {
+    InternalListOf list = new InternalListOf();
+    for (int i = 0; i < SIZE; i++) {
+      list.add(new Parameter("p" + i, 3, 1));
+    }
+    list.get("p0");
+    Parameter p1 = list.get("p1");
+
+    list.removeInternal(0);
+    assertNull(list.remove("p0"));
+    list.get("p2");
+    list.removeInternal(0);
+    assertFalse(list.remove(p1.clone()));
+    assertLookups(list, "p0", "p1", "p2");
+    assertEquals(SIZE - 2, list.size());
+  }
+
+  /**
+   * A list whose internal list is changed without updating its index, as
+   * subclasses could do.
+   */
+  private static class InternalListOf extends ListOf<Parameter> {
+
+    /**
+     * Generated serial version identifier.
+     */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 
+     */
+    InternalListOf() {
+      super(3, 1);
+    }
+
+    /**
+     * @param index
+     */
+    void removeInternal(int index) {
+      listOf.remove(index);
+    }
+  }
+
+}
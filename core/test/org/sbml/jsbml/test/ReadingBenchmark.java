@@ -0,0 +1,165 @@
+/*
+ * ----------------------------------------------------------------------------
+ * This file is part of JSBML. Please visit <http://sbml.org/Software/JSBML>
+ * for the latest version of JSBML and more information about SBML.
+ * 
+ * Copyright (C) 2009-2018 jointly by the following organizations:
+ * 1. The University of Tuebingen, Germany
+ * 2. EMBL European Bioinformatics Institute (EBML-EBI), Hinxton, UK
+ * 3. The California Institute of Technology, Pasadena, CA, USA
+ * 4. The University of California, San Diego, La Jolla, CA, USA
+ * 5. The Babraham Institute, Cambridge, UK
+ * 
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation. A copy of the license agreement is provided
+ * in the file named "LICENSE.txt" included with this software distribution
+ * and also available online as <http://sbml.org/Software/JSBML/License>.
+ * ----------------------------------------------------------------------------
+ */
+package org.sbml.jsbml.test;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileFilter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.stream.XMLStreamException;
+
+import org.sbml.jsbml.SBMLReader;
+
+/**
+ * Measures the time needed to parse a set of SBML files, for instance the
+ * models in {@code core/files/test-models}.
+ * 
+ * <p>
+ * The files are loaded in memory before the measure, so that only the parsing
+ * is timed, and the files that cannot be read are skipped. A number of warm-up passes over all the files is done first to let
+ * the JIT compile the reading code, then the mean time of the measured passes
+ * is printed.
+ * 
+ * @since 1.6
+ */
+public class ReadingBenchmark {
+
+  /**
+   * Default number of passes done before the measure.
+   */
+  private static final int WARM_UP_PASSES = 10;
+
+  /**
+   * Default number of measured passes.
+   */
+  private static final int MEASURED_PASSES = 20;
+
+  /**
+   * @param args
+   *        the SBML file or folder to read, then optionally the number of
+   *        warm-up passes and the number of measured passes.
+   * @throws IOException
+   * @throws XMLStreamException
+   */
+  public static void main(String[] args) throws IOException, XMLStreamException {
+
+    if (args.length < 1) {
+      System.out.println("Usage: java org.sbml.jsbml.test.ReadingBenchmark sbmlFileName|folder [warmUpPasses [measuredPasses]]");
+      System.exit(0);
+    }
+
+    int warmUpPasses = args.length > 1 ? Integer.parseInt(args[1]) : WARM_UP_PASSES;
+    int measuredPasses = args.length > 2 ? Integer.parseInt(args[2]) : MEASURED_PASSES;
+
+    List<byte[]> contents = new ArrayList<byte[]>();
+    long totalSize = 0;
+
+    for (File file : listFiles(new File(args[0]))) {
+      byte[] content = Files.readAllBytes(file.toPath());
+
+      try {
+        new SBMLReader().readSBMLFromStream(new ByteArrayInputStream(content));
+      } catch (Exception exc) {
+        System.out.printf("Skipping %s: %s\n", file, exc.getMessage());
+        continue;
+      }
+      contents.add(content);
+      totalSize += content.length;
+    }
+
+    System.out.printf("Reading %d files (%d Kb), %d warm-up passes, %d measured passes\n",
+      contents.size(), totalSize / 1024, warmUpPasses, measuredPasses);
+
+    for (int i = 0; i < warmUpPasses; i++) {
+      readAll(contents);
+    }
+
+    long[] times = new long[measuredPasses];
+    long total = 0;
+
+    for (int i = 0; i < measuredPasses; i++) {
+      long start = System.nanoTime();
+      readAll(contents);
+      times[i] = System.nanoTime() - start;
+      total += times[i];
+    }
+
+    double mean = total / (double) measuredPasses;
+    double variance = 0d;
+
+    for (long time : times) {
+      variance += (time - mean) * (time - mean);
+    }
+    variance /= measuredPasses;
+
+    System.out.printf("Mean time per pass: %.2f ms (+/- %.2f ms), %.3f ms per file\n",
+      mean / 1e6, Math.sqrt(variance) / 1e6, mean / 1e6 / contents.size());
+  }
+
+  /**
+   * Reads all the given SBML contents.
+   * 
+   * @param contents
+   * @throws XMLStreamException
+   */
+  private static void readAll(List<byte[]> contents) throws XMLStreamException {
+    SBMLReader reader = new SBMLReader();
+
+    for (byte[] content : contents) {
+      reader.readSBMLFromStream(new ByteArrayInputStream(content));
+    }
+  }
+
+  /**
+   * Returns the SBML files to read: the given file, or all the xml and sbml
+   * files found in the given folder and its sub-folders.
+   * 
+   * @param file
+   * @return the SBML files to read.
+   */
+  static List<File> listFiles(File file) {
+    List<File> files = new ArrayList<File>();
+
+    if (file.isDirectory()) {
+      File[] children = file.listFiles(new FileFilter() {
+
+        @Override
+        public boolean accept(File pathname) {
+          String name = pathname.getName();
+          return pathname.isDirectory() || (!name.contains("-jsbml")
+              && (name.endsWith(".xml") || name.endsWith(".sbml")));
+        }
+      });
+
+      for (File child : children) {
+        files.addAll(listFiles(child));
+      }
+    } else {
+      files.add(file);
+    }
+
+    return files;
+  }
+
+}
@@ -0,0 +1,245 @@
+/*
+ * ----------------------------------------------------------------------------
+ * This file is part of JSBML. Please visit <http://sbml.org/Software/JSBML>
+ * for the latest version of JSBML and more information about SBML.
+ * 
+ * Copyright (C) 2009-2018 jointly by the following organizations:
+ * 1. The University of Tuebingen, Germany
+ * 2. EMBL European Bioinformatics Institute (EBML-EBI), Hinxton, UK
+ * 3. The California Institute of Technology, Pasadena, CA, USA
+ * 4. The University of California, San Diego, La Jolla, CA, USA
+ * 5. The Babraham Institute, Cambridge, UK
+ * 
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation. A copy of the license agreement is provided
+ * in the file named "LICENSE.txt" included with this software distribution
+ * and also available online as <http://sbml.org/Software/JSBML/License>.
+ * ----------------------------------------------------------------------------
+ */
+package org.sbml.jsbml.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.ListIterator;
+import java.util.Set;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.sbml.jsbml.ASTNode;
+import org.sbml.jsbml.CVTerm;
+import org.sbml.jsbml.Model;
+import org.sbml.jsbml.Parameter;
+import org.sbml.jsbml.Reaction;
+import org.sbml.jsbml.SBMLDocument;
+import org.sbml.jsbml.SBase;
+import org.sbml.jsbml.Species;
+import org.sbml.jsbml.xml.XMLNode;
+import org.sbml.jsbml.xml.stax.SBMLReader;
+
+/**
+ * Checks that the hash codes cached by the nodes of a tree are forgotten
+ * when the tree changes below them, so that they remain the ones of an
+ * identical tree built from scratch.
+ * 
+ * @since 1.6
+ */
+public class TreeHashCodeTest {
+
+  /**
+   * 
+   */
+  private static final String FILE = "/org/sbml/jsbml/xml/test/data/l2v4/BIOMD0000000228.xml";
+
+  /**
+   * 
+   */
+  private SBMLDocument doc;
+
+  /**
+   * @throws Exception
+   */
+  @Before public void setUp() throws Exception {
+    doc = new SBMLReader().readSBMLFromStream(getClass().getResourceAsStream(FILE));
+  }
+
+  /**
+   * Checks that the cached hash code of the document is the one of a clone,
+   * whose hash code is computed for the first time.
+   */
+  private void assertHashCodeUpToDate() {
+    SBMLDocument clone = doc.clone();
+
+    assertEquals(clone.hashCode(), doc.hashCode());
+    assertEquals(clone.getModel().hashCode(), doc.getModel().hashCode());
+    assertEquals(clone, doc);
+  }
+
+  /**
+   * 
+   */
+  @Test public void changedAttribute() {
+    int hashCode = doc.hashCode();
+    doc.getModel().getSpecies(0).setInitialConcentration(0.25);
+
+    assertFalse(hashCode == doc.hashCode());
+    assertHashCodeUpToDate();
+  }
+
+  /**
+   * @throws Exception
+   */
+  @Test public void changedMath() throws Exception {
+    doc.hashCode();
+    ASTNode leaf = doc.getModel().getReaction(0).getKineticLaw().getMath();
+    while (leaf.getChildCount() > 0) {
+      leaf = leaf.getChild(0);
+    }
+    leaf.setName("renamed");
+    assertHashCodeUpToDate();
+
+    doc.getModel().getReaction(1).getKineticLaw().setMath(ASTNode.parseFormula("k1 * 2"));
+    assertHashCodeUpToDate();
+  }
+
+  /**
+   * 
+   */
+  @Test public void changedNotesAndAnnotation() {
+    doc.hashCode();
+    XMLNode text = doc.getModel().getNotes();
+    while (text.getChildCount() > 0) {
+      text = text.getChildAt(text.getChildCount() - 1);
+    }
+    text.append(" more");
+    assertHashCodeUpToDate();
+
+    doc.getModel().getSpecies(1).addCVTerm(new CVTerm(CVTerm.Qualifier.BQB_IS, "urn:miriam:obo.chebi:CHEBI%3A15422"));
+    assertHashCodeUpToDate();
+  }
+
+  /**
+   * 
+   */
+  @Test public void addedAndRemovedElements() {
+    Model model = doc.getModel();
+    doc.hashCode();
+    model.createParameter("added");
+    assertHashCodeUpToDate();
+
+    model.removeSpecies(2);
+    assertHashCodeUpToDate();
+
+    model.getListOfReactions().remove(0);
+    assertHashCodeUpToDate();
+  }
+
+  /**
+   * @throws Exception
+   */
+  @Test public void changedThroughViews() throws Exception {
+    Model model = doc.getModel();
+    doc.hashCode();
+    Iterator<Species> iterator = model.getListOfSpecies().iterator();
+    iterator.next();
+    iterator.remove();
+    assertHashCodeUpToDate();
+
+    SBMLDocument other = new SBMLReader().readSBMLFromStream(getClass().getResourceAsStream(FILE));
+    other.getModel().removeSpecies(0);
+    assertEquals(other.hashCode(), doc.hashCode());
+    assertEquals(other, doc);
+
+    ListIterator<Reaction> reactions = model.getListOfReactions().listIterator();
+    reactions.next();
+    reactions.set(new Reaction("set", 2, 4));
+    assertHashCodeUpToDate();
+    reactions.add(new Reaction("added", 2, 4));
+    assertHashCodeUpToDate();
+
+    model.getListOfParameters().subList(0, 2).clear();
+    assertHashCodeUpToDate();
+  }
+
+  /**
+   * @throws Exception
+   */
+  @Test public void deduplication() throws Exception {
+    SBMLDocument other = new SBMLReader().readSBMLFromStream(getClass().getResourceAsStream(FILE));
+    Set<Model> models = new HashSet<Model>();
+
+    assertTrue(models.add(doc.getModel()));
+    assertFalse(models.add(other.getModel()));
+
+    other.getModel().getCompartment(0).setSize(2d);
+    assertFalse(doc.getModel().equals(other.getModel()));
+    assertTrue(models.add(other.getModel()));
+  }
+
+  /**
+   * Checks that comparing and changing nodes does not need the hash code nor
+   * the parent returned by overridden methods, which some package elements
+   * cannot compute while they are being built.
+   */
+  @Test public void incompleteNodes() {
+    IncompleteParameter parameter = new IncompleteParameter();
+    IncompleteParameter other = new IncompleteParameter();
+    doc.getModel().getListOfParameters().add(parameter);
+    parameter.incomplete = other.incomplete = true;
+
+    assertTrue(parameter.equals(other));
+    parameter.setValue(1d);
+    assertFalse(parameter.equals(other));
+  }
+
+  /**
+   * A node whose hash code and parent cannot be computed while it is
+   * incomplete.
+   */
+  private static class IncompleteParameter extends Parameter {
+
+    /**
+     * Generated serial version identifier.
+     */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 
+     */
+    private boolean incomplete;
+
+    /**
+     * 
+     */
+    public IncompleteParameter() {
+      super("incomplete", 2, 4);
+    }
+
+    /* (non-Javadoc)
+     * @see org.sbml.jsbml.Parameter#hashCode()
+     */
+    @Override
+    public int hashCode() {
+      if (incomplete) {
+        throw new IllegalStateException();
+      }
+      return super.hashCode();
+    }
+
+    /* (non-Javadoc)
+     * @see org.sbml.jsbml.AbstractSBase#getParent()
+     */
+    @Override
+    public SBase getParent() {
+      if (incomplete) {
+        throw new IllegalStateException();
+      }
+      return super.getParent();
+    }
+  }
+
+}
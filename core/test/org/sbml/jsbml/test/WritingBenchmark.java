@@ -0,0 +1,167 @@
+/*
+ * ----------------------------------------------------------------------------
+ * This file is part of JSBML. Please visit <http://sbml.org/Software/JSBML>
+ * for the latest version of JSBML and more information about SBML.
+ * 
+ * Copyright (C) 2009-2018 jointly by the following organizations:
+ * 1. The University of Tuebingen, Germany
+ * 2. EMBL European Bioinformatics Institute (EBML-EBI), Hinxton, UK
+ * 3. The California Institute of Technology, Pasadena, CA, USA
+ * 4. The University of California, San Diego, La Jolla, CA, USA
+ * 5. The Babraham Institute, Cambridge, UK
+ * 
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation. A copy of the license agreement is provided
+ * in the file named "LICENSE.txt" included with this software distribution
+ * and also available online as <http://sbml.org/Software/JSBML/License>.
+ * ----------------------------------------------------------------------------
+ */
+package org.sbml.jsbml.test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.stream.XMLStreamException;
+
+import org.sbml.jsbml.SBMLDocument;
+import org.sbml.jsbml.SBMLException;
+import org.sbml.jsbml.xml.stax.SBMLReader;
+import org.sbml.jsbml.xml.stax.SBMLWriter;
+
+/**
+ * Compares the throughput of the {@link SBMLWriter} when it writes directly
+ * to the stream writer, the default, and through StaxMate output elements,
+ * see {@link SBMLWriter#setDirectOutput(boolean)}.
+ * 
+ * <p>
+ * The files are read once, then written to a stream that only counts the
+ * bytes, so that the measure does not include any I/O. The measured passes
+ * of the two ways of writing alternate, after a number of warm-up passes
+ * done with both.
+ * 
+ * @since 1.6
+ */
+public class WritingBenchmark {
+
+  /**
+   * Default number of passes done before the measure.
+   */
+  private static final int WARM_UP_PASSES = 3;
+
+  /**
+   * Default number of measured passes.
+   */
+  private static final int MEASURED_PASSES = 10;
+
+  /**
+   * An {@link OutputStream} that only counts the bytes written to it.
+   */
+  private static class CountingOutputStream extends OutputStream {
+
+    /**
+     * 
+     */
+    private long count;
+
+    /* (non-Javadoc)
+     * @see java.io.OutputStream#write(int)
+     */
+    @Override
+    public void write(int b) {
+      count++;
+    }
+
+    /* (non-Javadoc)
+     * @see java.io.OutputStream#write(byte[], int, int)
+     */
+    @Override
+    public void write(byte[] b, int off, int len) {
+      count += len;
+    }
+
+  }
+
+  /**
+   * @param args
+   *        the SBML file or folder to write, then optionally the number of
+   *        warm-up passes and the number of measured passes.
+   * @throws XMLStreamException
+   * @throws SBMLException
+   */
+  public static void main(String[] args) throws XMLStreamException, SBMLException {
+
+    if (args.length < 1) {
+      System.out.println("Usage: java org.sbml.jsbml.test.WritingBenchmark sbmlFileName|folder [warmUpPasses [measuredPasses]]");
+      System.exit(0);
+    }
+
+    int warmUpPasses = args.length > 1 ? Integer.parseInt(args[1]) : WARM_UP_PASSES;
+    int measuredPasses = args.length > 2 ? Integer.parseInt(args[2]) : MEASURED_PASSES;
+
+    List<SBMLDocument> documents = new ArrayList<SBMLDocument>();
+
+    for (File file : ReadingBenchmark.listFiles(new File(args[0]))) {
+      try {
+        documents.add(new SBMLReader().readSBML(file));
+      } catch (Exception exc) {
+        System.out.printf("Skipping %s: %s\n", file, exc.getMessage());
+      }
+    }
+
+    long size = writeAll(documents, true);
+
+    System.out.printf("Writing %d documents (%d Kb), %d warm-up passes, %d measured passes\n",
+      documents.size(), size / 1024, warmUpPasses, measuredPasses);
+
+    for (int i = 0; i < warmUpPasses; i++) {
+      writeAll(documents, false);
+      writeAll(documents, true);
+    }
+
+    long staxMateTime = 0, directTime = 0;
+
+    for (int i = 0; i < measuredPasses; i++) {
+      long start = System.nanoTime();
+      writeAll(documents, false);
+      staxMateTime += System.nanoTime() - start;
+
+      start = System.nanoTime();
+      writeAll(documents, true);
+      directTime += System.nanoTime() - start;
+    }
+
+    double staxMateMean = staxMateTime / (double) measuredPasses / 1e6;
+    double directMean = directTime / (double) measuredPasses / 1e6;
+
+    System.out.printf("Mean time per pass: %.2f ms (%.1f Mb/s) through StaxMate, %.2f ms (%.1f Mb/s) direct (%.1f%%)\n",
+      staxMateMean, size / staxMateMean / 1e3, directMean, size / directMean / 1e3,
+      100d * (directMean - staxMateMean) / staxMateMean);
+  }
+
+  /**
+   * Writes all the given documents.
+   * 
+   * @param documents
+   * @param directOutput
+   *        whether the elements are written directly to the stream writer.
+   * @return the number of bytes written.
+   * @throws XMLStreamException
+   * @throws SBMLException
+   */
+  private static long writeAll(List<SBMLDocument> documents, boolean directOutput) throws XMLStreamException, SBMLException {
+    SBMLWriter writer = new SBMLWriter();
+    writer.setDirectOutput(directOutput);
+    CountingOutputStream stream = new CountingOutputStream();
+
+    for (SBMLDocument document : documents) {
+      writer.write(document, stream);
+    }
+
+    return stream.count;
+  }
+
+}
@@ -0,0 +1,140 @@
+/*
+ * ----------------------------------------------------------------------------
+ * This file is part of JSBML. Please visit <http://sbml.org/Software/JSBML>
+ * for the latest version of JSBML and more information about SBML.
+ * 
+ * Copyright (C) 2009-2018 jointly by the following organizations:
+ * 1. The University of Tuebingen, Germany
+ * 2. EMBL European Bioinformatics Institute (EBML-EBI), Hinxton, UK
+ * 3. The California Institute of Technology, Pasadena, CA, USA
+ * 4. The University of California, San Diego, La Jolla, CA, USA
+ * 5. The Babraham Institute, Cambridge, UK
+ * 
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation. A copy of the license agreement is provided
+ * in the file named "LICENSE.txt" included with this software distribution
+ * and also available online as <http://sbml.org/Software/JSBML/License>.
+ * ----------------------------------------------------------------------------
+ */
+package org.sbml.jsbml.xml.test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.file.Files;
+
+import org.junit.Test;
+import org.sbml.jsbml.Compartment;
+import org.sbml.jsbml.Model;
+import org.sbml.jsbml.SBMLDocument;
+import org.sbml.jsbml.Species;
+import org.sbml.jsbml.xml.stax.SBMLReader;
+import org.sbml.jsbml.xml.stax.SBMLWriter;
+
+/**
+ * Checks that the {@link SBMLWriter} writes the same bytes to a
+ * {@link java.nio.channels.WritableByteChannel} as to an
+ * {@link java.io.OutputStream}.
+ * 
+ * @since 1.6
+ */
+public class ChannelWriterTest {
+
+  /**
+   * 
+   */
+  private static final String[] FILES = {
+    "/org/sbml/jsbml/xml/test/data/l2v4/BIOMD0000000228.xml",
+    "/org/sbml/jsbml/xml/test/data/l2v1/BIOMD0000000227.xml",
+    "/org/sbml/jsbml/xml/test/data/libsbml-test-data/l2v3-all.xml"};
+
+  /**
+   * A name with characters encoded on two, three and four bytes.
+   */
+  private static final String NAME = "\u03b1-D-glucose \u2265 1 \ud835\udefc";
+
+  /**
+   * Writes a document to a stream and to a channel and checks that the
+   * results are the same.
+   * 
+   * @param writer
+   * @param doc
+   * @return the bytes written.
+   * @throws Exception
+   */
+  private static byte[] assertSameOutput(SBMLWriter writer, SBMLDocument doc) throws Exception {
+    ByteArrayOutputStream expected = new ByteArrayOutputStream();
+    writer.write(doc, expected);
+    ByteArrayOutputStream stream = new ByteArrayOutputStream();
+    writer.write(doc, Channels.newChannel(stream));
+
+    assertArrayEquals(expected.toByteArray(), stream.toByteArray());
+
+    return stream.toByteArray();
+  }
+
+  /**
+   * @throws Exception
+   */
+  @Test public void sameFiles() throws Exception {
+    for (String file : FILES) {
+      InputStream stream = getClass().getResourceAsStream(file);
+      SBMLDocument doc = new SBMLReader().readSBMLFromStream(stream, null);
+      stream.close();
+
+      SBMLWriter writer = new SBMLWriter();
+      assertSameOutput(writer, doc);
+      writer.setDirectOutput(false);
+      assertSameOutput(writer, doc);
+    }
+  }
+
+  /**
+   * Writes more than one buffer of non ASCII characters, so that some of
+   * them are split between two buffers.
+   * 
+   * @throws Exception
+   */
+  @Test public void nonAsciiCharacters() throws Exception {
+    SBMLDocument doc = new SBMLDocument(3, 1);
+    Model model = doc.createModel("m");
+    Compartment compartment = model.createCompartment("c");
+    compartment.setConstant(true);
+
+    for (int i = 0; i < 2000; i++) {
+      Species species = model.createSpecies("s" + i, compartment);
+      species.setName(NAME + " " + i);
+      species.setNotes("<body xmlns=\"http://www.w3.org/1999/xhtml\"><p>" + NAME + "</p></body>");
+    }
+
+    byte[] xml = assertSameOutput(new SBMLWriter(), doc);
+    Model written = new SBMLReader().readSBMLFromString(new String(xml, "UTF-8")).getModel();
+
+    assertEquals(NAME + " 1999", written.getSpecies(1999).getName());
+  }
+
+  /**
+   * @throws Exception
+   */
+  @Test public void file() throws Exception {
+    InputStream stream = getClass().getResourceAsStream(FILES[0]);
+    SBMLDocument doc = new SBMLReader().readSBMLFromStream(stream, null);
+    stream.close();
+
+    File file = File.createTempFile("jsbml-channel", ".xml");
+    file.deleteOnExit();
+    SBMLWriter writer = new SBMLWriter();
+    writer.write(doc, file);
+    ByteArrayOutputStream expected = new ByteArrayOutputStream();
+    writer.write(doc, expected);
+
+    assertArrayEquals(expected.toByteArray(), Files.readAllBytes(file.toPath()));
+    file.delete();
+  }
+
+}
@@ -0,0 +1,203 @@
+/*
+ * ----------------------------------------------------------------------------
+ * This file is part of JSBML. Please visit <http://sbml.org/Software/JSBML>
+ * for the latest version of JSBML and more information about SBML.
+ * 
+ * Copyright (C) 2009-2018 jointly by the following organizations:
+ * 1. The University of Tuebingen, Germany
+ * 2. EMBL European Bioinformatics Institute (EBML-EBI), Hinxton, UK
+ * 3. The California Institute of Technology, Pasadena, CA, USA
+ * 4. The University of California, San Diego, La Jolla, CA, USA
+ * 5. The Babraham Institute, Cambridge, UK
+ * 
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation. A copy of the license agreement is provided
+ * in the file named "LICENSE.txt" included with this software distribution
+ * and also available online as <http://sbml.org/Software/JSBML/License>.
+ * ----------------------------------------------------------------------------
+ */
+package org.sbml.jsbml.xml.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.stream.XMLStreamException;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.sbml.jsbml.SBMLDocument;
+import org.sbml.jsbml.SBMLWriter;
+import org.sbml.jsbml.util.SimpleTreeNodeChangeListener;
+import org.sbml.jsbml.xml.stax.SBMLChunkReader;
+import org.sbml.jsbml.xml.stax.SBMLReader;
+
+/**
+ * Checks that a document given in chunks to a {@link SBMLChunkReader} is
+ * read like the same document given in one piece.
+ * 
+ * @since 1.6
+ */
+public class ChunkReaderTest {
+
+  /**
+   * 
+   */
+  private static final String FILE = "/org/sbml/jsbml/xml/test/data/l2v4/BIOMD0000000228.xml";
+
+  /**
+   * 
+   */
+  private byte[] content;
+
+  /**
+   * 
+   */
+  private ExecutorService executor;
+
+  /**
+   * @throws Exception
+   */
+  @Before public void setUp() throws Exception {
+    InputStream stream = getClass().getResourceAsStream(FILE);
+    ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    byte[] bytes = new byte[8192];
+    int count;
+
+    while ((count = stream.read(bytes)) != -1) {
+      buffer.write(bytes, 0, count);
+    }
+    stream.close();
+    content = buffer.toByteArray();
+    executor = Executors.newSingleThreadExecutor();
+  }
+
+  /**
+   * 
+   */
+  @After public void tearDown() {
+    executor.shutdownNow();
+  }
+
+  /**
+   * Gives the content to the reader in chunks of the given size, reusing the
+   * same buffer for all the chunks.
+   * 
+   * @param reader
+   * @param bytes
+   * @param chunkSize
+   */
+  private static void feed(SBMLChunkReader reader, byte[] bytes, int chunkSize) {
+    ByteBuffer buffer = ByteBuffer.allocate(chunkSize);
+
+    for (int offset = 0; offset < bytes.length; offset += chunkSize) {
+      buffer.clear();
+      buffer.put(bytes, offset, Math.min(chunkSize, bytes.length - offset));
+      buffer.flip();
+      assertTrue(reader.feed(buffer));
+    }
+    reader.endOfInput();
+  }
+
+  /**
+   * @throws Exception
+   */
+  @Test public void readInChunks() throws Exception {
+    SBMLDocument expected = new SBMLReader().readSBMLFromString(new String(content, "UTF-8"));
+    String expectedString = new SBMLWriter().writeSBMLToString(expected);
+
+    for (int chunkSize : new int[] {1, 7, 512, content.length}) {
+      SBMLChunkReader reader = new SBMLChunkReader(executor);
+      feed(reader, content, chunkSize);
+      SBMLDocument doc = reader.getDocument().get(30, TimeUnit.SECONDS);
+
+      assertEquals(expected.getModel().getSpeciesCount(), doc.getModel().getSpeciesCount());
+      assertEquals(expected.getModel().getReactionCount(), doc.getModel().getReactionCount());
+      assertEquals(expectedString, new SBMLWriter().writeSBMLToString(doc));
+    }
+  }
+
+  /**
+   * Checks that the chunks are refused while the reading waits for a thread
+   * and too many bytes are held, and accepted again once they are parsed.
+   * 
+   * @throws Exception
+   */
+  @Test public void boundedInput() throws Exception {
+    final CountDownLatch busy = new CountDownLatch(1);
+    executor.execute(new Runnable() {
+
+      @Override
+      public void run() {
+        try {
+          busy.await();
+        } catch (InterruptedException exc) {
+          Thread.currentThread().interrupt();
+        }
+      }
+    });
+    SBMLChunkReader reader = new SBMLChunkReader(new SBMLReader(), executor,
+      new SimpleTreeNodeChangeListener(), 1024);
+    ByteBuffer buffer = ByteBuffer.wrap(content);
+    buffer.limit(512);
+
+    assertTrue(reader.feed(buffer));
+    buffer.limit(1024);
+    assertTrue(reader.feed(buffer));
+    buffer.limit(1025);
+    assertFalse(reader.feed(buffer));
+    assertEquals(1024, buffer.position());
+    assertEquals(1024, reader.getPendingBytes());
+
+    busy.countDown();
+    buffer.limit(content.length);
+
+    while (!reader.feed(buffer)) {
+      Thread.sleep(1);
+    }
+    reader.endOfInput();
+    SBMLDocument doc = reader.getDocument().get(30, TimeUnit.SECONDS);
+
+    assertEquals(new SBMLWriter().writeSBMLToString(new SBMLReader().readSBMLFromString(new String(content, "UTF-8"))),
+      new SBMLWriter().writeSBMLToString(doc));
+  }
+
+  /**
+   * @throws Exception
+   */
+  @Test public void invalidContent() throws Exception {
+    SBMLChunkReader reader = new SBMLChunkReader(executor);
+    feed(reader, "<sbml level=\"3\" version=\"1\"><model></sbml>".getBytes("UTF-8"), 5);
+
+    try {
+      reader.getDocument().get(30, TimeUnit.SECONDS);
+      fail("The reading of invalid content should fail.");
+    } catch (ExecutionException exc) {
+      assertTrue(exc.getCause() instanceof XMLStreamException);
+    }
+  }
+
+  /**
+   * @throws Exception
+   */
+  @Test(expected = IllegalStateException.class)
+  public void feedAfterEnd() throws Exception {
+    SBMLChunkReader reader = new SBMLChunkReader(executor);
+    feed(reader, content, 4096);
+    reader.getDocument().get(30, TimeUnit.SECONDS);
+    reader.feed(ByteBuffer.wrap(content));
+  }
+
+}
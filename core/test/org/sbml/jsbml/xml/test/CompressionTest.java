@@ -0,0 +1,176 @@
+/*
+ * ----------------------------------------------------------------------------
+ * This file is part of JSBML. Please visit <http://sbml.org/Software/JSBML>
+ * for the latest version of JSBML and more information about SBML.
+ * 
+ * Copyright (C) 2009-2018 jointly by the following organizations:
+ * 1. The University of Tuebingen, Germany
+ * 2. EMBL European Bioinformatics Institute (EBML-EBI), Hinxton, UK
+ * 3. The California Institute of Technology, Pasadena, CA, USA
+ * 4. The University of California, San Diego, La Jolla, CA, USA
+ * 5. The Babraham Institute, Cambridge, UK
+ * 
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation. A copy of the license agreement is provided
+ * in the file named "LICENSE.txt" included with this software distribution
+ * and also available online as <http://sbml.org/Software/JSBML/License>.
+ * ----------------------------------------------------------------------------
+ */
+package org.sbml.jsbml.xml.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.sbml.jsbml.OMEXReader;
+import org.sbml.jsbml.SBMLDocument;
+import org.sbml.jsbml.SBMLReader;
+import org.sbml.jsbml.SBMLWriter;
+
+/**
+ * Checks the reading and writing of gzip and zip compressed SBML files and
+ * the reading of COMBINE archives.
+ * 
+ * @since 1.6
+ */
+public class CompressionTest {
+
+  /**
+   * 
+   */
+  private static final String[] FILES = {
+    "/org/sbml/jsbml/xml/test/data/l2v4/BIOMD0000000228.xml",
+    "/org/sbml/jsbml/xml/test/data/l2v1/BIOMD0000000025.xml"
+  };
+
+  /**
+   * 
+   */
+  private String[] expected;
+
+  /**
+   * @throws Exception
+   */
+  @Before public void setUp() throws Exception {
+    expected = new String[FILES.length];
+
+    for (int i = 0; i < FILES.length; i++) {
+      expected[i] = new SBMLWriter().writeSBMLToString(SBMLReader.read(getClass().getResourceAsStream(FILES[i])));
+    }
+  }
+
+  /**
+   * Checks that the given document is written as expected, ignoring the
+   * white spaces, as the indentation of the annotations changes each time a
+   * document is written and read again.
+   * 
+   * @param expected
+   * @param doc
+   * @throws Exception
+   */
+  private void assertWrittenAs(String expected, SBMLDocument doc) throws Exception {
+    assertEquals(expected.replaceAll("\\s+", ""), new SBMLWriter().writeSBMLToString(doc).replaceAll("\\s+", ""));
+  }
+
+  /**
+   * @param suffix
+   * @return
+   * @throws Exception
+   */
+  private File writeAndRead(String suffix) throws Exception {
+    File file = File.createTempFile("jsbml-test", suffix);
+    file.deleteOnExit();
+
+    new SBMLWriter().write(SBMLReader.read(expected[0]), file);
+    assertWrittenAs(expected[0], SBMLReader.read(file));
+    org.sbml.jsbml.xml.stax.SBMLReader mappingReader = new org.sbml.jsbml.xml.stax.SBMLReader();
+    mappingReader.setMinMappedFileSize(0);
+    assertWrittenAs(expected[0], mappingReader.readSBML(file.toPath()));
+
+    return file;
+  }
+
+  /**
+   * @throws Exception
+   */
+  @Test public void gzip() throws Exception {
+    File file = writeAndRead(".xml.gz");
+
+    FileInputStream stream = new FileInputStream(file);
+    try {
+      assertEquals(0x1f, stream.read());
+      assertEquals(0x8b, stream.read());
+    } finally {
+      stream.close();
+    }
+
+    ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    GZIPOutputStream gzipStream = new GZIPOutputStream(buffer);
+    gzipStream.write(expected[1].getBytes(StandardCharsets.UTF_8));
+    gzipStream.close();
+
+    InputStream inputStream = new ByteArrayInputStream(buffer.toByteArray());
+    assertWrittenAs(expected[1], SBMLReader.read(inputStream));
+  }
+
+  /**
+   * @throws Exception
+   */
+  @Test public void zip() throws Exception {
+    File file = writeAndRead(".zip");
+
+    assertTrue(file.length() < expected[0].length());
+  }
+
+  /**
+   * @throws Exception
+   */
+  @Test public void omex() throws Exception {
+    File file = File.createTempFile("jsbml-test", ".omex");
+    file.deleteOnExit();
+
+    ZipOutputStream zipStream = new ZipOutputStream(new FileOutputStream(file));
+    try {
+      zipStream.putNextEntry(new ZipEntry("metadata.rdf"));
+      zipStream.write("<rdf:RDF xmlns:rdf=\"http://www.w3.org/1999/02/22-rdf-syntax-ns#\"/>".getBytes(StandardCharsets.UTF_8));
+      zipStream.putNextEntry(new ZipEntry("manifest.xml"));
+      zipStream.write(("<omexManifest xmlns=\"http://identifiers.org/combine.specifications/omex-manifest\">"
+          + "<content location=\".\" format=\"http://identifiers.org/combine.specifications/omex\"/>"
+          + "<content location=\"./metadata.rdf\" format=\"http://identifiers.org/combine.specifications/omex-metadata\"/>"
+          + "<content location=\"./models/first.xml\" format=\"http://identifiers.org/combine.specifications/sbml.level-2.version-4\" master=\"true\"/>"
+          + "<content location=\"./second.xml\" format=\"http://identifiers.org/combine.specifications/sbml\"/>"
+          + "</omexManifest>").getBytes(StandardCharsets.UTF_8));
+      zipStream.putNextEntry(new ZipEntry("second.xml"));
+      zipStream.write(expected[1].getBytes(StandardCharsets.UTF_8));
+      zipStream.putNextEntry(new ZipEntry("models/first.xml"));
+      zipStream.write(expected[0].getBytes(StandardCharsets.UTF_8));
+    } finally {
+      zipStream.close();
+    }
+
+    Map<String, SBMLDocument> documents = new OMEXReader(2).read(file);
+
+    assertEquals(Arrays.asList("./models/first.xml", "./second.xml"), Arrays.asList(documents.keySet().toArray()));
+    assertWrittenAs(expected[0], documents.get("./models/first.xml"));
+    assertWrittenAs(expected[1], documents.get("./second.xml"));
+
+    // read as a simple zip archive, the first SBML entry is used
+    assertWrittenAs(expected[1], SBMLReader.read(file));
+  }
+
+}
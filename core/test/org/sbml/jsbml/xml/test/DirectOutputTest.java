@@ -0,0 +1,112 @@
+/*
+ * ----------------------------------------------------------------------------
+ * This file is part of JSBML. Please visit <http://sbml.org/Software/JSBML>
+ * for the latest version of JSBML and more information about SBML.
+ * 
+ * Copyright (C) 2009-2018 jointly by the following organizations:
+ * 1. The University of Tuebingen, Germany
+ * 2. EMBL European Bioinformatics Institute (EBML-EBI), Hinxton, UK
+ * 3. The California Institute of Technology, Pasadena, CA, USA
+ * 4. The University of California, San Diego, La Jolla, CA, USA
+ * 5. The Babraham Institute, Cambridge, UK
+ * 
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation. A copy of the license agreement is provided
+ * in the file named "LICENSE.txt" included with this software distribution
+ * and also available online as <http://sbml.org/Software/JSBML/License>.
+ * ----------------------------------------------------------------------------
+ */
+package org.sbml.jsbml.xml.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.InputStream;
+
+import org.junit.Test;
+import org.sbml.jsbml.ASTNode;
+import org.sbml.jsbml.Compartment;
+import org.sbml.jsbml.Constraint;
+import org.sbml.jsbml.Model;
+import org.sbml.jsbml.SBMLDocument;
+import org.sbml.jsbml.Species;
+import org.sbml.jsbml.xml.stax.SBMLReader;
+import org.sbml.jsbml.xml.stax.SBMLWriter;
+
+/**
+ * Checks that the {@link SBMLWriter} produces the same output when writing
+ * directly to the stream writer and through StaxMate output elements.
+ * 
+ * @since 1.6
+ */
+public class DirectOutputTest {
+
+  /**
+   * 
+   */
+  private static final String[] FILES = {
+    "/org/sbml/jsbml/xml/test/data/l2v4/BIOMD0000000228.xml",
+    "/org/sbml/jsbml/xml/test/data/l2v1/BIOMD0000000227.xml",
+    "/org/sbml/jsbml/xml/test/data/libsbml-test-data/l1v1-rules.xml",
+    "/org/sbml/jsbml/xml/test/data/libsbml-test-data/l2v1-events.xml",
+    "/org/sbml/jsbml/xml/test/data/libsbml-test-data/l2v3-all.xml",
+    "/org/sbml/jsbml/xml/test/data/libsbml-test-data/l2v4-new.xml"};
+
+  /**
+   * Writes a document both ways and checks that the results are the same.
+   * 
+   * @param writer
+   * @param doc
+   * @return the XML written.
+   * @throws Exception
+   */
+  private static String assertSameOutput(SBMLWriter writer, SBMLDocument doc) throws Exception {
+    writer.setDirectOutput(false);
+    String expected = writer.writeSBMLToString(doc);
+    writer.setDirectOutput(true);
+    String xml = writer.writeSBMLToString(doc);
+
+    assertEquals(expected, xml);
+
+    return xml;
+  }
+
+  /**
+   * @throws Exception
+   */
+  @Test public void sameFiles() throws Exception {
+    for (String file : FILES) {
+      InputStream stream = getClass().getResourceAsStream(file);
+      SBMLDocument doc = new SBMLReader().readSBMLFromStream(stream, null);
+      stream.close();
+
+      assertSameOutput(new SBMLWriter(), doc);
+      assertSameOutput(new SBMLWriter('\t', (short) 1), doc);
+    }
+  }
+
+  /**
+   * @throws Exception
+   */
+  @Test public void sameConstraintAndNotes() throws Exception {
+    SBMLDocument doc = new SBMLDocument(3, 1);
+    Model model = doc.createModel("m");
+    Compartment compartment = model.createCompartment("c");
+    compartment.setConstant(true);
+    Species species = model.createSpecies("s", compartment);
+    species.setNotes("<body xmlns=\"http://www.w3.org/1999/xhtml\"><p>Some species</p></body>");
+
+    Constraint constraint = model.createConstraint();
+    ASTNode math = ASTNode.parseFormula("s < 10");
+    math.getChild(1).setUnits("mole");
+    constraint.setMath(math);
+    constraint.setMessage("<body xmlns=\"http://www.w3.org/1999/xhtml\">Too much s</body>");
+
+    String xml = assertSameOutput(new SBMLWriter(), doc);
+
+    assertTrue(xml.contains("<message>"));
+    assertTrue(xml.contains("sbml:units=\"mole\""));
+  }
+
+}
@@ -0,0 +1,123 @@
+/*
+ * ----------------------------------------------------------------------------
+ * This file is part of JSBML. Please visit <http://sbml.org/Software/JSBML>
+ * for the latest version of JSBML and more information about SBML.
+ * 
+ * Copyright (C) 2009-2018 jointly by the following organizations:
+ * 1. The University of Tuebingen, Germany
+ * 2. EMBL European Bioinformatics Institute (EBML-EBI), Hinxton, UK
+ * 3. The California Institute of Technology, Pasadena, CA, USA
+ * 4. The University of California, San Diego, La Jolla, CA, USA
+ * 5. The Babraham Institute, Cambridge, UK
+ * 
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation. A copy of the license agreement is provided
+ * in the file named "LICENSE.txt" included with this software distribution
+ * and also available online as <http://sbml.org/Software/JSBML/License>.
+ * ----------------------------------------------------------------------------
+ */
+package org.sbml.jsbml.xml.test;
+
+import static org.junit.Assert.assertEquals;
+
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.util.Locale;
+import java.util.Random;
+
+import org.junit.Test;
+import org.sbml.jsbml.util.DoubleFormatter;
+import org.sbml.jsbml.util.StringTools;
+
+/**
+ * Checks that the {@link DoubleFormatter} writes numbers exactly as the
+ * {@link DecimalFormat} patterns of {@link StringTools} do.
+ * 
+ * @since 1.6
+ */
+public class DoubleFormatterTest {
+
+  /**
+   * 
+   */
+  private static final double[] VALUES = {
+    0d, -0d, 0.5, 1d, 123.456, 0.1 + 0.2, 1E-4, 1E4, 9999.999, 10000.5, 1E-5,
+    1.66E-4, 0.000166, 4.35E-6, 6.022E23, 1E23, 2.82879384806159E17,
+    12548698515426596325478965230.33254, Integer.MAX_VALUE, Integer.MIN_VALUE,
+    Integer.MAX_VALUE + 0.5, 2147483648d, 1E-47, 1.5E-47, 2.5E-47, 5E-48, 1E-50,
+    1E300, Double.MIN_VALUE, Double.MAX_VALUE, Double.NaN,
+    Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY};
+
+  /**
+   * Checks one value, and its opposite, against the {@link DecimalFormat}
+   * patterns.
+   * 
+   * @param value
+   */
+  private static void assertSameFormat(double value) {
+    DecimalFormat realFormat = new DecimalFormat(StringTools.REAL_FORMAT,
+      new DecimalFormatSymbols(Locale.ENGLISH));
+
+    for (double v : new double[] {value, -value}) {
+      assertEquals(expected(v), DoubleFormatter.toString(v));
+      assertEquals(realFormat.format(v),
+        DoubleFormatter.appendReal(new StringBuilder("x"), v).substring(1));
+    }
+  }
+
+  /**
+   * @param value
+   * @return the value formatted as {@link StringTools#toString(Locale, double)}
+   *         did with {@link DecimalFormat}.
+   */
+  private static String expected(double value) {
+    if (Double.isNaN(value)) {
+      return "NaN";
+    } else if (Double.isInfinite(value)) {
+      return value < 0 ? "-INF" : "INF";
+    } else if ((((int) value) - value) == 0) {
+      return Integer.toString((int) value);
+    }
+    String pattern = StringTools.DECIMAL_FORMAT;
+    if ((Math.abs(value) < 1E-4) || (1E4 < Math.abs(value))) {
+      pattern = StringTools.SCIENTIFIC_FORMAT;
+    }
+    return new DecimalFormat(pattern, new DecimalFormatSymbols(Locale.ENGLISH)).format(value);
+  }
+
+  /**
+   * 
+   */
+  @Test public void specialValues() {
+    for (double value : VALUES) {
+      assertSameFormat(value);
+      assertSameFormat(Math.nextUp(value));
+    }
+  }
+
+  /**
+   * 
+   */
+  @Test public void randomValues() {
+    Random random = new Random(1L);
+
+    for (int i = 0; i < 20000; i++) {
+      assertSameFormat(Double.longBitsToDouble(random.nextLong()));
+      assertSameFormat(random.nextDouble() * Math.pow(10, random.nextInt(40) - 20));
+      assertSameFormat(Double.parseDouble(random.nextInt(1000000) + "E" + (random.nextInt(60) - 30)));
+    }
+  }
+
+  /**
+   * 
+   */
+  @Test public void stringTools() {
+    assertEquals("1.66E-5", StringTools.toString(Locale.ENGLISH, 1.66E-5));
+    assertEquals("0.000166", StringTools.toString(Locale.ENGLISH, 1.66E-4));
+    assertEquals("0.5", StringTools.toString(Locale.US, 0.5));
+    assertEquals("-12", StringTools.toString(Locale.ENGLISH, -12d));
+    assertEquals("0,5", StringTools.toString(Locale.GERMAN, 0.5));
+  }
+
+}
@@ -0,0 +1,187 @@
+/*
+ * ----------------------------------------------------------------------------
+ * This file is part of JSBML. Please visit <http://sbml.org/Software/JSBML>
+ * for the latest version of JSBML and more information about SBML.
+ * 
+ * Copyright (C) 2009-2018 jointly by the following organizations:
+ * 1. The University of Tuebingen, Germany
+ * 2. EMBL European Bioinformatics Institute (EBML-EBI), Hinxton, UK
+ * 3. The California Institute of Technology, Pasadena, CA, USA
+ * 4. The University of California, San Diego, La Jolla, CA, USA
+ * 5. The Babraham Institute, Cambridge, UK
+ * 
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation. A copy of the license agreement is provided
+ * in the file named "LICENSE.txt" included with this software distribution
+ * and also available online as <http://sbml.org/Software/JSBML/License>.
+ * ----------------------------------------------------------------------------
+ */
+package org.sbml.jsbml.xml.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.beans.PropertyChangeEvent;
+
+import javax.swing.tree.TreeNode;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.sbml.jsbml.AbstractSBase;
+import org.sbml.jsbml.Model;
+import org.sbml.jsbml.SBMLDocument;
+import org.sbml.jsbml.SBMLWriter;
+import org.sbml.jsbml.Species;
+import org.sbml.jsbml.util.TreeNodeChangeListener;
+import org.sbml.jsbml.util.TreeNodeRemovedEvent;
+import org.sbml.jsbml.xml.stax.SBMLReader;
+
+/**
+ * Checks that notes and annotations read lazily are identical to the ones
+ * read eagerly, once they are needed.
+ * 
+ * @since 1.6
+ */
+public class LazyNotesAndAnnotationTest {
+
+  /**
+   * Counts the changes it receives.
+   */
+  private static class ChangeCounter implements TreeNodeChangeListener {
+
+    /**
+     * 
+     */
+    private int count;
+
+    /* (non-Javadoc)
+     * @see java.beans.PropertyChangeListener#propertyChange(java.beans.PropertyChangeEvent)
+     */
+    @Override
+    public void propertyChange(PropertyChangeEvent event) {
+      count++;
+    }
+
+    /* (non-Javadoc)
+     * @see org.sbml.jsbml.util.TreeNodeChangeListener#nodeAdded(javax.swing.tree.TreeNode)
+     */
+    @Override
+    public void nodeAdded(TreeNode node) {
+      count++;
+    }
+
+    /* (non-Javadoc)
+     * @see org.sbml.jsbml.util.TreeNodeChangeListener#nodeRemoved(org.sbml.jsbml.util.TreeNodeRemovedEvent)
+     */
+    @Override
+    public void nodeRemoved(TreeNodeRemovedEvent event) {
+      count++;
+    }
+  }
+
+  /**
+   * 
+   */
+  private static final String FILE = "/org/sbml/jsbml/xml/test/data/l2v4/BIOMD0000000228.xml";
+
+  /**
+   * 
+   */
+  private SBMLDocument eagerDoc;
+
+  /**
+   * 
+   */
+  private SBMLDocument lazyDoc;
+
+  /**
+   * @throws Exception
+   */
+  @Before public void setUp() throws Exception {
+    eagerDoc = new SBMLReader().readSBMLFromStream(getClass().getResourceAsStream(FILE));
+
+    SBMLReader reader = new SBMLReader();
+    reader.setLazyNotesAndAnnotation(true);
+    lazyDoc = reader.readSBMLFromStream(getClass().getResourceAsStream(FILE));
+  }
+
+  /**
+   * 
+   */
+  @Test public void unparsedAfterReading() {
+    Species species = lazyDoc.getModel().getSpecies(0);
+
+    assertNotNull(((AbstractSBase) species).getUnparsedAnnotation());
+    assertTrue(species.isSetAnnotation());
+    assertNull(((AbstractSBase) lazyDoc.getModel()).getUnparsedAnnotation());
+  }
+
+  /**
+   * @throws Exception
+   */
+  @Test public void parsedOnDemand() throws Exception {
+    Model eagerModel = eagerDoc.getModel();
+    Model lazyModel = lazyDoc.getModel();
+
+    for (int i = 0; i < eagerModel.getSpeciesCount(); i++) {
+      Species eagerSpecies = eagerModel.getSpecies(i);
+      Species lazySpecies = lazyModel.getSpecies(i);
+
+      assertEquals(eagerSpecies.getCVTermCount(), lazySpecies.getCVTermCount());
+      assertNull(((AbstractSBase) lazySpecies).getUnparsedAnnotation());
+      assertEquals(eagerSpecies.getAnnotation(), lazySpecies.getAnnotation());
+    }
+
+    assertEquals(eagerModel.getNotesString(), lazyModel.getNotesString());
+    assertNull(((AbstractSBase) lazyModel).getUnparsedNotes());
+  }
+
+  /**
+   * Checks that the notes and annotations parsed on demand are not reported
+   * as changes, but that their own changes are.
+   * 
+   * @throws Exception
+   */
+  @Test public void parsedSilently() throws Exception {
+    Species species = lazyDoc.getModel().getSpecies(0);
+    ChangeCounter listener = new ChangeCounter();
+    ChangeCounter subscriber = new ChangeCounter();
+    lazyDoc.addTreeNodeChangeListener(listener);
+    lazyDoc.getChangeDispatcher().addListener(subscriber);
+
+    species.getCVTermCount();
+    lazyDoc.getModel().getNotesString();
+
+    assertEquals(0, listener.count);
+    assertEquals(0, subscriber.count);
+
+    species.getCVTerm(0).addResource("urn:miriam:obo.go:GO%3A0005634");
+
+    assertTrue(listener.count > 0);
+    assertTrue(subscriber.count > 0);
+  }
+
+  /**
+   * @throws Exception
+   */
+  @Test public void writtenUnchanged() throws Exception {
+    String eager = new SBMLWriter().writeSBMLToString(eagerDoc);
+    String lazy = new SBMLWriter().writeSBMLToString(lazyDoc);
+
+    assertNotNull(((AbstractSBase) lazyDoc.getModel().getSpecies(0)).getUnparsedAnnotation());
+    assertEquals(eager.replaceAll("\\s+", ""), lazy.replaceAll("\\s+", ""));
+  }
+
+  /**
+   * 
+   */
+  @Test public void eagerByDefault() {
+    assertFalse(new SBMLReader().isLazyNotesAndAnnotation());
+    assertNull(((AbstractSBase) eagerDoc.getModel().getSpecies(0)).getUnparsedAnnotation());
+  }
+
+}
@@ -0,0 +1,132 @@
+/*
+ * ----------------------------------------------------------------------------
+ * This file is part of JSBML. Please visit <http://sbml.org/Software/JSBML>
+ * for the latest version of JSBML and more information about SBML.
+ * 
+ * Copyright (C) 2009-2018 jointly by the following organizations:
+ * 1. The University of Tuebingen, Germany
+ * 2. EMBL European Bioinformatics Institute (EBML-EBI), Hinxton, UK
+ * 3. The California Institute of Technology, Pasadena, CA, USA
+ * 4. The University of California, San Diego, La Jolla, CA, USA
+ * 5. The Babraham Institute, Cambridge, UK
+ * 
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation. A copy of the license agreement is provided
+ * in the file named "LICENSE.txt" included with this software distribution
+ * and also available online as <http://sbml.org/Software/JSBML/License>.
+ * ----------------------------------------------------------------------------
+ */
+package org.sbml.jsbml.xml.test;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+import javax.xml.stream.XMLStreamException;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.sbml.jsbml.SBMLDocument;
+import org.sbml.jsbml.SBMLReader;
+import org.sbml.jsbml.SBMLWriter;
+
+/**
+ * Checks that reading a file mapped in memory, with
+ * {@link org.sbml.jsbml.xml.stax.SBMLReader#readSBML(Path)}, gives the same
+ * document as reading it through a stream.
+ * 
+ * @since 1.6
+ */
+public class MappedFileReadingTest {
+
+  /**
+   * 
+   */
+  private static final String FILE = "/org/sbml/jsbml/xml/test/data/l2v4/BIOMD0000000228.xml";
+
+  /**
+   * 
+   */
+  private Path path;
+
+  /**
+   * A reader mapping all the files in memory, whatever their size.
+   */
+  private org.sbml.jsbml.xml.stax.SBMLReader mappingReader;
+
+  /**
+   * @throws Exception
+   */
+  @Before public void setUp() throws Exception {
+    path = Files.createTempFile("jsbml-test", ".xml");
+    InputStream stream = getClass().getResourceAsStream(FILE);
+    try {
+      Files.copy(stream, path, StandardCopyOption.REPLACE_EXISTING);
+    } finally {
+      stream.close();
+    }
+    mappingReader = new org.sbml.jsbml.xml.stax.SBMLReader();
+    mappingReader.setMinMappedFileSize(0);
+  }
+
+  /**
+   * @throws Exception
+   */
+  @After public void tearDown() throws Exception {
+    Files.deleteIfExists(path);
+  }
+
+  /**
+   * @throws Exception
+   */
+  @Test public void sameAsStream() throws Exception {
+    File file = path.toFile();
+    SBMLDocument expected = new SBMLReader().readSBML(file);
+    SBMLDocument doc = mappingReader.readSBML(path);
+
+    assertEquals(expected.getModel().getSpeciesCount(), doc.getModel().getSpeciesCount());
+    assertEquals(new SBMLWriter().writeSBMLToString(expected), new SBMLWriter().writeSBMLToString(doc));
+    assertEquals(file.toURI(), path.toUri());
+    assertEquals(path.toUri().toString(), doc.getLocationURI());
+  }
+
+  /**
+   * The file must not stay opened after the reading, which would prevent
+   * its deletion on some systems.
+   * 
+   * @throws Exception
+   */
+  @Test public void fileClosed() throws Exception {
+    mappingReader.readSBML(path);
+    Files.delete(path);
+  }
+
+  /**
+   * Small files are read through a stream by default.
+   * 
+   * @throws Exception
+   */
+  @Test public void smallFileNotMapped() throws Exception {
+    SBMLDocument doc = new SBMLReader().readSBML(path);
+
+    assertEquals(path.toUri().toString(), doc.getLocationURI());
+    assertEquals(org.sbml.jsbml.xml.stax.SBMLReader.DEFAULT_MIN_MAPPED_FILE_SIZE,
+      new org.sbml.jsbml.xml.stax.SBMLReader().getMinMappedFileSize());
+  }
+
+  /**
+   * @throws Exception
+   */
+  @Test(expected = XMLStreamException.class)
+  public void emptyFile() throws Exception {
+    Files.write(path, new byte[0]);
+    mappingReader.readSBML(path);
+  }
+
+}
@@ -0,0 +1,178 @@
+/*
+ * ----------------------------------------------------------------------------
+ * This file is part of JSBML. Please visit <http://sbml.org/Software/JSBML>
+ * for the latest version of JSBML and more information about SBML.
+ * 
+ * Copyright (C) 2009-2018 jointly by the following organizations:
+ * 1. The University of Tuebingen, Germany
+ * 2. EMBL European Bioinformatics Institute (EBML-EBI), Hinxton, UK
+ * 3. The California Institute of Technology, Pasadena, CA, USA
+ * 4. The University of California, San Diego, La Jolla, CA, USA
+ * 5. The Babraham Institute, Cambridge, UK
+ * 
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation. A copy of the license agreement is provided
+ * in the file named "LICENSE.txt" included with this software distribution
+ * and also available online as <http://sbml.org/Software/JSBML/License>.
+ * ----------------------------------------------------------------------------
+ */
+package org.sbml.jsbml.xml.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.sbml.jsbml.ASTNode;
+import org.sbml.jsbml.Compartment;
+import org.sbml.jsbml.Model;
+import org.sbml.jsbml.Reaction;
+import org.sbml.jsbml.SBMLDocument;
+import org.sbml.jsbml.SBMLWriter;
+import org.sbml.jsbml.Species;
+import org.sbml.jsbml.util.SimpleTreeNodeChangeListener;
+import org.sbml.jsbml.util.TreeNodeChangeListener;
+import org.sbml.jsbml.xml.stax.ParallelSBMLReader;
+import org.sbml.jsbml.xml.stax.SBMLReader;
+
+/**
+ * Checks that a document read by a {@link ParallelSBMLReader} is the same
+ * as the document read by a {@link SBMLReader}.
+ * 
+ * @since 1.6
+ */
+public class ParallelReaderTest {
+
+  /**
+   * 
+   */
+  private static final String FILE = "/org/sbml/jsbml/xml/test/data/l2v4/BIOMD0000000228.xml";
+
+  /**
+   * 
+   */
+  private ParallelSBMLReader reader;
+
+  /**
+   * 
+   */
+  @Before public void setUp() {
+    reader = new ParallelSBMLReader(3);
+    reader.setMinSectionSize(1000);
+  }
+
+  /**
+   * Creates a model with many species and reactions, whose kinetic laws call
+   * a function definition.
+   * 
+   * @param duplicateId whether the last reaction has the id of the first
+   *        species.
+   * @return the XML of the model.
+   * @throws Exception
+   */
+  private static String createModel(boolean duplicateId) throws Exception {
+    SBMLDocument doc = new SBMLDocument(3, 1);
+    Model model = doc.createModel("m");
+    Compartment compartment = model.createCompartment("c");
+    compartment.setConstant(true);
+    model.createFunctionDefinition("f").setMath(ASTNode.parseFormula("lambda(x, 2 * x)"));
+
+    for (int i = 0; i < 200; i++) {
+      Species species = model.createSpecies("s" + i, compartment);
+      species.setMetaId("meta_s" + i);
+      species.setInitialAmount(i);
+    }
+    for (int i = 0; i < 100; i++) {
+      Reaction reaction = model.createReaction("r" + i);
+      reaction.createReactant(model.getSpecies(2 * i));
+      reaction.createProduct(model.getSpecies(2 * i + 1));
+      reaction.createKineticLaw().setMath(ASTNode.parseFormula("f(s" + (2 * i) + ")"));
+    }
+
+    String xml = new SBMLWriter().writeSBMLToString(doc);
+
+    return duplicateId ? xml.replace("id=\"r99\"", "id=\"s0\"") : xml;
+  }
+
+  /**
+   * @param xml
+   * @throws Exception
+   */
+  private void assertReadAsSequentially(String xml) throws Exception {
+    SBMLDocument expected = new SBMLReader().readSBMLFromString(xml);
+    SBMLDocument doc = reader.readSBMLFromString(xml);
+
+    assertEquals(new SBMLWriter().writeSBMLToString(expected), new SBMLWriter().writeSBMLToString(doc));
+  }
+
+  /**
+   * @throws Exception
+   */
+  @Test public void sameDocument() throws Exception {
+    InputStream stream = getClass().getResourceAsStream(FILE);
+    ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    byte[] bytes = new byte[8192];
+    int count;
+
+    while ((count = stream.read(bytes)) != -1) {
+      buffer.write(bytes, 0, count);
+    }
+    stream.close();
+
+    SBMLDocument expected = new SBMLReader().readSBMLFromString(new String(buffer.toByteArray(), "UTF-8"));
+    SBMLDocument doc = reader.readSBMLFromStream(new ByteArrayInputStream(buffer.toByteArray()));
+
+    assertEquals(expected.getModel().getSpeciesCount(), doc.getModel().getSpeciesCount());
+    assertEquals(expected.getModel().getReactionCount(), doc.getModel().getReactionCount());
+    assertEquals(new SBMLWriter().writeSBMLToString(expected), new SBMLWriter().writeSBMLToString(doc));
+  }
+
+  /**
+   * @throws Exception
+   */
+  @Test public void identifiersRegistered() throws Exception {
+    String xml = createModel(false);
+    assertReadAsSequentially(xml);
+
+    SBMLDocument doc = reader.readSBMLFromString(xml);
+    Model model = doc.getModel();
+
+    assertEquals(200, model.getSpeciesCount());
+    assertEquals(100, model.getReactionCount());
+    assertSame(model.getSpecies(150), model.getSpecies("s150"));
+    assertSame(model.getReaction(99), model.getReaction("r99"));
+    assertSame(model.getSpecies(150), doc.findSBase("meta_s150"));
+    assertSame(model, model.getSpecies(150).getModel());
+    assertTrue(model.getReaction(50).getKineticLaw().getMath().isFunction());
+  }
+
+  /**
+   * Identifiers repeated in different parts make the document read
+   * sequentially.
+   * 
+   * @throws Exception
+   */
+  @Test public void duplicateIdentifier() throws Exception {
+    assertReadAsSequentially(createModel(true));
+  }
+
+  /**
+   * @throws Exception
+   */
+  @Test public void listenerAdded() throws Exception {
+    TreeNodeChangeListener listener = new SimpleTreeNodeChangeListener();
+    SBMLDocument doc = reader.readSBMLFromString(createModel(false), listener);
+
+    assertTrue(doc.getListOfTreeNodeChangeListeners().contains(listener));
+    assertTrue(doc.getModel().getSpecies(150).getListOfTreeNodeChangeListeners().contains(listener));
+    assertNotNull(doc.getModel().getReaction(99).getKineticLaw());
+  }
+
+}
@@ -0,0 +1,158 @@
+/*
+ * ----------------------------------------------------------------------------
+ * This file is part of JSBML. Please visit <http://sbml.org/Software/JSBML>
+ * for the latest version of JSBML and more information about SBML.
+ * 
+ * Copyright (C) 2009-2018 jointly by the following organizations:
+ * 1. The University of Tuebingen, Germany
+ * 2. EMBL European Bioinformatics Institute (EBML-EBI), Hinxton, UK
+ * 3. The California Institute of Technology, Pasadena, CA, USA
+ * 4. The University of California, San Diego, La Jolla, CA, USA
+ * 5. The Babraham Institute, Cambridge, UK
+ * 
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation. A copy of the license agreement is provided
+ * in the file named "LICENSE.txt" included with this software distribution
+ * and also available online as <http://sbml.org/Software/JSBML/License>.
+ * ----------------------------------------------------------------------------
+ */
+package org.sbml.jsbml.xml.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.InputStream;
+
+import org.junit.Test;
+import org.sbml.jsbml.ASTNode;
+import org.sbml.jsbml.Compartment;
+import org.sbml.jsbml.KineticLaw;
+import org.sbml.jsbml.Model;
+import org.sbml.jsbml.Reaction;
+import org.sbml.jsbml.SBMLDocument;
+import org.sbml.jsbml.Species;
+import org.sbml.jsbml.xml.stax.SBMLReader;
+import org.sbml.jsbml.xml.stax.SBMLWriter;
+
+/**
+ * Checks that the {@link SBMLWriter} produces the same output when writing
+ * the large lists of a document in parallel and sequentially.
+ * 
+ * @since 1.6
+ */
+public class ParallelWriterTest {
+
+  /**
+   * 
+   */
+  private static final String[] FILES = {
+    "/org/sbml/jsbml/xml/test/data/l2v4/BIOMD0000000228.xml",
+    "/org/sbml/jsbml/xml/test/data/l2v1/BIOMD0000000227.xml",
+    "/org/sbml/jsbml/xml/test/data/libsbml-test-data/l1v1-rules.xml",
+    "/org/sbml/jsbml/xml/test/data/libsbml-test-data/l2v3-all.xml"};
+
+  /**
+   * Writes a document sequentially and in parallel and checks that the
+   * results are the same.
+   * 
+   * @param writer
+   * @param doc
+   * @return the XML written.
+   * @throws Exception
+   */
+  private static String assertSameOutput(SBMLWriter writer, SBMLDocument doc) throws Exception {
+    writer.setThreadCount(1);
+    String expected = writer.writeSBMLToString(doc);
+    writer.setThreadCount(3);
+    String xml = writer.writeSBMLToString(doc);
+
+    assertEquals(expected, xml);
+
+    return xml;
+  }
+
+  /**
+   * @param file
+   * @param reader
+   * @return the document read from the given file.
+   * @throws Exception
+   */
+  private SBMLDocument read(String file, SBMLReader reader) throws Exception {
+    InputStream stream = getClass().getResourceAsStream(file);
+    SBMLDocument doc = reader.readSBMLFromStream(stream, null);
+    stream.close();
+
+    return doc;
+  }
+
+  /**
+   * @throws Exception
+   */
+  @Test public void sameFiles() throws Exception {
+    for (String file : FILES) {
+      SBMLDocument doc = read(file, new SBMLReader());
+      SBMLWriter writer = new SBMLWriter();
+      writer.setMinParallelListSize(1);
+      assertSameOutput(writer, doc);
+
+      writer = new SBMLWriter('\t', (short) 1);
+      writer.setMinParallelListSize(1);
+      assertSameOutput(writer, doc);
+    }
+  }
+
+  /**
+   * @throws Exception
+   */
+  @Test public void sameLazyFile() throws Exception {
+    SBMLReader reader = new SBMLReader();
+    reader.setLazyMath(true);
+    reader.setLazyNotesAndAnnotation(true);
+    reader.setKeepSource(true);
+    SBMLDocument doc = read(FILES[0], reader);
+    doc.getModel().getSpecies(3).setInitialConcentration(0.25);
+
+    SBMLWriter writer = new SBMLWriter();
+    writer.setMinParallelListSize(1);
+    String xml = assertSameOutput(writer, doc);
+
+    assertTrue(xml.contains("initialConcentration=\"0.25\""));
+  }
+
+  /**
+   * @throws Exception
+   */
+  @Test public void largeModel() throws Exception {
+    SBMLDocument doc = new SBMLDocument(3, 1);
+    Model model = doc.createModel("m");
+    Compartment compartment = model.createCompartment("c");
+    compartment.setConstant(true);
+
+    for (int i = 0; i < 2 * SBMLWriter.DEFAULT_MIN_PARALLEL_LIST_SIZE; i++) {
+      Species species = model.createSpecies("s" + i, compartment);
+      species.setInitialAmount(i);
+      species.setNotes("<body xmlns=\"http://www.w3.org/1999/xhtml\"><p>Species " + i + "</p></body>");
+
+      Reaction reaction = model.createReaction("r" + i);
+      reaction.createReactant(species);
+      KineticLaw kineticLaw = reaction.createKineticLaw();
+      kineticLaw.setMath(ASTNode.parseFormula("k * s" + i));
+    }
+
+    String xml = assertSameOutput(new SBMLWriter(), doc);
+    Model written = new SBMLReader().readSBMLFromString(xml).getModel();
+
+    assertEquals(model.getSpeciesCount(), written.getSpeciesCount());
+    assertEquals("k*s1999", written.getReaction(1999).getKineticLaw().getMath().toFormula());
+  }
+
+  /**
+   * 
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void invalidThreadCount() {
+    new SBMLWriter().setThreadCount(0);
+  }
+
+}
@@ -0,0 +1,142 @@
+/*
+ * ----------------------------------------------------------------------------
+ * This file is part of JSBML. Please visit <http://sbml.org/Software/JSBML>
+ * for the latest version of JSBML and more information about SBML.
+ * 
+ * Copyright (C) 2009-2018 jointly by the following organizations:
+ * 1. The University of Tuebingen, Germany
+ * 2. EMBL European Bioinformatics Institute (EBML-EBI), Hinxton, UK
+ * 3. The California Institute of Technology, Pasadena, CA, USA
+ * 4. The University of California, San Diego, La Jolla, CA, USA
+ * 5. The Babraham Institute, Cambridge, UK
+ * 
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation. A copy of the license agreement is provided
+ * in the file named "LICENSE.txt" included with this software distribution
+ * and also available online as <http://sbml.org/Software/JSBML/License>.
+ * ----------------------------------------------------------------------------
+ */
+package org.sbml.jsbml.xml.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.sbml.jsbml.SBMLDocument;
+import org.sbml.jsbml.util.SimpleTreeNodeChangeListener;
+import org.sbml.jsbml.util.TreeNodeChangeListener;
+import org.sbml.jsbml.xml.stax.ReaderStatistics;
+import org.sbml.jsbml.xml.stax.SBMLReader;
+
+/**
+ * Checks the {@link ReaderStatistics} collected by the {@link SBMLReader}.
+ * 
+ * @since 1.6
+ */
+public class ReaderStatisticsTest {
+
+  /**
+   * 
+   */
+  private static final String FILE = "/org/sbml/jsbml/xml/test/data/l2v4/BIOMD0000000228.xml";
+
+  /**
+   * 
+   */
+  private byte[] content;
+
+  /**
+   * @throws Exception
+   */
+  @Before public void setUp() throws Exception {
+    InputStream stream = getClass().getResourceAsStream(FILE);
+    ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    byte[] bytes = new byte[8192];
+    int count;
+
+    while ((count = stream.read(bytes)) != -1) {
+      buffer.write(bytes, 0, count);
+    }
+    stream.close();
+    content = buffer.toByteArray();
+  }
+
+  /**
+   * @throws Exception
+   */
+  @Test public void notCollectedByDefault() throws Exception {
+    SBMLReader reader = new SBMLReader();
+    reader.readSBMLFromString(new String(content, "UTF-8"));
+
+    assertNull(reader.getStatistics());
+  }
+
+  /**
+   * @throws Exception
+   */
+  @Test public void statistics() throws Exception {
+    SBMLReader reader = new SBMLReader();
+    reader.setCollectingStatistics(true);
+    SBMLDocument doc = reader.readSBMLFromString(new String(content, "UTF-8"));
+    ReaderStatistics statistics = reader.getStatistics();
+
+    assertNotNull(statistics);
+
+    assertEquals(1, statistics.getElementCount("model"));
+    assertEquals(doc.getModel().getSpeciesCount(), statistics.getElementCount("species"));
+    assertEquals(doc.getModel().getReactionCount(), statistics.getElementCount("reaction"));
+    assertEquals(0, statistics.getElementCount("unknownElement"));
+
+    Map<String, Long> parserTimes = statistics.getParserTimes();
+    assertTrue(parserTimes.get("SBMLCoreParser") > 0);
+    assertTrue(parserTimes.get("MathMLStaxParser") > 0);
+
+    assertTrue(statistics.getIdRegistrationCount() >= doc.getModel().getSpeciesCount());
+    assertTrue(statistics.getIdRegistrationTime() > 0);
+    assertTrue(statistics.getListenerEventCount() > 0);
+    assertTrue(statistics.getTotalTime() >= statistics.getIdRegistrationTime());
+    assertEquals(content.length, statistics.getBytesRead());
+  }
+
+  /**
+   * @throws Exception
+   */
+  @Test public void listenerGivenBack() throws Exception {
+    TreeNodeChangeListener listener = new SimpleTreeNodeChangeListener();
+    SBMLReader reader = new SBMLReader();
+    reader.setCollectingStatistics(true);
+    SBMLDocument doc = reader.readSBMLFromStream(getClass().getResourceAsStream(FILE), listener);
+
+    assertEquals(1, doc.getTreeNodeChangeListenerCount());
+    assertTrue(doc.getListOfTreeNodeChangeListeners().contains(listener));
+    assertEquals(1, doc.getModel().getSpecies(0).getTreeNodeChangeListenerCount());
+    assertTrue(doc.getModel().getSpecies(0).getListOfTreeNodeChangeListeners().contains(listener));
+  }
+
+  /**
+   * @throws Exception
+   */
+  @Test public void toMap() throws Exception {
+    SBMLReader reader = new SBMLReader();
+    reader.setCollectingStatistics(true);
+    reader.readSBMLFromString(new String(content, "UTF-8"));
+    ReaderStatistics statistics = reader.getStatistics();
+    Map<String, Long> map = statistics.toMap();
+
+    assertEquals(statistics.getTotalTime(), (long) map.get("total.time"));
+    assertEquals(statistics.getBytesRead(), (long) map.get("bytes.read"));
+    assertEquals(statistics.getIdRegistrationTime(), (long) map.get("id.registration.time"));
+    assertEquals(statistics.getListenerTime(), (long) map.get("listener.time"));
+    assertEquals(statistics.getParserTimes().get("SBMLCoreParser"), map.get("parser.SBMLCoreParser.time"));
+    assertEquals(1L, (long) map.get("element.model.count"));
+  }
+
+}
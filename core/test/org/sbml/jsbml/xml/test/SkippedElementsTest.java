@@ -0,0 +1,91 @@
+/*
+ * ----------------------------------------------------------------------------
+ * This file is part of JSBML. Please visit <http://sbml.org/Software/JSBML>
+ * for the latest version of JSBML and more information about SBML.
+ * 
+ * Copyright (C) 2009-2018 jointly by the following organizations:
+ * 1. The University of Tuebingen, Germany
+ * 2. EMBL European Bioinformatics Institute (EBML-EBI), Hinxton, UK
+ * 3. The California Institute of Technology, Pasadena, CA, USA
+ * 4. The University of California, San Diego, La Jolla, CA, USA
+ * 5. The Babraham Institute, Cambridge, UK
+ * 
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation. A copy of the license agreement is provided
+ * in the file named "LICENSE.txt" included with this software distribution
+ * and also available online as <http://sbml.org/Software/JSBML/License>.
+ * ----------------------------------------------------------------------------
+ */
+package org.sbml.jsbml.xml.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+import org.sbml.jsbml.JSBML;
+import org.sbml.jsbml.Model;
+import org.sbml.jsbml.SBMLDocument;
+import org.sbml.jsbml.SBMLWriter;
+import org.sbml.jsbml.xml.stax.SBMLReader;
+
+/**
+ * Checks that the elements configured to be skipped are not read, and that
+ * they are written back when they are kept.
+ * 
+ * @since 1.6
+ */
+public class SkippedElementsTest {
+
+  /**
+   * 
+   */
+  private static final String FILE = "/org/sbml/jsbml/xml/test/data/l2v4/BIOMD0000000228.xml";
+
+  /**
+   * @param keepSkippedElements
+   * @return
+   * @throws Exception
+   */
+  private SBMLDocument read(boolean keepSkippedElements) throws Exception {
+    SBMLReader reader = new SBMLReader();
+    reader.addSkippedElement("notes");
+    reader.addSkippedElement("listOfReactions");
+    reader.setKeepSkippedElements(keepSkippedElements);
+
+    return reader.readSBMLFromStream(getClass().getResourceAsStream(FILE));
+  }
+
+  /**
+   * @throws Exception
+   */
+  @Test public void skipped() throws Exception {
+    Model model = read(false).getModel();
+
+    assertEquals(0, model.getReactionCount());
+    assertFalse(model.isSetNotes());
+    assertFalse(model.getSpecies(0).isSetNotes());
+    assertNotNull(model.getSpecies(0).getAnnotation());
+    assertNull(model.getUserObject(JSBML.SKIPPED_XML));
+  }
+
+  /**
+   * @throws Exception
+   */
+  @Test public void keptAndWritten() throws Exception {
+    SBMLDocument doc = read(true);
+
+    assertEquals(0, doc.getModel().getReactionCount());
+    assertNotNull(doc.getModel().getUserObject(JSBML.SKIPPED_XML));
+
+    // once read again, the document is identical to the complete document, except for the indentation
+    SBMLDocument expected = new SBMLReader().readSBMLFromStream(getClass().getResourceAsStream(FILE));
+    SBMLDocument reread = new SBMLReader().readSBMLFromString(new SBMLWriter().writeSBMLToString(doc));
+
+    assertEquals(new SBMLWriter().writeSBMLToString(expected).replaceAll("\\s+", ""),
+      new SBMLWriter().writeSBMLToString(reread).replaceAll("\\s+", ""));
+  }
+
+}
@@ -0,0 +1,275 @@
+/*
+ * ----------------------------------------------------------------------------
+ * This file is part of JSBML. Please visit <http://sbml.org/Software/JSBML>
+ * for the latest version of JSBML and more information about SBML.
+ * 
+ * Copyright (C) 2009-2018 jointly by the following organizations:
+ * 1. The University of Tuebingen, Germany
+ * 2. EMBL European Bioinformatics Institute (EBML-EBI), Hinxton, UK
+ * 3. The California Institute of Technology, Pasadena, CA, USA
+ * 4. The University of California, San Diego, La Jolla, CA, USA
+ * 5. The Babraham Institute, Cambridge, UK
+ * 
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation. A copy of the license agreement is provided
+ * in the file named "LICENSE.txt" included with this software distribution
+ * and also available online as <http://sbml.org/Software/JSBML/License>.
+ * ----------------------------------------------------------------------------
+ */
+package org.sbml.jsbml.xml.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.ListIterator;
+import java.util.Scanner;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.sbml.jsbml.ASTNode;
+import org.sbml.jsbml.KineticLaw;
+import org.sbml.jsbml.Model;
+import org.sbml.jsbml.Parameter;
+import org.sbml.jsbml.SBMLDocument;
+import org.sbml.jsbml.Species;
+import org.sbml.jsbml.xml.stax.SBMLReader;
+import org.sbml.jsbml.xml.stax.SBMLWriter;
+import org.sbml.jsbml.xml.stax.SourceCache;
+
+/**
+ * Checks that the {@link SBMLWriter} copies the text of the elements that did
+ * not change since they were read with
+ * {@link SBMLReader#setKeepSource(boolean)}, and writes the others again.
+ * 
+ * @since 1.6
+ */
+public class SourceCacheTest {
+
+  /**
+   * 
+   */
+  private static final String FILE = "/org/sbml/jsbml/xml/test/data/l2v4/BIOMD0000000228.xml";
+
+  /**
+   * The start tag of a species, as written in the file, with the attributes
+   * in a different order than the one of the {@link SBMLWriter}.
+   */
+  private static final String SPECIES_TAG = "<species metaid=\"metaid_0000047\" id=\"pRBp\"";
+
+  /**
+   * 
+   */
+  private String source;
+
+  /**
+   * @throws Exception
+   */
+  @Before public void setUp() throws Exception {
+    InputStream stream = getClass().getResourceAsStream(FILE);
+    Scanner scanner = new Scanner(stream, "UTF-8").useDelimiter("\\A");
+    source = scanner.next();
+    scanner.close();
+  }
+
+  /**
+   * @param lazy
+   *        whether the math, notes and annotations are read lazily.
+   * @return the document, read with its source.
+   * @throws Exception
+   */
+  private SBMLDocument read(boolean lazy) throws Exception {
+    SBMLReader reader = new SBMLReader();
+    reader.setKeepSource(true);
+    reader.setLazyMath(lazy);
+    reader.setLazyNotesAndAnnotation(lazy);
+
+    return reader.readSBMLFromString(source);
+  }
+
+  /**
+   * @param xml
+   * @return the given document, read and written again without its source,
+   *         with no white spaces between the tags.
+   * @throws Exception
+   */
+  private static String normalize(String xml) throws Exception {
+    return new SBMLWriter().writeSBMLToString(new SBMLReader().readSBMLFromString(xml)).replaceAll(">\\s+<", "><");
+  }
+
+  /**
+   * Writes the document with and without its source, and checks that they
+   * are the same model.
+   * 
+   * @param doc
+   * @return the document written with its source.
+   * @throws Exception
+   */
+  private static String assertSameModel(SBMLDocument doc) throws Exception {
+    SBMLWriter writer = new SBMLWriter();
+    writer.setReuseSource(false);
+    String expected = writer.writeSBMLToString(doc);
+    writer.setReuseSource(true);
+    String xml = writer.writeSBMLToString(doc);
+
+    assertEquals(normalize(expected), normalize(xml));
+
+    return xml;
+  }
+
+  /**
+   * @throws Exception
+   */
+  @Test public void unchangedDocument() throws Exception {
+    SBMLDocument doc = read(false);
+    assertNotNull(SourceCache.getSourceCache(doc));
+
+    String xml = new SBMLWriter().writeSBMLToString(doc);
+
+    assertTrue(source.contains(xml.substring(xml.indexOf("<sbml"))));
+  }
+
+  /**
+   * @throws Exception
+   */
+  @Test public void changedElements() throws Exception {
+    SBMLDocument doc = read(false);
+    Model model = doc.getModel();
+    model.getSpecies(0).setInitialConcentration(0.25);
+    model.getReaction(0).getKineticLaw().setMath(ASTNode.parseFormula("pRB * 2"));
+
+    String xml = assertSameModel(doc);
+
+    assertTrue(xml.contains(SPECIES_TAG));
+    assertTrue(xml.contains("initialConcentration=\"0.25\""));
+
+    Model written = new SBMLReader().readSBMLFromString(xml).getModel();
+    assertEquals(0.25, written.getSpecies(0).getInitialConcentration(), 0d);
+    assertEquals("pRB*2", written.getReaction(0).getKineticLaw().getMath().toFormula());
+  }
+
+  /**
+   * @throws Exception
+   */
+  @Test public void changedLazyMath() throws Exception {
+    SBMLDocument doc = read(true);
+    KineticLaw kineticLaw = doc.getModel().getReaction(1).getKineticLaw();
+    ASTNode leaf = kineticLaw.getMath();
+    while (leaf.getChildCount() > 0) {
+      leaf = leaf.getChild(0);
+    }
+    leaf.setName("renamed");
+
+    String xml = assertSameModel(doc);
+    ASTNode math = new SBMLReader().readSBMLFromString(xml).getModel().getReaction(1).getKineticLaw().getMath();
+
+    assertTrue(math.toFormula().contains("renamed"));
+  }
+
+  /**
+   * @throws Exception
+   */
+  @Test public void parsedLazily() throws Exception {
+    SBMLDocument doc = read(true);
+    int unchanged = SourceCache.getSourceCache(doc).getUnchangedElementCount();
+
+    doc.getModel().getSpecies(0).getCVTermCount();
+    doc.getModel().getNotesString();
+
+    assertEquals(unchanged, SourceCache.getSourceCache(doc).getUnchangedElementCount());
+  }
+
+  /**
+   * @throws Exception
+   */
+  @Test public void removedElement() throws Exception {
+    SBMLDocument doc = read(false);
+    doc.getModel().removeSpecies("pRBp");
+
+    String xml = assertSameModel(doc);
+
+    assertFalse(xml.contains(SPECIES_TAG));
+    assertNull(new SBMLReader().readSBMLFromString(xml).getModel().getSpecies("pRBp"));
+  }
+
+  /**
+   * Checks the elements removed, replaced or added through the iterators
+   * and the sub lists of a list.
+   * 
+   * @throws Exception
+   */
+  @Test public void changedThroughViews() throws Exception {
+    SBMLDocument doc = read(false);
+    int speciesCount = doc.getModel().getSpeciesCount();
+    Iterator<Species> iterator = doc.getModel().getListOfSpecies().iterator();
+    iterator.next();
+    iterator.remove();
+
+    Model written = new SBMLReader().readSBMLFromString(assertSameModel(doc)).getModel();
+    assertEquals(speciesCount - 1, written.getSpeciesCount());
+
+    doc = read(false);
+    ListIterator<Parameter> parameters = doc.getModel().getListOfParameters().listIterator();
+    parameters.next();
+    parameters.set(new Parameter("set", 2, 4));
+    parameters.add(new Parameter("added", 2, 4));
+
+    written = new SBMLReader().readSBMLFromString(assertSameModel(doc)).getModel();
+    assertEquals("set", written.getParameter(0).getId());
+    assertEquals("added", written.getParameter(1).getId());
+
+    doc = read(false);
+    int reactionCount = doc.getModel().getReactionCount();
+    doc.getModel().getListOfReactions().subList(0, 2).clear();
+
+    written = new SBMLReader().readSBMLFromString(assertSameModel(doc)).getModel();
+    assertEquals(reactionCount - 2, written.getReactionCount());
+  }
+
+  /**
+   * @throws Exception
+   */
+  @Test public void detached() throws Exception {
+    SBMLDocument doc = read(false);
+    SourceCache.getSourceCache(doc).detach();
+
+    assertNull(SourceCache.getSourceCache(doc));
+    assertEquals(0, doc.getChangeDispatcher().getSubscriptionCount());
+    assertSameModel(doc);
+  }
+
+  /**
+   * @throws Exception
+   */
+  @Test public void detachedOnceAllChanged() throws Exception {
+    SBMLReader reader = new SBMLReader();
+    reader.setKeepSource(true);
+    SBMLDocument doc = reader.readSBMLFromString("<?xml version=\"1.0\" encoding=\"UTF-8\"?>"
+        + "<sbml xmlns=\"http://www.sbml.org/sbml/level3/version1/core\" level=\"3\" version=\"1\">"
+        + "<model id=\"m\"/></sbml>");
+    assertNotNull(SourceCache.getSourceCache(doc));
+
+    doc.getModel().setName("changed");
+
+    assertNull(SourceCache.getSourceCache(doc));
+    assertEquals(0, doc.getChangeDispatcher().getSubscriptionCount());
+  }
+
+  /**
+   * @throws Exception
+   */
+  @Test public void reuseSourceOff() throws Exception {
+    SBMLDocument doc = read(false);
+    SBMLWriter writer = new SBMLWriter();
+    writer.setReuseSource(false);
+
+    assertEquals(writer.writeSBMLToString(new SBMLReader().readSBMLFromString(source)),
+      writer.writeSBMLToString(doc));
+  }
+
+}
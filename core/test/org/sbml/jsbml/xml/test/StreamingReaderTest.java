@@ -0,0 +1,117 @@
+/*
+ * ----------------------------------------------------------------------------
+ * This file is part of JSBML. Please visit <http://sbml.org/Software/JSBML>
+ * for the latest version of JSBML and more information about SBML.
+ * 
+ * Copyright (C) 2009-2018 jointly by the following organizations:
+ * 1. The University of Tuebingen, Germany
+ * 2. EMBL European Bioinformatics Institute (EBML-EBI), Hinxton, UK
+ * 3. The California Institute of Technology, Pasadena, CA, USA
+ * 4. The University of California, San Diego, La Jolla, CA, USA
+ * 5. The Babraham Institute, Cambridge, UK
+ * 
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation. A copy of the license agreement is provided
+ * in the file named "LICENSE.txt" included with this software distribution
+ * and also available online as <http://sbml.org/Software/JSBML/License>.
+ * ----------------------------------------------------------------------------
+ */
+package org.sbml.jsbml.xml.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.stream.XMLStreamException;
+
+import org.junit.Test;
+import org.sbml.jsbml.AssignmentRule;
+import org.sbml.jsbml.JSBML;
+import org.sbml.jsbml.Model;
+import org.sbml.jsbml.RateRule;
+import org.sbml.jsbml.Reaction;
+import org.sbml.jsbml.SBMLDocument;
+import org.sbml.jsbml.SBMLReader;
+import org.sbml.jsbml.SBase;
+import org.sbml.jsbml.xml.stax.SBMLElementVisitor;
+
+/**
+ * Tests the streaming mode of the reader, see {@link SBMLElementVisitor}.
+ * 
+ * @since 1.6
+ */
+public class StreamingReaderTest {
+
+  /**
+   * 
+   */
+  private static final String BIOMD_228 = "/org/sbml/jsbml/xml/test/data/l2v4/BIOMD0000000228.xml";
+
+  /**
+   * Checks that every reaction is visited fully built and that discarded
+   * elements are not kept in the model.
+   * 
+   * @throws XMLStreamException
+   */
+  @Test public void discardReactions() throws XMLStreamException {
+    final List<String> reactionIds = new ArrayList<String>();
+
+    SBMLDocument doc = new SBMLReader().readSBMLStreaming(getClass().getResourceAsStream(BIOMD_228),
+      new SBMLElementVisitor() {
+
+      @Override
+      public boolean visit(SBase sbase) {
+        if (sbase instanceof Reaction) {
+          Reaction reaction = (Reaction) sbase;
+          assertTrue(reaction.isSetKineticLaw());
+          assertTrue(reaction.getKineticLaw().isSetMath());
+          assertTrue(reaction.getUserObject(JSBML.READING_IN_PROGRESS) == null);
+          reactionIds.add(reaction.getId());
+          return false;
+        }
+        return true;
+      }
+    });
+
+    Model model = doc.getModel();
+    SBMLDocument fullDoc = SBMLReader.read(getClass().getResourceAsStream(BIOMD_228));
+
+    assertEquals(fullDoc.getModel().getReactionCount(), reactionIds.size());
+    assertEquals(fullDoc.getModel().getReaction(0).getId(), reactionIds.get(0));
+    assertEquals(0, model.getReactionCount());
+    assertEquals(fullDoc.getModel().getSpeciesCount(), model.getSpeciesCount());
+    assertTrue(model.getSBaseById(reactionIds.get(0)) == null);
+  }
+
+  /**
+   * Checks that level 1 rules are given to the visitor after their
+   * conversion.
+   * 
+   * @throws XMLStreamException
+   */
+  @Test public void level1Rules() throws XMLStreamException {
+    final List<SBase> rules = new ArrayList<SBase>();
+
+    SBMLDocument doc = new SBMLReader().readSBMLStreaming(
+      getClass().getResourceAsStream("/org/sbml/jsbml/xml/test/data/libsbml-test-data/l1v1-rules.xml"),
+      new SBMLElementVisitor() {
+
+        @Override
+        public boolean visit(SBase sbase) {
+          if (sbase.getParentSBMLObject() == sbase.getModel().getListOfRules()) {
+            rules.add(sbase);
+          }
+          return true;
+        }
+      });
+
+    assertEquals(doc.getModel().getRuleCount(), rules.size());
+    assertTrue(rules.get(0) instanceof RateRule);
+    assertTrue(rules.get(1) instanceof AssignmentRule);
+    assertTrue(rules.get(0) == doc.getModel().getRule(0));
+  }
+
+}
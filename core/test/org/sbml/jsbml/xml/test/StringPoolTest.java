@@ -0,0 +1,176 @@
+/*
+ * ----------------------------------------------------------------------------
+ * This file is part of JSBML. Please visit <http://sbml.org/Software/JSBML>
+ * for the latest version of JSBML and more information about SBML.
+ * 
+ * Copyright (C) 2009-2018 jointly by the following organizations:
+ * 1. The University of Tuebingen, Germany
+ * 2. EMBL European Bioinformatics Institute (EBML-EBI), Hinxton, UK
+ * 3. The California Institute of Technology, Pasadena, CA, USA
+ * 4. The University of California, San Diego, La Jolla, CA, USA
+ * 5. The Babraham Institute, Cambridge, UK
+ * 
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation. A copy of the license agreement is provided
+ * in the file named "LICENSE.txt" included with this software distribution
+ * and also available online as <http://sbml.org/Software/JSBML/License>.
+ * ----------------------------------------------------------------------------
+ */
+package org.sbml.jsbml.xml.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.sbml.jsbml.ASTNode;
+import org.sbml.jsbml.Model;
+import org.sbml.jsbml.SBMLDocument;
+import org.sbml.jsbml.SBMLWriter;
+import org.sbml.jsbml.util.StringPool;
+import org.sbml.jsbml.xml.stax.SBMLReader;
+
+/**
+ * Checks that the strings read through a {@link StringPool} are shared and
+ * that pooling them does not change the document read.
+ * 
+ * @since 1.6
+ */
+public class StringPoolTest {
+
+  /**
+   * 
+   */
+  private static final String FILE = "/org/sbml/jsbml/xml/test/data/l2v4/BIOMD0000000228.xml";
+
+  /**
+   * @param reader
+   * @return the document read from {@link #FILE}
+   * @throws Exception
+   */
+  private SBMLDocument read(SBMLReader reader) throws Exception {
+    return reader.readSBMLFromStream(getClass().getResourceAsStream(FILE));
+  }
+
+  /**
+   * Returns the first {@code ci} element found in the given tree.
+   * 
+   * @param node
+   * @return the first node of type name, or {@code null}.
+   */
+  private ASTNode findName(ASTNode node) {
+    if (node.isName()) {
+      return node;
+    }
+    for (ASTNode child : node.getChildren()) {
+      ASTNode name = findName(child);
+
+      if (name != null) {
+        return name;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * @throws Exception
+   */
+  @Test public void notPooledByDefault() throws Exception {
+    SBMLReader reader = new SBMLReader();
+    Model model = read(reader).getModel();
+
+    assertNull(reader.getStringPool());
+    assertNotSame(model.getSpecies(0).getCompartment(), model.getSpecies(1).getCompartment());
+  }
+
+  /**
+   * @throws Exception
+   */
+  @Test public void sameDocument() throws Exception {
+    SBMLReader reader = new SBMLReader();
+    SBMLDocument doc = read(reader);
+
+    reader.setStringPooling(true);
+    SBMLDocument pooledDoc = read(reader);
+    Model model = pooledDoc.getModel();
+
+    assertEquals(new SBMLWriter().writeSBMLToString(doc), new SBMLWriter().writeSBMLToString(pooledDoc));
+    assertSame(model.getSpecies(0).getCompartment(), model.getSpecies(1).getCompartment());
+    assertSame(model.getCompartment(0).getId(), model.getSpecies(0).getCompartment());
+
+    StringPool pool = reader.getStringPool();
+
+    assertTrue(pool.getHitCount() > 0);
+    assertTrue(pool.getEstimatedSavedBytes() > 0);
+    assertTrue(pool.getRequestCount() >= pool.size() + pool.getHitCount());
+  }
+
+  /**
+   * @throws Exception
+   */
+  @Test public void mathIdentifiers() throws Exception {
+    SBMLReader reader = new SBMLReader();
+    reader.setStringPooling(true);
+    Model model = read(reader).getModel();
+
+    ASTNode ci = findName(model.getReaction(0).getKineticLaw().getMath());
+
+    assertSame(reader.getStringPool().intern(new String(ci.getName())), ci.getName());
+  }
+
+  /**
+   * @throws Exception
+   */
+  @Test public void sharedPool() throws Exception {
+    StringPool pool = new StringPool();
+    SBMLReader reader = new SBMLReader();
+    reader.setStringPooling(true);
+    reader.setSharedStringPool(pool);
+
+    Model first = read(reader).getModel();
+    int size = pool.size();
+    Model second = read(reader).getModel();
+
+    assertSame(pool, reader.getStringPool());
+    assertEquals(size, pool.size());
+    assertSame(first.getSpecies(0).getId(), second.getSpecies(0).getId());
+  }
+
+  /**
+   * Checks that only the identifiers and the references to them are pooled
+   * among the attribute values.
+   * 
+   * @throws Exception
+   */
+  @Test public void identifiersOnly() throws Exception {
+    SBMLReader reader = new SBMLReader();
+    reader.setStringPooling(true);
+    Model model = read(reader).getModel();
+
+    String metaId = new String(model.getSpecies(0).getMetaId());
+
+    assertSame(metaId, reader.getStringPool().intern(metaId));
+    assertSame(model.getSpecies(0).getId(), reader.getStringPool().intern(new String("pRB")));
+  }
+
+  /**
+   * Checks that the values no longer used elsewhere are removed from the
+   * pool.
+   * 
+   * @throws InterruptedException
+   */
+  @Test public void released() throws InterruptedException {
+    StringPool pool = new StringPool();
+    pool.intern(new String("released"));
+
+    for (int i = 0; (i < 50) && (pool.size() > 0); i++) {
+      System.gc();
+      Thread.sleep(10);
+    }
+    assertEquals(0, pool.size());
+  }
+
+}
@@ -25,7 +25,12 @@ import org.junit.runners.Suite.SuiteClasses;
 import org.sbml.jsbml.math.test.ASTNodeInfixParsingTest;
 import org.sbml.jsbml.math.test.ASTNodeTest;
 import org.sbml.jsbml.math.test.TestInfixOperatorPrecedence;
+import org.sbml.jsbml.test.ChangeDispatcherTest;
+import org.sbml.jsbml.test.ChildIndexTest;
+import org.sbml.jsbml.test.CompactSBaseTest;
+import org.sbml.jsbml.test.TreeHashCodeTest;
 import org.sbml.jsbml.test.IdRegistrationTest;
+import org.sbml.jsbml.test.ListOfIdIndexTest;
 import org.sbml.jsbml.test.RemoveFromParentTest;
 
 /**
@@ -38,7 +43,15 @@ import org.sbml.jsbml.test.RemoveFromParentTest;
 @SuiteClasses(value={SBML_L1VxTests.class, SBML_L2V1Test.class, CheckConsistencyTests.class, GetNotesStringTests.class,
   UnregisterTests.class, RemoveFromParentTest.class, CVTermTests.class, RemoveFromParentTest.class, ASTNodeTest.class,
   ASTNodeInfixParsingTest.class, TestInfixOperatorPrecedence.class, IdRegistrationTest.class, XMLTokenTest.class,
-  CreatorTests.class, NestedCVTermTests.class, XXEInjectionTests.class, LibsbmlCompatibilityTests.class})
+  CreatorTests.class, NestedCVTermTests.class, XXEInjectionTests.class, LibsbmlCompatibilityTests.class,
+  StreamingReaderTest.class, ConcurrentReaderTest.class, LazyNotesAndAnnotationTest.class,
+  LazyMathTest.class, SkippedElementsTest.class, CompressionTest.class,
+  StringPoolTest.class, ReaderStatisticsTest.class, ChunkReaderTest.class,
+  MappedFileReadingTest.class, ParallelReaderTest.class, DirectOutputTest.class,
+  DoubleFormatterTest.class, SourceCacheTest.class,
+  ParallelWriterTest.class, ChannelWriterTest.class, ChangeDispatcherTest.class,
+  CompactSBaseTest.class, TreeHashCodeTest.class, ListOfIdIndexTest.class,
+  ChildIndexTest.class})
 public class Tests {
 
 }
@@ -0,0 +1,90 @@
+/*
+ * ----------------------------------------------------------------------------
+ * This file is part of JSBML. Please visit <http://sbml.org/Software/JSBML>
+ * for the latest version of JSBML and more information about SBML.
+ *
+ * Copyright (C) 2009-2018 jointly by the following organizations:
+ * 1. The University of Tuebingen, Germany
+ * 2. EMBL European Bioinformatics Institute (EBML-EBI), Hinxton, UK
+ * 3. The California Institute of Technology, Pasadena, CA, USA
+ * 4. The University of California, San Diego, La Jolla, CA, USA
+ * 5. The Babraham Institute, Cambridge, UK
+ * 6. Marquette University, Milwaukee, WI USA
+ *
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation. A copy of the license agreement is provided
+ * in the file named "LICENSE.txt" included with this software distribution
+ * and also available online as <http://sbml.org/Software/JSBML/License>.
+ * ----------------------------------------------------------------------------
+ */
+package org.sbml.jsbml.ext.layout.test;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+import org.sbml.jsbml.ConcurrentSBMLReader;
+import org.sbml.jsbml.SBMLReader;
+import org.sbml.jsbml.SBMLWriter;
+
+/**
+ * Checks that documents using the layout package read in parallel with a
+ * {@link ConcurrentSBMLReader} are identical to the documents read
+ * sequentially, as each thread uses its own package parsers.
+ * 
+ * @since 1.6
+ */
+public class ConcurrentLayoutReaderTest {
+
+  /**
+   * 
+   */
+  private static final String[] FILES = {
+    "/org/sbml/jsbml/xml/test/data/layout/GlycolysisLayout_small.xml",
+    "/org/sbml/jsbml/xml/test/data/layout/Layout_Example_1.xml",
+    "/org/sbml/jsbml/xml/test/data/layout/layout_simple.xml"
+  };
+
+  /**
+   * @throws Exception
+   */
+  @Test public void parallelReads() throws Exception {
+    final List<String> expected = new ArrayList<String>();
+
+    for (String file : FILES) {
+      expected.add(new SBMLWriter().writeSBMLToString(SBMLReader.read(getClass().getResourceAsStream(file))));
+    }
+
+    final ConcurrentSBMLReader reader = new ConcurrentSBMLReader();
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    List<Future<String>> results = new ArrayList<Future<String>>();
+
+    try {
+      for (int i = 0; i < 24; i++) {
+        final String file = FILES[i % FILES.length];
+
+        results.add(executor.submit(new Callable<String>() {
+
+          @Override
+          public String call() throws Exception {
+            return new SBMLWriter().writeSBMLToString(reader.readSBMLFromStream(getClass().getResourceAsStream(file)));
+          }
+        }));
+      }
+
+      for (int i = 0; i < results.size(); i++) {
+        assertEquals(expected.get(i % FILES.length), results.get(i).get());
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+}
@@ -31,6 +31,6 @@ import org.junit.runners.Suite.SuiteClasses;
  */
 @RunWith(value=Suite.class)
 @SuiteClasses(value = {TextGlyphTest.class, SpeciesReferenceGlyphTest.class,
-  LayoutExtentionTest.class, CurveSegmentTest.class})
+  LayoutExtentionTest.class, CurveSegmentTest.class, ConcurrentLayoutReaderTest.class})
 public class LayoutJUnitTests {
 }
@@ -129,7 +129,7 @@ public class ListOfSpecies extends ListOf<org.sbml.jsbml.Species> {
 				}
 			}
 		}
-		for (TreeNodeChangeListener l : listOfListeners) {
+		for (TreeNodeChangeListener l : getListOfTreeNodeChangeListeners()) {
 			e.addTreeNodeChangeListener(l);
 		}
 		
@@ -37,16 +37,21 @@ import java.util.Calendar;
 
 import javax.xml.stream.XMLStreamException;
 
+import org.codehaus.stax2.XMLStreamWriter2;
 import org.sbml.jsbml.xml.stax.SBMLReader;
 import org.sbml.jsbml.xml.stax.SBMLWriter;
 import org.w3c.tidy.Tidy;
 
+import com.ctc.wstx.api.WstxOutputProperties;
+import com.ctc.wstx.stax.WstxOutputFactory;
+
 /**
  * Provides methods for writing SBML to files, text strings or streams.
  * <p>
- * This class is just a wrapper for the actual implementation. It does use <a href="http://jtidy.sourceforge.net/">JTidy</a>,
- *  a HTML/XML syntax checker and pretty printer, in order to have a proper XML indentation when writing the SBML
- *  document.
+ * This class is just a wrapper for the actual implementation. It lays out the SBML document with a proper XML
+ *  indentation while writing it, in one pass, with a {@link TidyXMLStreamWriter}. It can also use
+ *  <a href="http://jtidy.sourceforge.net/">JTidy</a>, a HTML/XML syntax checker and pretty printer, to indent the
+ *  written document again, see {@link #setSinglePass(boolean)} and {@link #setUserTidy(Tidy)}.
  * 
  * @author Nicolas Rodriguez
  * @since 1.1
@@ -88,6 +93,12 @@ public class TidySBMLWriter extends org.sbml.jsbml.SBMLWriter implements Cloneab
    */
   private Tidy userTidy = null;
 
+  /**
+   * Whether the document is laid out while it is written, rather than by
+   * JTidy once it is written.
+   */
+  private boolean singlePass = true;
+
   /**
    * Writes the given SBML document to a {@link File}.
    * 
@@ -519,6 +530,16 @@ public class TidySBMLWriter extends org.sbml.jsbml.SBMLWriter implements Cloneab
   public void write(SBMLDocument sbmlDocument, OutputStream stream)
       throws XMLStreamException, SBMLException
   {
+    if (isSinglePass()) {
+      WstxOutputFactory factory = new WstxOutputFactory();
+      factory.setProperty(WstxOutputProperties.P_ADD_SPACE_AFTER_EMPTY_ELEM, Boolean.TRUE);
+      XMLStreamWriter2 streamWriter = (XMLStreamWriter2) factory.createXMLStreamWriter(stream);
+
+      sbmlWriter.write(sbmlDocument, new TidyXMLStreamWriter(streamWriter,
+        getIndentationChar(), getIndentationCount()), getProgramName(), getProgramVersion());
+      return;
+    }
+
     String sbmlDocString = sbmlWriter.writeSBMLToString(sbmlDocument, getProgramName(), getProgramVersion());
 
     try {
@@ -652,6 +673,17 @@ public class TidySBMLWriter extends org.sbml.jsbml.SBMLWriter implements Cloneab
   public String writeSBMLToString(SBMLDocument sbmlDocument)
       throws XMLStreamException, SBMLException {
 
+    if (isSinglePass()) {
+      ByteArrayOutputStream outputSbml = new ByteArrayOutputStream();
+      write(sbmlDocument, outputSbml);
+
+      try {
+        return outputSbml.toString("UTF-8");
+      } catch (UnsupportedEncodingException e) {
+        throw new SBMLException(e);
+      }
+    }
+
     String sbmlDocString = sbmlWriter.writeSBMLToString(sbmlDocument, getProgramName(), getProgramVersion());
 
     // make sure that encoding is UTF-8 
@@ -689,6 +721,7 @@ public class TidySBMLWriter extends org.sbml.jsbml.SBMLWriter implements Cloneab
 
   /**
    * Sets the instance of {@link Tidy} that will be used to pretty print the SBML.
+   * The document is then written first and indented again by JTidy.
    * 
    * @param userTidy the {@link Tidy} instance to set
    */
@@ -696,6 +729,36 @@ public class TidySBMLWriter extends org.sbml.jsbml.SBMLWriter implements Cloneab
     this.userTidy = userTidy;
   }
 
+  /**
+   * Returns {@code true} if the document is laid out while it is written,
+   * which is the case unless {@link #setSinglePass(boolean)} was turned off
+   * or a {@link #setUserTidy(Tidy) user tidy} instance is set.
+   * 
+   * @return {@code true} if the document is laid out while it is written.
+   */
+  public boolean isSinglePass() {
+    return singlePass && (userTidy == null);
+  }
+
+  /**
+   * Sets whether the document should be laid out while it is written, with
+   * a {@link TidyXMLStreamWriter}, which is the default, or written first
+   * and then indented again by JTidy.
+   * 
+   * <p>Laying out the document while it is written costs about as much as
+   * writing it without indentation, while JTidy needs to parse the whole
+   * written document again. The layout is the same, except that JTidy
+   * writes the indentation with spaces only, writes the encoding of the XML
+   * declaration in lower case and escapes again the ampersand of the
+   * {@code &apos;} entities of the notes and annotations copied from their
+   * source, see {@link SBMLReader#setKeepSource(boolean)}.</p>
+   * 
+   * @param singlePass {@code false} to indent the document with JTidy.
+   */
+  public void setSinglePass(boolean singlePass) {
+    this.singlePass = singlePass;
+  }
+
   /**
    * 
    * @param args
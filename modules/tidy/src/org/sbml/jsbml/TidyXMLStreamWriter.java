@@ -0,0 +1,1065 @@
+/*
+ * ----------------------------------------------------------------------------
+ * This file is part of JSBML. Please visit <http://sbml.org/Software/JSBML>
+ * for the latest version of JSBML and more information about SBML.
+ * 
+ * Copyright (C) 2009-2018 jointly by the following organizations:
+ * 1. The University of Tuebingen, Germany
+ * 2. EMBL European Bioinformatics Institute (EBML-EBI), Hinxton, UK
+ * 3. The California Institute of Technology, Pasadena, CA, USA
+ * 4. The University of California, San Diego, La Jolla, CA, USA
+ * 5. The Babraham Institute, Cambridge, UK
+ * 
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation. A copy of the license agreement is provided
+ * in the file named "LICENSE.txt" included with this software distribution
+ * and also available online as <http://sbml.org/Software/JSBML/License>.
+ * ----------------------------------------------------------------------------
+ */
+package org.sbml.jsbml;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.codehaus.stax2.XMLStreamWriter2;
+import org.codehaus.stax2.util.StreamWriter2Delegate;
+
+import com.ctc.wstx.stax.WstxInputFactory;
+
+/**
+ * An {@link XMLStreamWriter2} that lays out the document written to it the
+ * way the {@link TidySBMLWriter} does, in one pass, before passing it on to
+ * another {@link XMLStreamWriter2}.
+ * 
+ * <p>The white spaces written between the elements are dropped, and each
+ * element or processing instruction starts on a new line, indented by its
+ * depth, while a comment starts on a new line without indentation, as JTidy
+ * writes it. An element containing only text is written on one line, as
+ * {@code <a>text</a>}. Like JTidy, when an element contains text, such as a
+ * paragraph of the notes, its child elements are indented as the element
+ * itself, a text follows the end tag of the previous element on the same
+ * line, and the end tag of the element follows its last content. The
+ * leading and trailing white spaces of a text are dropped, apart from one
+ * white space before an element, and the white spaces inside a text are
+ * collapsed into one space.</p>
+ * 
+ * <p>Whether an element contains text is only known once it is ended.
+ * Since mixed content only occurs in the notes, the annotations and the
+ * messages of an SBML document, the content of these elements is buffered
+ * until their end tag, and then laid out.</p>
+ * 
+ * <p>The XML written with {@link #writeRaw(String)}, such as the math,
+ * notes and annotations of a document read lazily, is parsed and laid out
+ * as well.</p>
+ * 
+ * @since 1.6
+ */
+public class TidyXMLStreamWriter extends StreamWriter2Delegate {
+
+  /**
+   * The name of the element enclosing the raw XML while it is parsed.
+   */
+  private static final String RAW_ELEMENT = "raw";
+
+  /**
+   * The names of the elements whose content is buffered until their end
+   * tag, as it may contain text mixed with elements.
+   */
+  private static final Set<String> BUFFERED_ELEMENTS = new HashSet<String>(
+      Arrays.asList("notes", "annotation", "message"));
+
+  /**
+   * The type of the buffered calls to {@link #writeEmptyElement(String)}.
+   */
+  private static final int EMPTY_ELEMENT = -1;
+
+  /**
+   * The type of the buffered calls to {@link #writeFullEndElement()}.
+   */
+  private static final int FULL_END_ELEMENT = -2;
+
+  /**
+   * The type of the buffered calls to {@link #setPrefix(String, String)}.
+   */
+  private static final int PREFIX = -3;
+
+  /**
+   * The type of the buffered calls to {@link #setDefaultNamespace(String)}.
+   */
+  private static final int DEFAULT_NAMESPACE = -4;
+
+  /**
+   * A buffered call to one of the writing methods of this writer.
+   */
+  private static final class Event {
+
+    /**
+     * The type of the call, one of the {@link XMLStreamConstants} or
+     * {@link #EMPTY_ELEMENT}, {@link #FULL_END_ELEMENT}, {@link #PREFIX} or
+     * {@link #DEFAULT_NAMESPACE}.
+     */
+    private final int type;
+
+    /**
+     * The arguments of the call.
+     */
+    private final String[] args;
+
+    /**
+     * @param type
+     * @param args
+     */
+    private Event(int type, String... args) {
+      this.type = type;
+      this.args = args;
+    }
+  }
+
+  /**
+   * The symbol for indentation.
+   */
+  private final char indentChar;
+
+  /**
+   * The number of indentation symbols for each level.
+   */
+  private final int indentCount;
+
+  /**
+   * A line break followed by the indentation of the deepest element written
+   * so far.
+   */
+  private char[] lineBreak = new char[0];
+
+  /**
+   * The text written since the last markup.
+   */
+  private final StringBuilder text = new StringBuilder();
+
+  /**
+   * No content was written in the current element.
+   */
+  private static final int NO_CONTENT = 0;
+
+  /**
+   * The last content written is text.
+   */
+  private static final int TEXT = 1;
+
+  /**
+   * The last content written is the end tag of an element with content.
+   */
+  private static final int END_TAG = 2;
+
+  /**
+   * The last content written is an empty element, a comment or a
+   * processing instruction.
+   */
+  private static final int EMPTY_MARKUP = 3;
+
+  /**
+   * For each open element, whether it contains any element, comment or
+   * processing instruction.
+   */
+  private boolean[] hasMarkup = new boolean[32];
+
+  /**
+   * For each open element, whether it contains text.
+   */
+  private boolean[] hasText = new boolean[32];
+
+  /**
+   * For each open element, whether any characters, even white spaces, were
+   * written in it, in which case it is not written as an empty element.
+   */
+  private boolean[] hasCharacters = new boolean[32];
+
+  /**
+   * The number of open elements.
+   */
+  private int depth;
+
+  /**
+   * The kind of the last content written, {@link #NO_CONTENT},
+   * {@link #TEXT}, {@link #END_TAG} or {@link #EMPTY_MARKUP}.
+   */
+  private int lastContent = NO_CONTENT;
+
+  /**
+   * Whether anything was written before the root element, which it then
+   * follows on a new line.
+   */
+  private boolean prologWritten;
+
+  /**
+   * Whether the root element was ended, followed by a line break, and
+   * nothing was written since.
+   */
+  private boolean lineEnded;
+
+  /**
+   * The factory creating the readers of the raw XML, created when first
+   * needed.
+   */
+  private XMLInputFactory inputFactory;
+
+  /**
+   * The calls buffered since the start tag of a buffered element, or
+   * {@code null} if no element is buffered.
+   */
+  private List<Event> events;
+
+  /**
+   * The number of open elements in the buffered element, including itself.
+   */
+  private int bufferedDepth;
+
+  /**
+   * Whether the buffered calls are written again.
+   */
+  private boolean replaying;
+
+  /**
+   * For each element written again, in the order of their start tags,
+   * whether it contains text.
+   */
+  private boolean[] textElements;
+
+  /**
+   * The number of elements written again so far.
+   */
+  private int textElementCount;
+
+  /**
+   * Creates a new {@link TidyXMLStreamWriter}.
+   * 
+   * @param writer the {@link XMLStreamWriter2} the laid out document is
+   *        written to.
+   * @param indentChar the symbol for indentation.
+   * @param indentCount the number of indentation symbols for each level.
+   */
+  public TidyXMLStreamWriter(XMLStreamWriter2 writer, char indentChar, int indentCount) {
+    super(writer);
+    // the constructor of stax2 3.1 does not set the XMLStreamWriter2 delegate
+    setParent(writer);
+    this.indentChar = indentChar;
+    this.indentCount = indentCount;
+  }
+
+  /**
+   * Writes a line break and the indentation of the given depth.
+   * 
+   * @param level
+   * @throws XMLStreamException
+   */
+  private void writeLineBreak(int level) throws XMLStreamException {
+    int length = 1 + level * indentCount;
+
+    if (lineBreak.length < length) {
+      lineBreak = new char[Math.max(length, 2 * lineBreak.length)];
+      Arrays.fill(lineBreak, indentChar);
+      lineBreak[0] = '\n';
+    }
+    mDelegate2.writeRaw(lineBreak, 0, length);
+  }
+
+  /**
+   * Writes the text written since the last markup, if it is not only made
+   * of white spaces.
+   * 
+   * @param beforeMarkup whether the text is followed by markup, in which
+   *        case a white space ending it is kept, as JTidy does.
+   * @throws XMLStreamException
+   */
+  private void flushText(boolean beforeMarkup) throws XMLStreamException {
+    int start = 0, end = text.length();
+
+    if ((end > 0) && (depth > 0)) {
+      hasCharacters[depth - 1] = true;
+    }
+
+    while ((start < end) && isWhiteSpace(text.charAt(start))) {
+      start++;
+    }
+    while ((end > start) && isWhiteSpace(text.charAt(end - 1))) {
+      end--;
+    }
+    if (start < end) {
+      if (beforeMarkup && (end < text.length())) {
+        text.setCharAt(end++, ' ');
+      }
+      startText();
+      writeCollapsed(start, end);
+    }
+    text.setLength(0);
+  }
+
+  /**
+   * Writes a part of the buffered text, with each sequence of white spaces
+   * replaced by one space and the {@code >} characters escaped, as JTidy
+   * does.
+   * 
+   * @param start
+   * @param end
+   * @throws XMLStreamException
+   */
+  private void writeCollapsed(int start, int end) throws XMLStreamException {
+    int length = 0;
+
+    for (int i = start; i < end; i++) {
+      char c = text.charAt(i);
+
+      if (isWhiteSpace(c)) {
+        if ((length > 0) && (text.charAt(start + length - 1) == ' ')) {
+          continue;
+        }
+        c = ' ';
+      } else if (c == '>') {
+        mDelegate2.writeCharacters(text.substring(start, start + length));
+        mDelegate2.writeEntityRef("gt");
+        start = i + 1;
+        length = 0;
+        continue;
+      }
+      text.setCharAt(start + length++, c);
+    }
+    mDelegate2.writeCharacters(text.substring(start, start + length));
+  }
+
+  /**
+   * Starts a new text in the current element, on a new line when it
+   * follows an empty element, a comment or a processing instruction.
+   * 
+   * @throws XMLStreamException
+   */
+  private void startText() throws XMLStreamException {
+    if (depth > 0) {
+      hasText[depth - 1] = true;
+
+      if (lastContent == EMPTY_MARKUP) {
+        writeLineBreak(depth - 1);
+      }
+    }
+    lastContent = TEXT;
+  }
+
+  /**
+   * Starts a new element, comment or processing instruction in the current
+   * element, on a new line.
+   * 
+   * @param indented whether the new line is indented, which JTidy does not
+   *        do for the comments.
+   * @throws XMLStreamException
+   */
+  private void startMarkup(boolean indented) throws XMLStreamException {
+    flushText(true);
+
+    if (depth == 0) {
+      if (prologWritten && !lineEnded) {
+        writeLineBreak(0);
+      }
+      prologWritten = true;
+      lineEnded = false;
+    } else {
+      writeLineBreak(!indented ? 0 : hasText[depth - 1] ? depth - 1 : depth);
+      hasMarkup[depth - 1] = true;
+    }
+    lastContent = EMPTY_MARKUP;
+  }
+
+  /**
+   * Ends the line of the root element, once it is ended, as the end of the
+   * document may not be written when the whole document is copied from its
+   * source.
+   * 
+   * @throws XMLStreamException
+   */
+  private void endRoot() throws XMLStreamException {
+    if (depth == 0) {
+      mDelegate2.writeRaw("\n");
+      lineEnded = true;
+    }
+  }
+
+  /**
+   * Records the start of a new element.
+   */
+  private void push() {
+    if (depth == hasMarkup.length) {
+      hasMarkup = Arrays.copyOf(hasMarkup, 2 * depth);
+      hasText = Arrays.copyOf(hasText, 2 * depth);
+      hasCharacters = Arrays.copyOf(hasCharacters, 2 * depth);
+    }
+    hasMarkup[depth] = false;
+    hasText[depth] = replaying && textElements[textElementCount++];
+    hasCharacters[depth] = false;
+    depth++;
+    lastContent = NO_CONTENT;
+  }
+
+  /**
+   * Prepares the end tag of the current element, on a new line when the
+   * element only contains elements.
+   * 
+   * @return {@code true} if the element has no content but white spaces
+   *         were written in it, in which case JTidy writes both its start
+   *         and end tags rather than an empty element.
+   * @throws XMLStreamException
+   */
+  private boolean pop() throws XMLStreamException {
+    flushText(false);
+    depth--;
+
+    if (hasMarkup[depth] && !hasText[depth]) {
+      writeLineBreak(depth);
+    }
+    if (hasMarkup[depth] || hasText[depth]) {
+      lastContent = END_TAG;
+      return false;
+    }
+    lastContent = EMPTY_MARKUP;
+
+    return hasCharacters[depth];
+  }
+
+  /**
+   * @param c
+   * @return {@code true} if the given character is an XML white space.
+   */
+  private static boolean isWhiteSpace(char c) {
+    return (c == ' ') || (c == '\n') || (c == '\t') || (c == '\r');
+  }
+
+  /**
+   * @param text
+   * @param start
+   * @param length
+   * @return {@code true} if the given text is only made of white spaces.
+   */
+  private static boolean isWhiteSpace(CharSequence text, int start, int length) {
+    for (int i = start; i < start + length; i++) {
+      if (!isWhiteSpace(text.charAt(i))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Buffers the start tag of an element, if it is written in a buffered
+   * element or is itself one of the {@link #BUFFERED_ELEMENTS}.
+   * 
+   * @param localName
+   * @param type
+   * @param args
+   * @return {@code true} if the start tag is buffered.
+   * @throws XMLStreamException
+   */
+  private boolean bufferStart(String localName, int type, String... args) throws XMLStreamException {
+    if ((events == null) && !replaying && BUFFERED_ELEMENTS.contains(localName)) {
+      events = new ArrayList<Event>();
+    }
+    return buffer(type, args);
+  }
+
+  /**
+   * Buffers a call to one of the writing methods of this writer, if an
+   * element is buffered, and writes the buffered calls again once the end
+   * tag of the buffered element is written.
+   * 
+   * @param type
+   * @param args
+   * @return {@code true} if the call is buffered.
+   * @throws XMLStreamException
+   */
+  private boolean buffer(int type, String... args) throws XMLStreamException {
+    if (events == null) {
+      return false;
+    }
+    events.add(new Event(type, args));
+
+    if (type == XMLStreamConstants.START_ELEMENT) {
+      bufferedDepth++;
+    } else if ((type == XMLStreamConstants.END_ELEMENT) || (type == FULL_END_ELEMENT)) {
+      if (--bufferedDepth == 0) {
+        List<Event> buffered = events;
+        events = null;
+        replay(buffered);
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Writes the given buffered calls again, knowing for each element whether
+   * it contains text.
+   * 
+   * @param buffered
+   * @throws XMLStreamException
+   */
+  private void replay(List<Event> buffered) throws XMLStreamException {
+    textElements = new boolean[buffered.size()];
+    int[] open = new int[buffered.size()];
+    int count = 0, level = 0;
+
+    for (Event event : buffered) {
+      switch (event.type) {
+      case XMLStreamConstants.START_ELEMENT:
+        open[level++] = count++;
+        break;
+      case XMLStreamConstants.END_ELEMENT:
+      case FULL_END_ELEMENT:
+        level--;
+        break;
+      case XMLStreamConstants.CHARACTERS:
+      case XMLStreamConstants.CDATA:
+      case XMLStreamConstants.ENTITY_REFERENCE:
+        if ((level > 0) && ((event.type != XMLStreamConstants.CHARACTERS)
+            || !isWhiteSpace(event.args[0], 0, event.args[0].length()))) {
+          textElements[open[level - 1]] = true;
+        }
+        break;
+      default:
+        break;
+      }
+    }
+    replaying = true;
+    textElementCount = 0;
+
+    try {
+      for (Event event : buffered) {
+        replay(event);
+      }
+    } finally {
+      replaying = false;
+      textElements = null;
+    }
+  }
+
+  /**
+   * Writes the given buffered call again.
+   * 
+   * @param event
+   * @throws XMLStreamException
+   */
+  private void replay(Event event) throws XMLStreamException {
+    String[] args = event.args;
+
+    switch (event.type) {
+    case XMLStreamConstants.START_ELEMENT:
+      if (args.length == 1) {
+        writeStartElement(args[0]);
+      } else if (args.length == 2) {
+        writeStartElement(args[0], args[1]);
+      } else {
+        writeStartElement(args[0], args[1], args[2]);
+      }
+      break;
+    case EMPTY_ELEMENT:
+      if (args.length == 1) {
+        writeEmptyElement(args[0]);
+      } else if (args.length == 2) {
+        writeEmptyElement(args[0], args[1]);
+      } else {
+        writeEmptyElement(args[0], args[1], args[2]);
+      }
+      break;
+    case XMLStreamConstants.END_ELEMENT:
+      writeEndElement();
+      break;
+    case FULL_END_ELEMENT:
+      writeFullEndElement();
+      break;
+    case XMLStreamConstants.ATTRIBUTE:
+      if (args.length == 2) {
+        super.writeAttribute(args[0], args[1]);
+      } else if (args.length == 3) {
+        super.writeAttribute(args[0], args[1], args[2]);
+      } else {
+        super.writeAttribute(args[0], args[1], args[2], args[3]);
+      }
+      break;
+    case XMLStreamConstants.NAMESPACE:
+      if (args.length == 1) {
+        super.writeDefaultNamespace(args[0]);
+      } else {
+        super.writeNamespace(args[0], args[1]);
+      }
+      break;
+    case PREFIX:
+      super.setPrefix(args[0], args[1]);
+      break;
+    case DEFAULT_NAMESPACE:
+      super.setDefaultNamespace(args[0]);
+      break;
+    case XMLStreamConstants.CHARACTERS:
+      writeCharacters(args[0]);
+      break;
+    case XMLStreamConstants.CDATA:
+      writeCData(args[0]);
+      break;
+    case XMLStreamConstants.ENTITY_REFERENCE:
+      writeEntityRef(args[0]);
+      break;
+    case XMLStreamConstants.COMMENT:
+      writeComment(args[0]);
+      break;
+    case XMLStreamConstants.PROCESSING_INSTRUCTION:
+      if (args.length == 1) {
+        writeProcessingInstruction(args[0]);
+      } else {
+        writeProcessingInstruction(args[0], args[1]);
+      }
+      break;
+    default:
+      break;
+    }
+  }
+
+  /**
+   * Parses the given XML and writes its content to this writer.
+   * 
+   * @param xml
+   * @throws XMLStreamException
+   */
+  private void writeParsed(String xml) throws XMLStreamException {
+    if (inputFactory == null) {
+      // the prefixes are kept as they are, as the namespaces are declared by the enclosing elements
+      inputFactory = new WstxInputFactory();
+      inputFactory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, Boolean.FALSE);
+      inputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+    }
+    XMLStreamReader reader = inputFactory.createXMLStreamReader(new StringReader(
+      "<" + RAW_ELEMENT + ">" + xml + "</" + RAW_ELEMENT + ">"));
+    int level = 0;
+
+    try {
+      while (reader.hasNext()) {
+        switch (reader.next()) {
+        case XMLStreamConstants.START_ELEMENT:
+          if (level++ > 0) {
+            writeStartElement(reader.getLocalName());
+
+            for (int i = 0; i < reader.getAttributeCount(); i++) {
+              writeAttribute(reader.getAttributeLocalName(i), reader.getAttributeValue(i));
+            }
+          }
+          break;
+        case XMLStreamConstants.END_ELEMENT:
+          if (--level > 0) {
+            writeEndElement();
+          }
+          break;
+        case XMLStreamConstants.CHARACTERS:
+        case XMLStreamConstants.SPACE:
+          writeCharacters(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+          break;
+        case XMLStreamConstants.CDATA:
+          writeCData(reader.getText());
+          break;
+        case XMLStreamConstants.COMMENT:
+          writeComment(reader.getText());
+          break;
+        case XMLStreamConstants.PROCESSING_INSTRUCTION:
+          writeProcessingInstruction(reader.getPITarget(), reader.getPIData());
+          break;
+        case XMLStreamConstants.ENTITY_REFERENCE:
+          writeEntityRef(reader.getLocalName());
+          break;
+        default:
+          break;
+        }
+      }
+    } finally {
+      reader.close();
+    }
+  }
+
+  /* (non-Javadoc)
+   * @see org.codehaus.stax2.util.StreamWriterDelegate#writeStartDocument()
+   */
+  @Override
+  public void writeStartDocument() throws XMLStreamException {
+    super.writeStartDocument();
+    prologWritten = true;
+  }
+
+  /* (non-Javadoc)
+   * @see org.codehaus.stax2.util.StreamWriterDelegate#writeStartDocument(java.lang.String)
+   */
+  @Override
+  public void writeStartDocument(String version) throws XMLStreamException {
+    super.writeStartDocument(version);
+    prologWritten = true;
+  }
+
+  /* (non-Javadoc)
+   * @see org.codehaus.stax2.util.StreamWriterDelegate#writeStartDocument(java.lang.String, java.lang.String)
+   */
+  @Override
+  public void writeStartDocument(String encoding, String version) throws XMLStreamException {
+    super.writeStartDocument(encoding, version);
+    prologWritten = true;
+  }
+
+  /* (non-Javadoc)
+   * @see org.codehaus.stax2.util.StreamWriter2Delegate#writeStartDocument(java.lang.String, java.lang.String, boolean)
+   */
+  @Override
+  public void writeStartDocument(String version, String encoding, boolean standAlone) throws XMLStreamException {
+    super.writeStartDocument(version, encoding, standAlone);
+    prologWritten = true;
+  }
+
+  /* (non-Javadoc)
+   * @see org.codehaus.stax2.util.StreamWriter2Delegate#writeDTD(java.lang.String, java.lang.String, java.lang.String, java.lang.String)
+   */
+  @Override
+  public void writeDTD(String rootName, String systemId, String publicId, String internalSubset) throws XMLStreamException {
+    startMarkup(true);
+    super.writeDTD(rootName, systemId, publicId, internalSubset);
+  }
+
+  /* (non-Javadoc)
+   * @see org.codehaus.stax2.util.StreamWriterDelegate#writeDTD(java.lang.String)
+   */
+  @Override
+  public void writeDTD(String dtd) throws XMLStreamException {
+    startMarkup(true);
+    super.writeDTD(dtd);
+  }
+
+  /* (non-Javadoc)
+   * @see org.codehaus.stax2.util.StreamWriterDelegate#writeStartElement(java.lang.String)
+   */
+  @Override
+  public void writeStartElement(String localName) throws XMLStreamException {
+    if (bufferStart(localName, XMLStreamConstants.START_ELEMENT, localName)) {
+      return;
+    }
+    startMarkup(true);
+    super.writeStartElement(localName);
+    push();
+  }
+
+  /* (non-Javadoc)
+   * @see org.codehaus.stax2.util.StreamWriterDelegate#writeStartElement(java.lang.String, java.lang.String)
+   */
+  @Override
+  public void writeStartElement(String namespaceURI, String localName) throws XMLStreamException {
+    if (bufferStart(localName, XMLStreamConstants.START_ELEMENT, namespaceURI, localName)) {
+      return;
+    }
+    startMarkup(true);
+    super.writeStartElement(namespaceURI, localName);
+    push();
+  }
+
+  /* (non-Javadoc)
+   * @see org.codehaus.stax2.util.StreamWriterDelegate#writeStartElement(java.lang.String, java.lang.String, java.lang.String)
+   */
+  @Override
+  public void writeStartElement(String prefix, String localName, String namespaceURI) throws XMLStreamException {
+    if (bufferStart(localName, XMLStreamConstants.START_ELEMENT, prefix, localName, namespaceURI)) {
+      return;
+    }
+    startMarkup(true);
+    super.writeStartElement(prefix, localName, namespaceURI);
+    push();
+  }
+
+  /* (non-Javadoc)
+   * @see org.codehaus.stax2.util.StreamWriterDelegate#writeEmptyElement(java.lang.String)
+   */
+  @Override
+  public void writeEmptyElement(String localName) throws XMLStreamException {
+    if (buffer(EMPTY_ELEMENT, localName)) {
+      return;
+    }
+    startMarkup(true);
+    super.writeEmptyElement(localName);
+  }
+
+  /* (non-Javadoc)
+   * @see org.codehaus.stax2.util.StreamWriterDelegate#writeEmptyElement(java.lang.String, java.lang.String)
+   */
+  @Override
+  public void writeEmptyElement(String namespaceURI, String localName) throws XMLStreamException {
+    if (buffer(EMPTY_ELEMENT, namespaceURI, localName)) {
+      return;
+    }
+    startMarkup(true);
+    super.writeEmptyElement(namespaceURI, localName);
+  }
+
+  /* (non-Javadoc)
+   * @see org.codehaus.stax2.util.StreamWriterDelegate#writeEmptyElement(java.lang.String, java.lang.String, java.lang.String)
+   */
+  @Override
+  public void writeEmptyElement(String prefix, String localName, String namespaceURI) throws XMLStreamException {
+    if (buffer(EMPTY_ELEMENT, prefix, localName, namespaceURI)) {
+      return;
+    }
+    startMarkup(true);
+    super.writeEmptyElement(prefix, localName, namespaceURI);
+  }
+
+  /* (non-Javadoc)
+   * @see org.codehaus.stax2.util.StreamWriterDelegate#writeEndElement()
+   */
+  @Override
+  public void writeEndElement() throws XMLStreamException {
+    if (buffer(XMLStreamConstants.END_ELEMENT)) {
+      return;
+    }
+    if (pop()) {
+      super.writeFullEndElement();
+    } else {
+      super.writeEndElement();
+    }
+    endRoot();
+  }
+
+  /* (non-Javadoc)
+   * @see org.codehaus.stax2.util.StreamWriter2Delegate#writeFullEndElement()
+   */
+  @Override
+  public void writeFullEndElement() throws XMLStreamException {
+    if (buffer(FULL_END_ELEMENT)) {
+      return;
+    }
+    pop();
+    super.writeFullEndElement();
+    endRoot();
+  }
+
+  /* (non-Javadoc)
+   * @see org.codehaus.stax2.util.StreamWriterDelegate#writeAttribute(java.lang.String, java.lang.String)
+   */
+  @Override
+  public void writeAttribute(String localName, String value) throws XMLStreamException {
+    if (!buffer(XMLStreamConstants.ATTRIBUTE, localName, value)) {
+      super.writeAttribute(localName, value);
+    }
+  }
+
+  /* (non-Javadoc)
+   * @see org.codehaus.stax2.util.StreamWriterDelegate#writeAttribute(java.lang.String, java.lang.String, java.lang.String)
+   */
+  @Override
+  public void writeAttribute(String namespaceURI, String localName, String value) throws XMLStreamException {
+    if (!buffer(XMLStreamConstants.ATTRIBUTE, namespaceURI, localName, value)) {
+      super.writeAttribute(namespaceURI, localName, value);
+    }
+  }
+
+  /* (non-Javadoc)
+   * @see org.codehaus.stax2.util.StreamWriterDelegate#writeAttribute(java.lang.String, java.lang.String, java.lang.String, java.lang.String)
+   */
+  @Override
+  public void writeAttribute(String prefix, String namespaceURI, String localName, String value) throws XMLStreamException {
+    if (!buffer(XMLStreamConstants.ATTRIBUTE, prefix, namespaceURI, localName, value)) {
+      super.writeAttribute(prefix, namespaceURI, localName, value);
+    }
+  }
+
+  /* (non-Javadoc)
+   * @see org.codehaus.stax2.util.StreamWriterDelegate#writeNamespace(java.lang.String, java.lang.String)
+   */
+  @Override
+  public void writeNamespace(String prefix, String namespaceURI) throws XMLStreamException {
+    if (!buffer(XMLStreamConstants.NAMESPACE, prefix, namespaceURI)) {
+      super.writeNamespace(prefix, namespaceURI);
+    }
+  }
+
+  /* (non-Javadoc)
+   * @see org.codehaus.stax2.util.StreamWriterDelegate#writeDefaultNamespace(java.lang.String)
+   */
+  @Override
+  public void writeDefaultNamespace(String namespaceURI) throws XMLStreamException {
+    if (!buffer(XMLStreamConstants.NAMESPACE, namespaceURI)) {
+      super.writeDefaultNamespace(namespaceURI);
+    }
+  }
+
+  /* (non-Javadoc)
+   * @see org.codehaus.stax2.util.StreamWriterDelegate#setPrefix(java.lang.String, java.lang.String)
+   */
+  @Override
+  public void setPrefix(String prefix, String uri) throws XMLStreamException {
+    if (!buffer(PREFIX, prefix, uri)) {
+      super.setPrefix(prefix, uri);
+    }
+  }
+
+  /* (non-Javadoc)
+   * @see org.codehaus.stax2.util.StreamWriterDelegate#setDefaultNamespace(java.lang.String)
+   */
+  @Override
+  public void setDefaultNamespace(String uri) throws XMLStreamException {
+    if (!buffer(DEFAULT_NAMESPACE, uri)) {
+      super.setDefaultNamespace(uri);
+    }
+  }
+
+  /* (non-Javadoc)
+   * @see org.codehaus.stax2.util.StreamWriterDelegate#writeEndDocument()
+   */
+  @Override
+  public void writeEndDocument() throws XMLStreamException {
+    flushText(false);
+    while (depth > 0) {
+      writeEndElement();
+    }
+    if (!lineEnded) {
+      mDelegate2.writeRaw("\n");
+    }
+    super.writeEndDocument();
+  }
+
+  /* (non-Javadoc)
+   * @see org.codehaus.stax2.util.StreamWriterDelegate#writeCharacters(java.lang.String)
+   */
+  @Override
+  public void writeCharacters(String text) throws XMLStreamException {
+    if (buffer(XMLStreamConstants.CHARACTERS, text)) {
+      return;
+    }
+    this.text.append(text);
+  }
+
+  /* (non-Javadoc)
+   * @see org.codehaus.stax2.util.StreamWriterDelegate#writeCharacters(char[], int, int)
+   */
+  @Override
+  public void writeCharacters(char[] text, int start, int len) throws XMLStreamException {
+    if (buffer(XMLStreamConstants.CHARACTERS, new String(text, start, len))) {
+      return;
+    }
+    this.text.append(text, start, len);
+  }
+
+  /* (non-Javadoc)
+   * @see org.codehaus.stax2.util.StreamWriter2Delegate#writeSpace(java.lang.String)
+   */
+  @Override
+  public void writeSpace(String text) throws XMLStreamException {
+    // the white spaces between the elements are written by this writer
+  }
+
+  /* (non-Javadoc)
+   * @see org.codehaus.stax2.util.StreamWriter2Delegate#writeSpace(char[], int, int)
+   */
+  @Override
+  public void writeSpace(char[] text, int offset, int length) throws XMLStreamException {
+    // the white spaces between the elements are written by this writer
+  }
+
+  /* (non-Javadoc)
+   * @see org.codehaus.stax2.util.StreamWriterDelegate#writeCData(java.lang.String)
+   */
+  @Override
+  public void writeCData(String data) throws XMLStreamException {
+    if (buffer(XMLStreamConstants.CDATA, data)) {
+      return;
+    }
+    flushText(true);
+    startText();
+    super.writeCData(data);
+  }
+
+  /* (non-Javadoc)
+   * @see org.codehaus.stax2.util.StreamWriter2Delegate#writeCData(char[], int, int)
+   */
+  @Override
+  public void writeCData(char[] text, int start, int len) throws XMLStreamException {
+    writeCData(new String(text, start, len));
+  }
+
+  /* (non-Javadoc)
+   * @see org.codehaus.stax2.util.StreamWriterDelegate#writeEntityRef(java.lang.String)
+   */
+  @Override
+  public void writeEntityRef(String name) throws XMLStreamException {
+    if (buffer(XMLStreamConstants.ENTITY_REFERENCE, name)) {
+      return;
+    }
+    flushText(true);
+    startText();
+    super.writeEntityRef(name);
+  }
+
+  /* (non-Javadoc)
+   * @see org.codehaus.stax2.util.StreamWriterDelegate#writeComment(java.lang.String)
+   */
+  @Override
+  public void writeComment(String data) throws XMLStreamException {
+    if (buffer(XMLStreamConstants.COMMENT, data)) {
+      return;
+    }
+    startMarkup(false);
+    super.writeComment(data);
+  }
+
+  /* (non-Javadoc)
+   * @see org.codehaus.stax2.util.StreamWriterDelegate#writeProcessingInstruction(java.lang.String)
+   */
+  @Override
+  public void writeProcessingInstruction(String target) throws XMLStreamException {
+    if (buffer(XMLStreamConstants.PROCESSING_INSTRUCTION, target)) {
+      return;
+    }
+    startMarkup(true);
+    super.writeProcessingInstruction(target);
+  }
+
+  /* (non-Javadoc)
+   * @see org.codehaus.stax2.util.StreamWriterDelegate#writeProcessingInstruction(java.lang.String, java.lang.String)
+   */
+  @Override
+  public void writeProcessingInstruction(String target, String data) throws XMLStreamException {
+    if (buffer(XMLStreamConstants.PROCESSING_INSTRUCTION, target, data)) {
+      return;
+    }
+    startMarkup(true);
+    super.writeProcessingInstruction(target, data);
+  }
+
+  /* (non-Javadoc)
+   * @see org.codehaus.stax2.util.StreamWriter2Delegate#writeRaw(java.lang.String)
+   */
+  @Override
+  public void writeRaw(String text) throws XMLStreamException {
+    writeRaw(text, 0, text.length());
+  }
+
+  /* (non-Javadoc)
+   * @see org.codehaus.stax2.util.StreamWriter2Delegate#writeRaw(java.lang.String, int, int)
+   */
+  @Override
+  public void writeRaw(String text, int offset, int length) throws XMLStreamException {
+    if (!isWhiteSpace(text, offset, length)) {
+      writeParsed(text.substring(offset, offset + length));
+    }
+  }
+
+  /* (non-Javadoc)
+   * @see org.codehaus.stax2.util.StreamWriter2Delegate#writeRaw(char[], int, int)
+   */
+  @Override
+  public void writeRaw(char[] text, int offset, int length) throws XMLStreamException {
+    writeRaw(new String(text, offset, length));
+  }
+
+}
@@ -0,0 +1,112 @@
+/*
+ * ----------------------------------------------------------------------------
+ * This file is part of JSBML. Please visit <http://sbml.org/Software/JSBML>
+ * for the latest version of JSBML and more information about SBML.
+ * 
+ * Copyright (C) 2009-2018 jointly by the following organizations:
+ * 1. The University of Tuebingen, Germany
+ * 2. EMBL European Bioinformatics Institute (EBML-EBI), Hinxton, UK
+ * 3. The California Institute of Technology, Pasadena, CA, USA
+ * 4. The University of California, San Diego, La Jolla, CA, USA
+ * 5. The Babraham Institute, Cambridge, UK
+ * 
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation. A copy of the license agreement is provided
+ * in the file named "LICENSE.txt" included with this software distribution
+ * and also available online as <http://sbml.org/Software/JSBML/License>.
+ * ----------------------------------------------------------------------------
+ */
+package org.sbml.jsbml;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+
+import org.junit.Test;
+import org.sbml.jsbml.xml.stax.SBMLReader;
+
+/**
+ * Checks that the documents laid out in one pass by the
+ * {@link TidySBMLWriter} are identical to the documents indented by JTidy.
+ * 
+ * @since 1.6
+ */
+public class TidySBMLWriterTest {
+
+  /**
+   * The folder of the test models of the core, relative to this module.
+   */
+  private static final String DATA_FOLDER = "../../core/test/org/sbml/jsbml/xml/test/data/";
+
+  /**
+   * Models with notes mixing text and elements, comments, entities and
+   * most of the SBML elements.
+   */
+  private static final String[] FILES = {
+    "l2v1/BIOMD0000000025.xml",
+    "l2v1/BIOMD0000000227.xml",
+    "l2v3/BIOMD0000000191.xml",
+    "l2v4/BIOMD0000000228.xml",
+    "l2v4/BIOMD0000000229.xml",
+    "libsbml-test-data/l1v1-branch-schema-error.xml",
+    "libsbml-test-data/l1v1-rules.xml",
+    "libsbml-test-data/l2v1-2D-compartments.xml",
+    "libsbml-test-data/l2v1-functions.xml",
+    "libsbml-test-data/l2v3-all.xml",
+    "libsbml-test-data/l2v4-new.xml"
+  };
+
+  /**
+   * @param writer
+   * @param document
+   * @return the given document indented by JTidy, with the encoding of the
+   *         XML declaration in upper case, as in the documents laid out in
+   *         one pass.
+   * @throws Exception
+   */
+  private static String writeWithJTidy(TidySBMLWriter writer, SBMLDocument document) throws Exception {
+    writer.setSinglePass(false);
+    try {
+      return writer.writeSBMLToString(document).replace("encoding='utf-8'", "encoding='UTF-8'");
+    } finally {
+      writer.setSinglePass(true);
+    }
+  }
+
+  /**
+   * @throws Exception
+   */
+  @Test public void singlePass() throws Exception {
+    TidySBMLWriter writer = new TidySBMLWriter();
+
+    for (String file : FILES) {
+      SBMLDocument document = new SBMLReader().readSBML(new File(DATA_FOLDER + file));
+
+      assertEquals(file, writeWithJTidy(writer, document), writer.writeSBMLToString(document));
+    }
+  }
+
+  /**
+   * Checks the documents copied from their source, whose notes,
+   * annotations and math are written as raw XML.
+   * 
+   * @throws Exception
+   */
+  @Test public void singlePassFromSource() throws Exception {
+    TidySBMLWriter writer = new TidySBMLWriter();
+    SBMLReader reader = new SBMLReader();
+    reader.setLazyNotesAndAnnotation(true);
+    reader.setLazyMath(true);
+    reader.setKeepSource(true);
+
+    for (String file : FILES) {
+      SBMLDocument document = reader.readSBML(new File(DATA_FOLDER + file));
+
+      // JTidy escapes the ampersand of the &apos; entities of the source again
+      assertEquals(file, writeWithJTidy(writer, document).replace("&amp;apos;", "'"),
+        writer.writeSBMLToString(document));
+    }
+  }
+
+}